@@ -2,6 +2,7 @@ package it.unibz.inf.ontop.owlapi.resultset;
 
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.apache.commons.rdf.api.IRI;
 
@@ -14,6 +15,11 @@ public interface MaterializedGraphOWLResultSet extends GraphOWLResultSet {
      */
     long getTripleCountSoFar();
 
+    /**
+     * Number of RDF triples that have been materialized so far for each RDF property/class (progress).
+     */
+    ImmutableMap<IRI, Long> getTripleCountPerRDFPropertyAndClassSoFar();
+
     /**
      * Returns true if a problem has occurred so far.
      *
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.owlapi.resultset.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.answering.resultset.MaterializedGraphResultSet;
 import it.unibz.inf.ontop.owlapi.resultset.MaterializedGraphOWLResultSet;
@@ -22,6 +23,11 @@ public class OntopMaterializedGraphOWLResultSet extends OntopGraphOWLResultSet
         return graphResultSet.getTripleCountSoFar();
     }
 
+    @Override
+    public ImmutableMap<IRI, Long> getTripleCountPerRDFPropertyAndClassSoFar() {
+        return graphResultSet.getTripleCountPerRDFPropertyAndClassSoFar();
+    }
+
     @Override
     public ImmutableList<IRI> getPossiblyIncompleteRDFPropertiesAndClassesSoFar() {
         return graphResultSet.getPossiblyIncompleteRDFPropertiesAndClassesSoFar();
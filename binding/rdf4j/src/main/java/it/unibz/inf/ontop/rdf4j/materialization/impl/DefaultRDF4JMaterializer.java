@@ -206,6 +206,11 @@ public class DefaultRDF4JMaterializer implements RDF4JMaterializer {
             return graphResultSet.getTripleCountSoFar();
         }
 
+        @Override
+        public ImmutableMap<IRI, Long> getTripleCountPerRDFPropertyAndClassSoFar() {
+            return graphResultSet.getTripleCountPerRDFPropertyAndClassSoFar();
+        }
+
         @Override
         public boolean hasEncounteredProblemsSoFar() {
             return graphResultSet.hasEncounteredProblemsSoFar();
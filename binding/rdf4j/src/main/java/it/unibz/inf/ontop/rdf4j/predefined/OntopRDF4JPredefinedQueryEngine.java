@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import org.eclipse.rdf4j.query.GraphQueryResult;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.TupleQueryResult;
 
 import java.io.OutputStream;
 import java.util.function.BiConsumer;
@@ -46,6 +47,23 @@ public interface OntopRDF4JPredefinedQueryEngine {
 
     GraphQueryResult evaluateGraph(String queryId, ImmutableMap<String, String> bindings) throws QueryEvaluationException;
 
-    // TODO: add methods for select and ask
+    TupleQueryResult evaluateTuple(String queryId, ImmutableMap<String, String> bindings) throws QueryEvaluationException;
+
+    /**
+     * Per predefined query id
+     */
+    ImmutableMap<String, ReferenceQueryCacheStats> getReferenceQueryCacheStats();
+
+    /**
+     * Flushes the reference queries of all the predefined queries
+     */
+    void flushReferenceQueryCache();
+
+    /**
+     * Flushes the reference queries of one predefined query
+     */
+    void flushReferenceQueryCache(String queryId);
+
+    // TODO: add a method for ask
 
 }
@@ -33,4 +33,10 @@ public interface PredefinedQuery<Q extends RDF4JInputQuery> {
      * NB: the bindings should have been validated before
      */
     ImmutableMap<String, String> replaceWithReferenceValues(ImmutableMap<String, String> bindings);
+
+    /**
+     * Reference values for all the parameters.
+     * Empty if some parameters are not safe for random generation.
+     */
+    Optional<ImmutableMap<String, String>> getReferenceBindings();
 }
@@ -1,4 +1,6 @@
 package it.unibz.inf.ontop.rdf4j.predefined;
 
-public interface PredefinedTupleQuery extends PredefinedQuery {
+import it.unibz.inf.ontop.answering.reformulation.input.RDF4JSelectQuery;
+
+public interface PredefinedTupleQuery extends PredefinedQuery<RDF4JSelectQuery> {
 }
@@ -0,0 +1,50 @@
+package it.unibz.inf.ontop.rdf4j.predefined;
+
+/**
+ * Statistics of the reference query cache for one predefined query
+ */
+public class ReferenceQueryCacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long entryCount;
+    private final long weight;
+
+    public ReferenceQueryCacheStats(long hitCount, long missCount, long evictionCount, long entryCount, long weight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.entryCount = entryCount;
+        this.weight = weight;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Entries removed because of the size or weight bound (not by a flush)
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, evictions=%d, entries=%d, weight=%d",
+                hitCount, missCount, evictionCount, entryCount, weight);
+    }
+}
@@ -4,7 +4,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import it.unibz.inf.ontop.rdf4j.predefined.OntopRDF4JPredefinedQueryEngine;
+import it.unibz.inf.ontop.rdf4j.predefined.ReferenceQueryCacheStats;
 import org.eclipse.rdf4j.query.GraphQueryResult;
+import org.eclipse.rdf4j.query.TupleQueryResult;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 
@@ -41,4 +43,22 @@ public class FakeOntopRDF4JPredefinedQueryEngine implements OntopRDF4JPredefined
     public GraphQueryResult evaluateGraph(String queryId, ImmutableMap<String, String> bindings) throws QueryEvaluationException {
         throw new UnsupportedOperationException("Intended to be used by the HTTP endpoint only");
     }
+
+    @Override
+    public TupleQueryResult evaluateTuple(String queryId, ImmutableMap<String, String> bindings) throws QueryEvaluationException {
+        throw new UnsupportedOperationException("Intended to be used by the HTTP endpoint only");
+    }
+
+    @Override
+    public ImmutableMap<String, ReferenceQueryCacheStats> getReferenceQueryCacheStats() {
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public void flushReferenceQueryCache() {
+    }
+
+    @Override
+    public void flushReferenceQueryCache(String queryId) {
+    }
 }
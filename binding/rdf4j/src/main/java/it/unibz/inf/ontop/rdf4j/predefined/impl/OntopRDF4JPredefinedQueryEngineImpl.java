@@ -6,9 +6,12 @@ import com.github.jsonldjava.core.DocumentLoader;
 import com.github.jsonldjava.utils.JsonUtils;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.inject.Injector;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
@@ -18,23 +21,37 @@ import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.input.ConstructTemplate;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JInputQuery;
 import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.injection.OntopSystemConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.NativeNode;
+import it.unibz.inf.ontop.iq.node.QueryNode;
 import it.unibz.inf.ontop.rdf4j.jsonld.EmptyResultException;
 import it.unibz.inf.ontop.rdf4j.jsonld.FramedJSONLDWriterFactory;
 import it.unibz.inf.ontop.rdf4j.predefined.*;
+import it.unibz.inf.ontop.rdf4j.query.impl.OntopTupleQueryResult;
 import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.apache.http.protocol.HTTP;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.lang.FileFormat;
 import org.eclipse.rdf4j.common.lang.service.FileFormatServiceRegistry;
 import org.eclipse.rdf4j.model.Statement;
-import org.eclipse.rdf4j.query.BindingSet;
-import org.eclipse.rdf4j.query.GraphQueryResult;
+import org.eclipse.rdf4j.query.*;
 import org.eclipse.rdf4j.query.Query.QueryType;
-import org.eclipse.rdf4j.query.QueryEvaluationException;
 import org.eclipse.rdf4j.query.impl.IteratingGraphQueryResult;
+import org.eclipse.rdf4j.query.impl.IteratingTupleQueryResult;
+import org.eclipse.rdf4j.query.resultio.QueryResultFormat;
+import org.eclipse.rdf4j.query.resultio.TupleQueryResultFormat;
+import org.eclipse.rdf4j.query.resultio.TupleQueryResultWriter;
+import org.eclipse.rdf4j.query.resultio.TupleQueryResultWriterFactory;
+import org.eclipse.rdf4j.query.resultio.TupleQueryResultWriterRegistry;
 import org.eclipse.rdf4j.repository.sparql.federation.CollectionIteration;
 import org.eclipse.rdf4j.rio.*;
 import org.eclipse.rdf4j.rio.helpers.JSONLDMode;
@@ -42,10 +59,13 @@ import org.eclipse.rdf4j.rio.helpers.JSONLDSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -59,9 +79,10 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
     private final ImmutableMap<String, PredefinedTupleQuery> tupleQueries;
     private final QueryReformulator queryReformulator;
     private final QueryLogger.Factory queryLoggerFactory;
-    private final Cache<ImmutableMap<String, String>, IQ> referenceQueryCache;
+    private final Cache<Map.Entry<String, ImmutableMap<String, String>>, ReferenceQuery> referenceQueryCache;
     private final ReferenceValueReplacer valueReplacer;
     private final DocumentLoader documentLoader;
+    private final ImmutableMap<String, ReferenceQueryCacheCounters> cacheCounters;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OntopRDF4JPredefinedQueryEngineImpl.class);
     private final SecureRandom random;
@@ -78,8 +99,22 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
         queryLoggerFactory = injector.getInstance(QueryLogger.Factory.class);
         valueReplacer = injector.getInstance(ReferenceValueReplacer.class);
 
-        // TODO: think about the dimensions
+        cacheCounters = Stream.concat(graphQueries.keySet().stream(), tupleQueries.keySet().stream())
+                .distinct()
+                .collect(ImmutableCollectors.toMap(
+                        id -> id,
+                        id -> new ReferenceQueryCacheCounters()));
+
+        OntopSystemSettings settings = configuration.getSettings();
+        long maxWeight = Math.max(0, settings.getPredefinedQueryCacheMaxWeight());
+        int maxSize = settings.getPredefinedQueryCacheMaxSize();
+        // Guava does not combine a maximum size with a maximum weight: each entry weighs at least maxWeight/maxSize
+        long minEntryWeight = maxSize > 0 ? Math.max(1, maxWeight / maxSize) : Long.MAX_VALUE;
         referenceQueryCache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize > 0 ? maxWeight : 0)
+                .<Map.Entry<String, ImmutableMap<String, String>>, ReferenceQuery>weigher(
+                        (k, v) -> (int) Math.min(Integer.MAX_VALUE, Math.max(minEntryWeight, v.weight)))
+                .removalListener(this::onReferenceQueryRemoval)
                 .build();
 
         documentLoader = new DocumentLoader();
@@ -93,6 +128,33 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
                 });
 
         random = new SecureRandom();
+
+        if (settings.isPredefinedQueryCachePreWarmingEnabled())
+            preWarmReferenceQueryCache();
+    }
+
+    /**
+     * Only for the predefined queries whose parameters are all safe for random generation.
+     * Covers the case where all the parameters are provided.
+     */
+    private void preWarmReferenceQueryCache() {
+        Stream.concat(graphQueries.values().stream(), tupleQueries.values().stream())
+                .forEach(q -> {
+                    try {
+                        Optional<ImmutableMap<String, String>> referenceBindings = q.getReferenceBindings();
+                        if (!referenceBindings.isPresent()) {
+                            LOGGER.debug("Cannot pre-warm the predefined query {} (parameters not safe for random generation)",
+                                    q.getId());
+                            return;
+                        }
+                        ImmutableMap<String, String> bindingWithReferences = referenceBindings.get();
+                        ReferenceQuery referenceQuery = generateReferenceQuery(q, bindingWithReferences,
+                                ImmutableSet.copyOf(bindingWithReferences.values()));
+                        putReferenceQuery(Maps.immutableEntry(q.getId(), bindingWithReferences), referenceQuery);
+                    } catch (OntopReformulationException | RuntimeException e) {
+                        LOGGER.warn("Could not pre-warm the predefined query {}: {}", q.getId(), e.getMessage());
+                    }
+                });
     }
 
 
@@ -118,7 +180,7 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
                 evaluateGraphWithHandler(graphQueries.get(queryId), bindings, acceptMediaTypes, httpHeaders, httpHeaderSetter, httpStatusSetter, outputStream);
                 break;
             case TUPLE:
-                evaluateTupleWithHandler(queryId, bindings, acceptMediaTypes, httpHeaders, httpHeaderSetter, httpStatusSetter, outputStream);
+                evaluateTupleWithHandler(tupleQueries.get(queryId), bindings, acceptMediaTypes, httpHeaders, httpHeaderSetter, httpStatusSetter, outputStream);
                 break;
             default:
                 throw new MinorOntopInternalBugException("Unexpected query type");
@@ -184,13 +246,18 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
 
         // TODO: caching headers (on a per queryId basis)
 
-        RDFWriterFactory rdfWriterFactory = predefinedQuery.getJsonLdFrame()
+        Optional<RDFWriterFactory> framedJSONLDWriterFactory = predefinedQuery.getJsonLdFrame()
                 .filter(f -> rdfFormat.equals(RDFFormat.JSONLD))
-                .map(jsonLdFrame -> createJSONLDFrameWriterFactory(jsonLdFrame, predefinedQuery.shouldReturn404IfEmpty()))
+                .map(jsonLdFrame -> createJSONLDFrameWriterFactory(jsonLdFrame, predefinedQuery.shouldReturn404IfEmpty()));
+
+        RDFWriterFactory rdfWriterFactory = framedJSONLDWriterFactory
                 .orElseGet(() -> registry.get(rdfFormat)
                         .orElseThrow(() -> new MinorOntopInternalBugException(
                                 "The selected RDF format should have a writer factory")));
 
+        // Framing needs the whole graph anyway
+        boolean streamResults = predefinedQuery.isResultStreamingEnabled() && !framedJSONLDWriterFactory.isPresent();
+
         QueryLogger queryLogger = createQueryLogger(predefinedQuery, bindings, httpHeaders);
         try {
             IQ executableQuery = createExecutableQuery(predefinedQuery, bindings, queryLogger);
@@ -204,7 +271,10 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
                 handler.set(JSONLDSettings.JSONLD_MODE, JSONLDMode.COMPACT);
             }
 
-            try (GraphQueryResult result = executeConstructQuery(predefinedQuery.getConstructTemplate(), executableQuery, queryLogger)) {
+            // NB: when streaming, the writer pulls the statements from the result set, so a slow client
+            // blocks the DB cursor instead of letting the results pile up on the heap
+            try (GraphQueryResult result = executeConstructQuery(predefinedQuery.getConstructTemplate(), executableQuery,
+                    queryLogger, streamResults)) {
                 handler.startRDF();
                 while (result.hasNext())
                     handler.handleStatement(result.next());
@@ -272,7 +342,8 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
         QueryLogger queryLogger = createQueryLogger(predefinedQuery, bindings, ImmutableMultimap.of());
         try {
             IQ executableQuery = createExecutableQuery(predefinedQuery, bindings, queryLogger);
-            return executeConstructQuery(constructTemplate, executableQuery, queryLogger);
+            return executeConstructQuery(constructTemplate, executableQuery, queryLogger,
+                    predefinedQuery.isResultStreamingEnabled());
         } catch (OntopReformulationException | InvalidBindingSetException e) {
             throw new QueryEvaluationException(e);
         }
@@ -285,24 +356,37 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
         predefinedQuery.validate(bindings);
 
         ImmutableMap<String, String> bindingWithReferences = predefinedQuery.replaceWithReferenceValues(bindings);
+        Map.Entry<String, ImmutableMap<String, String>> cacheKey = Maps.immutableEntry(predefinedQuery.getId(),
+                bindingWithReferences);
 
-        IQ existingReferenceIQ = referenceQueryCache.getIfPresent(bindingWithReferences);
+        ReferenceQueryCacheCounters counters = cacheCounters.get(predefinedQuery.getId());
+        ReferenceQuery existingReferenceQuery = referenceQueryCache.getIfPresent(cacheKey);
         // NB: no problem if concurrent reference queries are generated (deterministic results)
-        IQ referenceIQ = existingReferenceIQ == null
-                ? generateReferenceQuery(predefinedQuery, bindingWithReferences)
-                : existingReferenceIQ;
-        if (existingReferenceIQ == null)
-            referenceQueryCache.put(bindingWithReferences, referenceIQ);
+        ReferenceQuery referenceQuery;
+        if (existingReferenceQuery == null) {
+            counters.misses.increment();
+            referenceQuery = generateReferenceQuery(predefinedQuery, bindingWithReferences,
+                    valueReplacer.extractReferenceValues(bindings, bindingWithReferences));
+            putReferenceQuery(cacheKey, referenceQuery);
+        }
+        else {
+            counters.hits.increment();
+            referenceQuery = existingReferenceQuery;
+        }
 
-        IQ newIQ = valueReplacer.replaceReferenceValues(referenceIQ, bindings, bindingWithReferences);
+        // Fast path: only the parameter values change, the native query string is reused as such
+        IQ newIQ = referenceQuery.parameterizedQuery
+                .map(q -> valueReplacer.instantiate(q, bindings, bindingWithReferences))
+                .orElseGet(() -> valueReplacer.replaceReferenceValues(referenceQuery.iq, bindings, bindingWithReferences));
 
-        queryLogger.declareReformulationFinishedAndSerialize(newIQ, referenceIQ == existingReferenceIQ);
+        queryLogger.declareReformulationFinishedAndSerialize(newIQ, referenceQuery == existingReferenceQuery);
 
         return newIQ;
     }
 
-    private IQ generateReferenceQuery(PredefinedQuery predefinedQuery,
-                                      ImmutableMap<String, String> bindingWithReferences)
+    private ReferenceQuery generateReferenceQuery(PredefinedQuery predefinedQuery,
+                                                  ImmutableMap<String, String> bindingWithReferences,
+                                                  ImmutableSet<String> referenceValues)
             throws OntopReformulationException {
         BindingSet bindingSet = predefinedQuery.convertBindings(bindingWithReferences);
         RDF4JInputQuery newQuery = predefinedQuery.getInputQuery()
@@ -315,7 +399,69 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
                 predefinedQuery.getId(),
                 bindingSet);
 
-        return queryReformulator.reformulateIntoNativeQuery(newQuery, tmpQueryLogger);
+        IQ referenceIQ = queryReformulator.reformulateIntoNativeQuery(newQuery, tmpQueryLogger);
+        Optional<ParameterizedReferenceQuery> parameterizedQuery = valueReplacer.parameterize(referenceIQ,
+                referenceValues);
+        if (!parameterizedQuery.isPresent())
+            LOGGER.debug("No parameterized reference query for {}", predefinedQuery.getId());
+
+        return new ReferenceQuery(referenceIQ, parameterizedQuery, computeWeight(referenceIQ.getTree()));
+    }
+
+    /**
+     * Approximation of the memory footprint of the tree: number of characters of its nodes
+     */
+    private static long computeWeight(IQTree tree) {
+        QueryNode rootNode = tree.getRootNode();
+        long nodeWeight = rootNode instanceof NativeNode
+                ? ((NativeNode) rootNode).getNativeQueryString().length()
+                : rootNode.toString().length();
+        return nodeWeight + tree.getChildren().stream()
+                .mapToLong(OntopRDF4JPredefinedQueryEngineImpl::computeWeight)
+                .sum();
+    }
+
+    private void putReferenceQuery(Map.Entry<String, ImmutableMap<String, String>> cacheKey, ReferenceQuery referenceQuery) {
+        ReferenceQueryCacheCounters counters = cacheCounters.get(cacheKey.getKey());
+        // Before the insertion as the entry may be evicted right away
+        counters.entries.incrementAndGet();
+        counters.weight.addAndGet(referenceQuery.weight);
+        referenceQueryCache.put(cacheKey, referenceQuery);
+    }
+
+    private void onReferenceQueryRemoval(
+            RemovalNotification<Map.Entry<String, ImmutableMap<String, String>>, ReferenceQuery> notification) {
+        Map.Entry<String, ImmutableMap<String, String>> key = notification.getKey();
+        ReferenceQuery referenceQuery = notification.getValue();
+        // Never collected (strong keys and values)
+        if (key == null || referenceQuery == null)
+            return;
+        ReferenceQueryCacheCounters counters = cacheCounters.get(key.getKey());
+        counters.entries.decrementAndGet();
+        counters.weight.addAndGet(-referenceQuery.weight);
+        if (notification.wasEvicted())
+            counters.evictions.increment();
+    }
+
+    @Override
+    public ImmutableMap<String, ReferenceQueryCacheStats> getReferenceQueryCacheStats() {
+        return cacheCounters.entrySet().stream()
+                .collect(ImmutableCollectors.toMap(
+                        Map.Entry::getKey,
+                        e -> e.getValue().toStats()));
+    }
+
+    @Override
+    public void flushReferenceQueryCache() {
+        LOGGER.info("Flushing the reference query cache");
+        referenceQueryCache.invalidateAll();
+    }
+
+    @Override
+    public void flushReferenceQueryCache(String queryId) {
+        LOGGER.info("Flushing the reference queries of {}", queryId);
+        referenceQueryCache.asMap().keySet()
+                .removeIf(k -> k.getKey().equals(queryId));
     }
 
     private QueryLogger createQueryLogger(PredefinedQuery predefinedQuery, ImmutableMap<String, String> bindings,
@@ -325,18 +471,22 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
         return queryLogger;
     }
 
+    /**
+     * When streaming, the connection is only released when the returned result is closed.
+     */
     private GraphQueryResult executeConstructQuery(ConstructTemplate constructTemplate, IQ executableQuery,
-                                                   QueryLogger queryLogger) {
+                                                   QueryLogger queryLogger, boolean streamResults) {
+        byte[] salt = new byte[20];
+        random.nextBytes(salt);
+
+        if (streamResults)
+            return executeStreamingConstructQuery(constructTemplate, executableQuery, queryLogger, salt);
+
         try (
                 OntopConnection conn = ontopEngine.getConnection();
                 OntopStatement stm = conn.createStatement();
                 GraphResultSet res = stm.executeConstructQuery(constructTemplate, executableQuery, queryLogger)
         ){
-            byte[] salt = new byte[20];
-            random.nextBytes(salt);
-
-
-            // TODO: see how to use stream besides the presence of exceptions
             ImmutableList.Builder<Statement> resultBuilder = ImmutableList.builder();
             if (res != null) {
                 while (res.hasNext()) {
@@ -353,9 +503,258 @@ public class OntopRDF4JPredefinedQueryEngineImpl implements OntopRDF4JPredefined
         }
     }
 
-    private void evaluateTupleWithHandler(String queryId, ImmutableMap<String, String> bindings, ImmutableList<String> acceptMediaTypes,
+    private GraphQueryResult executeStreamingConstructQuery(ConstructTemplate constructTemplate, IQ executableQuery,
+                                                            QueryLogger queryLogger, byte[] salt) {
+        OntopConnection conn = null;
+        OntopStatement stm = null;
+        try {
+            conn = ontopEngine.getConnection();
+            stm = conn.createStatement();
+            GraphResultSet res = stm.executeConstructQuery(constructTemplate, executableQuery, queryLogger);
+            return new IteratingGraphQueryResult(ImmutableMap.of(), new StreamingGraphIteration(res, stm, conn, salt));
+        } catch (Exception e) {
+            closeQuietly(stm);
+            closeQuietly(conn);
+            throw new QueryEvaluationException(e);
+        }
+    }
+
+    private static void closeQuietly(@Nullable AutoCloseable closeable) {
+        if (closeable == null)
+            return;
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            LOGGER.warn("Problem while closing after a failed predefined query: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Converts the facts on the fly and releases the statement and the connection on close
+     */
+    private static class StreamingGraphIteration implements CloseableIteration<Statement, QueryEvaluationException> {
+
+        @Nullable
+        private final GraphResultSet resultSet;
+        private final OntopStatement statement;
+        private final OntopConnection connection;
+        private final byte[] salt;
+        private boolean isClosed;
+
+        StreamingGraphIteration(@Nullable GraphResultSet resultSet, OntopStatement statement,
+                                OntopConnection connection, byte[] salt) {
+            this.resultSet = resultSet;
+            this.statement = statement;
+            this.connection = connection;
+            this.salt = salt;
+            this.isClosed = false;
+        }
+
+        @Override
+        public boolean hasNext() throws QueryEvaluationException {
+            if (isClosed || resultSet == null)
+                return false;
+            try {
+                return resultSet.hasNext();
+            } catch (OntopConnectionException | OntopQueryAnsweringException e) {
+                throw new QueryEvaluationException(e);
+            }
+        }
+
+        @Override
+        public Statement next() throws QueryEvaluationException {
+            if (isClosed || resultSet == null)
+                throw new NoSuchElementException();
+            try {
+                return createStatement(resultSet.next(), salt);
+            } catch (OntopConnectionException | OntopQueryAnsweringException e) {
+                throw new QueryEvaluationException(e);
+            }
+        }
+
+        @Override
+        public void remove() throws QueryEvaluationException {
+            throw new UnsupportedOperationException("Ontop is a read-only system.");
+        }
+
+        @Override
+        public void close() throws QueryEvaluationException {
+            if (isClosed)
+                return;
+            isClosed = true;
+            try {
+                if (resultSet != null)
+                    resultSet.close();
+                statement.close();
+                connection.close();
+            } catch (OntopConnectionException e) {
+                throw new QueryEvaluationException(e);
+            }
+        }
+    }
+
+    private void evaluateTupleWithHandler(PredefinedTupleQuery predefinedQuery, ImmutableMap<String, String> bindings,
+                                          ImmutableList<String> acceptMediaTypes,
                                           ImmutableMultimap<String, String> httpHeaders, BiConsumer<String, String> httpHeaderSetter,
-                                          Consumer<Integer> httpStatusSetter, OutputStream outputStream) {
-        throw new RuntimeException("TODO: support SELECT queries");
+                                          Consumer<Integer> httpStatusSetter, OutputStream outputStream)
+            throws LateEvaluationOrConversionException {
+
+        TupleQueryResultWriterRegistry registry = TupleQueryResultWriterRegistry.getInstance();
+
+        Optional<QueryResultFormat> optionalFormat = extractFormat(acceptMediaTypes.stream(), registry,
+                TupleQueryResultFormat.JSON,
+                m -> Optional.of(m)
+                        .filter(a -> a.contains("json"))
+                        .map(a -> TupleQueryResultFormat.JSON));
+
+        if (!optionalFormat.isPresent()) {
+            // 406: Not acceptable
+            httpStatusSetter.accept(406);
+            PrintWriter printWriter = new PrintWriter(outputStream);
+            printWriter.println("Not acceptable. Suggested format: application/sparql-results+json .");
+            printWriter.flush();
+            return;
+        }
+
+        QueryResultFormat resultFormat = optionalFormat.get();
+        TupleQueryResultWriterFactory writerFactory = registry.get(resultFormat)
+                .orElseThrow(() -> new MinorOntopInternalBugException(
+                        "The selected result format should have a writer factory"));
+
+        QueryLogger queryLogger = createQueryLogger(predefinedQuery, bindings, httpHeaders);
+        try {
+            IQ executableQuery = createExecutableQuery(predefinedQuery, bindings, queryLogger);
+
+            try (TupleQueryResult result = executeSelectQuery(executableQuery, queryLogger,
+                    predefinedQuery.isResultStreamingEnabled())) {
+
+                if (predefinedQuery.shouldReturn404IfEmpty() && !result.hasNext()) {
+                    httpStatusSetter.accept(404);
+                    httpHeaderSetter.accept(HTTP.CONTENT_TYPE, "text/plain");
+                    PrintWriter printWriter = new PrintWriter(outputStream);
+                    printWriter.println(String.format("No result for %s with the parameters %s",
+                            predefinedQuery.getId(), bindings));
+                    printWriter.flush();
+                    return;
+                }
+
+                httpHeaderSetter.accept(HTTP.CONTENT_TYPE, resultFormat.getDefaultMIMEType() + ";charset=UTF-8");
+
+                TupleQueryResultWriter writer = writerFactory.getWriter(outputStream);
+                writer.startQueryResult(result.getBindingNames());
+                while (result.hasNext())
+                    writer.handleSolution(result.next());
+                writer.endQueryResult();
+            }
+        } catch (InvalidBindingSetException e) {
+            httpStatusSetter.accept(400);
+            PrintWriter printWriter = new PrintWriter(outputStream);
+            printWriter.println(e.getMessage());
+            printWriter.flush();
+
+        } catch (OntopReformulationException e) {
+            httpStatusSetter.accept(500);
+            PrintWriter printWriter = new PrintWriter(outputStream);
+            printWriter.println("Problem reformulating the underlying SPARQL query: \n" + e.getMessage());
+            printWriter.flush();
+        } catch (QueryEvaluationException | TupleQueryResultHandlerException e) {
+            throw new LateEvaluationOrConversionException(e);
+        }
+    }
+
+    @Override
+    public TupleQueryResult evaluateTuple(String queryId, ImmutableMap<String, String> bindings) throws QueryEvaluationException {
+        PredefinedTupleQuery predefinedQuery = Optional.ofNullable(tupleQueries.get(queryId))
+                .orElseThrow(() -> new IllegalArgumentException("The query" + queryId + " is not defined as a tuple query"));
+        QueryLogger queryLogger = createQueryLogger(predefinedQuery, bindings, ImmutableMultimap.of());
+        try {
+            IQ executableQuery = createExecutableQuery(predefinedQuery, bindings, queryLogger);
+            return executeSelectQuery(executableQuery, queryLogger, predefinedQuery.isResultStreamingEnabled());
+        } catch (OntopReformulationException | InvalidBindingSetException e) {
+            throw new QueryEvaluationException(e);
+        }
+    }
+
+    /**
+     * When streaming, the connection is only released when the returned result is closed.
+     */
+    private TupleQueryResult executeSelectQuery(IQ executableQuery, QueryLogger queryLogger, boolean streamResults) {
+        byte[] salt = new byte[20];
+        random.nextBytes(salt);
+
+        OntopConnection conn = null;
+        OntopStatement stm = null;
+        try {
+            conn = ontopEngine.getConnection();
+            stm = conn.createStatement();
+            // Closing the result set also closes the statement
+            TupleResultSet res = stm.executeSelectQuery(executableQuery, queryLogger);
+            TupleQueryResult result = new ConnectionClosingTupleQueryResult(res, res.getSignature(), salt, conn);
+            if (streamResults)
+                return result;
+
+            try {
+                ImmutableList<BindingSet> bindingSets = QueryResults.asList(result).stream()
+                        .collect(ImmutableCollectors.toList());
+                return new IteratingTupleQueryResult(result.getBindingNames(), bindingSets);
+            } finally {
+                result.close();
+            }
+        } catch (QueryEvaluationException e) {
+            closeQuietly(stm);
+            closeQuietly(conn);
+            throw e;
+        } catch (Exception e) {
+            closeQuietly(stm);
+            closeQuietly(conn);
+            throw new QueryEvaluationException(e);
+        }
+    }
+
+    private static class ConnectionClosingTupleQueryResult extends OntopTupleQueryResult {
+        private final OntopConnection connection;
+
+        ConnectionClosingTupleQueryResult(TupleResultSet res, List<String> signature, byte[] salt,
+                                          OntopConnection connection) {
+            super(res, signature, salt);
+            this.connection = connection;
+        }
+
+        @Override
+        public void close() throws QueryEvaluationException {
+            try {
+                super.close();
+            } finally {
+                try {
+                    connection.close();
+                } catch (OntopConnectionException e) {
+                    throw new QueryEvaluationException(e);
+                }
+            }
+        }
+    }
+
+    private static class ReferenceQuery {
+        private final IQ iq;
+        private final Optional<ParameterizedReferenceQuery> parameterizedQuery;
+        private final long weight;
+
+        private ReferenceQuery(IQ iq, Optional<ParameterizedReferenceQuery> parameterizedQuery, long weight) {
+            this.iq = iq;
+            this.parameterizedQuery = parameterizedQuery;
+            this.weight = weight;
+        }
+    }
+
+    private static class ReferenceQueryCacheCounters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final AtomicLong entries = new AtomicLong();
+        private final AtomicLong weight = new AtomicLong();
+
+        private ReferenceQueryCacheStats toStats() {
+            return new ReferenceQueryCacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.get(), weight.get());
+        }
     }
 }
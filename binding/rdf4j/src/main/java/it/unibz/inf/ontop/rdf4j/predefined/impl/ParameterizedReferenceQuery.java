@@ -0,0 +1,52 @@
+package it.unibz.inf.ontop.rdf4j.predefined.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.NativeNode;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+
+/**
+ * Reference query whose native query string has bind markers in place of the literals containing reference values.
+ *
+ * See ReferenceValueReplacer
+ */
+public class ParameterizedReferenceQuery {
+
+    private final DistinctVariableOnlyDataAtom projectionAtom;
+    private final ConstructionNode constructionNode;
+    private final NativeNode nativeNode;
+    private final ImmutableList<String> literals;
+
+    ParameterizedReferenceQuery(DistinctVariableOnlyDataAtom projectionAtom, ConstructionNode constructionNode,
+                                NativeNode nativeNode, ImmutableList<String> literals) {
+        this.projectionAtom = projectionAtom;
+        this.constructionNode = constructionNode;
+        this.nativeNode = nativeNode;
+        this.literals = literals;
+    }
+
+    public DistinctVariableOnlyDataAtom getProjectionAtom() {
+        return projectionAtom;
+    }
+
+    /**
+     * Still contains the reference values
+     */
+    public ConstructionNode getConstructionNode() {
+        return constructionNode;
+    }
+
+    /**
+     * Without parameter values
+     */
+    public NativeNode getNativeNode() {
+        return nativeNode;
+    }
+
+    /**
+     * Content of the replaced literals (with the reference values), in the order of the bind markers
+     */
+    public ImmutableList<String> getLiterals() {
+        return literals;
+    }
+}
@@ -0,0 +1,12 @@
+package it.unibz.inf.ontop.rdf4j.predefined.impl;
+
+import it.unibz.inf.ontop.answering.reformulation.input.RDF4JSelectQuery;
+import it.unibz.inf.ontop.rdf4j.predefined.PredefinedTupleQuery;
+import it.unibz.inf.ontop.rdf4j.predefined.parsing.PredefinedQueryConfigEntry;
+
+public class PredefinedTupleQueryImpl extends AbstractPredefinedQuery<RDF4JSelectQuery> implements PredefinedTupleQuery {
+
+    public PredefinedTupleQueryImpl(String id, RDF4JSelectQuery tupleQuery, PredefinedQueryConfigEntry queryConfig) {
+        super(id, tupleQuery, queryConfig);
+    }
+}
@@ -2,6 +2,8 @@ package it.unibz.inf.ontop.rdf4j.predefined.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
@@ -20,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Optional;
 
 @Singleton
 public class ReferenceValueReplacer {
@@ -43,12 +46,7 @@ public class ReferenceValueReplacer {
     public IQ replaceReferenceValues(IQ referenceIq, ImmutableMap<String, String> bindings,
                                      ImmutableMap<String, String> bindingWithReferences) {
 
-        ImmutableMap<String, String> referenceToInputMap = bindings.entrySet().stream()
-                .filter(e -> bindingWithReferences.containsKey(e.getKey()))
-                .filter(e -> !e.getValue().equals(bindingWithReferences.get(e.getKey())))
-                .collect(ImmutableCollectors.toMap(
-                        e -> bindingWithReferences.get(e.getKey()),
-                        Map.Entry::getValue));
+        ImmutableMap<String, String> referenceToInputMap = extractReferenceToInputMap(bindings, bindingWithReferences);
 
         if (referenceToInputMap.isEmpty())
             return referenceIq;
@@ -60,6 +58,159 @@ public class ReferenceValueReplacer {
         return iqFactory.createIQ(referenceIq.getProjectionAtom(), newTree);
     }
 
+    /**
+     * Replaces the string literals of the native query containing reference values by bind markers.
+     * The native query string of the resulting IQ can then be reused as such for any input value.
+     *
+     * Returns empty if there is no reference value to replace or if a reference value appears
+     * somewhere else than in a plain string literal.
+     *
+     * ASSUMPTION: same as for replaceReferenceValues(...)
+     */
+    public Optional<ParameterizedReferenceQuery> parameterize(IQ referenceIq, ImmutableSet<String> referenceValues) {
+        if (referenceValues.isEmpty())
+            return Optional.empty();
+
+        IQTree tree = referenceIq.getTree();
+        QueryNode rootNode = tree.getRootNode();
+        if (!(rootNode instanceof ConstructionNode))
+            return Optional.empty();
+        IQTree child = ((UnaryIQTree) tree).getChild();
+        if (!(child.getRootNode() instanceof NativeNode))
+            return Optional.empty();
+
+        NativeNode nativeNode = (NativeNode) child.getRootNode();
+        if (!nativeNode.getParameters().isEmpty())
+            return Optional.empty();
+
+        return extractReferenceLiterals(nativeNode.getNativeQueryString(), referenceValues)
+                .map(e -> new ParameterizedReferenceQuery(referenceIq.getProjectionAtom(),
+                        (ConstructionNode) rootNode,
+                        iqFactory.createNativeNode(nativeNode.getVariables(), nativeNode.getTypeMap(),
+                                nativeNode.getColumnNames(), e.getKey(), nativeNode.getVariableNullability(),
+                                ImmutableList.of(), nativeNode.isOrdered()),
+                        e.getValue()));
+    }
+
+    /**
+     * Only the construction node is transformed, the native query string is left untouched.
+     */
+    public IQ instantiate(ParameterizedReferenceQuery parameterizedQuery, ImmutableMap<String, String> bindings,
+                          ImmutableMap<String, String> bindingWithReferences) {
+        ImmutableMap<String, String> referenceToInputMap = extractReferenceToInputMap(bindings, bindingWithReferences);
+
+        ImmutableList<DBConstant> parameters = parameterizedQuery.getLiterals().stream()
+                .map(l -> termFactory.getDBStringConstant(replaceString(l, referenceToInputMap)))
+                .collect(ImmutableCollectors.toList());
+
+        NativeNode nativeNode = parameterizedQuery.getNativeNode();
+        NativeNode newNativeNode = iqFactory.createNativeNode(nativeNode.getVariables(),
+                nativeNode.getTypeMap(),
+                nativeNode.getColumnNames(),
+                nativeNode.getNativeQueryString(),
+                nativeNode.getVariableNullability(),
+                parameters,
+                nativeNode.isOrdered());
+
+        return iqFactory.createIQ(parameterizedQuery.getProjectionAtom(),
+                iqFactory.createUnaryIQTree(
+                        transformConstructionNode(parameterizedQuery.getConstructionNode(), referenceToInputMap),
+                        newNativeNode));
+    }
+
+    /**
+     * Reference values actually used by the bindings
+     */
+    public ImmutableSet<String> extractReferenceValues(ImmutableMap<String, String> bindings,
+                                                       ImmutableMap<String, String> bindingWithReferences) {
+        return extractReferenceToInputMap(bindings, bindingWithReferences).keySet();
+    }
+
+    private ImmutableMap<String, String> extractReferenceToInputMap(ImmutableMap<String, String> bindings,
+                                                                    ImmutableMap<String, String> bindingWithReferences) {
+        return bindings.entrySet().stream()
+                .filter(e -> bindingWithReferences.containsKey(e.getKey()))
+                .filter(e -> !e.getValue().equals(bindingWithReferences.get(e.getKey())))
+                .collect(ImmutableCollectors.toMap(
+                        e -> bindingWithReferences.get(e.getKey()),
+                        Map.Entry::getValue));
+    }
+
+    /**
+     * Returns the query string with bind markers and the (unescaped) content of the replaced literals.
+     *
+     * Quoted identifiers are skipped. Conservative: gives up on literals that may follow
+     * dialect-specific escaping rules (prefixed literals, backslashes) and on existing question marks.
+     */
+    private Optional<Map.Entry<String, ImmutableList<String>>> extractReferenceLiterals(
+            String queryString, ImmutableSet<String> referenceValues) {
+        StringBuilder newQueryString = new StringBuilder();
+        StringBuilder remainingText = new StringBuilder();
+        ImmutableList.Builder<String> literalBuilder = ImmutableList.builder();
+        int length = queryString.length();
+        int i = 0;
+        while (i < length) {
+            char c = queryString.charAt(i);
+            if (c == '?')
+                return Optional.empty();
+            if (c == '"' || c == '`') {
+                int end = queryString.indexOf(c, i + 1);
+                if (end < 0)
+                    return Optional.empty();
+                String identifier = queryString.substring(i, end + 1);
+                newQueryString.append(identifier);
+                remainingText.append(identifier);
+                i = end + 1;
+            }
+            else if (c == '\'') {
+                StringBuilder content = new StringBuilder();
+                int j = i + 1;
+                while (true) {
+                    if (j >= length)
+                        return Optional.empty();
+                    char d = queryString.charAt(j);
+                    if (d == '\'') {
+                        if (j + 1 < length && queryString.charAt(j + 1) == '\'') {
+                            content.append('\'');
+                            j += 2;
+                        }
+                        else
+                            break;
+                    }
+                    else {
+                        content.append(d);
+                        j++;
+                    }
+                }
+                String literal = content.toString();
+                if (referenceValues.stream().anyMatch(literal::contains)) {
+                    if (literal.indexOf('\\') >= 0
+                            || (i > 0 && Character.isLetterOrDigit(queryString.charAt(i - 1))))
+                        return Optional.empty();
+                    newQueryString.append('?');
+                    literalBuilder.add(literal);
+                }
+                else {
+                    newQueryString.append(queryString, i, j + 1);
+                    remainingText.append(literal);
+                }
+                i = j + 1;
+            }
+            else {
+                newQueryString.append(c);
+                remainingText.append(c);
+                i++;
+            }
+        }
+
+        ImmutableList<String> literals = literalBuilder.build();
+        String text = remainingText.toString();
+        if (literals.isEmpty() || referenceValues.stream().anyMatch(text::contains))
+            return Optional.empty();
+
+        return Optional.of(Maps.immutableEntry(newQueryString.toString(), literals));
+    }
+
     /**
      * Only applies transformations to construct nodes and native nodes
      */
@@ -131,8 +282,9 @@ public class ReferenceValueReplacer {
     }
 
     private String replaceString(String str, ImmutableMap<String, String> referenceToInputMap) {
+        // NB: literal replacement (the reference values and the input values are not regular expressions)
         return referenceToInputMap.entrySet().stream()
-                .reduce(str, (s, e) -> s.replaceAll(e.getKey(), e.getValue()),
+                .reduce(str, (s, e) -> s.replace(e.getKey(), e.getValue()),
                         (s1, s2) -> {
                             throw new MinorOntopInternalBugException("Not expected to be run in //");
                         });
@@ -145,6 +297,8 @@ public class ReferenceValueReplacer {
                 nativeNode.getTypeMap(),
                 nativeNode.getColumnNames(),
                 newQueryString,
-                nativeNode.getVariableNullability());
+                nativeNode.getVariableNullability(),
+                nativeNode.getParameters(),
+                nativeNode.isOrdered());
     }
 }
@@ -11,11 +11,13 @@ import com.google.inject.Injector;
 import com.moandjiezana.toml.Toml;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JConstructQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JInputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.RDF4JSelectQuery;
 import it.unibz.inf.ontop.injection.OntopSystemConfiguration;
 import it.unibz.inf.ontop.rdf4j.predefined.PredefinedGraphQuery;
 import it.unibz.inf.ontop.rdf4j.predefined.PredefinedQueries;
 import it.unibz.inf.ontop.rdf4j.predefined.PredefinedTupleQuery;
 import it.unibz.inf.ontop.rdf4j.predefined.impl.PredefinedGraphQueryImpl;
+import it.unibz.inf.ontop.rdf4j.predefined.impl.PredefinedTupleQueryImpl;
 import it.unibz.inf.ontop.rdf4j.predefined.parsing.PredefinedQueryConfigEntry;
 import it.unibz.inf.ontop.rdf4j.predefined.parsing.PredefinedQueryConfigException;
 import it.unibz.inf.ontop.rdf4j.predefined.parsing.PredefinedQueryParser;
@@ -108,7 +110,10 @@ public class PredefinedQueryParserImpl implements PredefinedQueryParser {
 
     private PredefinedTupleQuery createPredefinedTupleQuery(String id, PredefinedQueryConfigEntry queryConfigEntry,
                                                             String queryString) {
-        throw new RuntimeException("TODO: support tuple queries");
+        ParsedQuery parsedTree = QueryParserUtil.parseQuery(QueryLanguage.SPARQL, queryString, null);
+        RDF4JSelectQuery tupleQuery = inputQueryFactory.createSelectQuery(queryString, parsedTree, new MapBindingSet());
+
+        return new PredefinedTupleQueryImpl(id, tupleQuery, queryConfigEntry);
     }
 
     private static class Config {
@@ -1,11 +1,18 @@
 package it.unibz.inf.ontop.rdf4j.repository.impl;
 
+import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JInputQueryFactory;
 import it.unibz.inf.ontop.answering.reformulation.input.SPARQLQuery;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.exception.OntopInvalidInputQueryException;
+import it.unibz.inf.ontop.exception.OntopQueryEvaluationException;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import it.unibz.inf.ontop.rdf4j.query.impl.*;
@@ -31,7 +38,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.RepositoryConnection {
 
@@ -40,7 +50,11 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
     private OntopRepository repository;
     private OntopConnection ontopConnection;
     private final RDF4JInputQueryFactory inputQueryFactory;
+    private final QueryReformulator queryReformulator;
     private final OntopSystemSettings settings;
+    // Shared by the connections of the repository
+    @Nullable
+    private final Cache<List<Resource>, Long> sizeCache;
     private boolean isOpen;
     private boolean isActive;
     private RDFParser rdfParser;
@@ -48,11 +62,14 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
 
 
     OntopRepositoryConnection(OntopRepository rep, OntopConnection connection,
-                              RDF4JInputQueryFactory inputQueryFactory, OntopSystemSettings settings) {
+                              RDF4JInputQueryFactory inputQueryFactory, QueryReformulator queryReformulator,
+                              OntopSystemSettings settings, @Nullable Cache<List<Resource>, Long> sizeCache) {
         this.repository = rep;
         this.ontopConnection = connection;
         this.inputQueryFactory = inputQueryFactory;
+        this.queryReformulator = queryReformulator;
         this.settings = settings;
+        this.sizeCache = sizeCache;
         this.isOpen = true;
         this.isActive = false;
         this.rdfParser = Rio.createParser(RDFFormat.RDFXML, this.repository.getValueFactory());
@@ -183,8 +200,23 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
         //Gets all resources that are used as content identifiers.
         //Care should be taken that the returned RepositoryResult
         //is closed to free any resources that it keeps hold of.
-        List<Resource> contexts = new LinkedList<Resource>();
-        return new RepositoryResult<Resource>(new CloseableIteratorIteration<Resource, RepositoryException>(contexts.iterator()));
+        Optional<ImmutableSet<org.apache.commons.rdf.api.IRI>> graphIRIs = queryReformulator.getNamedGraphIRIs();
+        if (graphIRIs.isPresent()) {
+            ValueFactory valueFactory = repository.getValueFactory();
+            Iterator<Resource> contexts = graphIRIs.get().stream()
+                    .map(i -> (Resource) valueFactory.createIRI(i.getIRIString()))
+                    .iterator();
+            return new RepositoryResult<>(new CloseableIteratorIteration<>(contexts));
+        }
+
+        // Some named graphs are built from the data
+        try {
+            TupleQueryResult result = prepareTupleQuery(QueryLanguage.SPARQL,
+                    "SELECT DISTINCT ?g WHERE { GRAPH ?g { ?s ?p ?o } }").evaluate();
+            return createRepositoryResult(result, b -> (Resource) b.getValue("g"));
+        } catch (MalformedQueryException | QueryEvaluationException e) {
+            throw new RepositoryException(e);
+        }
     }
 
     @Override
@@ -228,30 +260,76 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
         //Gets all statements with a specific subject,
         //predicate and/or object from the repository.
         //The result is optionally restricted to the specified set of named contexts.
+        Optional<String> graphPattern = renderGraphPattern(subj, pred, obj, contexts);
+        if (!graphPattern.isPresent())
+            return new RepositoryResult<>(new CloseableIteratorIteration<>());
 
-        //construct query for it
-        StringBuilder queryString = new StringBuilder("CONSTRUCT {");
+        ValueFactory valueFactory = repository.getValueFactory();
+        try {
+            TupleQueryResult result = prepareTupleQuery(QueryLanguage.SPARQL,
+                    "SELECT * WHERE " + graphPattern.get()).evaluate();
+            return createRepositoryResult(result, b -> {
+                Resource s = subj == null ? (Resource) b.getValue("s") : subj;
+                IRI p = pred == null ? (IRI) b.getValue("p") : pred;
+                Value o = obj == null ? b.getValue("o") : obj;
+                Resource g = (Resource) b.getValue("g");
+                return g == null
+                        ? valueFactory.createStatement(s, p, o)
+                        : valueFactory.createStatement(s, p, o, g);
+            });
+        } catch (MalformedQueryException | QueryEvaluationException e) {
+            throw new RepositoryException(e);
+        }
+    }
 
-        StringBuilder spo = subj == null ? new StringBuilder("?s ") : RenderUtils.toSPARQL(subj, new StringBuilder());
+    /**
+     * Group graph pattern matching the statements.
+     *
+     * No context: default graph only. The null context stands for the default graph.
+     * Empty if no context can match (the named graphs are IRIs).
+     */
+    private static Optional<String> renderGraphPattern(@Nullable Resource subj, @Nullable IRI pred,
+                                                       @Nullable Value obj, @Nullable Resource... contexts) {
+        String triplePattern = (subj == null ? "?s" : RenderUtils.toSPARQL(subj)) + " "
+                + (pred == null ? "?p" : RenderUtils.toSPARQL(pred)) + " "
+                + (obj == null ? "?o" : RenderUtils.toSPARQL(obj));
 
-        spo = pred == null ? spo.append(" ?p ") : RenderUtils.toSPARQL(pred, spo);
+        if (contexts == null || contexts.length == 0)
+            return Optional.of("{ " + triplePattern + " }");
 
-        spo = obj == null ? spo.append(" ?o ") : RenderUtils.toSPARQL(obj, spo);
+        List<String> alternatives = new ArrayList<>();
+        if (Arrays.stream(contexts).anyMatch(Objects::isNull))
+            alternatives.add("{ " + triplePattern + " }");
 
-        queryString.append(spo).append("} WHERE {").append(spo).append("}");
+        String graphIRIs = Arrays.stream(contexts)
+                .filter(c -> c instanceof IRI)
+                .distinct()
+                .map(RenderUtils::toSPARQL)
+                .collect(Collectors.joining(" "));
+        if (!graphIRIs.isEmpty())
+            alternatives.add("{ GRAPH ?g { " + triplePattern + " } VALUES ?g { " + graphIRIs + " } }");
 
-        //execute construct query
-        try {
-            if (contexts.length == 0 || (contexts.length > 0 && contexts[0] == null)) {
-                GraphQuery query = prepareGraphQuery(QueryLanguage.SPARQL,
-                        queryString.toString());
-                GraphQueryResult result = query.evaluate();
-                return new RepositoryResult<>(new CloseableIteratorIteration<>(result.iterator()));
+        return alternatives.isEmpty()
+                ? Optional.empty()
+                : Optional.of("{ " + String.join(" UNION ", alternatives) + " }");
+    }
+
+    /**
+     * Closing the repository result closes the query result
+     */
+    private static <E> RepositoryResult<E> createRepositoryResult(TupleQueryResult result,
+                                                                 com.google.common.base.Function<BindingSet, E> converter) {
+        return new RepositoryResult<>(new CloseableIteratorIteration<E, RepositoryException>(
+                Iterators.transform(result.iterator(), converter)) {
+            @Override
+            protected void handleClose() throws RepositoryException {
+                try {
+                    super.handleClose();
+                } finally {
+                    result.close();
+                }
             }
-            return new RepositoryResult<>(new CloseableIteratorIteration<>());
-        } catch (MalformedQueryException | QueryEvaluationException e) {
-            throw new RepositoryException(e);
-        }
+        });
     }
 
     @Override
@@ -274,12 +352,14 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
                                 boolean includeInferred, Resource... contexts) throws RepositoryException {
         //Checks whether the repository contains statements with a specific subject,
         //predicate and/or object, optionally in the specified contexts.
-        RepositoryResult<Statement> stIter = getStatements(subj, pred,
-                obj, includeInferred, contexts);
+        Optional<String> graphPattern = renderGraphPattern(subj, pred, obj, contexts);
+        if (!graphPattern.isPresent())
+            return false;
         try {
-            return stIter.hasNext();
-        } finally {
-            stIter.close();
+            // Stops at the first match
+            return prepareBooleanQuery(QueryLanguage.SPARQL, "ASK " + graphPattern.get()).evaluate();
+        } catch (MalformedQueryException | QueryEvaluationException e) {
+            throw new RepositoryException(e);
         }
     }
 
@@ -548,7 +628,38 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
     @Override
     public long size(Resource... contexts) throws RepositoryException {
         //Returns the number of (explicit) statements that are in the specified contexts in this repository.
-        return 0;
+        if (sizeCache == null)
+            return countStatements(contexts);
+
+        List<Resource> key = contexts == null
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(contexts.clone()));
+        try {
+            return sizeCache.get(key, () -> countStatements(contexts));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RepositoryException)
+                throw (RepositoryException) e.getCause();
+            throw new RepositoryException(e.getCause());
+        }
+    }
+
+    /**
+     * COUNT query (pushed down to the DB)
+     */
+    private long countStatements(@Nullable Resource... contexts) throws RepositoryException {
+        Optional<String> graphPattern = renderGraphPattern(null, null, null, contexts);
+        if (!graphPattern.isPresent())
+            return 0;
+
+        try (TupleQueryResult result = prepareTupleQuery(QueryLanguage.SPARQL,
+                "SELECT (COUNT(*) AS ?count) WHERE " + graphPattern.get()).evaluate()) {
+            if (!result.hasNext())
+                return 0;
+            Value count = result.next().getValue("count");
+            return count == null ? 0 : ((Literal) count).longValue();
+        } catch (MalformedQueryException | QueryEvaluationException e) {
+            throw new RepositoryException(e);
+        }
     }
 
 
@@ -611,4 +722,15 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
         return ontopConnection.createStatement().getExecutableQuery(sparqlQuery).toString();
     }
 
+    /**
+     * Number of results of the SELECT query, counted by the DB (e.g. for paging)
+     */
+    public long getTupleCount(String sparql) throws OntopConnectionException, OntopInvalidInputQueryException,
+            OntopReformulationException, OntopQueryEvaluationException {
+        SPARQLQuery sparqlQuery = ontopConnection.getInputQueryFactory().createSPARQLQuery(sparql);
+        try (OntopStatement statement = ontopConnection.createStatement()) {
+            return statement.getTupleCount(sparqlQuery);
+        }
+    }
+
 }
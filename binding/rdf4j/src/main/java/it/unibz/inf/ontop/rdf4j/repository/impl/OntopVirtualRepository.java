@@ -1,5 +1,7 @@
 package it.unibz.inf.ontop.rdf4j.repository.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Injector;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.cache.HTTPCacheHeaders;
@@ -8,6 +10,7 @@ import it.unibz.inf.ontop.answering.reformulation.input.RDF4JInputQueryFactory;
 import it.unibz.inf.ontop.injection.OntopSystemConfiguration;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import it.unibz.inf.ontop.rdf4j.repository.OntopRepository;
+import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.repository.RepositoryException;
@@ -17,6 +20,8 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class OntopVirtualRepository extends AbstractRepository implements OntopRepository {
 
@@ -31,6 +36,9 @@ public class OntopVirtualRepository extends AbstractRepository implements OntopR
     private OntopQueryEngine queryEngine;
     private final RDF4JInputQueryFactory inputQueryFactory;
     private final HTTPCacheHeaders cacheHeaders;
+    // Number of statements per list of contexts
+    @Nullable
+    private final Cache<List<Resource>, Long> sizeCache;
 
     public OntopVirtualRepository(OntopSystemConfiguration configuration) {
         this.configuration = configuration;
@@ -38,6 +46,13 @@ public class OntopVirtualRepository extends AbstractRepository implements OntopR
         inputQueryFactory = injector.getInstance(RDF4JInputQueryFactory.class);
         cacheHeaders = injector.getInstance(HTTPCacheHeaders.class);
         settings = configuration.getSettings();
+
+        int sizeCacheDuration = settings.getRepositorySizeCacheDuration();
+        sizeCache = sizeCacheDuration > 0
+                ? CacheBuilder.newBuilder()
+                    .expireAfterWrite(sizeCacheDuration, TimeUnit.SECONDS)
+                    .build()
+                : null;
     }
 
     /**
@@ -53,7 +68,8 @@ public class OntopVirtualRepository extends AbstractRepository implements OntopR
         }
 
         try {
-            return new OntopRepositoryConnection(this, getOntopConnection(), inputQueryFactory, settings);
+            return new OntopRepositoryConnection(this, getOntopConnection(), inputQueryFactory,
+                    queryEngine.getQueryReformulator(), settings, sizeCache);
         } catch (Exception e) {
             logger.error("Error creating repo connection: " + e.getMessage());
             throw new RepositoryException(e);
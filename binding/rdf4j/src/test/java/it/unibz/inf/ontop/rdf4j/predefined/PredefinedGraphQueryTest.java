@@ -0,0 +1,205 @@
+package it.unibz.inf.ontop.rdf4j.predefined;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.rdf4j.predefined.impl.OntopRDF4JPredefinedQueryEngineImpl;
+import it.unibz.inf.ontop.rdf4j.predefined.parsing.PredefinedQueryParser;
+import it.unibz.inf.ontop.rdf4j.predefined.parsing.impl.PredefinedQueryParserImpl;
+import it.unibz.inf.ontop.rdf4j.repository.OntopRepository;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.query.GraphQueryResult;
+import org.eclipse.rdf4j.query.QueryResults;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.FileReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streamed predefined CONSTRUCT queries keep the Ontop connection and statement open until the result is closed
+ */
+public class PredefinedGraphQueryTest {
+
+    private static final String OBDA_FILE = "/query-template/person.obda";
+    private static final String SQL_SCRIPT = "/query-template/person.sql";
+    private static final String CONFIG_FILE = "/predefined/person-graph-config.json";
+    private static final String QUERY_FILE = "/predefined/person-graph-queries.toml";
+
+    private static final ImmutableSet<String> ITALIAN_PERSONS = ImmutableSet.of(
+            "<http://person.example.org/person/1> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://person.example.org/Person>",
+            "<http://person.example.org/person/1> <http://person.example.org/name> \"Alice\"",
+            "<http://person.example.org/person/3> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://person.example.org/Person>",
+            "<http://person.example.org/person/3> <http://person.example.org/name> \"Carol\"");
+
+    private static final AtomicInteger OPEN_CONNECTIONS = new AtomicInteger();
+    private static final AtomicInteger OPEN_STATEMENTS = new AtomicInteger();
+
+    private static Connection SQL_CONNECTION;
+    private static OntopRepository REPOSITORY;
+    private static OntopRDF4JPredefinedQueryEngine ENGINE;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        String jdbcUrl = "jdbc:h2:mem:" + UUID.randomUUID();
+        SQL_CONNECTION = DriverManager.getConnection(jdbcUrl, "sa", "");
+        String script = new String(Files.readAllBytes(Paths.get(getPath(SQL_SCRIPT))), StandardCharsets.UTF_8);
+        SQL_CONNECTION.createStatement().executeUpdate(script);
+        SQL_CONNECTION.commit();
+
+        OntopSQLOWLAPIConfiguration configuration = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(getPath(OBDA_FILE))
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser("sa")
+                .jdbcPassword("")
+                .enableTestMode()
+                .build();
+
+        REPOSITORY = OntopRepository.defaultRepository(configuration);
+        REPOSITORY.init();
+
+        PredefinedQueryParser parser = new PredefinedQueryParserImpl(configuration);
+        PredefinedQueries predefinedQueries = parser.parse(new FileReader(getPath(CONFIG_FILE)),
+                new FileReader(getPath(QUERY_FILE)));
+        OntopQueryEngine trackingEngine = track(OntopQueryEngine.class,
+                ((OntopVirtualRepository) REPOSITORY).getOntopEngine());
+        ENGINE = new OntopRDF4JPredefinedQueryEngineImpl(trackingEngine, predefinedQueries, configuration);
+    }
+
+    @AfterClass
+    public static void after() throws Exception {
+        REPOSITORY.shutDown();
+        SQL_CONNECTION.close();
+    }
+
+    @Before
+    public void checkNothingOpen() {
+        assertEquals(0, OPEN_CONNECTIONS.get());
+        assertEquals(0, OPEN_STATEMENTS.get());
+    }
+
+    @Test
+    public void testStreamedGraph() {
+        try (GraphQueryResult result = ENGINE.evaluateGraph("personGraph", ImmutableMap.of("country", "it"))) {
+            // Pulled from the DB while iterating
+            assertEquals(1, OPEN_CONNECTIONS.get());
+            assertEquals(1, OPEN_STATEMENTS.get());
+            assertEquals(ITALIAN_PERSONS, render(QueryResults.asList(result)));
+        }
+        assertEquals(0, OPEN_CONNECTIONS.get());
+        assertEquals(0, OPEN_STATEMENTS.get());
+    }
+
+    @Test
+    public void testStreamedGraphClosedEarly() {
+        GraphQueryResult result = ENGINE.evaluateGraph("personGraph", ImmutableMap.of("country", "it"));
+        assertTrue(result.hasNext());
+        assertTrue(ITALIAN_PERSONS.contains(render(result.next())));
+        result.close();
+
+        assertEquals(0, OPEN_CONNECTIONS.get());
+        assertEquals(0, OPEN_STATEMENTS.get());
+        assertFalse(result.hasNext());
+    }
+
+    @Test
+    public void testStreamedEmptyGraph() {
+        try (GraphQueryResult result = ENGINE.evaluateGraph("personGraph", ImmutableMap.of("country", "at"))) {
+            assertFalse(result.hasNext());
+        }
+        assertEquals(0, OPEN_CONNECTIONS.get());
+    }
+
+    @Test
+    public void testBufferedGraph() {
+        try (GraphQueryResult result = ENGINE.evaluateGraph("personGraphBuffered", ImmutableMap.of("country", "it"))) {
+            // Already released
+            assertEquals(0, OPEN_CONNECTIONS.get());
+            assertEquals(ITALIAN_PERSONS, render(QueryResults.asList(result)));
+        }
+    }
+
+    @Test
+    public void testStreamedSerialization() {
+        AtomicInteger status = new AtomicInteger(200);
+        String result = ENGINE.evaluate("personGraph", ImmutableMap.of("country", "it"),
+                ImmutableList.of("application/n-triples"), ImmutableMultimap.of(), status::set, (k, v) -> {});
+        assertEquals(200, status.get());
+
+        ImmutableSet<String> lines = ImmutableSet.copyOf(result.trim().split("\n"));
+        assertEquals(ITALIAN_PERSONS.stream()
+                        .map(t -> t + " .")
+                        .collect(ImmutableCollectors.toSet()),
+                lines);
+        assertEquals(0, OPEN_CONNECTIONS.get());
+        assertEquals(0, OPEN_STATEMENTS.get());
+    }
+
+    private static ImmutableSet<String> render(Iterable<Statement> statements) {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        statements.forEach(s -> builder.add(render(s)));
+        return builder.build();
+    }
+
+    private static String render(Statement statement) {
+        return "<" + statement.getSubject() + "> <" + statement.getPredicate() + "> "
+                + (statement.getObject() instanceof org.eclipse.rdf4j.model.Literal
+                    ? "\"" + statement.getObject().stringValue() + "\""
+                    : "<" + statement.getObject() + ">");
+    }
+
+    /**
+     * Counts the connections and statements that are not closed yet
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T track(Class<T> type, T delegate) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    switch (method.getName()) {
+                        case "getConnection":
+                            OPEN_CONNECTIONS.incrementAndGet();
+                            return track(OntopConnection.class, (OntopConnection) result);
+                        case "createStatement":
+                            OPEN_STATEMENTS.incrementAndGet();
+                            return track(OntopStatement.class, (OntopStatement) result);
+                        case "close":
+                            if (type.equals(OntopConnection.class))
+                                OPEN_CONNECTIONS.decrementAndGet();
+                            else if (type.equals(OntopStatement.class))
+                                OPEN_STATEMENTS.decrementAndGet();
+                            return result;
+                        default:
+                            return result;
+                    }
+                });
+    }
+
+    private static String getPath(String resource) {
+        return PredefinedGraphQueryTest.class.getResource(resource).getPath();
+    }
+}
@@ -0,0 +1,159 @@
+package it.unibz.inf.ontop.rdf4j.predefined;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.rdf4j.predefined.impl.OntopRDF4JPredefinedQueryEngineImpl;
+import it.unibz.inf.ontop.rdf4j.predefined.parsing.PredefinedQueryParser;
+import it.unibz.inf.ontop.rdf4j.predefined.parsing.impl.PredefinedQueryParserImpl;
+import it.unibz.inf.ontop.rdf4j.repository.OntopRepository;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
+import org.eclipse.rdf4j.query.QueryResults;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PredefinedTupleQueryTest {
+
+    private static final String OBDA_FILE = "/query-template/person.obda";
+    private static final String SQL_SCRIPT = "/query-template/person.sql";
+    private static final String CONFIG_FILE = "/predefined/person-config.json";
+    private static final String QUERY_FILE = "/predefined/person-queries.toml";
+
+    private static Connection SQL_CONNECTION;
+    private static OntopRepository REPOSITORY;
+    private static OntopRDF4JPredefinedQueryEngine ENGINE;
+    private static OntopRDF4JPredefinedQueryEngine PRE_WARMED_ENGINE;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        String jdbcUrl = "jdbc:h2:mem:" + UUID.randomUUID();
+        SQL_CONNECTION = DriverManager.getConnection(jdbcUrl, "sa", "");
+        String script = new String(Files.readAllBytes(Paths.get(getPath(SQL_SCRIPT))), StandardCharsets.UTF_8);
+        SQL_CONNECTION.createStatement().executeUpdate(script);
+        SQL_CONNECTION.commit();
+
+        OntopSQLOWLAPIConfiguration configuration = createConfiguration(jdbcUrl, new Properties());
+
+        REPOSITORY = OntopRepository.defaultRepository(configuration);
+        REPOSITORY.init();
+
+        PredefinedQueryParser parser = new PredefinedQueryParserImpl(configuration);
+        PredefinedQueries predefinedQueries = parser.parse(new FileReader(getPath(CONFIG_FILE)),
+                new FileReader(getPath(QUERY_FILE)));
+        ENGINE = new OntopRDF4JPredefinedQueryEngineImpl(((OntopVirtualRepository) REPOSITORY).getOntopEngine(),
+                predefinedQueries, configuration);
+
+        Properties preWarmingProperties = new Properties();
+        preWarmingProperties.setProperty(OntopSystemSettings.PREDEFINED_QUERY_CACHE_PRE_WARMING, "true");
+        PRE_WARMED_ENGINE = new OntopRDF4JPredefinedQueryEngineImpl(((OntopVirtualRepository) REPOSITORY).getOntopEngine(),
+                predefinedQueries, createConfiguration(jdbcUrl, preWarmingProperties));
+    }
+
+    private static OntopSQLOWLAPIConfiguration createConfiguration(String jdbcUrl, Properties properties) {
+        return OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(getPath(OBDA_FILE))
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser("sa")
+                .jdbcPassword("")
+                .properties(properties)
+                .enableTestMode()
+                .build();
+    }
+
+    @AfterClass
+    public static void after() throws Exception {
+        REPOSITORY.shutDown();
+        SQL_CONNECTION.close();
+    }
+
+    @Test
+    public void testSeveralValues() {
+        assertEquals(ImmutableList.of("Alice", "Carol"), evaluateNames("it"));
+        assertEquals(ImmutableList.of("Bob"), evaluateNames("de"));
+        assertEquals(ImmutableList.of(), evaluateNames("x' OR '1'='1"));
+        assertEquals(ImmutableList.of("Dan's"), evaluateNames("fr"));
+    }
+
+    @Test
+    public void testCSV() {
+        AtomicInteger status = new AtomicInteger(200);
+        String result = ENGINE.evaluate("personByCountry", ImmutableMap.of("country", "de"),
+                ImmutableList.of("text/csv"), ImmutableMultimap.of(), status::set, (k, v) -> {});
+        assertEquals(200, status.get());
+        assertEquals("person,name\r\nhttp://person.example.org/person/2,Bob\r\n", result);
+    }
+
+    @Test
+    public void testMissingParameter() {
+        AtomicInteger status = new AtomicInteger(200);
+        ENGINE.evaluate("personByCountry", ImmutableMap.of(), ImmutableList.of("application/json"),
+                ImmutableMultimap.of(), status::set, (k, v) -> {});
+        assertEquals(400, status.get());
+    }
+
+    @Test
+    public void testReferenceQueryCache() {
+        ENGINE.flushReferenceQueryCache();
+        ReferenceQueryCacheStats initialStats = ENGINE.getReferenceQueryCacheStats().get("personByCountry");
+        assertEquals(0, initialStats.getEntryCount());
+        assertEquals(0, initialStats.getWeight());
+
+        evaluateNames("it");
+        evaluateNames("de");
+
+        ReferenceQueryCacheStats stats = ENGINE.getReferenceQueryCacheStats().get("personByCountry");
+        assertEquals(1, stats.getMissCount() - initialStats.getMissCount());
+        assertEquals(1, stats.getHitCount() - initialStats.getHitCount());
+        assertEquals(1, stats.getEntryCount());
+        assertTrue(stats.getWeight() > 0);
+
+        ENGINE.flushReferenceQueryCache("personByCountry");
+        assertEquals(0, ENGINE.getReferenceQueryCacheStats().get("personByCountry").getEntryCount());
+    }
+
+    @Test
+    public void testPreWarming() {
+        ReferenceQueryCacheStats initialStats = PRE_WARMED_ENGINE.getReferenceQueryCacheStats().get("personByCountry");
+        assertEquals(1, initialStats.getEntryCount());
+
+        assertEquals(ImmutableList.of("Alice", "Carol"), evaluateNames(PRE_WARMED_ENGINE, "it"));
+
+        ReferenceQueryCacheStats stats = PRE_WARMED_ENGINE.getReferenceQueryCacheStats().get("personByCountry");
+        assertEquals(0, stats.getMissCount());
+        assertEquals(1, stats.getHitCount() - initialStats.getHitCount());
+    }
+
+    private static ImmutableList<String> evaluateNames(String country) {
+        return evaluateNames(ENGINE, country);
+    }
+
+    private static ImmutableList<String> evaluateNames(OntopRDF4JPredefinedQueryEngine engine, String country) {
+        try (TupleQueryResult result = engine.evaluateTuple("personByCountry", ImmutableMap.of("country", country))) {
+            return ImmutableList.copyOf(QueryResults.asList(result).stream()
+                    .map(b -> b.getValue("name").stringValue())
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    private static String getPath(String resource) {
+        return PredefinedTupleQueryTest.class.getResource(resource).getPath();
+    }
+}
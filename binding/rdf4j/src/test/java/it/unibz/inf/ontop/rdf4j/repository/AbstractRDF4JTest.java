@@ -157,6 +157,10 @@ public class AbstractRDF4JTest {
         REPO_CONNECTION = repo.getConnection();
     }
 
+    protected static RepositoryConnection getRepositoryConnection() {
+        return REPO_CONNECTION;
+    }
+
     protected static void release() throws SQLException {
         REPO_CONNECTION.close();
         SQL_CONNECTION.close();
@@ -0,0 +1,107 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * Identical queries sent concurrently (the single-flight behaviour is tested in GuiceBasedQueryCacheTest)
+ */
+public class QueryCacheConcurrencyTest {
+
+    private static final String OBDA_FILE = "/query-template/person.obda";
+    private static final String SQL_SCRIPT = "/query-template/person.sql";
+    private static final int THREAD_COUNT = 16;
+
+    private static Connection SQL_CONNECTION;
+    private static OntopRepository REPOSITORY;
+    private static OntopSQLOWLAPIConfiguration CONFIGURATION;
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        String jdbcUrl = "jdbc:h2:mem:" + UUID.randomUUID();
+        SQL_CONNECTION = DriverManager.getConnection(jdbcUrl, "sa", "");
+        String script = new String(Files.readAllBytes(Paths.get(
+                QueryCacheConcurrencyTest.class.getResource(SQL_SCRIPT).getPath())), StandardCharsets.UTF_8);
+        SQL_CONNECTION.createStatement().executeUpdate(script);
+        SQL_CONNECTION.commit();
+
+        CONFIGURATION = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(QueryCacheConcurrencyTest.class.getResource(OBDA_FILE).getPath())
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser("sa")
+                .jdbcPassword("")
+                .enableTestMode()
+                .build();
+
+        REPOSITORY = OntopRepository.defaultRepository(CONFIGURATION);
+        REPOSITORY.init();
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        REPOSITORY.shutDown();
+        SQL_CONNECTION.close();
+    }
+
+    @Test
+    public void testConcurrentIdenticalQueries() throws Exception {
+        String query = "PREFIX : <http://person.example.org/>\n" +
+                "SELECT ?v WHERE {\n" +
+                "  ?p :country ?c ;\n" +
+                "     :name ?v .\n" +
+                "  FILTER (?c != \"de\")\n" +
+                "}\n" +
+                "ORDER BY ?v";
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ImmutableList.Builder<Future<Integer>> futureBuilder = ImmutableList.builder();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            futureBuilder.add(executor.submit(() -> {
+                startLatch.await();
+                try (RepositoryConnection connection = REPOSITORY.getConnection();
+                     TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, query).evaluate()) {
+                    int count = 0;
+                    while (result.hasNext()) {
+                        result.next();
+                        count++;
+                    }
+                    return count;
+                }
+            }));
+        }
+        startLatch.countDown();
+        for (Future<Integer> future : futureBuilder.build())
+            assertEquals(3, (int) future.get(60, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    /**
+     * Each query reformulator has its own cache
+     */
+    @Test
+    public void testNotSingleton() {
+        assertNotSame(CONFIGURATION.getInjector().getInstance(QueryCache.class),
+                CONFIGURATION.getInjector().getInstance(QueryCache.class));
+    }
+}
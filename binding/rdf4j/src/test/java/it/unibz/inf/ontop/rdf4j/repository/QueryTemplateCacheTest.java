@@ -0,0 +1,139 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopRepositoryConnection;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Queries only differing in their constants: from the third one, the parameterized SQL query is reused.
+ */
+public class QueryTemplateCacheTest extends AbstractRDF4JTest {
+
+    private static final String OBDA_FILE = "/query-template/person.obda";
+    private static final String SQL_SCRIPT = "/query-template/person.sql";
+    private static final String PROPERTY_FILE = "/query-template/query-template.properties";
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        initOBDA(SQL_SCRIPT, OBDA_FILE, null, PROPERTY_FILE);
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        release();
+    }
+
+    @Test
+    public void testSubjectIRI() {
+        runQueryAndCompare(nameQuery("1"), ImmutableList.of("Alice"));
+        runQueryAndCompare(nameQuery("2"), ImmutableList.of("Bob"));
+        runQueryAndCompare(nameQuery("3"), ImmutableList.of("Carol"));
+        runQueryAndCompare(nameQuery("4"), ImmutableList.of("Dan's"));
+        runQueryAndCompare(nameQuery("5"), ImmutableList.of());
+        // Do not fit the parameterized query
+        runQueryAndCompare(nameQuery("abc"), ImmutableList.of());
+        runQueryAndCompare(nameQuery("1/2"), ImmutableList.of());
+        runQueryAndCompare(nameQuery("01"), ImmutableList.of());
+    }
+
+    @Test
+    public void testLiteral() {
+        runQueryAndCompare(countryQuery("it"), ImmutableList.of("Alice", "Carol"));
+        runQueryAndCompare(countryQuery("de"), ImmutableList.of("Bob"));
+        runQueryAndCompare(countryQuery("fr"), ImmutableList.of("Dan's"));
+        runQueryAndCompare(countryQuery("at"), ImmutableList.of());
+        runQueryAndCompare(countryQuery("i't"), ImmutableList.of());
+        runQueryAndCompare(countryQuery("it"), ImmutableList.of("Alice", "Carol"));
+    }
+
+    @Test
+    public void testTwoParameters() {
+        runQueryAndCompare(nameAndCountryQuery("1", "it"), ImmutableList.of("Alice"));
+        runQueryAndCompare(nameAndCountryQuery("2", "de"), ImmutableList.of("Bob"));
+        runQueryAndCompare(nameAndCountryQuery("3", "it"), ImmutableList.of("Carol"));
+        runQueryAndCompare(nameAndCountryQuery("3", "de"), ImmutableList.of());
+    }
+
+    /**
+     * The fixed constant 'it' of the SQL query is not a bind marker, even for the value "it"
+     */
+    @Test
+    public void testSameConstantElsewhere() throws Exception {
+        runQueryAndCompare(countryWithFilterQuery("de"), ImmutableList.of("Bob"));
+        runQueryAndCompare(countryWithFilterQuery("fr"), ImmutableList.of("Dan's"));
+        runQueryAndCompare(countryWithFilterQuery("it"), ImmutableList.of("Alice", "Carol"));
+        assertTrue(isFromTemplate(countryWithFilterQuery("it")));
+    }
+
+    /**
+     * The value "abc" cannot match the integer column: its query is not an instance of the parameterized one
+     */
+    @Test
+    public void testSamplesNormalizedDifferently() throws Exception {
+        runQueryAndCompare(nameWithFilterQuery("abc"), ImmutableList.of());
+        runQueryAndCompare(nameWithFilterQuery("1"), ImmutableList.of("Alice"));
+        runQueryAndCompare(nameWithFilterQuery("2"), ImmutableList.of());
+        runQueryAndCompare(nameWithFilterQuery("3"), ImmutableList.of("Carol"));
+        assertTrue(isFromTemplate(nameWithFilterQuery("3")));
+
+        runQueryAndCompare(nameWithFilterQuery("xyz"), ImmutableList.of());
+        assertFalse(isFromTemplate(nameWithFilterQuery("xyz")));
+        runQueryAndCompare(nameWithFilterQuery("4"), ImmutableList.of("Dan's"));
+        assertTrue(isFromTemplate(nameWithFilterQuery("4")));
+    }
+
+    private static boolean isFromTemplate(String sparql) throws Exception {
+        return ((OntopRepositoryConnection) getRepositoryConnection()).reformulate(sparql)
+                .contains("PARAMETERS ");
+    }
+
+    private static String nameQuery(String id) {
+        return "PREFIX : <http://person.example.org/>\n" +
+                "SELECT ?v WHERE {\n" +
+                "  <http://person.example.org/person/" + id + "> :name ?v .\n" +
+                "}";
+    }
+
+    private static String countryQuery(String country) {
+        return "PREFIX : <http://person.example.org/>\n" +
+                "SELECT ?v WHERE {\n" +
+                "  ?p :country \"" + country + "\" ;\n" +
+                "     :name ?v .\n" +
+                "}\n" +
+                "ORDER BY ?v";
+    }
+
+    private static String countryWithFilterQuery(String country) {
+        return "PREFIX : <http://person.example.org/>\n" +
+                "SELECT ?v WHERE {\n" +
+                "  ?p :country \"" + country + "\" ;\n" +
+                "     :name ?v .\n" +
+                "  FILTER (?v != \"it\")\n" +
+                "}\n" +
+                "ORDER BY ?v";
+    }
+
+    private static String nameWithFilterQuery(String id) {
+        return "PREFIX : <http://person.example.org/>\n" +
+                "SELECT ?v WHERE {\n" +
+                "  <http://person.example.org/person/" + id + "> :name ?v .\n" +
+                "  FILTER (?v != \"Bob\")\n" +
+                "}";
+    }
+
+    private static String nameAndCountryQuery(String id, String country) {
+        return "PREFIX : <http://person.example.org/>\n" +
+                "SELECT ?v WHERE {\n" +
+                "  <http://person.example.org/person/" + id + "> :country \"" + country + "\" ;\n" +
+                "     :name ?v .\n" +
+                "}";
+    }
+}
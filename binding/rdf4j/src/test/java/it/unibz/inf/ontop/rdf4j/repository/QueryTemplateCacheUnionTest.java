@@ -0,0 +1,87 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopRepositoryConnection;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Constants of the same shape selecting different mapping assertions (UNION branches):
+ * the parameterized SQL query must not be reused for them.
+ */
+public class QueryTemplateCacheUnionTest extends AbstractRDF4JTest {
+
+    private static final String OBDA_FILE = "/query-template/union.obda";
+    private static final String SQL_SCRIPT = "/query-template/union.sql";
+    private static final String PROPERTY_FILE = "/query-template/query-template.properties";
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        initOBDA(SQL_SCRIPT, OBDA_FILE, null, PROPERTY_FILE);
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        release();
+    }
+
+    @Test
+    public void testMappingConstant() throws Exception {
+        runQueryAndCompare(nameQuery("person/2"), ImmutableList.of("Bob"));
+        runQueryAndCompare(nameQuery("person/3"), ImmutableList.of("Carol"));
+        runQueryAndCompare(nameQuery("person/4"), ImmutableList.of("Dan"));
+        assertTrue(isFromTemplate(nameQuery("person/4")));
+
+        // Also matches the constant IRI of the mapping
+        runQueryAndCompare(nameQuery("person/1"), ImmutableList.of("Alice", "Founder"));
+        assertFalse(isFromTemplate(nameQuery("person/1")));
+
+        runQueryAndCompare(nameQuery("person/5"), ImmutableList.of());
+        assertTrue(isFromTemplate(nameQuery("person/5")));
+    }
+
+    @Test
+    public void testOverlappingTemplates() throws Exception {
+        runQueryAndCompare(labelQuery("org/ab"), ImmutableList.of("Acme"));
+        runQueryAndCompare(labelQuery("org/cd"), ImmutableList.of("Bolt"));
+        runQueryAndCompare(labelQuery("org/ef"), ImmutableList.of("Core"));
+        assertTrue(isFromTemplate(labelQuery("org/ef")));
+
+        // Also matches the IRI template of the branches
+        runQueryAndCompare(labelQuery("org/x1"), ImmutableList.of("Branch one", "Xeno"));
+        assertFalse(isFromTemplate(labelQuery("org/x1")));
+        runQueryAndCompare(labelQuery("org/x2"), ImmutableList.of("Branch two"));
+        assertFalse(isFromTemplate(labelQuery("org/x2")));
+
+        runQueryAndCompare(labelQuery("org/gh"), ImmutableList.of());
+        assertTrue(isFromTemplate(labelQuery("org/gh")));
+    }
+
+    private static boolean isFromTemplate(String sparql) throws Exception {
+        return ((OntopRepositoryConnection) getRepositoryConnection()).reformulate(sparql)
+                .contains("PARAMETERS ");
+    }
+
+    private static String nameQuery(String localName) {
+        return query(localName, "name");
+    }
+
+    private static String labelQuery(String localName) {
+        return query(localName, "label");
+    }
+
+    private static String query(String localName, String property) {
+        return "PREFIX : <http://union.example.org/>\n" +
+                "SELECT ?v WHERE {\n" +
+                "  <http://union.example.org/" + localName + "> :" + property + " ?v .\n" +
+                "}\n" +
+                "ORDER BY ?v";
+    }
+}
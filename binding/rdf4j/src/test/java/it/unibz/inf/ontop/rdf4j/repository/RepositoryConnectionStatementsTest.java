@@ -0,0 +1,96 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopRepositoryConnection;
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RepositoryConnectionStatementsTest extends AbstractRDF4JTest {
+
+    private static final String R2RML_FILE = "/repository-statements/mapping.ttl";
+    private static final String SQL_SCRIPT = "/repository-statements/database.sql";
+
+    private static final ValueFactory VALUE_FACTORY = SimpleValueFactory.getInstance();
+    private static final IRI AGENCY_42 = VALUE_FACTORY.createIRI("http://example.org/agency/42");
+    private static final IRI AGENCY_CLASS = VALUE_FACTORY.createIRI("http://example.org/terms#agency");
+    private static final IRI HAS_URL = VALUE_FACTORY.createIRI("http://example.org#has_url");
+    private static final IRI GRAPH_1 = VALUE_FACTORY.createIRI("http://example.org#graph_1");
+    private static final IRI GRAPH_2 = VALUE_FACTORY.createIRI("http://example.org#graph_2");
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        initR2RML(SQL_SCRIPT, R2RML_FILE);
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        release();
+    }
+
+    @Test
+    public void testContextIDs() {
+        List<Resource> contexts = Iterations.asList(getRepositoryConnection().getContextIDs());
+        assertEquals(ImmutableSet.of(GRAPH_1, GRAPH_2), ImmutableSet.copyOf(contexts));
+    }
+
+    @Test
+    public void testHasStatement() {
+        RepositoryConnection connection = getRepositoryConnection();
+        assertTrue(connection.hasStatement(AGENCY_42, RDF.TYPE, AGENCY_CLASS, false));
+        assertFalse(connection.hasStatement(AGENCY_42, HAS_URL, null, false));
+        assertTrue(connection.hasStatement(AGENCY_42, HAS_URL, null, false, GRAPH_1));
+        assertFalse(connection.hasStatement(AGENCY_42, HAS_URL, null, false, GRAPH_2));
+        assertTrue(connection.hasStatement(null, HAS_URL, VALUE_FACTORY.createLiteral("http://bbb.com"), false,
+                GRAPH_2, GRAPH_1));
+    }
+
+    @Test
+    public void testSize() {
+        RepositoryConnection connection = getRepositoryConnection();
+        assertEquals(2, connection.size());
+        assertEquals(2, connection.size(GRAPH_1));
+        assertEquals(4, connection.size(GRAPH_1, GRAPH_2));
+        assertEquals(6, connection.size(null, GRAPH_1, GRAPH_2));
+        assertFalse(connection.isEmpty());
+    }
+
+    @Test
+    public void testGetStatementsInContext() {
+        List<Statement> statements = Iterations.asList(
+                getRepositoryConnection().getStatements(AGENCY_42, null, null, false, GRAPH_1));
+        assertEquals(1, statements.size());
+        Statement statement = statements.get(0);
+        assertEquals(HAS_URL, statement.getPredicate());
+        assertEquals("http://aaa.com", statement.getObject().stringValue());
+        assertEquals(GRAPH_1, statement.getContext());
+    }
+
+    @Test
+    public void testTupleCount() throws Exception {
+        OntopRepositoryConnection connection = (OntopRepositoryConnection) getRepositoryConnection();
+        assertEquals(2, connection.getTupleCount(
+                "SELECT ?s WHERE { ?s a <http://example.org/terms#agency> } ORDER BY DESC(?s)"));
+        assertEquals(1, connection.getTupleCount(
+                "SELECT ?s WHERE { ?s a <http://example.org/terms#agency> } ORDER BY ?s LIMIT 1"));
+        assertEquals(1, connection.getTupleCount(
+                "SELECT ?s WHERE { ?s a <http://example.org/terms#agency> } LIMIT 5 OFFSET 1"));
+        assertEquals(2, connection.getTupleCount("SELECT DISTINCT ?p WHERE { GRAPH ?g { ?s ?p ?o } }"));
+        assertEquals(4, connection.getTupleCount(
+                "SELECT (CONCAT(STR(?s), STR(?o)) AS ?v) WHERE { GRAPH ?g { ?s ?p ?o } }"));
+    }
+}
@@ -0,0 +1,10 @@
+create table "person" (
+	"id" int primary key,
+	"name" varchar(100) NOT NULL,
+	"country" varchar(100) NOT NULL
+);
+
+insert into "person" ("id", "name", "country") values (1, 'Alice', 'it');
+insert into "person" ("id", "name", "country") values (2, 'Bob', 'de');
+insert into "person" ("id", "name", "country") values (3, 'Carol', 'it');
+insert into "person" ("id", "name", "country") values (4, 'Dan''s', 'fr');
@@ -0,0 +1,33 @@
+create table "person" (
+	"id" int primary key,
+	"name" varchar(100) NOT NULL
+);
+
+insert into "person" ("id", "name") values (1, 'Alice');
+insert into "person" ("id", "name") values (2, 'Bob');
+insert into "person" ("id", "name") values (3, 'Carol');
+insert into "person" ("id", "name") values (4, 'Dan');
+
+create table "meta" (
+	"key" varchar(100) primary key
+);
+
+insert into "meta" ("key") values ('founder');
+
+create table "org" (
+	"code" varchar(10) primary key,
+	"name" varchar(100) NOT NULL
+);
+
+insert into "org" ("code", "name") values ('ab', 'Acme');
+insert into "org" ("code", "name") values ('cd', 'Bolt');
+insert into "org" ("code", "name") values ('ef', 'Core');
+insert into "org" ("code", "name") values ('x1', 'Xeno');
+
+create table "branch" (
+	"id" int primary key,
+	"name" varchar(100) NOT NULL
+);
+
+insert into "branch" ("id", "name") values (1, 'Branch one');
+insert into "branch" ("id", "name") values (2, 'Branch two');
@@ -21,14 +21,118 @@ package it.unibz.inf.ontop.cli;
  */
 
 import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.annotations.help.BashCompletion;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import com.github.rvesse.airline.help.cli.bash.CompletionBehaviour;
+import com.google.common.collect.ImmutableSortedMap;
+import it.unibz.inf.ontop.dbschema.DBMetadataProvider;
+import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.spec.CompiledSpecificationArtifact;
+import it.unibz.inf.ontop.spec.dbschema.tools.DBMetadataExtractorAndSerializer;
+import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
 
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Only the DB metadata is stored in the artifact, together with the fingerprint of the mapping, constraint
+ * and view files and of the DB schema (change markers of the relations). The mapping is still parsed
+ * and saturated, and the ontology classified, when the artifact is loaded.
+ *
+ * The whole specification is built once, so that errors are reported at compile time.
+ */
 @Command(name = "compile",
-        description = "compile the ontology axioms into  mappings",
+        description = "Validate the OBDA specification and store its DB metadata into an artifact, so that "
+                + "the start-up does not need to extract it again (see --compiled-specification)",
         hidden = true)
-public class OntopCompile implements OntopCommand {
+public class OntopCompile extends OntopMappingOntologyRelatedCommand {
+
+    @Option(type = OptionType.COMMAND, name = {"-o", "--output"},
+            title = "output", description = "compiled specification file")
+    @Required
+    @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
+    private String outputFile;
 
     @Override
     public void run() {
+        try {
+            String dbMetadata = (dbMetadataFile == null)
+                    ? createConfigurationBuilder().build().getInjector()
+                        .getInstance(DBMetadataExtractorAndSerializer.class)
+                        .extractAndSerialize()
+                    : new String(Files.readAllBytes(Paths.get(dbMetadataFile)), StandardCharsets.UTF_8);
+
+            OntopSQLOWLAPIConfiguration configuration = createConfigurationBuilder()
+                    .dbMetadataReader(new StringReader(dbMetadata))
+                    .build();
+            // Fails on invalid mappings, views or ontologies
+            configuration.loadSpecification();
+
+            ImmutableSortedMap<String, Optional<String>> changeMarkers;
+            try (Connection connection = LocalJDBCConnectionUtils.createConnection(configuration.getSettings())) {
+                DBMetadataProvider provider = configuration.getInjector()
+                        .getInstance(JDBCMetadataProviderFactory.class)
+                        .getMetadataProvider(connection);
+                changeMarkers = CompiledSpecificationArtifact.getChangeMarkers(new StringReader(dbMetadata), provider);
+            }
+            changeMarkers.entrySet().stream()
+                    .filter(e -> !e.getValue().isPresent())
+                    .map(Map.Entry::getKey)
+                    .forEach(r -> System.err.println("WARNING: schema changes of " + r
+                            + " cannot be detected, please recompile after altering it"));
+
+            String fingerprint = CompiledSpecificationArtifact.computeFingerprint(
+                    Optional.of(new File(mappingFile)),
+                    Optional.ofNullable(constraintFile).map(File::new),
+                    Optional.ofNullable(ontopViewFile).map(File::new),
+                    configuration.getSettings(),
+                    changeMarkers);
+
+            new CompiledSpecificationArtifact(fingerprint, dbMetadata, changeMarkers)
+                    .write(new File(outputFile));
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private OntopSQLOWLAPIConfiguration.Builder<? extends OntopSQLOWLAPIConfiguration.Builder> createConfigurationBuilder() {
+        OntopSQLOWLAPIConfiguration.Builder<? extends OntopSQLOWLAPIConfiguration.Builder> builder =
+                OntopSQLOWLAPIConfiguration.defaultBuilder()
+                        .propertyFile(propertiesFile);
+
+        if (isR2rmlFile(mappingFile))
+            builder.r2rmlMappingFile(mappingFile);
+        else
+            builder.nativeOntopMappingFile(mappingFile);
+
+        if (owlFile != null)
+            builder.ontologyFile(owlFile);
+
+        if (constraintFile != null)
+            builder.basicImplicitConstraintFile(constraintFile);
+
+        if (ontopViewFile != null)
+            builder.ontopViewFile(ontopViewFile);
+
+        if (dbPassword != null)
+            builder.jdbcPassword(dbPassword);
+
+        if (dbUrl != null)
+            builder.jdbcUrl(dbUrl);
+
+        if (dbUser != null)
+            builder.jdbcUser(dbUser);
 
+        return builder;
     }
 }
@@ -82,6 +82,9 @@ public class OntopEndpoint extends OntopReasoningCommandBase {
         if (this.ontopViewFile != null)
             argList.add("--ontop-views=" + this.ontopViewFile);
 
+        if (this.compiledSpecificationFile != null)
+            argList.add("--compiled-specification=" + this.compiledSpecificationFile);
+
         if (this.portalFile != null)
             argList.add("--portal=" + this.portalFile);
 
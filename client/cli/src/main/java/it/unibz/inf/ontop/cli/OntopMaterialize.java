@@ -93,6 +93,14 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             description = "All the SQL results of one big query will be stored in memory. Not recommended. Default: false.")
     private boolean noStream = false;
 
+    @Option(type = OptionType.COMMAND, name = {"--parallelism"}, title = "degree of parallelism",
+            description = "Number of classes/properties materialized concurrently, each over its own DB connection. Default: 1.")
+    private int degreeOfParallelism = 1;
+
+    @Option(type = OptionType.COMMAND, name = {"--deterministic-order"}, title = "deterministic order",
+            description = "Keeps the order of the classes/properties when materializing them in parallel. Default: false.")
+    private boolean deterministicOrder = false;
+
     public OntopMaterialize() {
     }
 
@@ -121,6 +129,8 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             materializer = RDF4JMaterializer.defaultMaterializer(
                     materializerConfiguration,
                     MaterializationParams.defaultBuilder()
+                            .degreeOfParallelism(degreeOfParallelism)
+                            .enableDeterministicOrder(deterministicOrder)
                             .build()
             );
         } catch (OBDASpecificationException | OWLOntologyCreationException e) {
@@ -267,6 +277,9 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         if (ontopViewFile != null)
             configBuilder.ontopViewFile(ontopViewFile);
 
+        if (compiledSpecificationFile != null)
+            configBuilder.compiledSpecificationFile(compiledSpecificationFile);
+
         Properties properties = OntopModelConfigurationImpl.extractProperties(
                 OntopModelConfigurationImpl.extractPropertyFile(propertiesFile));
 
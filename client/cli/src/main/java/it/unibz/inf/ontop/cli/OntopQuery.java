@@ -82,6 +82,9 @@ public class OntopQuery extends OntopReasoningCommandBase {
         if (ontopViewFile != null)
             configurationBuilder.ontopViewFile(ontopViewFile);
 
+        if (compiledSpecificationFile != null)
+            configurationBuilder.compiledSpecificationFile(compiledSpecificationFile);
+
         if (dbPassword != null)
             configurationBuilder.jdbcPassword(dbPassword);
 
@@ -30,6 +30,12 @@ public abstract class OntopReasoningCommandBase extends OntopMappingOntologyRela
             description = "enable annotation properties defined in the ontology. Default: false")
     public boolean enableAnnotations = false;
 
+    @Option(type = OptionType.COMMAND, name = {"--compiled-specification"}, title = "compiled specification file",
+            description = "Output of the compile command (DB metadata). Ignored if the mapping, constraint or view files "
+                    + "or the DB schema have changed since")
+    @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
+    String compiledSpecificationFile;
+
 	protected static OWLOntology extractDeclarations(OWLOntologyManager manager, OWLOntology ontology) throws OWLOntologyCreationException {
 
         IRI ontologyIRI = ontology.getOntologyID().getOntologyIRI().get();
@@ -0,0 +1,47 @@
+package it.unibz.inf.ontop.cli;
+
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExternalResource;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertTrue;
+
+public class OntopCompileTest {
+
+    @ClassRule
+    public static ExternalResource h2Connection = new H2ExternalResourceForBookExample();
+
+    @Rule
+    public TemporaryFolder outputFolder = new TemporaryFolder();
+
+    @Test
+    public void testOntopHelp(){
+        Ontop.main("help", "compile");
+    }
+
+    @Test
+    public void testOntopCompileAndMaterialize(){
+        File compiled = new File(outputFolder.getRoot(), "exampleBooks.compiled");
+        File materialized = new File(outputFolder.getRoot(), "exampleBooks.compiled.materialized.ttl");
+
+        Ontop.main("compile", "-m", "src/test/resources/books/exampleBooks.obda",
+                "-t", "src/test/resources/books/exampleBooks.owl",
+                "-p", "src/test/resources/books/exampleBooks.properties",
+                "-o", compiled.getPath());
+
+        assertTrue(compiled.exists());
+
+        Ontop.main("materialize", "-m", "src/test/resources/books/exampleBooks.obda",
+                "-t", "src/test/resources/books/exampleBooks.owl",
+                "-p", "src/test/resources/books/exampleBooks.properties",
+                "--compiled-specification", compiled.getPath(),
+                "-f", "turtle",
+                "-o", materialized.getPath());
+
+        assertTrue(materialized.exists());
+    }
+}
@@ -20,6 +20,7 @@ public class OntopVirtualRepositoryBean {
                                                              @Value("${constraint:#{null}}") String constraint,
                                                              @Value("${db-metadata:#{null}}") String dbMetadata,
                                                              @Value("${ontop-views:#{null}}") String ontopViews,
+                                                             @Value("${compiled-specification:#{null}}") String compiledSpecification,
                                                              @Value("${db-user:#{null}}") String dbUser,
                                                              @Value("${db-password:#{null}}") String dbPassword,
                                                              @Value("${db-url:#{null}}") String dbUrl) throws RepositoryException {
@@ -46,6 +47,9 @@ public class OntopVirtualRepositoryBean {
         if (ontopViews !=null && !ontopViews.isEmpty())
             builder.ontopViewFile(ontopViews);
 
+        if (compiledSpecification != null && !compiledSpecification.isEmpty())
+            builder.compiledSpecificationFile(compiledSpecification);
+
         if (dbUser != null && !dbUser.isEmpty())
             builder.jdbcUser(dbUser);
 
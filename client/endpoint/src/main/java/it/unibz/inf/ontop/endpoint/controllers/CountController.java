@@ -0,0 +1,43 @@
+package it.unibz.inf.ontop.endpoint.controllers;
+
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopQueryEvaluationException;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopRepositoryConnection;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * Number of results of a SELECT query, counted by the DB. Useful for paging large results.
+ */
+@RestController
+public class CountController {
+
+    private final OntopVirtualRepository repository;
+
+    @Autowired
+    public CountController(OntopVirtualRepository repository) {
+        this.repository = repository;
+    }
+
+    @RequestMapping(value = "/ontop/count")
+    @ResponseBody
+    public ResponseEntity<String> count(@RequestParam(value = "query") String query)
+            throws OntopConnectionException, OntopReformulationException, OntopQueryEvaluationException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(CONTENT_TYPE, "text/plain; charset=UTF-8");
+
+        try (OntopRepositoryConnection connection = repository.getConnection()) {
+            return new ResponseEntity<>(String.valueOf(connection.getTupleCount(query)), headers, HttpStatus.OK);
+        }
+    }
+}
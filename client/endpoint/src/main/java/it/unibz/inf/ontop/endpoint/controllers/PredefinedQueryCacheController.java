@@ -0,0 +1,39 @@
+package it.unibz.inf.ontop.endpoint.controllers;
+
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.rdf4j.predefined.OntopRDF4JPredefinedQueryEngine;
+import it.unibz.inf.ontop.rdf4j.predefined.ReferenceQueryCacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import javax.annotation.Nullable;
+
+/**
+ * Inspects and flushes the reference queries of the predefined queries
+ */
+@RestController
+@ConditionalOnExpression("${dev:false}")
+public class PredefinedQueryCacheController {
+
+    private final OntopRDF4JPredefinedQueryEngine engine;
+
+    @Autowired
+    public PredefinedQueryCacheController(OntopRDF4JPredefinedQueryEngine engine) {
+        this.engine = engine;
+    }
+
+    @GetMapping(value = "/ontop/predefined/cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ImmutableMap<String, ReferenceQueryCacheStats> getStats() {
+        return engine.getReferenceQueryCacheStats();
+    }
+
+    @PostMapping("/ontop/predefined/cache/flush")
+    public void flush(@RequestParam(value = "id", required = false) @Nullable String queryId) {
+        if (queryId == null)
+            engine.flushReferenceQueryCache();
+        else
+            engine.flushReferenceQueryCache(queryId);
+    }
+}
@@ -1,20 +1,36 @@
 package it.unibz.inf.ontop.constraints.impl;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.*;
 import it.unibz.inf.ontop.constraints.*;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
 import it.unibz.inf.ontop.model.atom.DataAtom;
 
-import java.util.*;
-
+/**
+ * Thread-safe: the chase cache is bounded and can be shared by concurrent containment checks.
+ */
 public class ImmutableCQContainmentCheckUnderLIDs<P extends AtomPredicate> implements ImmutableCQContainmentCheck<P> {
 
-    private final Map<ImmutableList<DataAtom<P>>, ImmutableSet<DataAtom<P>>> chaseCache = new HashMap<>();
+    private static final int CHASE_CACHE_SIZE = 100_000;
+
+    private final LoadingCache<ImmutableList<DataAtom<P>>, ImmutableSet<DataAtom<P>>> chaseCache;
 
     private final BasicLinearInclusionDependenciesImpl<P> dependencies;
 
     public ImmutableCQContainmentCheckUnderLIDs(BasicLinearInclusionDependenciesImpl<P> dependencies) {
         this.dependencies = dependencies;
+        this.chaseCache = CacheBuilder.newBuilder()
+                .maximumSize(CHASE_CACHE_SIZE)
+                .build(CacheLoader.from(this::computeChase));
+    }
+
+    private ImmutableSet<DataAtom<P>> computeChase(ImmutableList<DataAtom<P>> atoms) {
+        // the dependencies register the variables of the chased atoms (not thread-safe)
+        synchronized (dependencies) {
+            return dependencies.chaseAllAtoms(atoms);
+        }
     }
 
     @Override
@@ -27,16 +43,23 @@ public class ImmutableCQContainmentCheckUnderLIDs<P extends AtomPredicate> imple
             ImmutableHomomorphismIterator<P> iterator = new ImmutableHomomorphismIterator<>(
                     builder.build(),
                     cq2.getAtoms(),
-                    chaseCache.computeIfAbsent(cq1.getAtoms(), dependencies::chaseAllAtoms));
+                    chaseCache.getUnchecked(cq1.getAtoms()));
             return iterator.hasNext();
         }
         return false;
     }
 
+    /**
+     * Atoms with their consequences under the LIDs (cached)
+     */
+    public ImmutableSet<DataAtom<P>> chase(ImmutableList<DataAtom<P>> atoms) {
+        return chaseCache.getUnchecked(atoms);
+    }
+
     public ImmutableHomomorphismIterator<P> homomorphismIterator(ImmutableHomomorphism base, ImmutableList<DataAtom<P>> from, ImmutableList<DataAtom<P>> to) {
          return new ImmutableHomomorphismIterator<>(
                 base,
                 from,
-                chaseCache.computeIfAbsent(to, dependencies::chaseAllAtoms));
+                chaseCache.getUnchecked(to));
     }
 }
@@ -6,11 +6,16 @@ import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.exception.MetadataExtractionException;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Thread-safe: the cached relations are looked up without locking,
+ * the calls to the provider are serialized.
+ */
 public class CachingMetadataLookup implements MetadataLookup {
 
     private final MetadataProvider provider;
-    private final Map<RelationID, NamedRelationDefinition> map = new HashMap<>();
+    private final Map<RelationID, NamedRelationDefinition> map = new ConcurrentHashMap<>();
 
     public CachingMetadataLookup(MetadataProvider provider) { this.provider = provider; }
 
@@ -20,13 +25,20 @@ public class CachingMetadataLookup implements MetadataLookup {
         if (relation != null)
             return relation;
 
-        NamedRelationDefinition retrievedRelation = provider.getRelation(relationId);
-        for (RelationID retrievedId : retrievedRelation.getAllIDs()) {
-            NamedRelationDefinition prev = map.put(retrievedId, retrievedRelation);
-            if (prev != null)
-                throw new MetadataExtractionException("Clashing relation IDs: " + retrievedId + " and " + relationId);
+        // the providers (and their connections) are not thread-safe
+        synchronized (provider) {
+            NamedRelationDefinition cachedRelation = map.get(relationId);
+            if (cachedRelation != null)
+                return cachedRelation;
+
+            NamedRelationDefinition retrievedRelation = provider.getRelation(relationId);
+            for (RelationID retrievedId : retrievedRelation.getAllIDs()) {
+                NamedRelationDefinition prev = map.put(retrievedId, retrievedRelation);
+                if (prev != null)
+                    throw new MetadataExtractionException("Clashing relation IDs: " + retrievedId + " and " + relationId);
+            }
+            return retrievedRelation;
         }
-        return retrievedRelation;
     }
 
     @Override
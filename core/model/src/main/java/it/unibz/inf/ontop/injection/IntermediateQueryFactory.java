@@ -69,6 +69,24 @@ public interface IntermediateQueryFactory {
                                 @Assisted("columnNames") ImmutableMap<Variable, QuotedID> columnNames,
                                 String nativeQueryString, VariableNullability variableNullability);
 
+    /**
+     * With values for the bind markers of the native query string
+     */
+    NativeNode createNativeNode(ImmutableSortedSet<Variable> variables,
+                                @Assisted("variableTypeMap") ImmutableMap<Variable, DBTermType> variableTypeMap,
+                                @Assisted("columnNames") ImmutableMap<Variable, QuotedID> columnNames,
+                                String nativeQueryString, VariableNullability variableNullability,
+                                ImmutableList<DBConstant> parameters);
+
+    /**
+     * With values for the bind markers, for native queries that may order their results
+     */
+    NativeNode createNativeNode(ImmutableSortedSet<Variable> variables,
+                                @Assisted("variableTypeMap") ImmutableMap<Variable, DBTermType> variableTypeMap,
+                                @Assisted("columnNames") ImmutableMap<Variable, QuotedID> columnNames,
+                                String nativeQueryString, VariableNullability variableNullability,
+                                ImmutableList<DBConstant> parameters, boolean isOrdered);
+
     TrueNode createTrueNode();
 
     DistinctNode createDistinctNode();
@@ -37,6 +37,13 @@ public abstract class AbstractCompositeIQTree<N extends QueryNode> implements Co
     @Nullable
     private String string;
 
+    /*
+     * LAZY (0 if not yet computed, like String.hashCode())
+     *
+     * Computed from the cached structural hashes of the children: cheap when only a few nodes are new.
+     */
+    private int structuralHashCode;
+
     // Non final
     private boolean hasBeenSuccessfullyValidate;
 
@@ -115,21 +122,23 @@ public abstract class AbstractCompositeIQTree<N extends QueryNode> implements Co
 
     @Override
     public String toString() {
-        if (string == null)
-            string = printSubtree(this, "");
+        if (string == null) {
+            StringBuilder sb = new StringBuilder();
+            printSubtree(this, "", sb);
+            string = sb.toString();
+        }
         return string;
     }
 
     /**
      * Recursive
      */
-    private static String printSubtree(IQTree subTree, String offset) {
-        String childOffset = offset + TAB_STR;
+    private static void printSubtree(IQTree subTree, String offset, StringBuilder sb) {
+        sb.append(offset).append(subTree.getRootNode()).append("\n");
 
-        return offset + subTree.getRootNode() + "\n"
-                + subTree.getChildren().stream()
-                    .map(c -> printSubtree(c, childOffset))
-                    .reduce("", (c, a) -> c + a);
+        String childOffset = offset + TAB_STR;
+        for (IQTree child : subTree.getChildren())
+            printSubtree(child, childOffset, sb);
     }
 
     @Override
@@ -138,13 +147,40 @@ public abstract class AbstractCompositeIQTree<N extends QueryNode> implements Co
                 && isEquivalentTo((CompositeIQTree) o));
     }
 
+    /**
+     * Structural: consistent with isEquivalentTo()
+     */
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        int h = structuralHashCode;
+        if (h == 0) {
+            h = rootNode.getStructuralHashCode();
+            for (IQTree child : children)
+                h = 31 * h + computeStructuralHashCode(child);
+            // 0 is reserved for "not computed"
+            if (h == 0)
+                h = 1;
+            structuralHashCode = h;
+        }
+        return h;
+    }
+
+    /**
+     * Leaves are also query nodes, whose hashCode() is identity-based.
+     */
+    static int computeStructuralHashCode(IQTree tree) {
+        return (tree instanceof AbstractCompositeIQTree)
+                ? tree.hashCode()
+                : tree.getRootNode().getStructuralHashCode();
     }
 
     @Override
     public boolean isEquivalentTo(IQTree tree) {
+        if (this == tree)
+            return true;
+        // Cheap once the hashes are cached (e.g. when comparing the IQs of successive iterations)
+        if ((tree instanceof AbstractCompositeIQTree) && hashCode() != tree.hashCode())
+            return false;
         if (!getRootNode().isEquivalentTo(tree.getRootNode()))
             return false;
 
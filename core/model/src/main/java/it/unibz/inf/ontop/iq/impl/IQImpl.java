@@ -104,6 +104,6 @@ public class IQImpl implements IQ {
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return 31 * projectionAtom.hashCode() + AbstractCompositeIQTree.computeStructuralHashCode(tree);
     }
 }
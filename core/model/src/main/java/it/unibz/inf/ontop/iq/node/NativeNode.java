@@ -1,10 +1,12 @@
 package it.unibz.inf.ontop.iq.node;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
 import it.unibz.inf.ontop.dbschema.QuotedID;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.iq.LeafIQTree;
+import it.unibz.inf.ontop.model.term.DBConstant;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.type.DBTermType;
 
@@ -33,4 +35,16 @@ public interface NativeNode extends LeafIQTree {
     ImmutableMap<Variable, QuotedID> getColumnNames();
 
     String getNativeQueryString();
+
+    /**
+     * Values of the bind markers ("?") of the native query string, in their order of appearance.
+     *
+     * Empty for most native queries.
+     */
+    ImmutableList<DBConstant> getParameters();
+
+    /**
+     * True if the native query orders its results (top ORDER BY): their order must be preserved.
+     */
+    boolean isOrdered();
 }
@@ -93,4 +93,11 @@ public interface QueryNode extends Cloneable {
      * Is syntactically equivalent
      */
     boolean isEquivalentTo(QueryNode queryNode);
+
+    /**
+     * Consistent with isEquivalentTo(): equivalent nodes have the same structural hash code.
+     *
+     * Not used as hashCode() because nodes are also used as identity keys (e.g. in IntermediateQuery).
+     */
+    int getStructuralHashCode();
 }
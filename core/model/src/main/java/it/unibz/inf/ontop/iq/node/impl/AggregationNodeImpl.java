@@ -30,6 +30,7 @@ import it.unibz.inf.ontop.utils.VariableGenerator;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
@@ -283,6 +284,11 @@ public class AggregationNodeImpl extends ExtendedProjectionNodeImpl implements A
         return isSyntacticallyEquivalentTo(queryNode);
     }
 
+    @Override
+    public int getStructuralHashCode() {
+        return Objects.hash(AggregationNode.class, groupingVariables, substitution);
+    }
+
     @Override
     public void validateNode(IQTree child) throws InvalidIntermediateQueryException {
         validateNode();
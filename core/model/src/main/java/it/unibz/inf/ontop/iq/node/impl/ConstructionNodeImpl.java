@@ -29,6 +29,7 @@ import it.unibz.inf.ontop.utils.VariableGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -356,6 +357,11 @@ public class ConstructionNodeImpl extends ExtendedProjectionNodeImpl implements
         return isSyntacticallyEquivalentTo(queryNode);
     }
 
+    @Override
+    public int getStructuralHashCode() {
+        return Objects.hash(ConstructionNode.class, projectedVariables, substitution);
+    }
+
     @Override
     public void acceptVisitor(QueryNodeVisitor visitor) {
         visitor.visit(this);
@@ -149,6 +149,11 @@ public class DistinctNodeImpl extends QueryModifierNodeImpl implements DistinctN
         return queryNode instanceof DistinctNode;
     }
 
+    @Override
+    public int getStructuralHashCode() {
+        return DistinctNode.class.hashCode();
+    }
+
     @Override
     public String toString() {
         return DISTINCT_NODE_STR;
@@ -24,6 +24,7 @@ import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import javax.annotation.Nullable;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -277,6 +278,11 @@ public class ExtensionalDataNodeImpl extends LeafIQTreeImpl implements Extension
         return isSyntacticallyEquivalentTo(queryNode);
     }
 
+    @Override
+    public int getStructuralHashCode() {
+        return Objects.hash(ExtensionalDataNode.class, relationDefinition, argumentMap);
+    }
+
     @Override
     public String toString() {
         return String.format("%s %s(%s)",
@@ -28,6 +28,7 @@ import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.VariableGenerator;
 
+import java.util.Objects;
 import java.util.Optional;
 
 
@@ -230,6 +231,11 @@ public class FilterNodeImpl extends JoinOrFilterNodeImpl implements FilterNode {
                 && getFilterCondition().equals(((FilterNode) queryNode).getFilterCondition());
     }
 
+    @Override
+    public int getStructuralHashCode() {
+        return Objects.hash(FilterNode.class, getFilterCondition());
+    }
+
     @Override
     public String toString() {
         return FILTER_NODE_STR + getOptionalFilterString();
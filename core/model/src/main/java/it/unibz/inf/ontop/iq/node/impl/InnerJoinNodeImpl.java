@@ -27,6 +27,7 @@ import it.unibz.inf.ontop.utils.VariableGenerator;
 
 import java.util.AbstractCollection;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -178,6 +179,11 @@ public class InnerJoinNodeImpl extends JoinLikeNodeImpl implements InnerJoinNode
                 && getOptionalFilterCondition().equals(((InnerJoinNode) queryNode).getOptionalFilterCondition());
     }
 
+    @Override
+    public int getStructuralHashCode() {
+        return Objects.hash(InnerJoinNode.class, getOptionalFilterCondition());
+    }
+
     @Override
     public String toString() {
         return JOIN_NODE_STR + getOptionalFilterString();
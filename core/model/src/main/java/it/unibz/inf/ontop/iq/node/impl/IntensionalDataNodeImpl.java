@@ -23,6 +23,7 @@ import it.unibz.inf.ontop.substitution.InjectiveVar2VarSubstitution;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
+import java.util.Objects;
 import java.util.Optional;
 
 
@@ -126,6 +127,11 @@ public class IntensionalDataNodeImpl extends DataNodeImpl<AtomPredicate> impleme
                 && getProjectionAtom().equals(((IntensionalDataNode) queryNode).getProjectionAtom());
     }
 
+    @Override
+    public int getStructuralHashCode() {
+        return Objects.hash(IntensionalDataNode.class, getProjectionAtom());
+    }
+
     @Override
     public String toString() {
         return INTENSIONAL_DATA_NODE_STR + " " + getProjectionAtom();
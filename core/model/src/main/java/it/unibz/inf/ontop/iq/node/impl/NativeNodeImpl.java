@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.iq.node.impl;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
@@ -19,24 +20,29 @@ import it.unibz.inf.ontop.iq.node.*;
 import it.unibz.inf.ontop.iq.transform.IQTreeVisitingTransformer;
 import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
 import it.unibz.inf.ontop.iq.visit.IQVisitor;
+import it.unibz.inf.ontop.model.term.DBConstant;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
 import it.unibz.inf.ontop.substitution.InjectiveVar2VarSubstitution;
 
+import java.util.Objects;
 import java.util.Optional;
 
 
 public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
 
     private static final String NATIVE_STRING = "NATIVE ";
+    private static final String PARAMETERS_STRING = "PARAMETERS ";
 
     private final ImmutableMap<Variable, DBTermType> variableTypeMap;
     private final String nativeQueryString;
     private final VariableNullability variableNullability;
     private final ImmutableSortedSet<Variable> variables;
     private final ImmutableMap<Variable, QuotedID> columnNames;
+    private final ImmutableList<DBConstant> parameters;
+    private final boolean isOrdered;
 
     @AssistedInject
     private NativeNodeImpl(@Assisted ImmutableSortedSet<Variable> variables,
@@ -46,12 +52,41 @@ public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
                            @Assisted VariableNullability variableNullability,
                            IQTreeTools iqTreeTools, IntermediateQueryFactory iqFactory,
                            OntopModelSettings settings) {
+        this(variables, variableTypeMap, columnNames, nativeQueryString, variableNullability, ImmutableList.of(),
+                iqTreeTools, iqFactory, settings);
+    }
+
+    @AssistedInject
+    private NativeNodeImpl(@Assisted ImmutableSortedSet<Variable> variables,
+                           @Assisted("variableTypeMap") ImmutableMap<Variable, DBTermType> variableTypeMap,
+                           @Assisted("columnNames") ImmutableMap<Variable, QuotedID> columnNames,
+                           @Assisted String nativeQueryString,
+                           @Assisted VariableNullability variableNullability,
+                           @Assisted ImmutableList<DBConstant> parameters,
+                           IQTreeTools iqTreeTools, IntermediateQueryFactory iqFactory,
+                           OntopModelSettings settings) {
+        this(variables, variableTypeMap, columnNames, nativeQueryString, variableNullability, parameters, false,
+                iqTreeTools, iqFactory, settings);
+    }
+
+    @AssistedInject
+    private NativeNodeImpl(@Assisted ImmutableSortedSet<Variable> variables,
+                           @Assisted("variableTypeMap") ImmutableMap<Variable, DBTermType> variableTypeMap,
+                           @Assisted("columnNames") ImmutableMap<Variable, QuotedID> columnNames,
+                           @Assisted String nativeQueryString,
+                           @Assisted VariableNullability variableNullability,
+                           @Assisted ImmutableList<DBConstant> parameters,
+                           @Assisted boolean isOrdered,
+                           IQTreeTools iqTreeTools, IntermediateQueryFactory iqFactory,
+                           OntopModelSettings settings) {
         super(iqTreeTools, iqFactory);
         this.variables = variables;
         this.nativeQueryString = nativeQueryString;
         this.variableNullability = variableNullability;
         this.variableTypeMap = variableTypeMap;
         this.columnNames = columnNames;
+        this.parameters = parameters;
+        this.isOrdered = isOrdered;
 
         if (settings.isTestModeEnabled()) {
             if (!variables.equals(variableTypeMap.keySet()))
@@ -70,6 +105,16 @@ public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
         return nativeQueryString;
     }
 
+    @Override
+    public ImmutableList<DBConstant> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return isOrdered;
+    }
+
     @Override
     public void acceptVisitor(QueryNodeVisitor visitor) {
         throw new UnsupportedOperationException("Should NativeNode support visitors?");
@@ -114,7 +159,14 @@ public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
     public boolean isEquivalentTo(QueryNode queryNode) {
         return (queryNode instanceof NativeNode)
                 && ((NativeNode) queryNode).getVariables().equals(variables)
-                && ((NativeNode) queryNode).getNativeQueryString().equals(nativeQueryString);
+                && ((NativeNode) queryNode).getNativeQueryString().equals(nativeQueryString)
+                && ((NativeNode) queryNode).getParameters().equals(parameters)
+                && ((NativeNode) queryNode).isOrdered() == isOrdered;
+    }
+
+    @Override
+    public int getStructuralHashCode() {
+        return Objects.hash(NativeNode.class, variables, nativeQueryString, parameters, isOrdered);
     }
 
     @Override
@@ -194,6 +246,7 @@ public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
 
     @Override
     public String toString() {
-        return NATIVE_STRING + variables + "\n" + nativeQueryString;
+        return NATIVE_STRING + variables + "\n" + nativeQueryString
+                + (parameters.isEmpty() ? "" : "\n" + PARAMETERS_STRING + parameters);
     }
 }
@@ -25,6 +25,7 @@ import it.unibz.inf.ontop.utils.VariableGenerator;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -418,6 +419,11 @@ public class UnionNodeImpl extends CompositeQueryNodeImpl implements UnionNode {
         return projectedVariables.equals(((UnionNode) queryNode).getVariables());
     }
 
+    @Override
+    public int getStructuralHashCode() {
+        return Objects.hash(UnionNode.class, projectedVariables);
+    }
+
     /**
      * TODO: refactor
      */
@@ -0,0 +1,127 @@
+package it.unibz.inf.ontop.iq;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.dbschema.impl.OfflineMetadataProviderBuilder;
+import it.unibz.inf.ontop.iq.node.FilterNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.OntopModelTestingTools.*;
+import static org.junit.Assert.*;
+
+public class IQStructuralHashTest {
+
+    private final static RelationDefinition TABLE1;
+    private final static RelationDefinition TABLE2;
+    private final static AtomPredicate ANS2_PREDICATE = ATOM_FACTORY.getRDFAnswerPredicate(2);
+    private final static Variable X = TERM_FACTORY.getVariable("x");
+    private final static Variable Y = TERM_FACTORY.getVariable("y");
+
+    static {
+        OfflineMetadataProviderBuilder builder = createMetadataProviderBuilder();
+        DBTermType integerDBType = builder.getDBTypeFactory().getDBLargeIntegerType();
+
+        TABLE1 = builder.createDatabaseRelation("TABLE1",
+                "col1", integerDBType, false,
+                "col2", integerDBType, false);
+
+        TABLE2 = builder.createDatabaseRelation("TABLE2",
+                "col1", integerDBType, false,
+                "col2", integerDBType, false);
+    }
+
+    @Test
+    public void testIndependentlyBuiltTrees() {
+        IQTree tree1 = createUnionTree(ImmutableSet.of(X, Y), TABLE1, TABLE2);
+        IQTree tree2 = createUnionTree(ImmutableSet.of(X, Y), TABLE1, TABLE2);
+
+        assertNotSame(tree1, tree2);
+        assertEquals(tree1, tree2);
+        assertEquals(tree1.hashCode(), tree2.hashCode());
+        assertTrue(tree1.isEquivalentTo(tree2));
+        assertTrue(tree2.isEquivalentTo(tree1));
+    }
+
+    /**
+     * The hash of the reused subtree is already cached
+     */
+    @Test
+    public void testSharedSubtree() {
+        IQTree filterTree = createFilterTree(1);
+        IQTree tree1 = IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createDistinctNode(), filterTree);
+        filterTree.hashCode();
+        IQTree tree2 = IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createDistinctNode(), createFilterTree(1));
+
+        assertEquals(tree1.hashCode(), tree2.hashCode());
+        assertTrue(tree1.isEquivalentTo(tree2));
+        assertTrue(tree2.isEquivalentTo(tree1));
+    }
+
+    /**
+     * Only the condition of the filter, below the root, differs
+     */
+    @Test
+    public void testDifferentInnerNode() {
+        IQTree tree1 = IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createDistinctNode(), createFilterTree(1));
+        IQTree tree2 = IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createDistinctNode(), createFilterTree(2));
+
+        assertNotEquals(tree1.hashCode(), tree2.hashCode());
+        assertNotEquals(tree1, tree2);
+        assertFalse(tree1.isEquivalentTo(tree2));
+        assertFalse(tree2.isEquivalentTo(tree1));
+    }
+
+    /**
+     * The printed variables differ but the nodes are equivalent
+     */
+    @Test
+    public void testVariableOrder() {
+        IQTree tree1 = createUnionTree(ImmutableSet.of(X, Y), TABLE1, TABLE2);
+        IQTree tree2 = createUnionTree(ImmutableSet.of(Y, X), TABLE1, TABLE2);
+
+        assertEquals(tree1, tree2);
+        assertEquals(tree1.hashCode(), tree2.hashCode());
+    }
+
+    @Test
+    public void testDifferentLeaves() {
+        IQTree tree1 = createUnionTree(ImmutableSet.of(X, Y), TABLE1, TABLE2);
+        IQTree tree2 = createUnionTree(ImmutableSet.of(X, Y), TABLE1, TABLE1);
+
+        assertNotEquals(tree1.hashCode(), tree2.hashCode());
+        assertNotEquals(tree1, tree2);
+        assertFalse(tree1.isEquivalentTo(tree2));
+        assertFalse(tree2.isEquivalentTo(tree1));
+    }
+
+    @Test
+    public void testIQ() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS2_PREDICATE, X, Y);
+        IQ iq1 = IQ_FACTORY.createIQ(projectionAtom, createUnionTree(ImmutableSet.of(X, Y), TABLE1, TABLE2));
+        IQ iq2 = IQ_FACTORY.createIQ(projectionAtom, createUnionTree(ImmutableSet.of(Y, X), TABLE1, TABLE2));
+
+        assertEquals(iq1, iq2);
+        assertEquals(iq1.hashCode(), iq2.hashCode());
+    }
+
+    private static IQTree createFilterTree(int value) {
+        FilterNode filterNode = IQ_FACTORY.createFilterNode(
+                TERM_FACTORY.getStrictEquality(X, TERM_FACTORY.getDBIntegerConstant(value)));
+        return IQ_FACTORY.createUnaryIQTree(filterNode, createExtensionalDataNode(TABLE1, ImmutableList.of(X, Y)));
+    }
+
+    private static IQTree createUnionTree(ImmutableSet<Variable> variables, RelationDefinition relation1,
+                                          RelationDefinition relation2) {
+        UnionNode unionNode = IQ_FACTORY.createUnionNode(variables);
+        return IQ_FACTORY.createNaryIQTree(unionNode, ImmutableList.of(
+                IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createDistinctNode(),
+                        createExtensionalDataNode(relation1, ImmutableList.of(X, Y))),
+                createExtensionalDataNode(relation2, ImmutableList.of(X, Y))));
+    }
+}
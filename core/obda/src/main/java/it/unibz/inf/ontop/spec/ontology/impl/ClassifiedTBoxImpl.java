@@ -97,10 +97,11 @@ public class ClassifiedTBoxImpl implements ClassifiedTBox {
                 onto.objectProperties(),
                 onto.dataProperties(),
                 onto.annotationProperties(),
-                classDAG,
-                objectPropertyDAG,
-                dataPropertyDAG,
-                dataRangeDAG,
+                // the representatives do not change any longer
+                classDAG.withReachabilityIndex(),
+                objectPropertyDAG.withReachabilityIndex(),
+                dataPropertyDAG.withReachabilityIndex(),
+                dataRangeDAG.withReachabilityIndex(),
                 onto.getDisjointClassesAxioms(),
                 onto.getDisjointObjectPropertiesAxioms(),
                 onto.getDisjointDataPropertiesAxioms(),
@@ -33,6 +33,7 @@ import org.jgrapht.graph.SimpleDirectedGraph;
 import org.jgrapht.traverse.BreadthFirstIterator;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 
@@ -42,6 +43,9 @@ import java.util.stream.Stream;
  * The vertices of the DAG are equivalence sets (Equivalences)
  * The edges form the minimal set whose transitive and reflexive closure
  * coincides with the transitive and reflexive closure of the ontology graph
+ *
+ * The lookups are thread-safe (the lazily computed sub- and super-sets are cached in concurrent maps),
+ * except getGraph(), which is used in tests only.
  *  
  *  @author Roman Kontchakov
  * 
@@ -55,9 +59,10 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	// maps all Ts (even from the non-reduced DAG) to the vertices of the possibly reduced DAG
 	private final ImmutableMap<T, Equivalences<T>> fullVertexIndex;   
 
-	// caches
-	private final Map<Equivalences<T>, ImmutableSet<T>> subRep = new HashMap<>();
-	private final Map<Equivalences<T>, ImmutableSet<Equivalences<T>>> sub = new HashMap<>();
+	// reachability index: reflexive and transitive closures, filled lazily (see withReachabilityIndex)
+	private final Map<Equivalences<T>, ImmutableSet<T>> subRep = new ConcurrentHashMap<>();
+	private final Map<Equivalences<T>, ImmutableSet<Equivalences<T>>> sub = new ConcurrentHashMap<>();
+	private final Map<Equivalences<T>, ImmutableSet<Equivalences<T>>> sup = new ConcurrentHashMap<>();
 
 	private DefaultDirectedGraph<T,DefaultEdge> graph; // used in tests only
 	
@@ -68,6 +73,16 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 		this.fullVertexIndex = fullVertexIndex;
 	}
 
+	/**
+	 * Copy of the DAG with an empty reachability index, to be called once the representatives have been chosen
+	 * (the sub-representatives computed before are dropped).
+	 * The sub- and super-sets of a vertex are computed on its first lookup only: the index only keeps
+	 * the closures that are actually used.
+	 */
+	public EquivalencesDAGImpl<T> withReachabilityIndex() {
+		return new EquivalencesDAGImpl<>(graph, dag, vertexIndex, fullVertexIndex);
+	}
+
 	private static <T> ImmutableSet<T> immutableSetOf(BreadthFirstIterator<T, DefaultEdge>  iterator) {
 		ImmutableSet.Builder<T> builder = ImmutableSet.builder();
 
@@ -120,6 +135,7 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	 */
 	@Override
 	public ImmutableSet<Equivalences<T>> getSub(Equivalences<T> v) {
+		checkVertex(v);
 		return sub.computeIfAbsent(v,
 				n -> immutableSetOf(new BreadthFirstIterator<>(new EdgeReversedGraph<>(dag), n)));
 	}
@@ -154,7 +170,17 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	 */
 	@Override
 	public ImmutableSet<Equivalences<T>> getSuper(Equivalences<T> v) {
-		return immutableSetOf(new BreadthFirstIterator<>(dag, v));
+		checkVertex(v);
+		return sup.computeIfAbsent(v,
+				n -> immutableSetOf(new BreadthFirstIterator<>(dag, n)));
+	}
+
+	/**
+	 * Fails fast (as the traversals without the index) instead of returning null
+	 */
+	private void checkVertex(Equivalences<T> v) {
+		if (!dag.containsVertex(v))
+			throw new IllegalArgumentException("Not a vertex of the DAG: " + v);
 	}
 
 	@Override
@@ -0,0 +1,95 @@
+package it.unibz.inf.ontop.spec.ontology.impl;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.spec.ontology.Equivalences;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EquivalencesDAGImplTest {
+
+    /**
+     * A <- B, A <- C, B <- D, C <- D (multiple inheritance), D <- E, E = F, C <- G
+     */
+    private static EquivalencesDAGImpl<String> createDAG() {
+        DefaultDirectedGraph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (String v : ImmutableSet.of("A", "B", "C", "D", "E", "F", "G"))
+            graph.addVertex(v);
+        graph.addEdge("B", "A");
+        graph.addEdge("C", "A");
+        graph.addEdge("D", "B");
+        graph.addEdge("D", "C");
+        graph.addEdge("E", "D");
+        graph.addEdge("E", "F");
+        graph.addEdge("F", "E");
+        graph.addEdge("G", "C");
+
+        EquivalencesDAGImpl<String> dag = EquivalencesDAGImpl.getEquivalencesDAG(graph);
+        // as in ClassifiedTBoxImpl, the representatives are chosen before building the index
+        for (Equivalences<String> v : dag)
+            v.setRepresentative(v.getMembers().stream().sorted().findFirst().get());
+        return dag;
+    }
+
+    @Test
+    public void testReachabilityIndexSameAsTraversals() {
+        EquivalencesDAGImpl<String> dag = createDAG();
+        EquivalencesDAGImpl<String> indexed = dag.withReachabilityIndex();
+
+        assertEquals(6, dag.vertexSetSize());
+        for (Equivalences<String> v : dag) {
+            // same order
+            assertEquals(v.toString(), dag.getSub(v).asList(), indexed.getSub(v).asList());
+            assertEquals(v.toString(), dag.getSuper(v).asList(), indexed.getSuper(v).asList());
+            for (String member : v)
+                assertEquals(member, dag.getSubRepresentatives(member).asList(),
+                        indexed.getSubRepresentatives(member).asList());
+        }
+
+        Equivalences<String> a = indexed.getVertex("A");
+        assertEquals(ImmutableSet.of("A", "B", "C", "D", "G", "E"), indexed.getSubRepresentatives("A"));
+        assertEquals(7, indexed.getSub(a).stream().mapToInt(Equivalences::size).sum());
+        assertEquals(ImmutableSet.of(indexed.getVertex("E"), indexed.getVertex("D"), indexed.getVertex("B"),
+                        indexed.getVertex("C"), a),
+                indexed.getSuper(indexed.getVertex("F")));
+    }
+
+    /**
+     * The sub-representatives looked up before choosing the representatives are not kept in the index
+     */
+    @Test
+    public void testReachabilityIndexAfterChangingRepresentatives() {
+        EquivalencesDAGImpl<String> dag = createDAG();
+        assertEquals(ImmutableSet.of("D", "E"), dag.getSubRepresentatives("D"));
+
+        dag.getVertex("E").setRepresentative("F");
+        EquivalencesDAGImpl<String> indexed = dag.withReachabilityIndex();
+        assertEquals(ImmutableSet.of("D", "F"), indexed.getSubRepresentatives("D"));
+        // cached
+        assertSame(indexed.getSubRepresentatives("D"), indexed.getSubRepresentatives("D"));
+        assertSame(indexed.getSuper(indexed.getVertex("D")), indexed.getSuper(indexed.getVertex("D")));
+    }
+
+    @Test
+    public void testSubRepresentativesOfUnknownMember() {
+        EquivalencesDAGImpl<String> indexed = createDAG().withReachabilityIndex();
+        assertEquals(ImmutableSet.of("X"), indexed.getSubRepresentatives("X"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubOfUnknownVertex() {
+        createDAG().withReachabilityIndex().getSub(new Equivalences<>(ImmutableSet.of("X")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSuperOfUnknownVertex() {
+        createDAG().withReachabilityIndex().getSuper(new Equivalences<>(ImmutableSet.of("X")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubOfUnknownVertexWithoutIndex() {
+        createDAG().getSub(new Equivalences<>(ImmutableSet.of("X")));
+    }
+}
@@ -1,6 +1,9 @@
 package it.unibz.inf.ontop.dbschema;
 
 import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+
+import java.util.Optional;
 
 /**
  * Extracts DB metadata directly from the DB through a connection
@@ -9,4 +12,14 @@ import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
  *
  */
 public interface DBMetadataProvider extends MetadataProvider {
+
+    /**
+     * Value that changes whenever the columns or the constraints of the relation change
+     * (e.g., last DDL time). Used for checking whether cached metadata is still valid.
+     *
+     * Empty if the DBMS does not expose such information.
+     */
+    default Optional<String> getChangeMarker(RelationID id) throws MetadataExtractionException {
+        return Optional.empty();
+    }
 }
@@ -1,18 +1,21 @@
 package it.unibz.inf.ontop.dbschema.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.exception.MetadataExtractionException;
 import it.unibz.inf.ontop.exception.RelationNotFoundInMetadataException;
 import it.unibz.inf.ontop.injection.CoreSingletons;
+import it.unibz.inf.ontop.injection.OntopModelSettings;
+import it.unibz.inf.ontop.injection.OntopSQLCoreSettings;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.model.type.DBTypeFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.sql.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
 
@@ -24,6 +27,13 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
 
     protected final QuotedIDFactory rawIdFactory;
 
+    private final boolean isBulkExtractionEnabled;
+    // Bulk extraction: indexed by the catalog and schema names (null if the extraction has failed).
+    // The columns are kept with the extracted relation ID.
+    private final Map<List<String>, Map<RelationID, Map.Entry<RelationID, RelationDefinition.AttributeListBuilder>>> schemaColumns = new HashMap<>();
+    private final Map<List<String>, Optional<SchemaConstraints>> schemaConstraints = new HashMap<>();
+    private final Map<List<String>, Optional<ImmutableMap<RelationID, String>>> schemaChangeMarkers = new HashMap<>();
+
     protected interface QuotedIDFactoryFactory {
         QuotedIDFactory create(DatabaseMetaData m) throws SQLException;
     }
@@ -49,6 +59,9 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
         catch (SQLException e) {
             throw new MetadataExtractionException(e);
         }
+        OntopModelSettings settings = coreSingletons.getSettings();
+        this.isBulkExtractionEnabled = (settings instanceof OntopSQLCoreSettings)
+                && ((OntopSQLCoreSettings) settings).isBulkMetadataExtractionEnabled();
     }
 
     @Override
@@ -91,8 +104,15 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
 
     @Override
     public NamedRelationDefinition getRelation(RelationID id0) throws MetadataExtractionException {
-        DBTypeFactory dbTypeFactory = dbParameters.getDBTypeFactory();
         RelationID id = getCanonicalRelationId(id0);
+        if (isBulkExtractionEnabled && hasSchema(id)) {
+            Map<RelationID, Map.Entry<RelationID, RelationDefinition.AttributeListBuilder>> columns = getSchemaColumns(id);
+            // Not found: falls back to the per-relation extraction (e.g., for system tables)
+            Map.Entry<RelationID, RelationDefinition.AttributeListBuilder> r = (columns != null) ? columns.remove(id) : null;
+            if (r != null)
+                return new DatabaseTableDefinition(getAllIDs(r.getKey()), r.getValue());
+        }
+
         try (ResultSet rs = metadata.getColumns(getRelationCatalog(id), getRelationSchema(id), getRelationName(id), null)) {
             Map<RelationID, RelationDefinition.AttributeListBuilder> relations = new HashMap<>();
 
@@ -102,35 +122,7 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
 
                 RelationDefinition.AttributeListBuilder builder = relations.computeIfAbsent(extractedId,
                         i -> DatabaseTableDefinition.attributeListBuilder());
-
-                QuotedID attributeId = rawIdFactory.createAttributeID(rs.getString("COLUMN_NAME"));
-                // columnNoNulls, columnNullable, columnNullableUnknown
-                boolean isNullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
-                String typeName = rs.getString("TYPE_NAME");
-                int columnSize = rs.getInt("COLUMN_SIZE");
-                DBTermType termType = dbTypeFactory.getDBTermType(typeName, columnSize);
-
-                String sqlTypeName;
-                switch (rs.getInt("DATA_TYPE")) {
-                    case Types.CHAR:
-                    case Types.VARCHAR:
-                    case Types.NVARCHAR:
-                        sqlTypeName = (columnSize != 0) ? typeName + "(" + columnSize + ")" : typeName;
-                        break;
-                    case Types.DECIMAL:
-                    case Types.NUMERIC:
-                        int decimalDigits = rs.getInt("DECIMAL_DIGITS");
-                        if (columnSize == 0)
-                            sqlTypeName = typeName;
-                        else if (decimalDigits == 0)
-                            sqlTypeName = typeName + "(" + columnSize + ")";
-                        else
-                            sqlTypeName = typeName + "(" + columnSize + ", " + decimalDigits + ")";
-                        break;
-                    default:
-                        sqlTypeName = typeName;
-                }
-                builder.addAttribute(attributeId, termType, sqlTypeName, isNullable);
+                addAttribute(rs, builder);
             }
 
             if (relations.entrySet().size() == 1) {
@@ -146,9 +138,89 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
         }
     }
 
+    private void addAttribute(ResultSet rs, RelationDefinition.AttributeListBuilder builder) throws SQLException {
+        DBTypeFactory dbTypeFactory = dbParameters.getDBTypeFactory();
+        QuotedID attributeId = rawIdFactory.createAttributeID(rs.getString("COLUMN_NAME"));
+        // columnNoNulls, columnNullable, columnNullableUnknown
+        boolean isNullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+        String typeName = rs.getString("TYPE_NAME");
+        int columnSize = rs.getInt("COLUMN_SIZE");
+        DBTermType termType = dbTypeFactory.getDBTermType(typeName, columnSize);
+
+        String sqlTypeName;
+        switch (rs.getInt("DATA_TYPE")) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+                sqlTypeName = (columnSize != 0) ? typeName + "(" + columnSize + ")" : typeName;
+                break;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                int decimalDigits = rs.getInt("DECIMAL_DIGITS");
+                if (columnSize == 0)
+                    sqlTypeName = typeName;
+                else if (decimalDigits == 0)
+                    sqlTypeName = typeName + "(" + columnSize + ")";
+                else
+                    sqlTypeName = typeName + "(" + columnSize + ", " + decimalDigits + ")";
+                break;
+            default:
+                sqlTypeName = typeName;
+        }
+        builder.addAttribute(attributeId, termType, sqlTypeName, isNullable);
+    }
+
+    private boolean hasSchema(RelationID id) {
+        return getRelationCatalog(id) != null || getRelationSchema(id) != null;
+    }
+
+    private List<String> getSchemaKey(RelationID id) {
+        return Arrays.asList(getRelationCatalog(id), getRelationSchema(id));
+    }
+
+    /**
+     * Columns of all the relations of the schema of the given relation, extracted in one call.
+     * Null if the extraction has failed.
+     */
+    @Nullable
+    private Map<RelationID, Map.Entry<RelationID, RelationDefinition.AttributeListBuilder>> getSchemaColumns(RelationID id) {
+        List<String> schemaKey = getSchemaKey(id);
+        if (schemaColumns.containsKey(schemaKey))
+            return schemaColumns.get(schemaKey);
+
+        Map<RelationID, Map.Entry<RelationID, RelationDefinition.AttributeListBuilder>> relations = new HashMap<>();
+        try (ResultSet rs = metadata.getColumns(schemaKey.get(0), schemaKey.get(1), null, null)) {
+            while (rs.next()) {
+                RelationID extractedId = getRelationID(rs, "TABLE_CAT", "TABLE_SCHEM","TABLE_NAME");
+                addAttribute(rs, relations.computeIfAbsent(extractedId,
+                        i -> new AbstractMap.SimpleImmutableEntry<>(i, DatabaseTableDefinition.attributeListBuilder()))
+                        .getValue());
+            }
+            LOGGER.debug("Extracted the columns of {} relations for the schema {}", relations.size(), schemaKey);
+        }
+        catch (SQLException e) {
+            LOGGER.warn("Cannot extract the columns of the schema {}, falling back to the per-relation extraction: {}",
+                    schemaKey, e.getMessage());
+            relations = null;
+        }
+        schemaColumns.put(schemaKey, relations);
+        return relations;
+    }
+
 
     @Override
     public void insertIntegrityConstraints(NamedRelationDefinition relation, MetadataLookup metadataLookup) throws MetadataExtractionException {
+        RelationID id = getCanonicalRelationId(relation.getID());
+        Optional<SchemaConstraints> constraints = (isBulkExtractionEnabled && hasSchema(id))
+                ? getSchemaConstraints(id)
+                : Optional.empty();
+        if (constraints.isPresent()) {
+            insertUniqueConstraints(relation, constraints.get().primaryKeys.get(id), true);
+            insertUniqueConstraints(relation, constraints.get().uniqueConstraints.get(id), false);
+            insertForeignKeys(relation, constraints.get().foreignKeys.get(id), metadataLookup);
+            return;
+        }
+
         try {
             insertPrimaryKey(relation);
             insertUniqueAttributes(relation);
@@ -222,7 +294,6 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
                 }
 
                 if (builder != null) {
-                    QuotedID attrId = rawIdFactory.createAttributeID(rs.getString("COLUMN_NAME"));
                     // ASC_OR_DESC String => column sort sequence, "A" => ascending, "D" => descending,
                     //        may be null if sort sequence is not supported; null when TYPE is tableIndexStatistic
                     // CARDINALITY int => When TYPE is tableIndexStatistic, then this is the number of rows in the table;
@@ -230,19 +301,7 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
                     // PAGES int => When TYPE is tableIndexStatisic then this is the number of pages used for the table,
                     //                    otherwise it is the number of pages used for the current index.
                     // FILTER_CONDITION String => Filter condition, if any. (may be null)
-                    try {
-                        builder.addDeterminant(attrId);
-                    }
-                    catch (AttributeNotFoundException e) {
-                        try {
-                            // bug in PostgreSQL JBDC driver: it strips off the quotation marks
-                            attrId = rawIdFactory.createAttributeID("\"" + rs.getString("COLUMN_NAME") + "\"");
-                            builder.addDeterminant(attrId);
-                        }
-                        catch (AttributeNotFoundException ex) {
-                            throw new MetadataExtractionException(e);
-                        }
-                    }
+                    addUniqueDeterminant(builder, rs.getString("COLUMN_NAME"));
                 }
             }
             if (builder != null)
@@ -250,6 +309,21 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
         }
     }
 
+    private void addUniqueDeterminant(UniqueConstraint.Builder builder, String column) throws MetadataExtractionException {
+        try {
+            builder.addDeterminant(rawIdFactory.createAttributeID(column));
+        }
+        catch (AttributeNotFoundException e) {
+            try {
+                // bug in PostgreSQL JBDC driver: it strips off the quotation marks
+                builder.addDeterminant(rawIdFactory.createAttributeID("\"" + column + "\""));
+            }
+            catch (AttributeNotFoundException ex) {
+                throw new MetadataExtractionException(e);
+            }
+        }
+    }
+
     private void insertForeignKeys(NamedRelationDefinition relation, MetadataLookup dbMetadata) throws MetadataExtractionException, SQLException {
         RelationID id = getCanonicalRelationId(relation.getID());
         try (ResultSet rs = metadata.getImportedKeys(getRelationCatalog(id), getRelationSchema(id), getRelationName(id))) {
@@ -292,6 +366,231 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
         }
     }
 
+    /**
+     * Dialect-specific queries for extracting the constraints of all the relations of the schema
+     * of the given relation. Empty if not supported: the constraints are then extracted relation per relation.
+     */
+    protected Optional<SchemaConstraintQueries> getSchemaConstraintQueries(RelationID id) {
+        return Optional.empty();
+    }
+
+    /**
+     * The three queries take the same parameters and return the columns TABLE_CAT, TABLE_SCHEM, TABLE_NAME,
+     * CONSTRAINT_NAME, COLUMN_NAME and KEY_SEQ (as DatabaseMetaData.getPrimaryKeys).
+     * The foreign key query also returns PKTABLE_CAT, PKTABLE_SCHEM, PKTABLE_NAME and PKCOLUMN_NAME
+     * (as DatabaseMetaData.getImportedKeys).
+     *
+     * As for getIndexInfo, the unique constraints include the primary keys and the unique indexes.
+     */
+    protected static class SchemaConstraintQueries {
+        private final String primaryKeyQuery, uniqueConstraintQuery, foreignKeyQuery;
+        private final ImmutableList<String> parameters;
+
+        protected SchemaConstraintQueries(String primaryKeyQuery, String uniqueConstraintQuery, String foreignKeyQuery,
+                                          String... parameters) {
+            this.primaryKeyQuery = primaryKeyQuery;
+            this.uniqueConstraintQuery = uniqueConstraintQuery;
+            this.foreignKeyQuery = foreignKeyQuery;
+            this.parameters = ImmutableList.copyOf(parameters);
+        }
+    }
+
+    private Optional<SchemaConstraints> getSchemaConstraints(RelationID id) {
+        List<String> schemaKey = getSchemaKey(id);
+        Optional<SchemaConstraints> constraints = schemaConstraints.get(schemaKey);
+        if (constraints == null) {
+            constraints = getSchemaConstraintQueries(id)
+                    .flatMap(q -> extractSchemaConstraints(q, schemaKey));
+            schemaConstraints.put(schemaKey, constraints);
+        }
+        return constraints;
+    }
+
+    private Optional<SchemaConstraints> extractSchemaConstraints(SchemaConstraintQueries queries, List<String> schemaKey) {
+        SchemaConstraints constraints = new SchemaConstraints();
+        try {
+            extractConstraintColumns(queries.primaryKeyQuery, queries.parameters, false, constraints.primaryKeys);
+            extractConstraintColumns(queries.uniqueConstraintQuery, queries.parameters, false, constraints.uniqueConstraints);
+            extractConstraintColumns(queries.foreignKeyQuery, queries.parameters, true, constraints.foreignKeys);
+            return Optional.of(constraints);
+        }
+        catch (SQLException e) {
+            LOGGER.warn("Cannot extract the constraints of the schema {}, falling back to the per-relation extraction: {}",
+                    schemaKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void extractConstraintColumns(String query, ImmutableList<String> parameters, boolean isForeignKey,
+                                          Map<RelationID, List<ConstraintColumn>> map) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            for (int i = 0; i < parameters.size(); i++)
+                stmt.setString(i + 1, parameters.get(i));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    RelationID relationId = getRelationID(rs, "TABLE_CAT", "TABLE_SCHEM","TABLE_NAME");
+                    map.computeIfAbsent(relationId, i -> new ArrayList<>()).add(new ConstraintColumn(
+                            rs.getString("CONSTRAINT_NAME"),
+                            rs.getString("COLUMN_NAME"),
+                            rs.getInt("KEY_SEQ"),
+                            isForeignKey ? getRelationID(rs, "PKTABLE_CAT", "PKTABLE_SCHEM","PKTABLE_NAME") : null,
+                            isForeignKey ? rs.getString("PKCOLUMN_NAME") : null));
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the columns by constraint and sorts them by position
+     */
+    private static Collection<List<ConstraintColumn>> groupByConstraint(@Nullable List<ConstraintColumn> columns) {
+        if (columns == null)
+            return ImmutableList.of();
+
+        Map<String, List<ConstraintColumn>> map = new LinkedHashMap<>();
+        for (ConstraintColumn column : columns)
+            map.computeIfAbsent(column.constraintName, n -> new ArrayList<>()).add(column);
+        map.values().forEach(l -> l.sort(Comparator.comparingInt(c -> c.position)));
+        return map.values();
+    }
+
+    private void insertUniqueConstraints(NamedRelationDefinition relation, @Nullable List<ConstraintColumn> columns,
+                                         boolean isPrimaryKey) throws MetadataExtractionException {
+        for (List<ConstraintColumn> constraint : groupByConstraint(columns)) {
+            // e.g., index on an expression
+            if (constraint.stream().anyMatch(c -> c.column == null))
+                continue;
+
+            String name = constraint.get(0).constraintName;
+            UniqueConstraint.Builder builder = isPrimaryKey
+                    ? UniqueConstraint.primaryKeyBuilder(relation, name)
+                    : UniqueConstraint.builder(relation, name);
+            if (isPrimaryKey) {
+                try {
+                    for (ConstraintColumn column : constraint)
+                        builder.addDeterminant(rawIdFactory.createAttributeID(column.column));
+                }
+                catch (AttributeNotFoundException e) {
+                    throw new MetadataExtractionException(e);
+                }
+            }
+            else {
+                for (ConstraintColumn column : constraint)
+                    addUniqueDeterminant(builder, column.column);
+            }
+            builder.build();
+        }
+    }
+
+    private void insertForeignKeys(NamedRelationDefinition relation, @Nullable List<ConstraintColumn> columns,
+                                   MetadataLookup dbMetadata) throws MetadataExtractionException {
+        for (List<ConstraintColumn> constraint : groupByConstraint(columns)) {
+            if (constraint.stream().anyMatch(c -> c.column == null || c.referencedColumn == null))
+                continue;
+
+            ConstraintColumn first = constraint.get(0);
+            NamedRelationDefinition ref;
+            try {
+                ref = dbMetadata.getRelation(first.referencedRelationId);
+            }
+            catch (MetadataExtractionException e) {
+                LOGGER.warn("Cannot find table {} for FK {}", first.referencedRelationId, first.constraintName);
+                continue; // do not add this foreign key because there is no table it refers to
+            }
+            ForeignKeyConstraint.Builder builder = ForeignKeyConstraint.builder(first.constraintName, relation, ref);
+            try {
+                for (ConstraintColumn column : constraint)
+                    builder.add(rawIdFactory.createAttributeID(column.column),
+                            rawIdFactory.createAttributeID(column.referencedColumn));
+            }
+            catch (AttributeNotFoundException e) {
+                throw new MetadataExtractionException(e);
+            }
+            builder.build();
+        }
+    }
+
+    private static class SchemaConstraints {
+        private final Map<RelationID, List<ConstraintColumn>> primaryKeys = new HashMap<>();
+        private final Map<RelationID, List<ConstraintColumn>> uniqueConstraints = new HashMap<>();
+        private final Map<RelationID, List<ConstraintColumn>> foreignKeys = new HashMap<>();
+    }
+
+    private static class ConstraintColumn {
+        private final String constraintName;
+        @Nullable
+        private final String column;
+        private final int position;
+        @Nullable
+        private final RelationID referencedRelationId;
+        @Nullable
+        private final String referencedColumn;
+
+        ConstraintColumn(String constraintName, @Nullable String column, int position,
+                         @Nullable RelationID referencedRelationId, @Nullable String referencedColumn) {
+            this.constraintName = constraintName;
+            this.column = column;
+            this.position = position;
+            this.referencedRelationId = referencedRelationId;
+            this.referencedColumn = referencedColumn;
+        }
+    }
+
+    @Override
+    public Optional<String> getChangeMarker(RelationID id0) {
+        RelationID id = getCanonicalRelationId(id0);
+        if (!hasSchema(id))
+            return Optional.empty();
+
+        List<String> schemaKey = getSchemaKey(id);
+        Optional<ImmutableMap<RelationID, String>> markers = schemaChangeMarkers.get(schemaKey);
+        if (markers == null) {
+            markers = getChangeMarkerQuery(id)
+                    .flatMap(q -> extractChangeMarkers(q, schemaKey));
+            schemaChangeMarkers.put(schemaKey, markers);
+        }
+        return markers.flatMap(m -> Optional.ofNullable(m.get(id)));
+    }
+
+    /**
+     * Dialect-specific query returning the change marker (column MARKER) of each relation
+     * (columns TABLE_CAT, TABLE_SCHEM and TABLE_NAME) of the schema of the given relation.
+     * Empty if not supported.
+     */
+    protected Optional<ChangeMarkerQuery> getChangeMarkerQuery(RelationID id) {
+        return Optional.empty();
+    }
+
+    protected static class ChangeMarkerQuery {
+        private final String query;
+        private final ImmutableList<String> parameters;
+
+        protected ChangeMarkerQuery(String query, String... parameters) {
+            this.query = query;
+            this.parameters = ImmutableList.copyOf(parameters);
+        }
+    }
+
+    private Optional<ImmutableMap<RelationID, String>> extractChangeMarkers(ChangeMarkerQuery query, List<String> schemaKey) {
+        try (PreparedStatement stmt = connection.prepareStatement(query.query)) {
+            for (int i = 0; i < query.parameters.size(); i++)
+                stmt.setString(i + 1, query.parameters.get(i));
+            try (ResultSet rs = stmt.executeQuery()) {
+                Map<RelationID, String> markers = new HashMap<>();
+                while (rs.next()) {
+                    String marker = rs.getString("MARKER");
+                    if (marker != null)
+                        markers.put(getRelationID(rs, "TABLE_CAT", "TABLE_SCHEM","TABLE_NAME"), marker);
+                }
+                return Optional.of(ImmutableMap.copyOf(markers));
+            }
+        }
+        catch (SQLException e) {
+            LOGGER.warn("Cannot extract the change markers of the schema {}: {}", schemaKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     protected abstract RelationID getCanonicalRelationId(RelationID id);
 
     protected abstract ImmutableList<RelationID> getAllIDs(RelationID id);
@@ -4,14 +4,16 @@ import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.exception.MetadataExtractionException;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Thread-safe (see CachingMetadataLookup)
+ */
 public class CachingMetadataLookupWithDependencies extends CachingMetadataLookup {
     // maps a relation ID to the set of IDs of its bases (relations cannot be put in a set)
-    private final Map<RelationID, Set<RelationID>> baseRelationIds = new HashMap<>();
+    private final Map<RelationID, Set<RelationID>> baseRelationIds = new ConcurrentHashMap<>();
 
     public CachingMetadataLookupWithDependencies(MetadataProvider provider) {
         super(provider);
@@ -26,7 +28,7 @@ public class CachingMetadataLookupWithDependencies extends CachingMetadataLookup
 
     public MetadataLookup getCachingMetadataLookupFor(RelationID id) {
         return new MetadataLookup() {
-            private final Set<RelationID> bases = baseRelationIds.computeIfAbsent(id, i -> new HashSet<>());
+            private final Set<RelationID> bases = baseRelationIds.computeIfAbsent(id, i -> ConcurrentHashMap.newKeySet());
 
             @Override
             public NamedRelationDefinition getRelation(RelationID baseId) throws MetadataExtractionException {
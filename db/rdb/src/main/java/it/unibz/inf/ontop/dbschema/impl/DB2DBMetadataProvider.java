@@ -11,6 +11,7 @@ import it.unibz.inf.ontop.model.type.TypeFactory;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Optional;
 
 public class DB2DBMetadataProvider extends DefaultSchemaDBMetadataProvider {
 
@@ -41,4 +42,42 @@ public class DB2DBMetadataProvider extends DefaultSchemaDBMetadataProvider {
 			       "WHERE OWNERTYPE='U' AND (TYPE='T' OR TYPE='V') " +
 			       "     AND TBSPACEID IN (SELECT TBSPACEID FROM SYSCAT.TABLESPACES WHERE TBSPACE LIKE 'USERSPACE%')";
     */
+
+    @Override
+    protected Optional<SchemaConstraintQueries> getSchemaConstraintQueries(RelationID id) {
+        return Optional.of(new SchemaConstraintQueries(
+                "SELECT NULL AS TABLE_CAT, t.TABSCHEMA AS TABLE_SCHEM, t.TABNAME AS TABLE_NAME, " +
+                        "t.CONSTNAME AS CONSTRAINT_NAME, k.COLNAME AS COLUMN_NAME, k.COLSEQ AS KEY_SEQ " +
+                        "FROM SYSCAT.TABCONST t " +
+                        "JOIN SYSCAT.KEYCOLUSE k ON k.CONSTNAME = t.CONSTNAME AND k.TABSCHEMA = t.TABSCHEMA AND k.TABNAME = t.TABNAME " +
+                        "WHERE t.TABSCHEMA = ? AND t.TYPE = 'P'",
+                // INCLUDE columns are not part of the key
+                "SELECT NULL AS TABLE_CAT, i.TABSCHEMA AS TABLE_SCHEM, i.TABNAME AS TABLE_NAME, " +
+                        "i.INDNAME AS CONSTRAINT_NAME, c.COLNAME AS COLUMN_NAME, c.COLSEQ AS KEY_SEQ " +
+                        "FROM SYSCAT.INDEXES i " +
+                        "JOIN SYSCAT.INDEXCOLUSE c ON c.INDSCHEMA = i.INDSCHEMA AND c.INDNAME = i.INDNAME " +
+                        "WHERE i.TABSCHEMA = ? AND i.UNIQUERULE IN ('P', 'U') AND c.COLORDER <> 'I'",
+                "SELECT NULL AS TABLE_CAT, r.TABSCHEMA AS TABLE_SCHEM, r.TABNAME AS TABLE_NAME, " +
+                        "r.CONSTNAME AS CONSTRAINT_NAME, fk.COLNAME AS COLUMN_NAME, fk.COLSEQ AS KEY_SEQ, " +
+                        "NULL AS PKTABLE_CAT, r.REFTABSCHEMA AS PKTABLE_SCHEM, r.REFTABNAME AS PKTABLE_NAME, " +
+                        "pk.COLNAME AS PKCOLUMN_NAME " +
+                        "FROM SYSCAT.REFERENCES r " +
+                        "JOIN SYSCAT.KEYCOLUSE fk ON fk.CONSTNAME = r.CONSTNAME AND fk.TABSCHEMA = r.TABSCHEMA AND fk.TABNAME = r.TABNAME " +
+                        "JOIN SYSCAT.KEYCOLUSE pk ON pk.CONSTNAME = r.REFKEYNAME AND pk.TABSCHEMA = r.REFTABSCHEMA " +
+                        "AND pk.TABNAME = r.REFTABNAME AND pk.COLSEQ = fk.COLSEQ " +
+                        "WHERE r.TABSCHEMA = ?",
+                getRelationSchema(id)));
+    }
+
+    @Override
+    protected Optional<ChangeMarkerQuery> getChangeMarkerQuery(RelationID id) {
+        return Optional.of(new ChangeMarkerQuery(
+                "SELECT NULL AS TABLE_CAT, t.TABSCHEMA AS TABLE_SCHEM, t.TABNAME AS TABLE_NAME, " +
+                        "VARCHAR(t.ALTER_TIME) || '/' || " +
+                        "(SELECT COALESCE(VARCHAR(MAX(i.CREATE_TIME)), '') || '/' || VARCHAR(COUNT(*)) " +
+                        "FROM SYSCAT.INDEXES i WHERE i.TABSCHEMA = t.TABSCHEMA AND i.TABNAME = t.TABNAME) AS MARKER " +
+                        "FROM SYSCAT.TABLES t " +
+                        "WHERE t.TABSCHEMA = ?",
+                getRelationSchema(id)));
+    }
 }
@@ -0,0 +1,207 @@
+package it.unibz.inf.ontop.dbschema.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.dbschema.impl.json.JsonCachedMetadata;
+import it.unibz.inf.ontop.dbschema.impl.json.JsonCachedMetadata.CachedRelation;
+import it.unibz.inf.ontop.dbschema.impl.json.JsonDatabaseTable;
+import it.unibz.inf.ontop.dbschema.impl.json.JsonForeignKey;
+import it.unibz.inf.ontop.dbschema.impl.json.JsonMetadata;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Serves the relations from a cache file when their change marker (see {@link DBMetadataProvider#getChangeMarker})
+ * is the same as when they were cached. The other relations are extracted from the DB and are added to the cache
+ * by save().
+ *
+ * The cache is ignored if it has been created for another DB or with another driver.
+ * The relations without change marker are never cached.
+ */
+public class FileCachedMetadataProvider extends DelegatingMetadataProvider implements DBMetadataProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileCachedMetadataProvider.class);
+
+    private final DBMetadataProvider dbProvider;
+    private final File file;
+    private final String source;
+
+    // Indexed by the serialized name of the relation
+    private final Map<List<String>, CachedRelation> entries = new LinkedHashMap<>();
+    // As loaded from the file (the foreign keys of a cached relation refer to these versions)
+    private final Map<List<String>, CachedRelation> loadedEntries = new HashMap<>();
+    // Indexed by all the IDs of the relation
+    private final Map<RelationID, CachedRelation> index = new HashMap<>();
+    private final Map<NamedRelationDefinition, CachedRelation> servedFromCache = new IdentityHashMap<>();
+    private boolean isModified = false;
+    private int cacheHitCount = 0;
+
+    /**
+     * @param source identifies the DB (e.g., JDBC URL and user)
+     */
+    public FileCachedMetadataProvider(DBMetadataProvider provider, File file, String source) {
+        super(provider);
+        this.dbProvider = provider;
+        this.file = file;
+        this.source = source;
+
+        Optional<JsonCachedMetadata> cache = load(file)
+                .filter(c -> source.equals(c.source))
+                .filter(c -> isCompatible(c.metadata, new JsonMetadata.Parameters(provider.getDBParameters())));
+        if (!cache.isPresent() && file.exists())
+            LOGGER.info("The metadata cache {} is outdated and is ignored", file);
+
+        QuotedIDFactory idFactory = getQuotedIDFactory();
+        for (CachedRelation entry : cache.map(c -> c.relations).orElse(ImmutableList.of())) {
+            if (entry.marker == null || entry.relation == null || entry.relation.name == null)
+                continue;
+            entries.put(entry.relation.name, entry);
+            loadedEntries.put(entry.relation.name, entry);
+            index.put(JsonMetadata.deserializeRelationID(idFactory, entry.relation.name), entry);
+            for (List<String> otherName : entry.relation.otherNames)
+                index.putIfAbsent(JsonMetadata.deserializeRelationID(idFactory, otherName), entry);
+        }
+    }
+
+    private static Optional<JsonCachedMetadata> load(File file) {
+        if (!file.exists())
+            return Optional.empty();
+
+        try {
+            return Optional.of(createObjectMapper().readValue(file, JsonCachedMetadata.class));
+        }
+        catch (IOException e) {
+            LOGGER.warn("Cannot read the metadata cache {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isCompatible(JsonMetadata.Parameters cached, JsonMetadata.Parameters current) {
+        return cached != null
+                && Objects.equals(cached.dbmsProductName, current.dbmsProductName)
+                && Objects.equals(cached.dbmsVersion, current.dbmsVersion)
+                && Objects.equals(cached.driverName, current.driverName)
+                && Objects.equals(cached.driverVersion, current.driverVersion)
+                && Objects.equals(cached.quotationString, current.quotationString)
+                && Objects.equals(cached.idFactoryType, current.idFactoryType);
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        return new ObjectMapper()
+                .registerModule(new GuavaModule())
+                .enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+                .enable(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+    }
+
+    @Override
+    public NamedRelationDefinition getRelation(RelationID id) throws MetadataExtractionException {
+        CachedRelation entry = index.get(id);
+        if (entry != null) {
+            if (isUpToDate(entry.relation.name, entry)) {
+                DatabaseTableDefinition relation = entry.relation.createDatabaseTableDefinition(getDBParameters());
+                servedFromCache.put(relation, entry);
+                cacheHitCount++;
+                return relation;
+            }
+            entries.remove(entry.relation.name);
+            isModified = true;
+        }
+        // The marker is retrieved before the extraction so that concurrent changes are not missed
+        dbProvider.getChangeMarker(id);
+        return dbProvider.getRelation(id);
+    }
+
+    private boolean isUpToDate(List<String> name, CachedRelation entry) throws MetadataExtractionException {
+        RelationID id = JsonMetadata.deserializeRelationID(getQuotedIDFactory(), name);
+        return dbProvider.getChangeMarker(id)
+                .filter(m -> m.equals(entry.marker))
+                .isPresent();
+    }
+
+    @Override
+    public void insertIntegrityConstraints(NamedRelationDefinition relation, MetadataLookup metadataLookup) throws MetadataExtractionException {
+        CachedRelation entry = servedFromCache.get(relation);
+        if (entry != null && areForeignKeyTargetsUpToDate(entry.relation)) {
+            entry.relation.insertIntegrityConstraints(relation, metadataLookup);
+            return;
+        }
+
+        dbProvider.insertIntegrityConstraints(relation, metadataLookup);
+
+        Optional<String> marker = dbProvider.getChangeMarker(relation.getID());
+        if (marker.isPresent()) {
+            JsonDatabaseTable table = new JsonDatabaseTable(relation);
+            entries.put(table.name, new CachedRelation(marker.get(), table));
+            isModified = true;
+        }
+    }
+
+    private boolean areForeignKeyTargetsUpToDate(JsonDatabaseTable table) throws MetadataExtractionException {
+        for (JsonForeignKey fk : table.foreignKeys) {
+            // Not entries: the target may have been extracted again (with a new marker) in the meantime
+            CachedRelation target = loadedEntries.get(fk.to.relation);
+            if (target == null || !isUpToDate(fk.to.relation, target))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<String> getChangeMarker(RelationID id) throws MetadataExtractionException {
+        return dbProvider.getChangeMarker(id);
+    }
+
+    /**
+     * Number of relations served from the cache so far
+     */
+    public int getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    /**
+     * Writes the cache file (if anything has changed). Failures are only logged.
+     */
+    public void save() {
+        if (!isModified)
+            return;
+
+        JsonCachedMetadata cache = new JsonCachedMetadata(source,
+                new JsonMetadata.Parameters(getDBParameters()),
+                ImmutableList.copyOf(entries.values()));
+        try {
+            Path target = file.getAbsoluteFile().toPath();
+            // Written next to the target for the move to be atomic
+            Path tmp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+            try {
+                createObjectMapper().writeValue(tmp.toFile(), cache);
+                try {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            finally {
+                Files.deleteIfExists(tmp);
+            }
+            isModified = false;
+            LOGGER.debug("Saved {} relations in the metadata cache {}", entries.size(), file);
+        }
+        catch (JsonProcessingException e) {
+            LOGGER.warn("Cannot serialize the metadata cache: {}", e.getMessage());
+        }
+        catch (IOException e) {
+            LOGGER.warn("Cannot write the metadata cache {}: {}", file, e.getMessage());
+        }
+    }
+}
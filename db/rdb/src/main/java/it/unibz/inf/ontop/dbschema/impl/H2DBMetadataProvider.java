@@ -2,11 +2,13 @@ package it.unibz.inf.ontop.dbschema.impl;
 
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.dbschema.RelationID;
 import it.unibz.inf.ontop.exception.MetadataExtractionException;
 import it.unibz.inf.ontop.injection.CoreSingletons;
 import it.unibz.inf.ontop.model.type.TypeFactory;
 
 import java.sql.Connection;
+import java.util.Optional;
 
 public class H2DBMetadataProvider extends DefaultSchemaCatalogDBMetadataProvider {
 
@@ -17,4 +19,34 @@ public class H2DBMetadataProvider extends DefaultSchemaCatalogDBMetadataProvider
         // http://www.h2database.com/html/functions.html#current_schema
         // the .getSchema() does work for OntopExtractDBMetadataTest
     }
+
+    private static final String INDEX_COLUMNS = "SELECT TABLE_CATALOG AS TABLE_CAT, TABLE_SCHEMA AS TABLE_SCHEM, TABLE_NAME, " +
+            "%s AS CONSTRAINT_NAME, COLUMN_NAME, ORDINAL_POSITION AS KEY_SEQ " +
+            "FROM INFORMATION_SCHEMA.INDEXES " +
+            "WHERE TABLE_CATALOG = ? AND TABLE_SCHEMA = ? AND %s";
+
+    @Override
+    protected Optional<SchemaConstraintQueries> getSchemaConstraintQueries(RelationID id) {
+        // Same sources as the JDBC driver
+        return Optional.of(new SchemaConstraintQueries(
+                String.format(INDEX_COLUMNS, "IFNULL(CONSTRAINT_NAME, INDEX_NAME)", "PRIMARY_KEY = TRUE"),
+                String.format(INDEX_COLUMNS, "INDEX_NAME", "NON_UNIQUE = FALSE"),
+                "SELECT FKTABLE_CATALOG AS TABLE_CAT, FKTABLE_SCHEMA AS TABLE_SCHEM, FKTABLE_NAME AS TABLE_NAME, " +
+                        "FK_NAME AS CONSTRAINT_NAME, FKCOLUMN_NAME AS COLUMN_NAME, ORDINAL_POSITION AS KEY_SEQ, " +
+                        "PKTABLE_CATALOG AS PKTABLE_CAT, PKTABLE_SCHEMA AS PKTABLE_SCHEM, PKTABLE_NAME, PKCOLUMN_NAME " +
+                        "FROM INFORMATION_SCHEMA.CROSS_REFERENCES " +
+                        "WHERE FKTABLE_CATALOG = ? AND FKTABLE_SCHEMA = ?",
+                getRelationCatalog(id), getRelationSchema(id)));
+    }
+
+    @Override
+    protected Optional<ChangeMarkerQuery> getChangeMarkerQuery(RelationID id) {
+        // Conservative: LAST_MODIFICATION is also incremented by the data changes
+        return Optional.of(new ChangeMarkerQuery(
+                "SELECT TABLE_CATALOG AS TABLE_CAT, TABLE_SCHEMA AS TABLE_SCHEM, TABLE_NAME, " +
+                        "CAST(LAST_MODIFICATION AS VARCHAR) AS MARKER " +
+                        "FROM INFORMATION_SCHEMA.TABLES " +
+                        "WHERE TABLE_CATALOG = ? AND TABLE_SCHEMA = ?",
+                getRelationCatalog(id), getRelationSchema(id)));
+    }
 }
@@ -10,6 +10,7 @@ import it.unibz.inf.ontop.model.type.TypeFactory;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Optional;
 
 public class MySQLDBMetadataProvider extends DefaultSchemaDBMetadataProvider {
 
@@ -39,4 +40,42 @@ public class MySQLDBMetadataProvider extends DefaultSchemaDBMetadataProvider {
     protected RelationID getRelationID(ResultSet rs, String catalogNameColumn, String schemaNameColumn, String tableNameColumn) throws SQLException {
         return rawIdFactory.createRelationID(rs.getString(catalogNameColumn), rs.getString(tableNameColumn));
     }
+
+    @Override
+    protected Optional<SchemaConstraintQueries> getSchemaConstraintQueries(RelationID id) {
+        // MySQL databases are JDBC catalogs
+        return Optional.of(new SchemaConstraintQueries(
+                "SELECT TABLE_SCHEMA AS TABLE_CAT, NULL AS TABLE_SCHEM, TABLE_NAME, INDEX_NAME AS CONSTRAINT_NAME, " +
+                        "COLUMN_NAME, SEQ_IN_INDEX AS KEY_SEQ " +
+                        "FROM information_schema.STATISTICS " +
+                        "WHERE TABLE_SCHEMA = ? AND INDEX_NAME = 'PRIMARY'",
+                // COLUMN_NAME is NULL for functional key parts
+                "SELECT TABLE_SCHEMA AS TABLE_CAT, NULL AS TABLE_SCHEM, TABLE_NAME, INDEX_NAME AS CONSTRAINT_NAME, " +
+                        "COLUMN_NAME, SEQ_IN_INDEX AS KEY_SEQ " +
+                        "FROM information_schema.STATISTICS " +
+                        "WHERE TABLE_SCHEMA = ? AND NON_UNIQUE = 0",
+                "SELECT TABLE_SCHEMA AS TABLE_CAT, NULL AS TABLE_SCHEM, TABLE_NAME, CONSTRAINT_NAME, " +
+                        "COLUMN_NAME, ORDINAL_POSITION AS KEY_SEQ, REFERENCED_TABLE_SCHEMA AS PKTABLE_CAT, " +
+                        "NULL AS PKTABLE_SCHEM, REFERENCED_TABLE_NAME AS PKTABLE_NAME, REFERENCED_COLUMN_NAME AS PKCOLUMN_NAME " +
+                        "FROM information_schema.KEY_COLUMN_USAGE " +
+                        "WHERE TABLE_SCHEMA = ? AND REFERENCED_TABLE_NAME IS NOT NULL",
+                getRelationCatalog(id)));
+    }
+
+    @Override
+    protected Optional<ChangeMarkerQuery> getChangeMarkerQuery(RelationID id) {
+        // CREATE_TIME is not changed by the instant ALTER TABLE operations: hash of the catalog entries
+        return Optional.of(new ChangeMarkerQuery(
+                "SELECT t.TABLE_SCHEMA AS TABLE_CAT, NULL AS TABLE_SCHEM, t.TABLE_NAME, MD5(CONCAT_WS('|', " +
+                        "(SELECT GROUP_CONCAT(CONCAT_WS(' ', c.COLUMN_NAME, c.COLUMN_TYPE, c.IS_NULLABLE) ORDER BY c.ORDINAL_POSITION) " +
+                        "FROM information_schema.COLUMNS c WHERE c.TABLE_SCHEMA = t.TABLE_SCHEMA AND c.TABLE_NAME = t.TABLE_NAME), " +
+                        "(SELECT GROUP_CONCAT(CONCAT_WS(' ', s.INDEX_NAME, s.SEQ_IN_INDEX, s.COLUMN_NAME, s.NON_UNIQUE) ORDER BY s.INDEX_NAME, s.SEQ_IN_INDEX) " +
+                        "FROM information_schema.STATISTICS s WHERE s.TABLE_SCHEMA = t.TABLE_SCHEMA AND s.TABLE_NAME = t.TABLE_NAME), " +
+                        "(SELECT GROUP_CONCAT(CONCAT_WS(' ', k.CONSTRAINT_NAME, k.COLUMN_NAME, k.REFERENCED_TABLE_SCHEMA, k.REFERENCED_TABLE_NAME, k.REFERENCED_COLUMN_NAME) ORDER BY k.CONSTRAINT_NAME, k.ORDINAL_POSITION) " +
+                        "FROM information_schema.KEY_COLUMN_USAGE k WHERE k.TABLE_SCHEMA = t.TABLE_SCHEMA AND k.TABLE_NAME = t.TABLE_NAME " +
+                        "AND k.REFERENCED_TABLE_NAME IS NOT NULL))) AS MARKER " +
+                        "FROM information_schema.TABLES t " +
+                        "WHERE t.TABLE_SCHEMA = ?",
+                getRelationCatalog(id)));
+    }
 }
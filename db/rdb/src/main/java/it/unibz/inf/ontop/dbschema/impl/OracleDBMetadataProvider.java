@@ -12,6 +12,7 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Optional;
 
 import static it.unibz.inf.ontop.dbschema.RelationID.TABLE_INDEX;
 
@@ -84,4 +85,45 @@ public class OracleDBMetadataProvider extends DefaultSchemaDBMetadataProvider {
                 "   NOT view_name LIKE 'LOGMNR_%' AND " +
                 "   NOT view_name LIKE 'AQ$_%'");
     }
+
+    private static final String CONSTRAINT_COLUMNS = "SELECT NULL AS TABLE_CAT, c.owner AS TABLE_SCHEM, c.table_name AS TABLE_NAME, " +
+            "c.constraint_name AS CONSTRAINT_NAME, cc.column_name AS COLUMN_NAME, cc.position AS KEY_SEQ ";
+
+    @Override
+    protected Optional<SchemaConstraintQueries> getSchemaConstraintQueries(RelationID id) {
+        return Optional.of(new SchemaConstraintQueries(
+                CONSTRAINT_COLUMNS +
+                        "FROM all_constraints c " +
+                        "JOIN all_cons_columns cc ON cc.owner = c.owner AND cc.constraint_name = c.constraint_name " +
+                        "WHERE c.owner = ? AND c.constraint_type = 'P'",
+                "SELECT NULL AS TABLE_CAT, i.table_owner AS TABLE_SCHEM, i.table_name AS TABLE_NAME, " +
+                        "i.index_name AS CONSTRAINT_NAME, ic.column_name AS COLUMN_NAME, ic.column_position AS KEY_SEQ " +
+                        "FROM all_indexes i " +
+                        "JOIN all_ind_columns ic ON ic.index_owner = i.owner AND ic.index_name = i.index_name " +
+                        "WHERE i.table_owner = ? AND i.uniqueness = 'UNIQUE' AND i.index_type NOT LIKE 'FUNCTION-BASED%'",
+                CONSTRAINT_COLUMNS + ", NULL AS PKTABLE_CAT, r.owner AS PKTABLE_SCHEM, r.table_name AS PKTABLE_NAME, " +
+                        "rc.column_name AS PKCOLUMN_NAME " +
+                        "FROM all_constraints c " +
+                        "JOIN all_cons_columns cc ON cc.owner = c.owner AND cc.constraint_name = c.constraint_name " +
+                        "JOIN all_constraints r ON r.owner = c.r_owner AND r.constraint_name = c.r_constraint_name " +
+                        "JOIN all_cons_columns rc ON rc.owner = r.owner AND rc.constraint_name = r.constraint_name " +
+                        "AND rc.position = cc.position " +
+                        "WHERE c.owner = ? AND c.constraint_type = 'R'",
+                getRelationSchema(id)));
+    }
+
+    @Override
+    protected Optional<ChangeMarkerQuery> getChangeMarkerQuery(RelationID id) {
+        // The indexes are included as creating them does not always change the DDL time of the table
+        return Optional.of(new ChangeMarkerQuery(
+                "SELECT NULL AS TABLE_CAT, o.owner AS TABLE_SCHEM, o.object_name AS TABLE_NAME, " +
+                        "TO_CHAR(o.last_ddl_time, 'YYYYMMDDHH24MISS') || '/' || " +
+                        "(SELECT TO_CHAR(MAX(io.last_ddl_time), 'YYYYMMDDHH24MISS') || '/' || COUNT(*) " +
+                        "FROM all_indexes i " +
+                        "JOIN all_objects io ON io.owner = i.owner AND io.object_name = i.index_name AND io.object_type = 'INDEX' " +
+                        "WHERE i.table_owner = o.owner AND i.table_name = o.object_name) AS MARKER " +
+                        "FROM all_objects o " +
+                        "WHERE o.owner = ? AND o.object_type IN ('TABLE', 'VIEW')",
+                getRelationSchema(id)));
+    }
 }
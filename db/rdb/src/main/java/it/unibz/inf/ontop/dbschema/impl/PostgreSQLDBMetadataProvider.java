@@ -2,11 +2,13 @@ package it.unibz.inf.ontop.dbschema.impl;
 
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.dbschema.RelationID;
 import it.unibz.inf.ontop.exception.MetadataExtractionException;
 import it.unibz.inf.ontop.injection.CoreSingletons;
 import it.unibz.inf.ontop.model.type.TypeFactory;
 
 import java.sql.Connection;
+import java.util.Optional;
 
 public class PostgreSQLDBMetadataProvider extends DefaultSchemaDBMetadataProvider {
 
@@ -20,4 +22,58 @@ public class PostgreSQLDBMetadataProvider extends DefaultSchemaDBMetadataProvide
         // https://www.postgresql.org/docs/current/ddl-schemas.html
         // If you write a database name, it must be the same as the database you are connected to.
     }
+
+    private static final String CONSTRAINT_COLUMNS = "SELECT NULL AS TABLE_CAT, n.nspname AS TABLE_SCHEM, c.relname AS TABLE_NAME, " +
+            "con.conname AS CONSTRAINT_NAME, a.attname AS COLUMN_NAME, k.n AS KEY_SEQ ";
+
+    @Override
+    protected Optional<SchemaConstraintQueries> getSchemaConstraintQueries(RelationID id) {
+        // pg_catalog instead of information_schema: the unique indexes are not constraints
+        return Optional.of(new SchemaConstraintQueries(
+                CONSTRAINT_COLUMNS +
+                        "FROM pg_catalog.pg_constraint con " +
+                        "JOIN pg_catalog.pg_class c ON c.oid = con.conrelid " +
+                        "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+                        "JOIN LATERAL unnest(con.conkey) WITH ORDINALITY AS k(attnum, n) ON TRUE " +
+                        "JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum " +
+                        "WHERE n.nspname = ? AND con.contype = 'p'",
+                "SELECT NULL AS TABLE_CAT, n.nspname AS TABLE_SCHEM, c.relname AS TABLE_NAME, " +
+                        "i.relname AS CONSTRAINT_NAME, a.attname AS COLUMN_NAME, k.n AS KEY_SEQ " +
+                        "FROM pg_catalog.pg_index x " +
+                        "JOIN pg_catalog.pg_class c ON c.oid = x.indrelid " +
+                        "JOIN pg_catalog.pg_class i ON i.oid = x.indexrelid " +
+                        "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+                        "JOIN LATERAL unnest(x.indkey) WITH ORDINALITY AS k(attnum, n) ON TRUE " +
+                        "JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum " +
+                        "WHERE n.nspname = ? AND x.indisunique AND x.indexprs IS NULL AND x.indpred IS NULL",
+                CONSTRAINT_COLUMNS + ", NULL AS PKTABLE_CAT, rn.nspname AS PKTABLE_SCHEM, rc.relname AS PKTABLE_NAME, " +
+                        "ra.attname AS PKCOLUMN_NAME " +
+                        "FROM pg_catalog.pg_constraint con " +
+                        "JOIN pg_catalog.pg_class c ON c.oid = con.conrelid " +
+                        "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+                        "JOIN pg_catalog.pg_class rc ON rc.oid = con.confrelid " +
+                        "JOIN pg_catalog.pg_namespace rn ON rn.oid = rc.relnamespace " +
+                        "JOIN LATERAL unnest(con.conkey, con.confkey) WITH ORDINALITY AS k(attnum, refattnum, n) ON TRUE " +
+                        "JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum " +
+                        "JOIN pg_catalog.pg_attribute ra ON ra.attrelid = rc.oid AND ra.attnum = k.refattnum " +
+                        "WHERE n.nspname = ? AND con.contype = 'f'",
+                getRelationSchema(id)));
+    }
+
+    @Override
+    protected Optional<ChangeMarkerQuery> getChangeMarkerQuery(RelationID id) {
+        // No DDL timestamp in PostgreSQL: hash of the catalog entries of the relation
+        return Optional.of(new ChangeMarkerQuery(
+                "SELECT NULL AS TABLE_CAT, n.nspname AS TABLE_SCHEM, c.relname AS TABLE_NAME, md5(concat_ws('|', " +
+                        "(SELECT string_agg(a.attname || ' ' || a.atttypid || ' ' || a.atttypmod || ' ' || a.attnotnull, ',' ORDER BY a.attnum) " +
+                        "FROM pg_catalog.pg_attribute a WHERE a.attrelid = c.oid AND a.attnum > 0 AND NOT a.attisdropped), " +
+                        "(SELECT string_agg(x.indexrelid || ' ' || x.indkey::text, ',' ORDER BY x.indexrelid) " +
+                        "FROM pg_catalog.pg_index x WHERE x.indrelid = c.oid AND x.indisunique), " +
+                        "(SELECT string_agg(con.oid::text, ',' ORDER BY con.oid) " +
+                        "FROM pg_catalog.pg_constraint con WHERE con.conrelid = c.oid AND con.contype IN ('p', 'f')))) AS MARKER " +
+                        "FROM pg_catalog.pg_class c " +
+                        "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+                        "WHERE n.nspname = ? AND c.relkind IN ('r', 'v', 'm', 'f', 'p')",
+                getRelationSchema(id)));
+    }
 }
@@ -9,6 +9,8 @@ import it.unibz.inf.ontop.injection.CoreSingletons;
 import it.unibz.inf.ontop.model.type.TypeFactory;
 
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Optional;
 
 public class SQLServerDBMetadataProvider extends DefaultSchemaCatalogDBMetadataProvider {
 
@@ -34,4 +36,64 @@ public class SQLServerDBMetadataProvider extends DefaultSchemaCatalogDBMetadataP
 					"FROM INFORMATION_SCHEMA.TABLES " +
 					"WHERE TABLE_TYPE='BASE TABLE' OR TABLE_TYPE='VIEW'";
     */
+
+    private static final String INDEX_COLUMNS = "SELECT DB_NAME() AS TABLE_CAT, s.name AS TABLE_SCHEM, t.name AS TABLE_NAME, " +
+            "i.name AS CONSTRAINT_NAME, c.name AS COLUMN_NAME, ic.key_ordinal AS KEY_SEQ " +
+            "FROM sys.indexes i " +
+            "JOIN sys.objects t ON t.object_id = i.object_id " +
+            "JOIN sys.schemas s ON s.schema_id = t.schema_id " +
+            "JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id " +
+            "JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id " +
+            // key_ordinal = 0 for the included columns
+            "WHERE s.name = ? AND ic.key_ordinal > 0 AND ";
+
+    @Override
+    protected Optional<SchemaConstraintQueries> getSchemaConstraintQueries(RelationID id) {
+        if (!isCurrentCatalog(id))
+            return Optional.empty();
+
+        return Optional.of(new SchemaConstraintQueries(
+                INDEX_COLUMNS + "i.is_primary_key = 1",
+                INDEX_COLUMNS + "i.is_unique = 1 AND i.has_filter = 0",
+                "SELECT DB_NAME() AS TABLE_CAT, s.name AS TABLE_SCHEM, t.name AS TABLE_NAME, " +
+                        "fk.name AS CONSTRAINT_NAME, c.name AS COLUMN_NAME, fkc.constraint_column_id AS KEY_SEQ, " +
+                        "DB_NAME() AS PKTABLE_CAT, rs.name AS PKTABLE_SCHEM, rt.name AS PKTABLE_NAME, rc.name AS PKCOLUMN_NAME " +
+                        "FROM sys.foreign_keys fk " +
+                        "JOIN sys.foreign_key_columns fkc ON fkc.constraint_object_id = fk.object_id " +
+                        "JOIN sys.objects t ON t.object_id = fk.parent_object_id " +
+                        "JOIN sys.schemas s ON s.schema_id = t.schema_id " +
+                        "JOIN sys.columns c ON c.object_id = fkc.parent_object_id AND c.column_id = fkc.parent_column_id " +
+                        "JOIN sys.objects rt ON rt.object_id = fk.referenced_object_id " +
+                        "JOIN sys.schemas rs ON rs.schema_id = rt.schema_id " +
+                        "JOIN sys.columns rc ON rc.object_id = fkc.referenced_object_id AND rc.column_id = fkc.referenced_column_id " +
+                        "WHERE s.name = ?",
+                getRelationSchema(id)));
+    }
+
+    @Override
+    protected Optional<ChangeMarkerQuery> getChangeMarkerQuery(RelationID id) {
+        if (!isCurrentCatalog(id))
+            return Optional.empty();
+
+        // modify_date also changes when an index is created or altered
+        return Optional.of(new ChangeMarkerQuery(
+                "SELECT DB_NAME() AS TABLE_CAT, s.name AS TABLE_SCHEM, o.name AS TABLE_NAME, " +
+                        "CONVERT(VARCHAR(30), o.modify_date, 126) AS MARKER " +
+                        "FROM sys.objects o " +
+                        "JOIN sys.schemas s ON s.schema_id = o.schema_id " +
+                        "WHERE s.name = ? AND o.type IN ('U', 'V')",
+                getRelationSchema(id)));
+    }
+
+    /**
+     * The catalog views only describe the current database
+     */
+    private boolean isCurrentCatalog(RelationID id) {
+        try {
+            return getRelationCatalog(id).equals(connection.getCatalog());
+        }
+        catch (SQLException e) {
+            return false;
+        }
+    }
 }
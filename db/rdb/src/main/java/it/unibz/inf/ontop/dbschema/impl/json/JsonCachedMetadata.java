@@ -0,0 +1,49 @@
+package it.unibz.inf.ontop.dbschema.impl.json;
+
+import com.fasterxml.jackson.annotation.*;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * DB metadata cached between runs: each relation comes with the change marker
+ * reported by the DBMS when it was extracted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+        "source",
+        "metadata",
+        "relations"
+})
+public class JsonCachedMetadata extends JsonOpenObject {
+    public final String source;
+    public final JsonMetadata.Parameters metadata;
+    public final List<CachedRelation> relations;
+
+    @JsonCreator
+    public JsonCachedMetadata(@JsonProperty("source") String source,
+                              @JsonProperty("metadata") JsonMetadata.Parameters metadata,
+                              @JsonProperty("relations") List<CachedRelation> relations) {
+        this.source = source;
+        this.metadata = metadata;
+        this.relations = Optional.ofNullable(relations).orElse(ImmutableList.of());
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonPropertyOrder({
+            "marker",
+            "relation"
+    })
+    public static class CachedRelation extends JsonOpenObject {
+        public final String marker;
+        public final JsonDatabaseTable relation;
+
+        @JsonCreator
+        public CachedRelation(@JsonProperty("marker") String marker,
+                              @JsonProperty("relation") JsonDatabaseTable relation) {
+            this.marker = marker;
+            this.relation = relation;
+        }
+    }
+}
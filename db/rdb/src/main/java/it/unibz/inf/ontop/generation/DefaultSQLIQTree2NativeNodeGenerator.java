@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.generation;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.inject.Inject;
@@ -12,7 +13,7 @@ import it.unibz.inf.ontop.dbschema.QuotedID;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.iq.IQTree;
-import it.unibz.inf.ontop.iq.node.NativeNode;
+import it.unibz.inf.ontop.iq.node.*;
 import it.unibz.inf.ontop.iq.type.UniqueTermTypeExtractor;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.type.DBTermType;
@@ -59,7 +60,21 @@ public class DefaultSQLIQTree2NativeNodeGenerator implements IQTree2NativeNodeGe
                         e -> e.getValue().getAttribute()));
 
         return iqFactory.createNativeNode(signature, variableTypeMap, columnNames,
-                serializedQuery.getString(), iqTree.getVariableNullability());
+                serializedQuery.getString(), iqTree.getVariableNullability(), ImmutableList.of(), isOrdered(iqTree));
+    }
+
+    /**
+     * ORDER BY on top of the tree (possibly below a projection, a DISTINCT or a LIMIT/OFFSET),
+     * like in the SELECT-FROM-WHERE converter. The ORDER BYs of the sub-queries do not order the results.
+     */
+    private static boolean isOrdered(IQTree tree) {
+        QueryNode rootNode = tree.getRootNode();
+        if (rootNode instanceof OrderByNode)
+            return true;
+        if ((rootNode instanceof ConstructionNode) || (rootNode instanceof DistinctNode)
+                || (rootNode instanceof SliceNode))
+            return isOrdered(tree.getChildren().get(0));
+        return false;
     }
 
     private ImmutableMap<Variable, DBTermType> extractVariableTypeMap(IQTree tree, boolean tolerateUnknownTypes) {
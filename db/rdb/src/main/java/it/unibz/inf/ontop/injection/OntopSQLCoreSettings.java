@@ -6,6 +6,12 @@ public interface OntopSQLCoreSettings extends OntopOBDASettings {
     String getJdbcName();
     String getJdbcDriver();
 
+    /**
+     * If enabled, the columns and the integrity constraints are extracted for whole schemas at once
+     * (instead of relation per relation)
+     */
+    boolean isBulkMetadataExtractionEnabled();
+
     //-------
     // Keys
     //-------
@@ -13,4 +19,5 @@ public interface OntopSQLCoreSettings extends OntopOBDASettings {
     String JDBC_URL = "jdbc.url";
     String JDBC_NAME = "jdbc.name";
     String JDBC_DRIVER = "jdbc.driver";
+    String BULK_METADATA_EXTRACTION = "ontop.metadata.bulkExtraction";
 }
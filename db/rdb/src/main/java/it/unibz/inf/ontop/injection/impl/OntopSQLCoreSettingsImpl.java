@@ -30,6 +30,7 @@ public class OntopSQLCoreSettingsImpl extends OntopOBDASettingsImpl implements O
     private final String jdbcUrl;
     private final String jdbcDriver;
     private final String jdbcName;
+    private final boolean isBulkMetadataExtractionEnabled;
 
     /**
      * Beware: immutable class!
@@ -48,6 +49,7 @@ public class OntopSQLCoreSettingsImpl extends OntopOBDASettingsImpl implements O
         jdbcDriver = getRequiredProperty(OntopSQLCoreSettings.JDBC_DRIVER);
         jdbcName = getProperty(OntopSQLCoreSettings.JDBC_NAME)
                 .orElseGet(() -> IDGenerator.getNextUniqueID(DB_PREFIX));
+        isBulkMetadataExtractionEnabled = getRequiredBoolean(OntopSQLCoreSettings.BULK_METADATA_EXTRACTION);
     }
 
     static Properties loadSQLCoreProperties(Properties userProperties) {
@@ -143,4 +145,9 @@ public class OntopSQLCoreSettingsImpl extends OntopOBDASettingsImpl implements O
     public String getJdbcDriver() {
         return jdbcDriver;
     }
+
+    @Override
+    public boolean isBulkMetadataExtractionEnabled() {
+        return isBulkMetadataExtractionEnabled;
+    }
 }
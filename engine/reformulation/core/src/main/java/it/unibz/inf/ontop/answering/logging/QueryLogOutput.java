@@ -0,0 +1,23 @@
+package it.unibz.inf.ontop.answering.logging;
+
+import java.io.IOException;
+
+/**
+ * Where the serialized query log records end up.
+ *
+ * Not required to be thread-safe: only called by one thread at a time.
+ */
+public interface QueryLogOutput {
+
+    void write(String record) throws IOException;
+
+    /**
+     * Called after a batch of records
+     */
+    void flush() throws IOException;
+
+    /**
+     * Releases the underlying resources. The output may be re-opened by a subsequent write.
+     */
+    void close() throws IOException;
+}
@@ -0,0 +1,26 @@
+package it.unibz.inf.ontop.answering.logging;
+
+import java.util.function.Supplier;
+
+/**
+ * Receives the records of the query loggers.
+ *
+ * The record is given as a supplier so that its serialization can be moved out of the query thread.
+ * The supplier must therefore only depend on state that is not modified afterwards.
+ */
+public interface QueryLogSink {
+
+    void write(Supplier<String> record);
+
+    /**
+     * Number of records dropped so far (e.g. because of a full buffer)
+     */
+    long getDroppedRecordCount();
+
+    /**
+     * Writes the pending records, releases the resources (threads, files) and closes the output.
+     *
+     * Records written afterwards are still accepted: the resources are then acquired again.
+     */
+    void close();
+}
@@ -0,0 +1,198 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.answering.logging.QueryLogOutput;
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings.QueryLoggingDropPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The query thread only appends the record to a bounded buffer.
+ * Serialization and writing are done in batches by a background (daemon) thread.
+ *
+ * The writer thread is only started when the first record arrives and is stopped by close(),
+ * which also writes what remains in the buffer. A shutdown hook does the same if the JVM
+ * terminates before close() is called; it is deregistered by close().
+ */
+@Singleton
+public class AsyncQueryLogSink implements QueryLogSink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncQueryLogSink.class);
+    private static final int BATCH_SIZE = 256;
+    private static final long DROP_WARNING_PERIOD = 10_000;
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final QueryLogOutput output;
+    private final BlockingQueue<Supplier<String>> buffer;
+    private final QueryLoggingDropPolicy dropPolicy;
+    private final AtomicLong droppedRecordCount;
+
+    // Modified under the lock of this
+    @Nullable
+    private volatile Thread writerThread;
+    @Nullable
+    private Thread shutdownHook;
+    private volatile boolean isStopping;
+
+    @Inject
+    private AsyncQueryLogSink(QueryLogOutput output, OntopReformulationSettings settings) {
+        this(output, settings.getQueryLoggingBufferSize(), settings.getQueryLoggingDropPolicy());
+    }
+
+    AsyncQueryLogSink(QueryLogOutput output, int bufferSize, QueryLoggingDropPolicy dropPolicy) {
+        this.output = output;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        this.dropPolicy = dropPolicy;
+        this.droppedRecordCount = new AtomicLong();
+    }
+
+    @Override
+    public void write(Supplier<String> record) {
+        if (writerThread == null)
+            start();
+
+        switch (dropPolicy) {
+            case BLOCK:
+                try {
+                    buffer.put(record);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    declareDropped();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!buffer.offer(record)) {
+                    if (buffer.poll() != null)
+                        declareDropped();
+                }
+                break;
+            case DROP_NEWEST:
+            default:
+                if (!buffer.offer(record))
+                    declareDropped();
+        }
+    }
+
+    @Override
+    public long getDroppedRecordCount() {
+        return droppedRecordCount.get();
+    }
+
+    /**
+     * Stops the writer thread, writes the remaining records, deregisters the shutdown hook and closes the output.
+     */
+    @Override
+    public synchronized void close() {
+        Thread thread = writerThread;
+        if (thread != null) {
+            isStopping = true;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writerThread = null;
+            isStopping = false;
+        }
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down
+            }
+            shutdownHook = null;
+        }
+
+        drain();
+        synchronized (output) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                LOGGER.error(QueryLoggerImpl.OUTPUT_STREAM_JSON_ERROR + e);
+            }
+        }
+    }
+
+    /**
+     * For tests
+     */
+    synchronized boolean isWriterThreadRunning() {
+        return writerThread != null && writerThread.isAlive();
+    }
+
+    private void declareDropped() {
+        long count = droppedRecordCount.incrementAndGet();
+        if (count % DROP_WARNING_PERIOD == 1)
+            LOGGER.warn("The query log buffer is full: {} record(s) dropped so far", count);
+    }
+
+    private synchronized void start() {
+        if (writerThread != null)
+            return;
+
+        Thread thread = new Thread(this::run, "ontop-query-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+        writerThread = thread;
+
+        shutdownHook = new Thread(this::drain, "ontop-query-log-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Polls with a timeout (instead of being interrupted) so that a write in progress is never interrupted
+     */
+    private void run() {
+        List<Supplier<String>> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!isStopping) {
+                Supplier<String> record = buffer.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (record == null)
+                    continue;
+                batch.add(record);
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<Supplier<String>> batch = new ArrayList<>(buffer.size());
+        buffer.drainTo(batch);
+        if (!batch.isEmpty())
+            writeBatch(batch);
+    }
+
+    private void writeBatch(List<Supplier<String>> batch) {
+        synchronized (output) {
+            try {
+                for (Supplier<String> record : batch) {
+                    try {
+                        output.write(record.get());
+                    } catch (RuntimeException e) {
+                        LOGGER.error("Could not serialize a query log record: " + e);
+                    }
+                }
+                output.flush();
+            } catch (IOException e) {
+                LOGGER.error(QueryLoggerImpl.OUTPUT_STREAM_JSON_ERROR + e);
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.hash.Hashing;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.logging.impl.ClassAndPropertyExtractor.ClassesAndProperties;
 import it.unibz.inf.ontop.answering.logging.impl.QueryTemplateExtractor.QueryTemplateExtraction;
@@ -23,12 +24,11 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
-import java.sql.Timestamp;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
@@ -74,19 +74,20 @@ public class QueryLoggerImpl implements QueryLogger {
     protected static final String PREDEFINED_QUERY_KEY = "queryId";
     protected static final String BINDINGS_KEY = "bindings";
 
-    private static final DateFormat  DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+            .withZone(ZoneId.systemDefault());
+    // Thread-safe, shared by all the loggers
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
     private static final Logger REGULAR_LOGGER = LoggerFactory.getLogger(QueryLoggerImpl.class);
-    ;
 
 
     private final UUID queryId;
     private final long creationTime;
-    private final PrintStream outputStream;
+    private final QueryLogSink sink;
     private final ImmutableMultimap<String, String> httpHeaders;
     private final OntopReformulationSettings settings;
     private final boolean disabled;
     private final String applicationName;
-    private final JsonFactory jsonFactory;
     private final boolean isDecompositionEnabled;
     private final boolean isMergingEnabled;
     private long reformulationTime;
@@ -95,16 +96,23 @@ public class QueryLoggerImpl implements QueryLogger {
     private final RelationNameExtractor relationNameExtractor;
     private final QueryTemplateExtractor queryTemplateExtractor;
 
+    /*
+     * The extractions are only performed when the records are serialized (by the sink, possibly in another thread).
+     * Lazy: guarded by "this".
+     */
+    @Nullable
+    private IQ sparqlIQ;
+    @Nullable
+    private IQ plannedQuery;
     @Nullable
-    private ImmutableSet<IRI> classes, properties;
+    private ClassesAndProperties classesAndProperties;
     @Nullable
     private ImmutableSet<String> relationNames;
-
     @Nullable
-    private String sparqlQueryString;
+    private Optional<QueryTemplateExtraction> queryTemplate;
 
     @Nullable
-    private QueryTemplateExtraction queryTemplate;
+    private String sparqlQueryString;
 
     @Nullable
     private IQ reformulatedQuery;
@@ -119,18 +127,12 @@ public class QueryLoggerImpl implements QueryLogger {
 
     @AssistedInject
     protected QueryLoggerImpl(@Assisted ImmutableMultimap<String, String> httpHeaders,
+                              QueryLogSink sink,
                               OntopReformulationSettings settings,
                               ClassAndPropertyExtractor classAndPropertyExtractor,
                               RelationNameExtractor relationNameExtractor,
                               QueryTemplateExtractor queryTemplateExtractor) {
-        this(System.out, httpHeaders, settings, classAndPropertyExtractor, relationNameExtractor, queryTemplateExtractor);
-    }
-
-    protected QueryLoggerImpl(PrintStream outputStream, ImmutableMultimap<String, String> httpHeaders,
-                              OntopReformulationSettings settings,
-                              ClassAndPropertyExtractor classAndPropertyExtractor,
-                              RelationNameExtractor relationNameExtractor, QueryTemplateExtractor queryTemplateExtractor) {
-        this.outputStream = outputStream;
+        this.sink = sink;
         this.httpHeaders = httpHeaders;
         this.settings = settings;
         this.classAndPropertyExtractor = classAndPropertyExtractor;
@@ -141,13 +143,43 @@ public class QueryLoggerImpl implements QueryLogger {
         applicationName = settings.getApplicationName();
         reformulationTime = -1;
         unblockedResulSetTime = -1;
-        jsonFactory = new JsonFactory();
 
         this.disabled = !settings.isQueryLoggingEnabled();
         this.isDecompositionEnabled = settings.isQueryLoggingDecompositionEnabled();
         this.isMergingEnabled = (!isDecompositionEnabled) || (!settings.areQueryLoggingDecompositionAndMergingMutuallyExclusive());
     }
 
+    /**
+     * The payload writer is only called when the record is serialized by the sink.
+     * It must not depend on values that may still change.
+     */
+    protected void writeRecord(long time, String message, PayloadWriter payloadWriter) {
+        sink.write(() -> serializeRecord(time, message, payloadWriter));
+    }
+
+    private String serializeRecord(long time, String message, PayloadWriter payloadWriter) {
+        StringWriter stringWriter = new StringWriter();
+        try (JsonGenerator js = JSON_FACTORY.createGenerator(stringWriter)) {
+            js.writeStartObject();
+            js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(time));
+            js.writeStringField(MESSAGE_KEY, message);
+            js.writeStringField(APPLICATION_KEY, applicationName);
+            js.writeObjectFieldStart(PAYLOAD_KEY);
+            js.writeStringField(QUERY_ID_KEY, queryId.toString());
+            payloadWriter.write(js);
+            js.writeEndObject();
+            js.writeEndObject();
+        } catch (IOException ex) {
+            REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + ex);
+        }
+        return stringWriter.toString();
+    }
+
+    @FunctionalInterface
+    protected interface PayloadWriter {
+        void write(JsonGenerator js) throws IOException;
+    }
+
     @Override
     public void declareReformulationFinishedAndSerialize(IQ reformulatedQuery, boolean wasCached) {
         if (disabled)
@@ -155,23 +187,9 @@ public class QueryLoggerImpl implements QueryLogger {
 
         reformulationTime = System.currentTimeMillis();
 
-        if (isDecompositionEnabled) {
-            StringWriter stringWriter = new StringWriter();
-            try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
-                js.writeStartObject();
-                js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(System.currentTimeMillis()));
-                js.writeStringField(MESSAGE_KEY, QUERY_REFORMULATED);
-                js.writeStringField(APPLICATION_KEY, applicationName);
-                js.writeObjectFieldStart(PAYLOAD_KEY);
-                js.writeStringField(QUERY_ID_KEY, queryId.toString());
-                writeReformulationSpecificFields(reformulatedQuery, wasCached, js);
-                js.writeEndObject();
-                js.writeEndObject();
-            } catch (IOException ex) {
-                REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + ex);
-            }
-            outputStream.println(stringWriter.toString());
-        }
+        if (isDecompositionEnabled)
+            writeRecord(reformulationTime, QUERY_REFORMULATED,
+                    js -> writeReformulationSpecificFields(reformulatedQuery, wasCached, js));
 
         if (isMergingEnabled) {
             this.reformulatedQuery = reformulatedQuery;
@@ -181,21 +199,21 @@ public class QueryLoggerImpl implements QueryLogger {
     }
 
     protected void writeReformulationSpecificFields(IQ reformulatedQuery, boolean wasCached, JsonGenerator js) throws IOException {
-        // Classes
-        if (classes != null) {
+        ClassesAndProperties classesAndProperties = getClassesAndProperties();
+        if (classesAndProperties != null) {
+            // Classes
             js.writeArrayFieldStart(CLASSES_KEY);
-            for (IRI klass : classes)
+            for (IRI klass : classesAndProperties.getClasses())
                 js.writeString(klass.getIRIString());
             js.writeEndArray();
-        }
-        // Properties
-        if (properties != null) {
+            // Properties
             js.writeArrayFieldStart(PROPERTIES_KEY);
-            for (IRI p : properties)
+            for (IRI p : classesAndProperties.getProperties())
                 js.writeString(p.getIRIString());
             js.writeEndArray();
         }
         // Relations
+        ImmutableSet<String> relationNames = getRelationNames();
         if (relationNames != null) {
             js.writeArrayFieldStart(TABLES_KEY);
             for (String n : relationNames)
@@ -230,6 +248,7 @@ public class QueryLoggerImpl implements QueryLogger {
     }
 
     private void writeQueryTemplateExtraction(JsonGenerator js) throws IOException {
+        QueryTemplateExtraction queryTemplate = getQueryTemplate();
         if (queryTemplate == null)
             return;
         js.writeObjectFieldStart(QUERY_TEMPLATE_KEY);
@@ -271,25 +290,8 @@ public class QueryLoggerImpl implements QueryLogger {
             return;
         unblockedResulSetTime = System.currentTimeMillis();
 
-        if (isDecompositionEnabled) {
-
-            StringWriter stringWriter = new StringWriter();
-            try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
-                js.writeStartObject();
-                js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(unblockedResulSetTime));
-                js.writeStringField(MESSAGE_KEY, QUERY_RESULT_SET_UNBLOCKED);
-                js.writeStringField(APPLICATION_KEY, applicationName);
-                js.writeObjectFieldStart(PAYLOAD_KEY);
-                js.writeStringField(QUERY_ID_KEY, queryId.toString());
-                writeResultSetUnblockedSpecificFields(js);
-                js.writeEndObject();
-                js.writeEndObject();
-            } catch (IOException e) {
-                REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + e);
-                return;
-            }
-            outputStream.println(stringWriter.toString());
-        }
+        if (isDecompositionEnabled)
+            writeRecord(unblockedResulSetTime, QUERY_RESULT_SET_UNBLOCKED, this::writeResultSetUnblockedSpecificFields);
     }
 
     protected void writeResultSetUnblockedSpecificFields(JsonGenerator js) throws IOException {
@@ -307,24 +309,9 @@ public class QueryLoggerImpl implements QueryLogger {
         if (unblockedResulSetTime == -1)
             throw new IllegalStateException("Result set should have been declared as unblocked");
 
-        if (isDecompositionEnabled) {
-
-            StringWriter stringWriter = new StringWriter();
-            try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
-                js.writeStartObject();
-                js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(lastResultFetchedTime));
-                js.writeStringField(MESSAGE_KEY, QUERY_LAST_RESULT_FETCHED);
-                js.writeStringField(APPLICATION_KEY, applicationName);
-                js.writeObjectFieldStart(PAYLOAD_KEY);
-                js.writeStringField(QUERY_ID_KEY, queryId.toString());
-                writeLastResultRetrievedSpecificFields(js, lastResultFetchedTime, resultCount);
-                js.writeEndObject();
-                js.writeEndObject();
-            } catch (IOException e) {
-                REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + e);
-            }
-            outputStream.println(stringWriter.toString());
-        }
+        if (isDecompositionEnabled)
+            writeRecord(lastResultFetchedTime, QUERY_LAST_RESULT_FETCHED,
+                    js -> writeLastResultRetrievedSpecificFields(js, lastResultFetchedTime, resultCount));
 
         if (isMergingEnabled) {
             serializeMergedMessage(lastResultFetchedTime, resultCount);
@@ -374,16 +361,8 @@ public class QueryLoggerImpl implements QueryLogger {
         if (disabled)
             return;
 
-        if(settings.areClassesAndPropertiesIncludedIntoQueryLog()) {
-            ClassesAndProperties classesAndProperties = classAndPropertyExtractor.extractClassesAndProperties(sparqlIQ);
-            classes = classesAndProperties.getClasses();
-            properties = classesAndProperties.getProperties();
-        }
-
-        if (settings.isQueryTemplateExtractionEnabled()) {
-            Optional<QueryTemplateExtraction> extraction = queryTemplateExtractor.extract(sparqlIQ);
-
-            extraction.ifPresent(e -> queryTemplate = e);
+        synchronized (this) {
+            this.sparqlIQ = sparqlIQ;
         }
     }
 
@@ -392,7 +371,30 @@ public class QueryLoggerImpl implements QueryLogger {
         if (disabled || (!settings.areTablesIncludedIntoQueryLog()))
             return;
 
-        relationNames = relationNameExtractor.extractRelationNames(plannedQuery);
+        synchronized (this) {
+            this.plannedQuery = plannedQuery;
+        }
+    }
+
+    @Nullable
+    protected synchronized ClassesAndProperties getClassesAndProperties() {
+        if (classesAndProperties == null && sparqlIQ != null && settings.areClassesAndPropertiesIncludedIntoQueryLog())
+            classesAndProperties = classAndPropertyExtractor.extractClassesAndProperties(sparqlIQ);
+        return classesAndProperties;
+    }
+
+    @Nullable
+    protected synchronized ImmutableSet<String> getRelationNames() {
+        if (relationNames == null && plannedQuery != null)
+            relationNames = relationNameExtractor.extractRelationNames(plannedQuery);
+        return relationNames;
+    }
+
+    @Nullable
+    protected synchronized QueryTemplateExtraction getQueryTemplate() {
+        if (queryTemplate == null && sparqlIQ != null && settings.isQueryTemplateExtractionEnabled())
+            queryTemplate = queryTemplateExtractor.extract(sparqlIQ);
+        return queryTemplate == null ? null : queryTemplate.orElse(null);
     }
 
     @Override
@@ -409,53 +411,34 @@ public class QueryLoggerImpl implements QueryLogger {
         if (disabled)
             return;
 
-        StringWriter stringWriter = new StringWriter();
-        try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
-            js.writeStartObject();
-            js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(System.currentTimeMillis()));
-            js.writeStringField(MESSAGE_KEY, exceptionType);
-            js.writeStringField(APPLICATION_KEY, applicationName);
-            js.writeObjectFieldStart(PAYLOAD_KEY);
-            js.writeStringField(QUERY_ID_KEY, queryId.toString());
-            js.writeStringField(EXCEPTION_KEY, e.getMessage());
+        String exceptionMessage = e.getMessage();
+        String sparqlQueryString = this.sparqlQueryString;
+        IQ reformulatedQuery = this.reformulatedQuery;
+        writeRecord(System.currentTimeMillis(), exceptionType, js -> {
+            js.writeStringField(EXCEPTION_KEY, exceptionMessage);
             if (sparqlQueryString != null)
                 js.writeStringField(SPARQL_QUERY_KEY, sparqlQueryString);
             if (reformulatedQuery != null)
                 js.writeStringField(REFORMULATED_QUERY_KEY, reformulatedQuery.toString());
-            js.writeEndObject();
-            js.writeEndObject();
-        } catch (IOException ex) {
-            REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + ex);
-        }
-        outputStream.println(stringWriter.toString());
+        });
     }
 
     protected String serializeTimestamp(long time) {
-        return DATE_FORMAT.format(new Timestamp(time));
+        return DATE_FORMAT.format(Instant.ofEpochMilli(time));
     }
 
     /**
      * Optional summary message
      */
     protected void serializeMergedMessage(long lastResultFetchedTime, long resultCount) {
-        StringWriter stringWriter = new StringWriter();
-        try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
-            js.writeStartObject();
-            js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(lastResultFetchedTime));
-            js.writeStringField(MESSAGE_KEY, MERGED_MSG);
-            js.writeStringField(APPLICATION_KEY, applicationName);
-            js.writeObjectFieldStart(PAYLOAD_KEY);
-            js.writeStringField(QUERY_ID_KEY, queryId.toString());
+        IQ reformulatedQuery = this.reformulatedQuery;
+        Boolean wasReformulationCached = this.wasReformulationCached;
+        writeRecord(lastResultFetchedTime, MERGED_MSG, js -> {
             if (reformulatedQuery != null)
                 //noinspection ConstantConditions
                 writeReformulationSpecificFields(reformulatedQuery, wasReformulationCached, js);
             writeResultSetUnblockedSpecificFields(js);
             writeLastResultRetrievedSpecificFields(js, lastResultFetchedTime, resultCount);
-            js.writeEndObject();
-            js.writeEndObject();
-        } catch (IOException e) {
-            REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + e);
-        }
-        outputStream.println(stringWriter.toString());
+        });
     }
 }
@@ -11,10 +11,7 @@ import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.injection.OntopModelSettings;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.iq.IQTree;
-import it.unibz.inf.ontop.iq.node.FilterNode;
-import it.unibz.inf.ontop.iq.node.InnerJoinNode;
-import it.unibz.inf.ontop.iq.node.IntensionalDataNode;
-import it.unibz.inf.ontop.iq.node.LeftJoinNode;
+import it.unibz.inf.ontop.iq.node.*;
 import it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer;
 import it.unibz.inf.ontop.model.atom.AtomFactory;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
@@ -25,9 +22,11 @@ import it.unibz.inf.ontop.model.term.functionsymbol.BooleanFunctionSymbol;
 import it.unibz.inf.ontop.model.term.functionsymbol.FunctionSymbolFactory;
 import it.unibz.inf.ontop.model.term.functionsymbol.SPARQLFunctionSymbol;
 import it.unibz.inf.ontop.model.vocabulary.SPARQL;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.VariableGenerator;
 
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.IntStream;
@@ -35,7 +34,9 @@ import java.util.stream.Stream;
 
 
 /**
- * TODO: move it away from the query logging package if also used for other purposes
+ * Also used by the query template cache.
+ *
+ * TODO: move it away from the query logging package
  */
 @Singleton
 public class QueryTemplateExtractor {
@@ -51,9 +52,19 @@ public class QueryTemplateExtractor {
         this.settings = settings;
     }
 
-    Optional<QueryTemplateExtraction> extract(IQ iq) {
+    public Optional<QueryTemplateExtraction> extract(IQ iq) {
+        return extractTemplateTree(iq.getTree())
+                .map(e -> new QueryTemplateExtraction(
+                        iqFactory.createIQ(iq.getProjectionAtom(), e.getKey()),
+                        e.getValue()));
+    }
 
-        IQTree initialIQTree = iq.getTree();
+    /**
+     * Returns the template tree and the parameter map.
+     *
+     * Does not build an IQ: the parameters may be projected by the template tree, which is rejected in test mode.
+     */
+    public Optional<Map.Entry<IQTree, ImmutableMap<GroundTerm, Variable>>> extractTemplateTree(IQTree initialIQTree) {
         QueryTemplateTransformer transformer = new QueryTemplateTransformer(coreSingletons,
                 initialIQTree.getKnownVariables(), settings);
 
@@ -63,16 +74,14 @@ public class QueryTemplateExtractor {
         if (parameterMap.isEmpty())
             return Optional.empty();
 
-        return Optional.of(new QueryTemplateExtraction(
-                iqFactory.createIQ(iq.getProjectionAtom(), newTree),
-                parameterMap));
+        return Optional.of(Maps.immutableEntry(newTree, parameterMap));
     }
 
 
     /**
      * Specific to an IQ
      *
-     * Extracts from filter/LJ/joins and intensional data nodes.
+     * Extracts from filter/LJ/joins, intensional data nodes and VALUES blocks.
      */
     protected static class QueryTemplateTransformer extends DefaultRecursiveIQTreeVisitingTransformer {
 
@@ -85,6 +94,7 @@ public class QueryTemplateExtractor {
         private final OntopModelSettings settings;
         private final SPARQLFunctionSymbol sparqlEqFunctionSymbol;
         private final TermFactory termFactory;
+        private final SubstitutionFactory substitutionFactory;
         private final BooleanFunctionSymbol rdf2BoolFunctionsymbol;
 
         protected QueryTemplateTransformer(CoreSingletons coreSingletons, ImmutableSet<Variable> knownVariables,
@@ -97,6 +107,7 @@ public class QueryTemplateExtractor {
                     .createVariableGenerator(knownVariables);
             this.parameterMap = Maps.newLinkedHashMap();
             this.termFactory = coreSingletons.getTermFactory();
+            this.substitutionFactory = coreSingletons.getSubstitutionFactory();
             FunctionSymbolFactory functionSymbolFactory = coreSingletons.getFunctionSymbolFactory();
             this.sparqlEqFunctionSymbol = functionSymbolFactory.getRequiredSPARQLFunctionSymbol(SPARQL.EQ, 2);
             rdf2BoolFunctionsymbol = functionSymbolFactory.getRDF2DBBooleanFunctionSymbol();
@@ -150,6 +161,52 @@ public class QueryTemplateExtractor {
             return dataNode;
         }
 
+        /**
+         * The rows of a VALUES block are constructions over a true node. Their constants are replaced by placeholder
+         * constants named after the parameters, so that the VALUES blocks of the same size share the same template
+         * (e.g. the batches of a DESCRIBE query).
+         */
+        @Override
+        public IQTree transformUnion(IQTree tree, UnionNode rootNode, ImmutableList<IQTree> children) {
+            ImmutableList<IQTree> newChildren = children.stream()
+                    .map(c -> isValuesRow(c) ? transformValuesRow(c) : c.acceptTransformer(this))
+                    .collect(ImmutableCollectors.toList());
+
+            return newChildren.equals(children)
+                    ? tree
+                    : iqFactory.createNaryIQTree(rootNode, newChildren);
+        }
+
+        private IQTree transformValuesRow(IQTree row) {
+            ConstructionNode constructionNode = (ConstructionNode) row.getRootNode();
+            ImmutableMap<Variable, ImmutableTerm> substitutionMap = constructionNode.getSubstitution()
+                    .getImmutableMap();
+
+            ImmutableMap<Variable, ImmutableTerm> newSubstitutionMap = substitutionMap.keySet().stream()
+                    .sorted(Comparator.comparing(Variable::getName))
+                    .collect(ImmutableCollectors.toMap(
+                            v -> v,
+                            v -> toParameterPlaceholder(substitutionMap.get(v))));
+
+            return iqFactory.createUnaryIQTree(
+                    iqFactory.createConstructionNode(constructionNode.getVariables(),
+                            substitutionFactory.getSubstitution(newSubstitutionMap)),
+                    row.getChildren().get(0));
+        }
+
+        /**
+         * Placeholder of the same type, as parameter variables cannot be used there (not defined by the true node)
+         */
+        private ImmutableTerm toParameterPlaceholder(ImmutableTerm term) {
+            if (!isValuesConstant(term))
+                return term;
+
+            RDFConstant constant = (RDFConstant) term;
+            Variable parameter = parameterMap.computeIfAbsent(constant, g -> variableGenerator.generateNewVariable());
+            // Also a valid IRI
+            return termFactory.getRDFConstant("urn:parameter:" + parameter.getName(), constant.getType());
+        }
+
         @Override
         public IQTree transformFilter(IQTree tree, FilterNode rootNode, IQTree child) {
             IQTree newChild = child.acceptTransformer(this);
@@ -239,6 +296,21 @@ public class QueryTemplateExtractor {
 
 
 
+    /**
+     * Row of a VALUES block
+     */
+    public static boolean isValuesRow(IQTree tree) {
+        return (tree.getRootNode() instanceof ConstructionNode)
+                && (tree.getChildren().get(0).getRootNode() instanceof TrueNode);
+    }
+
+    /**
+     * Constant of a row of a VALUES block that is abstracted into a parameter
+     */
+    public static boolean isValuesConstant(ImmutableTerm term) {
+        return term instanceof RDFConstant;
+    }
+
     public static class QueryTemplateExtraction {
 
         private final IQ iq;
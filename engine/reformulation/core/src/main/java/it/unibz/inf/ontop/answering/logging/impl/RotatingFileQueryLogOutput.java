@@ -0,0 +1,107 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.answering.logging.QueryLogOutput;
+import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * One JSON record per line in a file.
+ *
+ * When the file would exceed its maximum size, it is renamed into file.1 (file.1 into file.2, etc.)
+ * and a new file is started. Beyond the maximum number of backups, the oldest file is removed.
+ */
+@Singleton
+public class RotatingFileQueryLogOutput implements QueryLogOutput {
+
+    private final Path filePath;
+    private final long maxSize;
+    private final int maxBackups;
+
+    @Nullable
+    private BufferedWriter writer;
+    private long currentSize;
+
+    @Inject
+    private RotatingFileQueryLogOutput(OntopReformulationSettings settings) {
+        this(Paths.get(settings.getQueryLoggingFile()
+                        .orElseThrow(() -> new InvalidOntopConfigurationException(
+                                OntopReformulationSettings.QUERY_LOGGING_FILE + " is required for logging queries into a file"))),
+                settings.getQueryLoggingFileMaxSize(),
+                settings.getQueryLoggingFileMaxBackups());
+    }
+
+    RotatingFileQueryLogOutput(Path filePath, long maxSize, int maxBackups) {
+        this.filePath = filePath;
+        this.maxSize = maxSize;
+        this.maxBackups = maxBackups;
+    }
+
+    @Override
+    public void write(String record) throws IOException {
+        byte[] bytes = (record + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        if (writer == null)
+            open();
+        else if (currentSize > 0 && currentSize + bytes.length > maxSize)
+            rotate();
+
+        writer.write(record);
+        writer.newLine();
+        currentSize += bytes.length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null)
+            writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = filePath.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        currentSize = Files.size(filePath);
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        writer = null;
+
+        if (maxBackups > 0) {
+            for (int i = maxBackups - 1; i >= 1; i--) {
+                Path source = getBackupPath(i);
+                if (Files.exists(source))
+                    Files.move(source, getBackupPath(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(filePath, getBackupPath(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        else
+            Files.delete(filePath);
+
+        open();
+    }
+
+    private Path getBackupPath(int index) {
+        return filePath.resolveSibling(filePath.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,34 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.answering.logging.QueryLogOutput;
+
+/**
+ * One JSON record per line on the standard output
+ */
+@Singleton
+public class StandardOutputQueryLogOutput implements QueryLogOutput {
+
+    @Inject
+    private StandardOutputQueryLogOutput() {
+    }
+
+    @Override
+    public void write(String record) {
+        System.out.println(record);
+    }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+
+    /**
+     * The standard output is never closed
+     */
+    @Override
+    public void close() {
+        System.out.flush();
+    }
+}
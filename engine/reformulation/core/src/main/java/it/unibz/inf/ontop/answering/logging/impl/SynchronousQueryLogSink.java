@@ -0,0 +1,55 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.answering.logging.QueryLogOutput;
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Serializes and writes the records in the query thread
+ */
+@Singleton
+public class SynchronousQueryLogSink implements QueryLogSink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SynchronousQueryLogSink.class);
+    private final QueryLogOutput output;
+
+    @Inject
+    private SynchronousQueryLogSink(QueryLogOutput output) {
+        this.output = output;
+    }
+
+    @Override
+    public void write(Supplier<String> record) {
+        String serializedRecord = record.get();
+        synchronized (output) {
+            try {
+                output.write(serializedRecord);
+                output.flush();
+            } catch (IOException e) {
+                LOGGER.error(QueryLoggerImpl.OUTPUT_STREAM_JSON_ERROR + e);
+            }
+        }
+    }
+
+    @Override
+    public long getDroppedRecordCount() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        synchronized (output) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                LOGGER.error(QueryLoggerImpl.OUTPUT_STREAM_JSON_ERROR + e);
+            }
+        }
+    }
+}
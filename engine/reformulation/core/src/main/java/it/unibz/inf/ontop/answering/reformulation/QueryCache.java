@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.answering.reformulation;
 
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.iq.IQ;
 
 /**
@@ -14,5 +15,33 @@ public interface QueryCache {
 
     void put(InputQuery inputQuery, IQ executableQuery);
 
+    /**
+     * Returns the cached executable query or reformulates the input query.
+     *
+     * Concurrent calls for the same input query may share the same reformulation (the others wait for it).
+     * Reformulation errors may also be cached for a short time.
+     */
+    IQ getOrReformulate(InputQuery inputQuery, Reformulation reformulation) throws OntopReformulationException;
+
     void clear();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    /**
+     * Number of times a thread waited for the reformulation of the same query by another thread
+     */
+    long getWaitCount();
+
+    /**
+     * Number of times a cached reformulation error has been thrown
+     */
+    long getErrorHitCount();
+
+
+    @FunctionalInterface
+    interface Reformulation {
+        IQ reformulate() throws OntopReformulationException;
+    }
 }
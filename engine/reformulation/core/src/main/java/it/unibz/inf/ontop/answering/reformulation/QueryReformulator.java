@@ -1,11 +1,15 @@
 package it.unibz.inf.ontop.answering.reformulation;
 
 
+import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.iq.IQ;
+import org.apache.commons.rdf.api.IRI;
+
+import java.util.Optional;
 
 /**
  * See ReformulationFactory for creating a new instance.
@@ -14,6 +18,12 @@ public interface QueryReformulator {
 
     IQ reformulateIntoNativeQuery(InputQuery inputQuery, QueryLogger queryLogger) throws OntopReformulationException;
 
+    /**
+     * Native query returning the number of results of the SELECT query (single row, single variable).
+     * The count is introduced in the IQ, before the optimization, so the DB only evaluates what is needed.
+     */
+    IQ reformulateIntoNativeCountQuery(InputQuery inputQuery, QueryLogger queryLogger) throws OntopReformulationException;
+
     /**
      * For analysis purposes
      */
@@ -22,4 +32,17 @@ public interface QueryReformulator {
     InputQueryFactory getInputQueryFactory();
 
     QueryLogger.Factory getQueryLoggerFactory();
+
+    /**
+     * For analysis purposes
+     */
+    QueryTemplateCache getQueryTemplateCache();
+
+    /**
+     * Named graphs of the saturated mapping.
+     *
+     * Empty if some of them are not constant IRIs (e.g. built from a template): they can then only be
+     * obtained by querying the data.
+     */
+    Optional<ImmutableSet<IRI>> getNamedGraphIRIs();
 }
@@ -0,0 +1,54 @@
+package it.unibz.inf.ontop.answering.reformulation;
+
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+
+import java.util.Optional;
+
+/**
+ * Cache of executable queries shared by the SPARQL queries that only differ in their constants
+ * (same query template, see QueryTemplateExtractor).
+ *
+ * Complements the QueryCache, which is keyed on the exact input query.
+ *
+ * Mutable class. One instance per saturated mapping (see Factory), as whether constants are interchangeable
+ * depends on the mapping.
+ *
+ */
+public interface QueryTemplateCache {
+
+    /**
+     * Returns the executable query for the given (translated) SPARQL query, built from
+     * the reformulation of another instance of the same template.
+     *
+     * Empty when no such reformulation is available yet or when the constants of this query
+     * do not fit it (the query then needs to be fully reformulated).
+     */
+    Optional<IQ> get(IQ sparqlIQ);
+
+    /**
+     * Planned and executable queries obtained by fully reformulating the SPARQL query
+     */
+    void put(IQ sparqlIQ, IQ plannedQuery, IQ executableQuery);
+
+    void clear();
+
+    /**
+     * Number of executable queries obtained from a parameterized query
+     */
+    long getHitCount();
+
+    /**
+     * Number of instances of a template that had to be fully reformulated
+     * (no parameterized query yet or values not fitting it)
+     */
+    long getMissCount();
+
+    interface Factory {
+        /**
+         * The native query generator is used for generating the parameterized native queries
+         */
+        QueryTemplateCache create(Mapping saturatedMapping, NativeQueryGenerator nativeQueryGenerator);
+    }
+}
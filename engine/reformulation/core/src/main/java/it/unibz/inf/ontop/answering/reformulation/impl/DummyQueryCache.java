@@ -2,6 +2,7 @@ package it.unibz.inf.ontop.answering.reformulation.impl;
 
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.iq.IQ;
 
 /**
@@ -18,7 +19,32 @@ public class DummyQueryCache implements QueryCache {
     public void put(InputQuery inputQuery, IQ executableQuery) {
     }
 
+    @Override
+    public IQ getOrReformulate(InputQuery inputQuery, Reformulation reformulation) throws OntopReformulationException {
+        return reformulation.reformulate();
+    }
+
     @Override
     public void clear() {
     }
+
+    @Override
+    public long getHitCount() {
+        return 0;
+    }
+
+    @Override
+    public long getMissCount() {
+        return 0;
+    }
+
+    @Override
+    public long getWaitCount() {
+        return 0;
+    }
+
+    @Override
+    public long getErrorHitCount() {
+        return 0;
+    }
 }
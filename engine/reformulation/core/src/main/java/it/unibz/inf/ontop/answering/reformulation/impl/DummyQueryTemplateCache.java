@@ -0,0 +1,44 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.answering.reformulation.QueryTemplateCache;
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+
+import java.util.Optional;
+
+/**
+ * Does not cache anything.
+ */
+public class DummyQueryTemplateCache implements QueryTemplateCache {
+
+    @AssistedInject
+    private DummyQueryTemplateCache(@Assisted Mapping saturatedMapping,
+                                    @Assisted NativeQueryGenerator nativeQueryGenerator) {
+    }
+
+    @Override
+    public Optional<IQ> get(IQ sparqlIQ) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(IQ sparqlIQ, IQ plannedQuery, IQ executableQuery) {
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public long getHitCount() {
+        return 0;
+    }
+
+    @Override
+    public long getMissCount() {
+        return 0;
+    }
+}
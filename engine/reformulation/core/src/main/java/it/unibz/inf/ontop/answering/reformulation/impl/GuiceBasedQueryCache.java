@@ -5,22 +5,59 @@ import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.exception.OntopReformulationTimeoutException;
 import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.iq.IQ;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Single-flight: the reformulations in progress are shared with the threads asking for the same input query.
+ * Waiting threads can be interrupted (e.g. query cancellation) and give up after the wait timeout.
+ * The reformulation itself is not cancelled.
+ *
+ * Not a singleton: each query reformulator has its own instance, as the executable queries depend on its
+ * OBDA specification.
+ */
 public class GuiceBasedQueryCache implements QueryCache {
 
     // NB: still present in more recent versions of Guava
     @SuppressWarnings("UnstableApiUsage")
     private final Cache<InputQuery, IQ> cache;
+    // Null if disabled
+    @Nullable
+    @SuppressWarnings("UnstableApiUsage")
+    private final Cache<InputQuery, OntopReformulationException> errorCache;
+    private final ConcurrentMap<InputQuery, CompletableFuture<IQ>> reformulationsInProgress;
+    private final long waitTimeout;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong errorHitCount = new AtomicLong();
 
     @Inject
     private GuiceBasedQueryCache(OntopReformulationSettings settings) {
+        this(settings.getQueryCacheMaxSize(), settings.getQueryCacheErrorTTL(), settings.getQueryCacheWaitTimeout());
+    }
+
+    GuiceBasedQueryCache(long maxSize, long errorTTL, long waitTimeout) {
         cache = CacheBuilder.newBuilder()
-                .maximumSize(settings.getQueryCacheMaxSize())
+                .maximumSize(maxSize)
                 .build();
+
+        errorCache = errorTTL > 0
+                ? CacheBuilder.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(errorTTL, TimeUnit.MILLISECONDS)
+                    .build()
+                : null;
+
+        reformulationsInProgress = new ConcurrentHashMap<>();
+        this.waitTimeout = waitTimeout;
     }
 
     @Nullable
@@ -34,8 +71,106 @@ public class GuiceBasedQueryCache implements QueryCache {
         cache.put(inputQuery, executableQuery);
     }
 
+    @Override
+    public IQ getOrReformulate(InputQuery inputQuery, Reformulation reformulation) throws OntopReformulationException {
+        IQ cachedQuery = cache.getIfPresent(inputQuery);
+        if (cachedQuery != null) {
+            hitCount.incrementAndGet();
+            return cachedQuery;
+        }
+        if (errorCache != null) {
+            OntopReformulationException cachedError = errorCache.getIfPresent(inputQuery);
+            if (cachedError != null) {
+                errorHitCount.incrementAndGet();
+                throw cachedError;
+            }
+        }
+
+        CompletableFuture<IQ> newFuture = new CompletableFuture<>();
+        CompletableFuture<IQ> futureInProgress = reformulationsInProgress.putIfAbsent(inputQuery, newFuture);
+        if (futureInProgress != null) {
+            waitCount.incrementAndGet();
+            return waitFor(futureInProgress);
+        }
+
+        try {
+            // May have been completed in the meantime
+            cachedQuery = cache.getIfPresent(inputQuery);
+            if (cachedQuery != null) {
+                hitCount.incrementAndGet();
+                newFuture.complete(cachedQuery);
+                return cachedQuery;
+            }
+
+            missCount.incrementAndGet();
+            IQ executableQuery = reformulation.reformulate();
+            cache.put(inputQuery, executableQuery);
+            newFuture.complete(executableQuery);
+            return executableQuery;
+        }
+        catch (OntopReformulationException e) {
+            if (errorCache != null)
+                errorCache.put(inputQuery, e);
+            newFuture.completeExceptionally(e);
+            throw e;
+        }
+        catch (RuntimeException | Error e) {
+            newFuture.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            reformulationsInProgress.remove(inputQuery, newFuture);
+        }
+    }
+
+    private IQ waitFor(CompletableFuture<IQ> future) throws OntopReformulationException {
+        try {
+            return waitTimeout > 0
+                    ? future.get(waitTimeout, TimeUnit.MILLISECONDS)
+                    : future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OntopReformulationException(e);
+        } catch (TimeoutException e) {
+            throw new OntopReformulationTimeoutException(String.format(
+                    "Timeout (%d ms) while waiting for the reformulation of the same query by another thread",
+                    waitTimeout));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof OntopReformulationException)
+                throw (OntopReformulationException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new OntopReformulationException(e);
+        }
+    }
+
     @Override
     public void clear() {
         cache.invalidateAll();
+        if (errorCache != null)
+            errorCache.invalidateAll();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public long getWaitCount() {
+        return waitCount.get();
+    }
+
+    @Override
+    public long getErrorHitCount() {
+        return errorHitCount.get();
     }
 }
@@ -1,29 +1,51 @@
 package it.unibz.inf.ontop.answering.reformulation.impl;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.QueryTemplateCache;
 import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
 import it.unibz.inf.ontop.answering.reformulation.input.DescribeQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
 import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.exception.OntopUnsupportedInputQueryException;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.injection.TranslationFactory;
 import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
+import it.unibz.inf.ontop.iq.node.*;
 import it.unibz.inf.ontop.iq.optimizer.*;
 import it.unibz.inf.ontop.iq.planner.QueryPlanner;
 import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import it.unibz.inf.ontop.model.atom.AtomFactory;
+import it.unibz.inf.ontop.model.atom.QuadPredicate;
+import it.unibz.inf.ontop.model.atom.RDFAtomPredicate;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.functionsymbol.FunctionSymbolFactory;
+import it.unibz.inf.ontop.model.vocabulary.SPARQL;
 import it.unibz.inf.ontop.spec.OBDASpecification;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.CoreUtilsFactory;
+import org.apache.commons.rdf.api.IRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * TODO: rename it QueryTranslatorImpl ?
@@ -36,6 +58,7 @@ public class QuestQueryProcessor implements QueryReformulator {
 	private final QueryRewriter rewriter;
 	private final NativeQueryGenerator datasourceQueryGenerator;
 	private final QueryCache queryCache;
+	private final QueryTemplateCache queryTemplateCache;
 
 	private final QueryUnfolder queryUnfolder;
 
@@ -47,30 +70,53 @@ public class QuestQueryProcessor implements QueryReformulator {
 	private final GeneralStructuralAndSemanticIQOptimizer generalOptimizer;
 	private final QueryPlanner queryPlanner;
 	private final QueryLogger.Factory queryLoggerFactory;
+	private final Optional<ImmutableSet<IRI>> namedGraphIRIs;
+	private final IntermediateQueryFactory iqFactory;
+	private final AtomFactory atomFactory;
+	private final TermFactory termFactory;
+	private final FunctionSymbolFactory functionSymbolFactory;
+	private final SubstitutionFactory substitutionFactory;
+	private final CoreUtilsFactory coreUtilsFactory;
 
 	@AssistedInject
 	private QuestQueryProcessor(@Assisted OBDASpecification obdaSpecification,
 								@Assisted ExecutorRegistry executorRegistry,
 								QueryCache queryCache,
+								QueryTemplateCache.Factory queryTemplateCacheFactory,
 								TranslationFactory translationFactory,
 								QueryRewriter queryRewriter,
 								InputQueryFactory inputQueryFactory,
 								InputQueryTranslator inputQueryTranslator,
 								GeneralStructuralAndSemanticIQOptimizer generalOptimizer,
 								QueryPlanner queryPlanner,
-								QueryLogger.Factory queryLoggerFactory) {
+								QueryLogger.Factory queryLoggerFactory,
+								IntermediateQueryFactory iqFactory,
+								AtomFactory atomFactory,
+								TermFactory termFactory,
+								FunctionSymbolFactory functionSymbolFactory,
+								SubstitutionFactory substitutionFactory,
+								CoreUtilsFactory coreUtilsFactory) {
 		this.inputQueryFactory = inputQueryFactory;
 		this.rewriter = queryRewriter;
 		this.generalOptimizer = generalOptimizer;
 		this.queryPlanner = queryPlanner;
 		this.queryLoggerFactory = queryLoggerFactory;
+		this.iqFactory = iqFactory;
+		this.atomFactory = atomFactory;
+		this.termFactory = termFactory;
+		this.functionSymbolFactory = functionSymbolFactory;
+		this.substitutionFactory = substitutionFactory;
+		this.coreUtilsFactory = coreUtilsFactory;
 
 		this.rewriter.setTBox(obdaSpecification.getSaturatedTBox());
 		this.queryUnfolder = translationFactory.create(obdaSpecification.getSaturatedMapping());
 		this.datasourceQueryGenerator = translationFactory.create(obdaSpecification.getDBParameters());
+		this.namedGraphIRIs = extractNamedGraphIRIs(obdaSpecification.getSaturatedMapping());
 
 		this.inputQueryTranslator = inputQueryTranslator;
 		this.queryCache = queryCache;
+		this.queryTemplateCache = queryTemplateCacheFactory.create(obdaSpecification.getSaturatedMapping(),
+				datasourceQueryGenerator);
 		this.executorRegistry = executorRegistry;
 
 		log.info("Ontop has completed the setup and it is ready for query answering!");
@@ -82,12 +128,26 @@ public class QuestQueryProcessor implements QueryReformulator {
 
 		long beginning = System.currentTimeMillis();
 
-		IQ cachedQuery = queryCache.get(inputQuery);
-		if (cachedQuery != null) {
-			queryLogger.declareReformulationFinishedAndSerialize(cachedQuery,true);
-			return cachedQuery;
+		// Otherwise taken from the cache or from the reformulation by another thread
+		AtomicBoolean isReformulatedByThisThread = new AtomicBoolean(false);
+		try {
+			IQ executableQuery = queryCache.getOrReformulate(inputQuery, () -> {
+				isReformulatedByThisThread.set(true);
+				return reformulate(inputQuery, queryLogger, beginning);
+			});
+			if (!isReformulatedByThisThread.get())
+				queryLogger.declareReformulationFinishedAndSerialize(executableQuery, true);
+			return executableQuery;
+		}
+		catch (OntopReformulationException e) {
+			if (!isReformulatedByThisThread.get())
+				queryLogger.declareReformulationException(e);
+			throw e;
 		}
+	}
 
+	private IQ reformulate(InputQuery inputQuery, QueryLogger queryLogger, long beginning)
+			throws OntopReformulationException {
 		try {
 			if (IS_DEBUG_ENABLED)
 				log.debug("SPARQL query:\n{}", inputQuery.getInputString());
@@ -96,39 +156,17 @@ public class QuestQueryProcessor implements QueryReformulator {
 
 			queryLogger.setSparqlIQ(convertedIQ);
 
-            try {
-                log.debug("Start the rewriting process...");
-                IQ rewrittenIQ = rewriter.rewrite(convertedIQ);
-
-                if (IS_DEBUG_ENABLED)
-                	log.debug("Rewritten IQ:\n{}",rewrittenIQ);
-
-                log.debug("Start the unfolding...");
-
-                IQ unfoldedIQ = queryUnfolder.optimize(rewrittenIQ);
-                if (unfoldedIQ.getTree().isDeclaredAsEmpty()) {
-                	log.debug(String.format("Reformulation time: %d ms", System.currentTimeMillis() - beginning));
-					queryLogger.declareReformulationFinishedAndSerialize(unfoldedIQ, false);
-					return unfoldedIQ;
-				}
-
-                // These IQ can be large so getting the string can be expensive
-                if (IS_DEBUG_ENABLED)
-                	log.debug("Unfolded query: \n" + unfoldedIQ.toString());
-
-                IQ optimizedQuery = generalOptimizer.optimize(unfoldedIQ, executorRegistry);
-				IQ plannedQuery = queryPlanner.optimize(optimizedQuery, executorRegistry);
-				if (IS_DEBUG_ENABLED)
-					log.debug("Planned query: \n" + plannedQuery);
-
-				queryLogger.setPlannedQuery(plannedQuery);
-
-				IQ executableQuery = generateExecutableQuery(plannedQuery);
-				queryCache.put(inputQuery, executableQuery);
-				log.debug(String.format("Reformulation time: %d ms", System.currentTimeMillis() - beginning));
-				queryLogger.declareReformulationFinishedAndSerialize(executableQuery, false);
+			Optional<IQ> queryFromTemplate = queryTemplateCache.get(convertedIQ);
+			if (queryFromTemplate.isPresent()) {
+				IQ executableQuery = queryFromTemplate.get();
+				log.debug(String.format("Reformulation time (from the query template): %d ms",
+						System.currentTimeMillis() - beginning));
+				queryLogger.declareReformulationFinishedAndSerialize(executableQuery, true);
 				return executableQuery;
+			}
 
+            try {
+				return reformulateConvertedQuery(convertedIQ, true, queryLogger, beginning);
 			}
             catch (OntopReformulationException e) {
             	queryLogger.declareReformulationException(e);
@@ -147,6 +185,111 @@ public class QuestQueryProcessor implements QueryReformulator {
 		}
 	}
 
+	/**
+	 * Rewriting, unfolding, optimization and generation of the native query
+	 *
+	 * When isTemplateCacheable, the planned and executable queries are given to the query template cache.
+	 */
+	private IQ reformulateConvertedQuery(IQ convertedIQ, boolean isTemplateCacheable, QueryLogger queryLogger,
+										 long beginning)
+			throws OntopReformulationException, EmptyQueryException {
+		log.debug("Start the rewriting process...");
+		IQ rewrittenIQ = rewriter.rewrite(convertedIQ);
+
+		if (IS_DEBUG_ENABLED)
+			log.debug("Rewritten IQ:\n{}",rewrittenIQ);
+
+		log.debug("Start the unfolding...");
+
+		IQ unfoldedIQ = queryUnfolder.optimize(rewrittenIQ);
+		if (unfoldedIQ.getTree().isDeclaredAsEmpty()) {
+			log.debug(String.format("Reformulation time: %d ms", System.currentTimeMillis() - beginning));
+			queryLogger.declareReformulationFinishedAndSerialize(unfoldedIQ, false);
+			return unfoldedIQ;
+		}
+
+		// These IQ can be large so getting the string can be expensive
+		if (IS_DEBUG_ENABLED)
+			log.debug("Unfolded query: \n" + unfoldedIQ.toString());
+
+		IQ optimizedQuery = generalOptimizer.optimize(unfoldedIQ, executorRegistry);
+		IQ plannedQuery = queryPlanner.optimize(optimizedQuery, executorRegistry);
+		if (IS_DEBUG_ENABLED)
+			log.debug("Planned query: \n" + plannedQuery);
+
+		queryLogger.setPlannedQuery(plannedQuery);
+
+		IQ executableQuery = generateExecutableQuery(plannedQuery);
+		log.debug(String.format("Reformulation time: %d ms", System.currentTimeMillis() - beginning));
+		queryLogger.declareReformulationFinishedAndSerialize(executableQuery, false);
+		if (isTemplateCacheable && !executableQuery.getTree().isDeclaredAsEmpty())
+			queryTemplateCache.put(convertedIQ, plannedQuery, executableQuery);
+		return executableQuery;
+	}
+
+	/**
+	 * Not cached: the caches are indexed by the input query (or by its IQ) and would be shared
+	 * with the regular reformulation.
+	 */
+	@Override
+	public IQ reformulateIntoNativeCountQuery(InputQuery inputQuery, QueryLogger queryLogger)
+			throws OntopReformulationException {
+		if (!(inputQuery instanceof SelectQuery))
+			throw new OntopUnsupportedInputQueryException("Only the results of SELECT queries can be counted");
+
+		long beginning = System.currentTimeMillis();
+		try {
+			IQ convertedIQ = inputQuery.translate(inputQueryTranslator);
+			IQ countIQ = createCountQuery(convertedIQ);
+			if (IS_DEBUG_ENABLED)
+				log.debug("Count query:\n{}", countIQ);
+
+			queryLogger.setSparqlIQ(countIQ);
+			return reformulateConvertedQuery(countIQ, false, queryLogger, beginning);
+		}
+		catch (OntopReformulationException e) {
+			queryLogger.declareReformulationException(e);
+			throw e;
+		}
+		catch (EmptyQueryException e) {
+			OntopReformulationException exception = new OntopReformulationException(e);
+			queryLogger.declareReformulationException(exception);
+			throw exception;
+		}
+	}
+
+	/**
+	 * The top projection and the ORDER BY do not affect the number of results: they are removed
+	 * (also under a LIMIT) so that the DB neither computes the output columns nor sorts.
+	 * The DISTINCT is kept with its child.
+	 */
+	private IQ createCountQuery(IQ query) {
+		IQTree countedTree = pruneCardinalityPreservingNodes(query.getTree());
+
+		Variable countVariable = coreUtilsFactory.createVariableGenerator(query.getTree().getKnownVariables())
+				.generateNewVariable("count");
+		AggregationNode aggregationNode = iqFactory.createAggregationNode(ImmutableSet.of(),
+				substitutionFactory.getSubstitution(countVariable,
+						termFactory.getImmutableFunctionalTerm(
+								functionSymbolFactory.getRequiredSPARQLFunctionSymbol(SPARQL.COUNT, 0))));
+
+		return iqFactory.createIQ(
+				atomFactory.getDistinctVariableOnlyDataAtom(atomFactory.getRDFAnswerPredicate(1),
+						ImmutableList.of(countVariable)),
+				iqFactory.createUnaryIQTree(aggregationNode, countedTree))
+				.normalizeForOptimization();
+	}
+
+	private IQTree pruneCardinalityPreservingNodes(IQTree tree) {
+		QueryNode rootNode = tree.getRootNode();
+		if ((rootNode instanceof ConstructionNode) || (rootNode instanceof OrderByNode))
+			return pruneCardinalityPreservingNodes(((UnaryIQTree) tree).getChild());
+		if (rootNode instanceof SliceNode)
+			return iqFactory.createUnaryIQTree((SliceNode) rootNode,
+					pruneCardinalityPreservingNodes(((UnaryIQTree) tree).getChild()));
+		return tree;
+	}
+
 	private IQ generateExecutableQuery(IQ iq) {
 
 		log.debug("Producing the native query string...");
@@ -185,8 +328,38 @@ public class QuestQueryProcessor implements QueryReformulator {
 		return inputQueryFactory;
 	}
 
+	@Override
+	public Optional<ImmutableSet<IRI>> getNamedGraphIRIs() {
+		return namedGraphIRIs;
+	}
+
+	private static Optional<ImmutableSet<IRI>> extractNamedGraphIRIs(Mapping mapping) {
+		ImmutableSet.Builder<IRI> builder = ImmutableSet.builder();
+		for (RDFAtomPredicate predicate : mapping.getRDFAtomPredicates()) {
+			if (!(predicate instanceof QuadPredicate))
+				continue;
+			for (IQ definition : mapping.getQueries(predicate)) {
+				QueryNode rootNode = definition.getTree().getRootNode();
+				if (!(rootNode instanceof ConstructionNode))
+					return Optional.empty();
+				ImmutableList<ImmutableTerm> arguments = ((ConstructionNode) rootNode).getSubstitution()
+						.apply(definition.getProjectionAtom().getArguments());
+				Optional<IRI> graphIRI = predicate.getGraphIRI(arguments);
+				if (!graphIRI.isPresent())
+					return Optional.empty();
+				builder.add(graphIRI.get());
+			}
+		}
+		return Optional.of(builder.build());
+	}
+
 	@Override
 	public QueryLogger.Factory getQueryLoggerFactory() {
 		return  queryLoggerFactory;
 	}
+
+	@Override
+	public QueryTemplateCache getQueryTemplateCache() {
+		return queryTemplateCache;
+	}
 }
@@ -14,6 +14,8 @@ public interface DescribeQuery extends GraphSPARQLQuery {
     SelectQuery getSelectQuery();
 
     /**
+     * Several resources may be described by the same CONSTRUCT query (see OntopReformulationSettings.getDescribeBatchSize()).
+     *
      * Restriction: description of blank nodes is not supported.
      */
     ImmutableCollection<ConstructQuery> computeConstructQueries(ImmutableSet<IRI> resourcesToDescribe);
@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.answering.reformulation.input.impl;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import it.unibz.inf.ontop.answering.reformulation.input.ConstructQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.ConstructTemplate;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JDescribeQuery;
@@ -17,10 +18,12 @@ import org.apache.commons.rdf.api.IRI;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.algebra.*;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 import org.eclipse.rdf4j.query.impl.ListBindingSet;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
 
+import java.util.List;
 import java.util.Optional;
 
 
@@ -39,18 +42,22 @@ class RDF4JDescribeQueryImpl implements RDF4JDescribeQuery {
 
     // True if the pattern "?s ?p <describedIRI>" should also be considered while answering a DESCRIBE query.
     private final boolean isFixedObjectIncludedInDescribe;
+    // Number of resources per CONSTRUCT query
+    private final int batchSize;
 
     RDF4JDescribeQueryImpl(ParsedQuery originalParsedQuery, String queryString, BindingSet bindings,
-                           boolean isFixedObjectIncludedInDescribe) {
+                           boolean isFixedObjectIncludedInDescribe, int batchSize) {
         this.originalParsedQuery = originalParsedQuery;
         this.queryString = queryString;
         this.bindings = bindings;
         this.isFixedObjectIncludedInDescribe = isFixedObjectIncludedInDescribe;
+        this.batchSize = Math.max(batchSize, 1);
     }
 
     @Override
     public RDF4JDescribeQuery newBindings(BindingSet newBindings) {
-        return new RDF4JDescribeQueryImpl(originalParsedQuery, getInputString(), newBindings, isFixedObjectIncludedInDescribe);
+        return new RDF4JDescribeQueryImpl(originalParsedQuery, getInputString(), newBindings,
+                isFixedObjectIncludedInDescribe, batchSize);
     }
 
     @Override
@@ -82,24 +89,45 @@ class RDF4JDescribeQueryImpl implements RDF4JDescribeQuery {
                 + queryString, bindings);
     }
 
+    /**
+     * The resources are grouped into batches described by the same CONSTRUCT query (VALUES block).
+     * Singleton batches are passed as bindings (one query per resource, as before).
+     */
     @Override
     public ImmutableCollection<ConstructQuery> computeConstructQueries(ImmutableSet<IRI> resourcesToDescribe) {
-        ConstructQuerySplit split = createConstructionQuerySplit(isFixedObjectIncludedInDescribe);
+        ConstructTemplate constructTemplate = createConstructTemplate(isFixedObjectIncludedInDescribe);
+        ConstructQuerySplit split = new ConstructQuerySplit(constructTemplate,
+                new ParsedTupleQuery(createSPPOUnion(isFixedObjectIncludedInDescribe)));
         SimpleValueFactory valueFactory = SimpleValueFactory.getInstance();
 
-        return resourcesToDescribe.stream()
-                .map(d -> new RDF4JConstructQueryImpl(split, "# Construct for describing " + d,
-                        new ListBindingSet(ImmutableList.of(DESCRIBE_VARIABLE), valueFactory.createIRI(d.getIRIString()))))
+        return Lists.partition(resourcesToDescribe.asList(), batchSize).stream()
+                .map(b -> b.size() == 1
+                        ? new RDF4JConstructQueryImpl(split, "# Construct for describing " + b.get(0),
+                            new ListBindingSet(ImmutableList.of(DESCRIBE_VARIABLE),
+                                    valueFactory.createIRI(b.get(0).getIRIString())))
+                        : new RDF4JConstructQueryImpl(
+                            new ConstructQuerySplit(constructTemplate, createBatchSelectQuery(b, valueFactory)),
+                            "# Construct for describing " + b, EmptyBindingSet.getInstance()))
                 .collect(ImmutableCollectors.toList());
     }
 
-    private static ConstructQuerySplit createConstructionQuerySplit(boolean isFixedObjectIncludedInDescribe) {
-        ParsedTupleQuery selectQuery = new ParsedTupleQuery(createSPPOUnion(isFixedObjectIncludedInDescribe));
-
+    private static ConstructTemplate createConstructTemplate(boolean isFixedObjectIncludedInDescribe) {
         UnaryTupleOperator newProjection = createNewProjection(isFixedObjectIncludedInDescribe);
-        ConstructTemplate constructTemplate = new RDF4JConstructTemplate(newProjection, null);
+        return new RDF4JConstructTemplate(newProjection, null);
+    }
 
-        return new ConstructQuerySplit(constructTemplate, selectQuery);
+    /**
+     * VALUES ?d { ... } joined with the SPPO union
+     */
+    private ParsedTupleQuery createBatchSelectQuery(List<IRI> batch, SimpleValueFactory valueFactory) {
+        BindingSetAssignment values = new BindingSetAssignment();
+        values.setBindingNames(ImmutableSet.of(DESCRIBE_VARIABLE));
+        values.setBindingSets(batch.stream()
+                .map(d -> (BindingSet) new ListBindingSet(ImmutableList.of(DESCRIBE_VARIABLE),
+                        valueFactory.createIRI(d.getIRIString())))
+                .collect(ImmutableCollectors.toList()));
+
+        return new ParsedTupleQuery(new Join(values, createSPPOUnion(isFixedObjectIncludedInDescribe)));
     }
 
     private static UnaryTupleOperator createNewProjection(boolean isFixedObjectIncludedInDescribe) {
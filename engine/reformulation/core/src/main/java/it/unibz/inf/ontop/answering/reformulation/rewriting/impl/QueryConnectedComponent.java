@@ -24,6 +24,7 @@ import com.google.common.collect.*;
 import it.unibz.inf.ontop.constraints.ImmutableCQ;
 import it.unibz.inf.ontop.model.atom.*;
 import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.substitution.InjectiveVar2VarSubstitution;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.*;
@@ -47,6 +48,7 @@ public class QueryConnectedComponent {
 	private final ImmutableList<Loop> quantifiedVariables;
 	private final ImmutableList<Variable> freeVariables;
 	
+	private final ImmutableList<Loop> terms;
 	private final ImmutableList<Edge> edges;  // a connected component contains a list of edges
 	private final Optional<Loop> loop;  //                   or a loop if it is degenerate
 	
@@ -62,6 +64,7 @@ public class QueryConnectedComponent {
 	
 	private QueryConnectedComponent(ImmutableList<Edge> edges, ImmutableList<Loop> terms) {
 		this.edges = edges;
+		this.terms = terms;
 
 		this.loop = isDegenerate() && !terms.isEmpty() ? Optional.of(terms.get(0)) : Optional.empty();
 
@@ -231,6 +234,72 @@ public class QueryConnectedComponent {
 		return freeVariables;
 	}
 
+	/**
+	 * List<Variable> getVariablesInOrderOfOccurrence()
+	 *
+	 * @return all the variables of the atoms (including the variables in the property position)
+	 *         in the order of their first occurrence in the edges (or in the loop);
+	 *         the order does not depend on the names of the variables
+	 */
+
+	public ImmutableList<Variable> getVariablesInOrderOfOccurrence() {
+		return Stream.concat(
+					edges.stream().flatMap(e -> Stream.concat(
+							Stream.of(e.getTerm0(), e.getTerm1()),
+							e.getAtoms().stream().flatMap(a -> a.getArguments().stream()))),
+					loop.map(l -> Stream.concat(
+							Stream.of(l.getTerm()),
+							l.getAtoms().stream().flatMap(a -> a.getArguments().stream())))
+						.orElseGet(Stream::empty))
+				.filter(t -> (t instanceof Variable))
+				.map(t -> (Variable)t)
+				.distinct()
+				.collect(ImmutableCollectors.toList());
+	}
+
+	/**
+	 * QueryConnectedComponent rename(InjectiveVar2VarSubstitution renaming)
+	 *
+	 * @return the same connected component (with the same order of edges and terms) with the variables renamed
+	 */
+
+	public QueryConnectedComponent rename(InjectiveVar2VarSubstitution renaming) {
+		ImmutableMap<VariableOrGroundTerm, Loop> renamedLoops = terms.stream()
+				.collect(ImmutableCollectors.toMap(Loop::getTerm, l -> l.rename(renaming)));
+
+		return new QueryConnectedComponent(
+				edges.stream()
+						.map(e -> new Edge(renamedLoops.get(e.getTerm0()), renamedLoops.get(e.getTerm1()),
+								rename(e.getBAtoms(), renaming)))
+						.collect(ImmutableCollectors.toList()),
+				terms.stream()
+						.map(l -> renamedLoops.get(l.getTerm()))
+						.collect(ImmutableCollectors.toList()));
+	}
+
+	private static ImmutableList<DataAtom<RDFAtomPredicate>> rename(ImmutableList<DataAtom<RDFAtomPredicate>> atoms, InjectiveVar2VarSubstitution renaming) {
+		return atoms.stream()
+				.map(renaming::applyToDataAtom)
+				.collect(ImmutableCollectors.toList());
+	}
+
+	/**
+	 * ImmutableList<?> getStructure()
+	 *
+	 * @return a value that is equal for two connected components iff they have the same edges (in the same order)
+	 *         and the same terms (with the same atoms and free variables)
+	 */
+
+	public ImmutableList<?> getStructure() {
+		return ImmutableList.of(
+				edges.stream()
+						.map(e -> ImmutableList.of(e.getTerm0(), e.getTerm1(), e.getBAtoms()))
+						.collect(ImmutableCollectors.toList()),
+				terms.stream()
+						.map(l -> ImmutableList.of(l.getTerm(), l.getAtoms(), l.isExistentialVariable()))
+						.collect(ImmutableCollectors.toSet()));
+	}
+
 	/**
 	 * Loop: class representing loops of connected components
 	 * 
@@ -246,10 +315,18 @@ public class QueryConnectedComponent {
 		private final boolean isExistentialVariable;
 		
 		public Loop(VariableOrGroundTerm term, ImmutableSet<Variable> headVariables, ImmutableList<DataAtom<RDFAtomPredicate>> atoms) {
+			this(term, (term instanceof Variable) && !headVariables.contains(term), atoms);
+		}
+
+		private Loop(VariableOrGroundTerm term, boolean isExistentialVariable, ImmutableList<DataAtom<RDFAtomPredicate>> atoms) {
 			this.term = term;
-			this.isExistentialVariable = (term instanceof Variable) && !headVariables.contains(term);
+			this.isExistentialVariable = isExistentialVariable;
 			this.atoms = atoms;
 		}
+
+		private Loop rename(InjectiveVar2VarSubstitution renaming) {
+			return new Loop(renaming.applyToTerm(term), isExistentialVariable, QueryConnectedComponent.rename(atoms, renaming));
+		}
 		
 		public VariableOrGroundTerm getTerm() {
 			return term;
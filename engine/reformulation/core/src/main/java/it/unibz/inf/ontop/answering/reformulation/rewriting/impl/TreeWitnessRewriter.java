@@ -20,6 +20,8 @@ package it.unibz.inf.ontop.answering.reformulation.rewriting.impl;
  * #L%
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.*;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.ExistentialQueryRewriter;
@@ -27,6 +29,7 @@ import it.unibz.inf.ontop.constraints.ImmutableCQ;
 import it.unibz.inf.ontop.constraints.impl.ImmutableCQContainmentCheckUnderLIDs;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.iq.IQTree;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
@@ -37,12 +40,14 @@ import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.spec.ontology.*;
 import it.unibz.inf.ontop.spec.ontology.ClassifiedTBox;
 
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.InjectiveVar2VarSubstitution;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
@@ -54,62 +59,116 @@ import static java.util.function.Function.identity;
 
 
 /**
- * 
+ * Thread-safe: the state of each call lives in a RewritingContext and
+ * the state derived from the TBox is immutable (replaced as a whole by setTBox).
  */
 
 public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQueryRewriter {
 
 	private static final Logger log = LoggerFactory.getLogger(TreeWitnessRewriter.class);
 
-	private TreeWitnessRewriterReasoner reasoner;
-	private ImmutableCQContainmentCheckUnderLIDs<RDFAtomPredicate> containmentCheckUnderLIDs;
+	// null until setTBox is called
+	private volatile TBoxComponents tboxComponents;
 
     private final SubstitutionFactory substitutionFactory;
+    private final long rewritingCacheMaxSize;
 
     @Inject
 	private TreeWitnessRewriter(AtomFactory atomFactory,
 								TermFactory termFactory,
                                 IntermediateQueryFactory iqFactory,
 								CoreUtilsFactory coreUtilsFactory,
-                                SubstitutionFactory substitutionFactory) {
+                                SubstitutionFactory substitutionFactory,
+								OntopReformulationSettings settings) {
+        this(atomFactory, termFactory, iqFactory, coreUtilsFactory, substitutionFactory,
+                settings.getRewritingCacheMaxSize());
+    }
+
+    /**
+     * For tests
+     */
+    TreeWitnessRewriter(AtomFactory atomFactory,
+                        TermFactory termFactory,
+                        IntermediateQueryFactory iqFactory,
+                        CoreUtilsFactory coreUtilsFactory,
+                        SubstitutionFactory substitutionFactory,
+                        long rewritingCacheMaxSize) {
         super(iqFactory, atomFactory, termFactory, coreUtilsFactory);
 
         this.substitutionFactory = substitutionFactory;
+        this.rewritingCacheMaxSize = rewritingCacheMaxSize;
     }
 
 	@Override
 	public void setTBox(ClassifiedTBox classifiedTBox) {
-		double startime = System.currentTimeMillis();
+		long startTime = System.currentTimeMillis();
 
-		this.reasoner = new TreeWitnessRewriterReasoner(classifiedTBox);
 		super.setTBox(classifiedTBox);
+		this.tboxComponents = new TBoxComponents(
+				new TreeWitnessRewriterReasoner(classifiedTBox),
+				new ImmutableCQContainmentCheckUnderLIDs<>(getSigma()),
+				rewritingCacheMaxSize > 0
+						? CacheBuilder.newBuilder().maximumSize(rewritingCacheMaxSize).recordStats().build()
+						: null);
+
+		log.debug(String.format("setTBox time: %.3f s", (System.currentTimeMillis() - startTime) / 1000.0));
+	}
 
-        containmentCheckUnderLIDs = new ImmutableCQContainmentCheckUnderLIDs<>(getSigma());
+	/**
+	 * For tests
+	 */
+	long getRewritingCacheHitCount() {
+		TBoxComponents tbox = tboxComponents;
+		return (tbox == null || tbox.rewritingCache == null) ? 0 : tbox.rewritingCache.stats().hitCount();
+	}
 
-		double endtime = System.currentTimeMillis();
-		double tm = (endtime - startime) / 1000;
-		time += tm;
-		log.debug(String.format("setTBox time: %.3f s (total %.3f s)", tm, time));		
+	/**
+	 * Derived from the TBox and shared by all the calls
+	 */
+	private static final class TBoxComponents {
+		private final TreeWitnessRewriterReasoner reasoner;
+		private final ImmutableCQContainmentCheckUnderLIDs<RDFAtomPredicate> containmentCheckUnderLIDs;
+		// rewritings of the connected components with canonical variables, indexed by their structure
+		// (null if disabled)
+		@Nullable
+		private final Cache<ImmutableList<?>, ImmutableList<CQ>> rewritingCache;
+
+		private TBoxComponents(TreeWitnessRewriterReasoner reasoner,
+							   ImmutableCQContainmentCheckUnderLIDs<RDFAtomPredicate> containmentCheckUnderLIDs,
+							   @Nullable Cache<ImmutableList<?>, ImmutableList<CQ>> rewritingCache) {
+			this.reasoner = reasoner;
+			this.containmentCheckUnderLIDs = containmentCheckUnderLIDs;
+			this.rewritingCache = rewritingCache;
+		}
 	}
-	
-	
-	private int freshVarIndex = 0;
-	
-	private Variable getFreshVariable() {
-		freshVarIndex++;
-		return termFactory.getVariable("twr" + freshVarIndex);
+
+	/**
+	 * State of one call: not shared between threads
+	 */
+	private final class RewritingContext {
+		private final TreeWitnessRewriterReasoner reasoner;
+		private int freshVarIndex = 0;
+
+		private RewritingContext(TreeWitnessRewriterReasoner reasoner) {
+			this.reasoner = reasoner;
+		}
+
+		private Variable getFreshVariable() {
+			freshVarIndex++;
+			return termFactory.getVariable("twr" + freshVarIndex);
+		}
 	}
-	
+
 	/*
 	 * returns atoms E of a given collection of tree witness generators; 
 	 * the `free' variable of the generators is replaced by the term r0;
 	 */
 
-	private ImmutableList<DataAtom<RDFAtomPredicate>> getAtomsForGenerators(Stream<TreeWitnessGenerator> gens, VariableOrGroundTerm r0)  {
+	private ImmutableList<DataAtom<RDFAtomPredicate>> getAtomsForGenerators(Stream<TreeWitnessGenerator> gens, VariableOrGroundTerm r0, RewritingContext context)  {
 		return gens
 				.flatMap(g -> g.getMaximalGeneratorRepresentatives().stream())
 				.distinct()
-				.map(ce -> getAtom(ce, r0, this::getFreshVariable))
+				.map(ce -> getAtom(ce, r0, context::getFreshVariable))
 				.collect(ImmutableCollectors.toList());
 	}
 
@@ -127,6 +186,24 @@ public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQue
             this.atoms = atoms;
         }
 
+        Stream<Variable> getVariables() {
+            return Stream.concat(
+                    equalities.entrySet().stream().flatMap(e -> Stream.of(e.getKey(), e.getValue())),
+                    atoms.stream().flatMap(a -> a.getArguments().stream()))
+                    .filter(t -> t instanceof Variable)
+                    .map(t -> (Variable)t);
+        }
+
+        CQ rename(InjectiveVar2VarSubstitution renaming) {
+            return new CQ(equalities.entrySet().stream()
+                        .collect(ImmutableCollectors.toMap(
+                                e -> renaming.applyToTerm(e.getKey()),
+                                e -> renaming.applyToTerm(e.getValue()))),
+                    atoms.stream()
+                        .map(renaming::applyToDataAtom)
+                        .collect(ImmutableCollectors.toSet()));
+        }
+
         CQ join(CQ cq) {
 		    ImmutableMultimap<VariableOrGroundTerm, VariableOrGroundTerm> mm =
                         Stream.concat(equalities.entrySet().stream(), cq.equalities.entrySet().stream())
@@ -207,7 +284,7 @@ public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQue
     }
 
 
-    ImmutableList<CQ> getTreeWitnessFormula(TreeWitness tw) {
+    ImmutableList<CQ> getTreeWitnessFormula(TreeWitness tw, RewritingContext context) {
         // get canonical representative
         List<VariableOrGroundTerm> list = new ArrayList<>(tw.getRoots());
         list.sort(Comparator.comparing(Object::toString));
@@ -216,22 +293,62 @@ public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQue
                 .collect(ImmutableCollectors.toMap(identity(), s -> rep));
 
         UCQBuilder ucq = new UCQBuilder(new CQ(equalities, tw.getRootAtoms()));
-        return ucq.join(getAtomsForGenerators(tw.getGenerators().stream(), rep).stream()
+        return ucq.join(getAtomsForGenerators(tw.getGenerators().stream(), rep, context).stream()
                         .map(a -> new CQ(ImmutableSet.of(a))))
                 .build();
     }
 
+	/*
+	 * rewrites a given connected CQ, reusing the rewriting of a connected component
+	 * that differs only in the names of its variables (if any)
+	 */
+
+	private ImmutableList<CQ> rewriteCC(QueryConnectedComponent cc, TBoxComponents tbox, RewritingContext context) {
+		if (tbox.rewritingCache == null)
+			return rewriteCC(cc, context);
+
+		// all the variables of the CC, so that only the variables introduced by the rewriting are fresh below
+		ImmutableList<Variable> variables = cc.getVariablesInOrderOfOccurrence();
+		ImmutableBiMap.Builder<Variable, Variable> builder = ImmutableBiMap.builder();
+		for (int i = 0; i < variables.size(); i++)
+			builder.put(variables.get(i), termFactory.getVariable("cc" + i));
+		ImmutableBiMap<Variable, Variable> canonicalRenaming = builder.build();
+		QueryConnectedComponent canonicalCC = cc.rename(substitutionFactory.getInjectiveVar2VarSubstitution(canonicalRenaming));
+
+		ImmutableList<?> key = canonicalCC.getStructure();
+		ImmutableList<CQ> canonicalRewriting = tbox.rewritingCache.getIfPresent(key);
+		if (canonicalRewriting == null) {
+			// the fresh variables are renamed below
+			canonicalRewriting = rewriteCC(canonicalCC, new RewritingContext(context.reasoner));
+			tbox.rewritingCache.put(key, canonicalRewriting);
+		}
+
+		ImmutableMap<Variable, Variable> fromCanonical = Stream.concat(
+				canonicalRenaming.inverse().entrySet().stream(),
+				canonicalRewriting.stream()
+						.flatMap(CQ::getVariables)
+						.distinct()
+						.filter(v -> !canonicalRenaming.containsValue(v))
+						.map(v -> Maps.immutableEntry(v, context.getFreshVariable())))
+				.collect(ImmutableCollectors.toMap());
+		InjectiveVar2VarSubstitution renaming = substitutionFactory.getInjectiveVar2VarSubstitution(fromCanonical);
+
+		return canonicalRewriting.stream()
+				.map(cq -> cq.rename(renaming))
+				.collect(ImmutableCollectors.toList());
+	}
+
 	/*
 	 * rewrites a given connected CQ with the rules put into output
 	 */
 	
-	private ImmutableList<CQ> rewriteCC(QueryConnectedComponent cc) {
+	private ImmutableList<CQ> rewriteCC(QueryConnectedComponent cc, RewritingContext context) {
 
-		TreeWitnessSet tws = TreeWitnessSet.getTreeWitnesses(cc, reasoner);
+		TreeWitnessSet tws = TreeWitnessSet.getTreeWitnesses(cc, context.reasoner);
 
 		ImmutableList.Builder<CQ> builder = ImmutableList.builder();
 		if (cc.hasNoFreeTerms() && (!cc.isDegenerate() || cc.getLoop().isPresent())) {
-            builder.addAll(getAtomsForGenerators(tws.getGeneratorsOfDetachedCC().stream(), getFreshVariable()).stream()
+            builder.addAll(getAtomsForGenerators(tws.getGeneratorsOfDetachedCC().stream(), context.getFreshVariable(), context).stream()
                         .map(a -> new CQ(ImmutableSet.of(a)))
                         .collect(ImmutableCollectors.toList()));
 		}
@@ -250,7 +367,7 @@ public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQue
 
 					builder.addAll(
 					        compatibleTWs.stream()
-                                .map(tw -> getTreeWitnessFormula(tw).stream())
+                                .map(tw -> getTreeWitnessFormula(tw, context).stream())
                                 .collect(toUCQ(edges)));
 				}
 			}
@@ -263,7 +380,7 @@ public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQue
                                 Stream.of(new CQ(ImmutableSet.copyOf(edge.getAtoms()))),
                                 tws.getTWs().stream()
                                         .filter(edge::isCoveredBy)
-                                        .flatMap(tw -> getTreeWitnessFormula(tw).stream())))
+                                        .flatMap(tw -> getTreeWitnessFormula(tw, context).stream())))
                             .collect(toUCQ()));
             }
 		}
@@ -276,10 +393,8 @@ public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQue
 		}
 		return builder.build();
 	}
-	
-	private double time = 0;
 
-	private IQTree getCanonicalForm(IQTree tree) {
+	private IQTree getCanonicalForm(IQTree tree, TreeWitnessRewriterReasoner reasoner) {
         ClassifiedTBox tbox = reasoner.getClassifiedTBox();
 
         return tree.acceptTransformer(new DefaultRecursiveIQTreeVisitingTransformer(iqFactory) {
@@ -367,9 +482,12 @@ public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQue
     @Override
     public IQ rewrite(IQ query) throws EmptyQueryException {
 		
-		double startime = System.currentTimeMillis();
+		long startTime = System.currentTimeMillis();
+
+		TBoxComponents tbox = tboxComponents;
+		RewritingContext context = new RewritingContext(tbox.reasoner);
 
-		IQTree canonicalTree = getCanonicalForm(query.getTree());
+		IQTree canonicalTree = getCanonicalForm(query.getTree(), tbox.reasoner);
 
         IQTree rewritingTree = canonicalTree.acceptTransformer(new DefaultRecursiveIQTreeVisitingTransformer(iqFactory) {
             @Override
@@ -386,13 +504,13 @@ public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQue
                         List<QueryConnectedComponent> ccs = QueryConnectedComponent.getConnectedComponents(new ImmutableCQ<>(avs, bgp));
 
                         ImmutableList<CQ> ucq = ccs.stream()
-                                .map(cc -> rewriteCC(cc).stream())
+                                .map(cc -> rewriteCC(cc, tbox, context).stream())
                                 .collect(toUCQ());
 
                         List<ImmutableCQ<RDFAtomPredicate>> ucq2 = ucq.stream()
                                 .map(cq -> convert(cq, avs))
                                 .collect(Collectors.toList());
-                        containmentCheckUnderLIDs.removeContainedQueries(ucq2);
+                        tbox.containmentCheckUnderLIDs.removeContainedQueries(ucq2);
 
                         return convertUCQ(ucq2.stream()
                                 .map(cq -> convertCQ(cq, avs))
@@ -402,10 +520,7 @@ public class TreeWitnessRewriter extends DummyRewriter implements ExistentialQue
             }
         });
 
-		double endtime = System.currentTimeMillis();
-		double tm = (endtime - startime) / 1000;
-		time += tm;
-		log.debug(String.format("Rewriting time: %.3f s (total %.3f s)", tm, time));
+		log.debug(String.format("Rewriting time: %.3f s", (System.currentTimeMillis() - startTime) / 1000.0));
 		log.debug("Final rewriting:\n{}", rewritingTree);
 
         IQ result = iqFactory.createIQ(query.getProjectionAtom(), rewritingTree);
@@ -0,0 +1,11 @@
+package it.unibz.inf.ontop.exception;
+
+/**
+ * Waited too long for the reformulation of the same query by another thread
+ */
+public class OntopReformulationTimeoutException extends OntopReformulationException {
+
+    public OntopReformulationTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,8 @@ package it.unibz.inf.ontop.injection;
 
 import com.google.common.collect.ImmutableSet;
 
+import java.util.Optional;
+
 public interface OntopReformulationSettings extends OntopOBDASettings, OntopOptimizationSettings {
 
     boolean isExistentialReasoningEnabled();
@@ -27,12 +29,81 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
      */
     boolean isFixedObjectIncludedInDescribe();
 
+    /**
+     * Number of resources described by one CONSTRUCT query (VALUES block).
+     * 1: one query per resource.
+     */
+    int getDescribeBatchSize();
+
     ImmutableSet<String> getHttpHeaderNamesToLog();
 
+    /**
+     * Maximum number of query log records waiting to be written (asynchronous sink)
+     */
+    int getQueryLoggingBufferSize();
+
+    /**
+     * What the asynchronous sink does when its buffer is full
+     */
+    QueryLoggingDropPolicy getQueryLoggingDropPolicy();
+
+    /**
+     * Only used when logging into a file
+     */
+    Optional<String> getQueryLoggingFile();
+
+    /**
+     * In bytes. Beyond, the log file is rotated.
+     */
+    long getQueryLoggingFileMaxSize();
+
+    /**
+     * Number of rotated log files kept
+     */
+    int getQueryLoggingFileMaxBackups();
+
     long getQueryCacheMaxSize();
 
+    /**
+     * In ms. Maximum duration for waiting for the reformulation of the same query by another thread.
+     * 0 means no timeout.
+     */
+    long getQueryCacheWaitTimeout();
+
+    /**
+     * In ms. How long a reformulation error is remembered for the query. 0 disables it.
+     */
+    long getQueryCacheErrorTTL();
+
+    /**
+     * Maximum number of query templates (SPARQL queries up to their constants) whose reformulation is reused.
+     * 0 disables the query template cache (default).
+     */
+    long getQueryTemplateCacheMaxSize();
+
+    /**
+     * Maximum number of connected components of BGPs whose rewriting (existential reasoning) is reused.
+     * 0 disables the rewriting cache.
+     */
+    long getRewritingCacheMaxSize();
+
     String getApplicationName();
 
+    enum QueryLoggingDropPolicy {
+        /**
+         * The new record is dropped
+         */
+        DROP_NEWEST,
+        /**
+         * The oldest record of the buffer is dropped
+         */
+        DROP_OLDEST,
+        /**
+         * The query thread waits for some space in the buffer
+         */
+        BLOCK
+    }
+
 
     //--------------------------
     // Keys
@@ -42,6 +113,10 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
     String DISTINCT_RESULTSET = "ontop.distinctResultSet";
     String AVOID_POST_PROCESSING = "ontop.avoidPostProcessing";
     String QUERY_CACHE_MAX_SIZE = "ontop.cache.query.size";
+    String QUERY_CACHE_WAIT_TIMEOUT = "ontop.cache.query.waitTimeout";
+    String QUERY_CACHE_ERROR_TTL = "ontop.cache.query.errorTTL";
+    String QUERY_TEMPLATE_CACHE_MAX_SIZE = "ontop.cache.queryTemplate.size";
+    String REWRITING_CACHE_MAX_SIZE = "ontop.cache.rewriting.size";
     String QUERY_LOGGING = "ontop.queryLogging";
     // Needed for logging
     String APPLICATION_NAME = "ontop.applicationName";
@@ -57,6 +132,12 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
     String QUERY_TEMPLATE_EXTRACTION = "ontop.queryLogging.extractQueryTemplate";
     String QUERY_LOGGING_DECOMPOSITION = "ontop.queryLogging.decomposition";
     String QUERY_LOGGING_DECOMPOSITION_AND_MERGING_EXCLUSIVE = "ontop.queryLogging.decompositionAndMergingMutuallyExclusive";
+    String QUERY_LOGGING_BUFFER_SIZE = "ontop.queryLogging.bufferSize";
+    String QUERY_LOGGING_DROP_POLICY = "ontop.queryLogging.dropPolicy";
+    String QUERY_LOGGING_FILE = "ontop.queryLogging.file";
+    String QUERY_LOGGING_FILE_MAX_SIZE = "ontop.queryLogging.file.maxSize";
+    String QUERY_LOGGING_FILE_MAX_BACKUPS = "ontop.queryLogging.file.maxBackups";
 
     String INCLUDE_FIXED_OBJECT_POSITION_IN_DESCRIBE = "ontop.includeFixedObjectPositionInDescribe";
+    String DESCRIBE_BATCH_SIZE = "ontop.describe.batchSize";
 }
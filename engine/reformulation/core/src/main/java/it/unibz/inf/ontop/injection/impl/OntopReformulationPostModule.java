@@ -9,6 +9,7 @@ import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
 import it.unibz.inf.ontop.injection.*;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.answering.reformulation.QueryTemplateCache;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.impl.DummyRewriter;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.ExistentialQueryRewriter;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
@@ -50,5 +51,9 @@ public class OntopReformulationPostModule extends OntopAbstractModule {
                 QueryReformulator.class),
                 ReformulationFactory.class);
         install(translationFactoryModule);
+
+        Module queryTemplateCacheModule = buildFactory(ImmutableList.of(QueryTemplateCache.class),
+                QueryTemplateCache.Factory.class);
+        install(queryTemplateCacheModule);
     }
 }
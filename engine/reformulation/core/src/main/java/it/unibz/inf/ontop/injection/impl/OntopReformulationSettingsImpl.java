@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.injection.impl;
 
 import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.injection.OntopOBDASettings;
 import it.unibz.inf.ontop.injection.OntopOptimizationSettings;
 import it.unibz.inf.ontop.injection.OntopReformulationSettings;
@@ -8,6 +9,7 @@ import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import javax.annotation.Nullable;
 import java.util.Collections;
+import java.util.Optional;
 import java.util.Properties;
 
 public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implements OntopReformulationSettings {
@@ -95,11 +97,66 @@ public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implem
         return getRequiredBoolean(INCLUDE_FIXED_OBJECT_POSITION_IN_DESCRIBE);
     }
 
+    @Override
+    public int getDescribeBatchSize() {
+        return getRequiredInteger(DESCRIBE_BATCH_SIZE);
+    }
+
     @Override
     public long getQueryCacheMaxSize() {
         return getRequiredLong(QUERY_CACHE_MAX_SIZE);
     }
 
+    @Override
+    public long getQueryCacheWaitTimeout() {
+        return getRequiredLong(QUERY_CACHE_WAIT_TIMEOUT);
+    }
+
+    @Override
+    public long getQueryCacheErrorTTL() {
+        return getRequiredLong(QUERY_CACHE_ERROR_TTL);
+    }
+
+    @Override
+    public long getQueryTemplateCacheMaxSize() {
+        return getRequiredLong(QUERY_TEMPLATE_CACHE_MAX_SIZE);
+    }
+
+    @Override
+    public long getRewritingCacheMaxSize() {
+        return getRequiredLong(REWRITING_CACHE_MAX_SIZE);
+    }
+
+    @Override
+    public int getQueryLoggingBufferSize() {
+        return getRequiredInteger(QUERY_LOGGING_BUFFER_SIZE);
+    }
+
+    @Override
+    public QueryLoggingDropPolicy getQueryLoggingDropPolicy() {
+        String value = getRequiredProperty(QUERY_LOGGING_DROP_POLICY);
+        try {
+            return QueryLoggingDropPolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOntopConfigurationException("Invalid value for " + QUERY_LOGGING_DROP_POLICY + ": is " + value);
+        }
+    }
+
+    @Override
+    public Optional<String> getQueryLoggingFile() {
+        return getProperty(QUERY_LOGGING_FILE);
+    }
+
+    @Override
+    public long getQueryLoggingFileMaxSize() {
+        return getRequiredLong(QUERY_LOGGING_FILE_MAX_SIZE);
+    }
+
+    @Override
+    public int getQueryLoggingFileMaxBackups() {
+        return getRequiredInteger(QUERY_LOGGING_FILE_MAX_BACKUPS);
+    }
+
     @Override
     public String getApplicationName() {
         return getRequiredProperty(APPLICATION_NAME);
@@ -2,6 +2,8 @@ package it.unibz.inf.ontop.injection.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Module;
+import it.unibz.inf.ontop.answering.logging.QueryLogOutput;
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.generation.PostProcessingProjectionSplitter;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
@@ -29,6 +31,8 @@ public class OntopTranslationModule extends OntopAbstractModule {
         bindFromSettings(InputQueryFactory.class);
         bindFromSettings(PostProcessingProjectionSplitter.class);
         bindFromSettings(OntopViewUnfolder.class);
+        bindFromSettings(QueryLogSink.class);
+        bindFromSettings(QueryLogOutput.class);
 
         Module queryLoggingModule = buildFactory(ImmutableList.of(QueryLogger.class), QueryLogger.Factory.class);
         install(queryLoggingModule);
@@ -0,0 +1,158 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.logging.QueryLogOutput;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings.QueryLoggingDropPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncQueryLogSinkTest {
+
+    private static final int BUFFER_SIZE = 2;
+
+    @Test
+    public void testDropNewest() throws Exception {
+        BlockingOutput output = new BlockingOutput("r1");
+        AsyncQueryLogSink sink = new AsyncQueryLogSink(output, BUFFER_SIZE, QueryLoggingDropPolicy.DROP_NEWEST);
+
+        fillBuffer(sink, output);
+        sink.write(() -> "r4");
+        assertEquals(1, sink.getDroppedRecordCount());
+
+        output.release();
+        sink.close();
+        assertEquals(ImmutableList.of("r1", "r2", "r3"), output.getRecords());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        BlockingOutput output = new BlockingOutput("r1");
+        AsyncQueryLogSink sink = new AsyncQueryLogSink(output, BUFFER_SIZE, QueryLoggingDropPolicy.DROP_OLDEST);
+
+        fillBuffer(sink, output);
+        sink.write(() -> "r4");
+        assertEquals(1, sink.getDroppedRecordCount());
+
+        output.release();
+        sink.close();
+        assertEquals(ImmutableList.of("r1", "r3", "r4"), output.getRecords());
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        BlockingOutput output = new BlockingOutput("r1");
+        AsyncQueryLogSink sink = new AsyncQueryLogSink(output, BUFFER_SIZE, QueryLoggingDropPolicy.BLOCK);
+
+        fillBuffer(sink, output);
+        Thread queryThread = new Thread(() -> sink.write(() -> "r4"));
+        queryThread.start();
+        queryThread.join(200);
+        // The query thread waits for some space in the buffer
+        assertTrue(queryThread.isAlive());
+
+        output.release();
+        queryThread.join(10000);
+        assertFalse(queryThread.isAlive());
+
+        sink.close();
+        assertEquals(0, sink.getDroppedRecordCount());
+        assertEquals(ImmutableList.of("r1", "r2", "r3", "r4"), output.getRecords());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        BlockingOutput output = new BlockingOutput(null);
+        AsyncQueryLogSink sink = new AsyncQueryLogSink(output, BUFFER_SIZE, QueryLoggingDropPolicy.DROP_NEWEST);
+
+        assertFalse(sink.isWriterThreadRunning());
+        sink.write(() -> "r1");
+        assertTrue(sink.isWriterThreadRunning());
+
+        sink.close();
+        assertFalse(sink.isWriterThreadRunning());
+        assertEquals(ImmutableList.of("r1"), output.getRecords());
+        assertEquals(1, output.getCloseCount());
+
+        // Still accepted after closing: the writer thread is started again
+        sink.write(() -> "r2");
+        assertTrue(sink.isWriterThreadRunning());
+        sink.close();
+        assertFalse(sink.isWriterThreadRunning());
+        assertEquals(ImmutableList.of("r1", "r2"), output.getRecords());
+        assertEquals(2, output.getCloseCount());
+    }
+
+    /**
+     * The writer thread is blocked while writing r1, r2 and r3 wait in the buffer
+     */
+    private static void fillBuffer(AsyncQueryLogSink sink, BlockingOutput output) throws InterruptedException {
+        sink.write(() -> "r1");
+        assertTrue(output.awaitBlocked());
+        sink.write(() -> "r2");
+        sink.write(() -> "r3");
+        assertEquals(0, sink.getDroppedRecordCount());
+    }
+
+    /**
+     * Blocks the writer thread when writing the given record, until released
+     */
+    private static class BlockingOutput implements QueryLogOutput {
+        private final String blockingRecord;
+        private final CountDownLatch blockedLatch = new CountDownLatch(1);
+        private final CountDownLatch releaseLatch = new CountDownLatch(1);
+        private final List<String> records = new ArrayList<>();
+        private int closeCount;
+
+        BlockingOutput(String blockingRecord) {
+            this.blockingRecord = blockingRecord;
+        }
+
+        @Override
+        public void write(String record) {
+            if (record.equals(blockingRecord)) {
+                blockedLatch.countDown();
+                try {
+                    releaseLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (records) {
+                records.add(record);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public synchronized void close() {
+            closeCount++;
+        }
+
+        boolean awaitBlocked() throws InterruptedException {
+            return blockedLatch.await(10, TimeUnit.SECONDS);
+        }
+
+        void release() {
+            releaseLatch.countDown();
+        }
+
+        ImmutableList<String> getRecords() {
+            synchronized (records) {
+                return ImmutableList.copyOf(records);
+            }
+        }
+
+        synchronized int getCloseCount() {
+            return closeCount;
+        }
+    }
+}
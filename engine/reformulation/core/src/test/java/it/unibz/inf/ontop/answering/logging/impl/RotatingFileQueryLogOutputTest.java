@@ -0,0 +1,83 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class RotatingFileQueryLogOutputTest {
+
+    // "rX" + line separator: at most 3 records per file
+    private static final long MAX_SIZE = 3 * ("r0" + System.lineSeparator()).length();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNoRotation() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("logs/query.log");
+        RotatingFileQueryLogOutput output = new RotatingFileQueryLogOutput(file, MAX_SIZE, 2);
+        write(output, "r0", "r1", "r2");
+        output.close();
+
+        assertEquals(ImmutableList.of("r0", "r1", "r2"), readLines(file));
+        assertFalse(Files.exists(file.resolveSibling("query.log.1")));
+    }
+
+    @Test
+    public void testRotationBySize() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("query.log");
+        RotatingFileQueryLogOutput output = new RotatingFileQueryLogOutput(file, MAX_SIZE, 2);
+        write(output, "r0", "r1", "r2", "r3", "r4", "r5", "r6", "r7", "r8", "r9");
+        output.close();
+
+        assertEquals(ImmutableList.of("r9"), readLines(file));
+        assertEquals(ImmutableList.of("r6", "r7", "r8"), readLines(file.resolveSibling("query.log.1")));
+        assertEquals(ImmutableList.of("r3", "r4", "r5"), readLines(file.resolveSibling("query.log.2")));
+        // Beyond the maximum number of backups
+        assertFalse(Files.exists(file.resolveSibling("query.log.3")));
+    }
+
+    @Test
+    public void testNoBackup() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("query.log");
+        RotatingFileQueryLogOutput output = new RotatingFileQueryLogOutput(file, MAX_SIZE, 0);
+        write(output, "r0", "r1", "r2", "r3");
+        output.close();
+
+        assertEquals(ImmutableList.of("r3"), readLines(file));
+        assertFalse(Files.exists(file.resolveSibling("query.log.1")));
+    }
+
+    @Test
+    public void testReopenAfterClose() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("query.log");
+        RotatingFileQueryLogOutput output = new RotatingFileQueryLogOutput(file, MAX_SIZE, 2);
+        write(output, "r0", "r1");
+        output.close();
+
+        // The size of the existing file is taken into account
+        write(output, "r2", "r3");
+        output.close();
+
+        assertEquals(ImmutableList.of("r3"), readLines(file));
+        assertEquals(ImmutableList.of("r0", "r1", "r2"), readLines(file.resolveSibling("query.log.1")));
+    }
+
+    private static void write(RotatingFileQueryLogOutput output, String... records) throws IOException {
+        for (String record : records)
+            output.write(record);
+        output.flush();
+    }
+
+    private static ImmutableList<String> readLines(Path file) throws IOException {
+        return ImmutableList.copyOf(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,160 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.exception.OntopReformulationTimeoutException;
+import it.unibz.inf.ontop.iq.IQ;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class GuiceBasedQueryCacheTest {
+
+    private static final int THREAD_COUNT = 8;
+
+    @Test
+    public void testCachedQuery() throws Exception {
+        GuiceBasedQueryCache cache = new GuiceBasedQueryCache(10, 0, 0);
+        InputQuery query = stub(InputQuery.class);
+        IQ executableQuery = stub(IQ.class);
+
+        assertSame(executableQuery, cache.getOrReformulate(query, () -> executableQuery));
+        assertSame(executableQuery, cache.getOrReformulate(query, () -> { throw new IllegalStateException(); }));
+        assertSame(executableQuery, cache.get(query));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        cache.clear();
+        assertNull(cache.get(query));
+    }
+
+    @Test
+    public void testConcurrentIdenticalQueries() throws Exception {
+        GuiceBasedQueryCache cache = new GuiceBasedQueryCache(10, 0, 0);
+        InputQuery query = stub(InputQuery.class);
+        IQ executableQuery = stub(IQ.class);
+        AtomicInteger reformulationCount = new AtomicInteger();
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        ImmutableList.Builder<Future<IQ>> futureBuilder = ImmutableList.builder();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            futureBuilder.add(executor.submit(() -> cache.getOrReformulate(query, () -> {
+                reformulationCount.incrementAndGet();
+                await(releaseLatch);
+                return executableQuery;
+            })));
+        }
+        // All the other threads wait for the reformulation in progress
+        long deadline = System.currentTimeMillis() + 10000;
+        while (cache.getWaitCount() < THREAD_COUNT - 1 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        releaseLatch.countDown();
+
+        for (Future<IQ> future : futureBuilder.build())
+            assertSame(executableQuery, future.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(1, reformulationCount.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(THREAD_COUNT - 1, cache.getWaitCount());
+    }
+
+    @Test
+    public void testCachedError() throws Exception {
+        GuiceBasedQueryCache cache = new GuiceBasedQueryCache(10, 60000, 0);
+        InputQuery query = stub(InputQuery.class);
+        OntopReformulationException error = new OntopReformulationException(new IllegalStateException("invalid"));
+
+        try {
+            cache.getOrReformulate(query, () -> { throw error; });
+            fail();
+        } catch (OntopReformulationException e) {
+            assertSame(error, e);
+        }
+        try {
+            cache.getOrReformulate(query, () -> stub(IQ.class));
+            fail();
+        } catch (OntopReformulationException e) {
+            assertSame(error, e);
+        }
+        assertEquals(1, cache.getErrorHitCount());
+    }
+
+    @Test
+    public void testErrorNotCachedWhenDisabled() throws Exception {
+        GuiceBasedQueryCache cache = new GuiceBasedQueryCache(10, 0, 0);
+        InputQuery query = stub(InputQuery.class);
+        IQ executableQuery = stub(IQ.class);
+
+        try {
+            cache.getOrReformulate(query, () -> {
+                throw new OntopReformulationException(new IllegalStateException("invalid"));
+            });
+            fail();
+        } catch (OntopReformulationException e) {
+            // expected
+        }
+        assertSame(executableQuery, cache.getOrReformulate(query, () -> executableQuery));
+        assertEquals(0, cache.getErrorHitCount());
+    }
+
+    @Test
+    public void testWaitTimeout() throws Exception {
+        GuiceBasedQueryCache cache = new GuiceBasedQueryCache(10, 0, 50);
+        InputQuery query = stub(InputQuery.class);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<IQ> future = executor.submit(() -> cache.getOrReformulate(query, () -> {
+            startLatch.countDown();
+            await(releaseLatch);
+            return stub(IQ.class);
+        }));
+        assertTrue(startLatch.await(10, TimeUnit.SECONDS));
+
+        try {
+            cache.getOrReformulate(query, () -> stub(IQ.class));
+            fail();
+        } catch (OntopReformulationTimeoutException e) {
+            // expected
+        }
+        releaseLatch.countDown();
+        assertNotNull(future.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Identity-based equality
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return type.getSimpleName();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
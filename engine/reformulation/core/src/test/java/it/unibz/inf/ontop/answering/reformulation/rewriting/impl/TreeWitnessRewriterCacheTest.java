@@ -0,0 +1,175 @@
+package it.unibz.inf.ontop.answering.reformulation.rewriting.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.IntensionalDataNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.atom.AtomFactory;
+import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.atom.DataAtom;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.spec.ontology.ClassifiedTBox;
+import it.unibz.inf.ontop.spec.ontology.OClass;
+import it.unibz.inf.ontop.spec.ontology.ObjectPropertyExpression;
+import it.unibz.inf.ontop.spec.ontology.OntologyBuilder;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyBuilderImpl;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.CoreUtilsFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TreeWitnessRewriterCacheTest {
+
+    private static final String NS = "http://example.org/";
+    private static final OntopModelConfiguration CONFIGURATION = OntopModelConfiguration.defaultBuilder()
+            .enableTestMode()
+            .build();
+    private static final TermFactory TERM_FACTORY = CONFIGURATION.getTermFactory();
+    private static final AtomFactory ATOM_FACTORY = CONFIGURATION.getAtomFactory();
+    private static final IntermediateQueryFactory IQ_FACTORY = CONFIGURATION.getIQFactory();
+    private static final RDF RDF_FACTORY = CONFIGURATION.getRdfFactory();
+
+    private static final IRI WORKS_FOR = RDF_FACTORY.createIRI(NS + "worksFor");
+    private static final IRI EMPLOYEE = RDF_FACTORY.createIRI(NS + "Employee");
+
+    private static ClassifiedTBox tbox;
+
+    /**
+     * Employee <= \exists worksFor
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        OntologyBuilder builder = OntologyBuilderImpl.builder(RDF_FACTORY, TERM_FACTORY);
+        OClass employee = builder.declareClass(EMPLOYEE);
+        ObjectPropertyExpression worksFor = builder.declareObjectProperty(WORKS_FOR);
+        builder.addSubClassOfAxiom(employee, worksFor.getDomain());
+        tbox = builder.build().tbox();
+    }
+
+    @Test
+    public void testCacheHitUnderVariableRenaming() throws Exception {
+        TreeWitnessRewriter rewriter = createRewriter(100);
+        TreeWitnessRewriter rewriterWithoutCache = createRewriter(0);
+
+        IQ query1 = createQuery(ImmutableList.of("x"), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(var("x"), WORKS_FOR, var("y"))));
+        IQ query2 = createQuery(ImmutableList.of("u"), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(var("u"), WORKS_FOR, var("v"))));
+
+        ImmutableSet<ImmutableSet<String>> rewriting1 = getDisjuncts(rewriter.rewrite(query1));
+        assertEquals(0, rewriter.getRewritingCacheHitCount());
+        ImmutableSet<ImmutableSet<String>> rewriting2 = getDisjuncts(rewriter.rewrite(query2));
+        assertEquals(1, rewriter.getRewritingCacheHitCount());
+
+        // worksFor(x, _) OR Employee(x)
+        assertEquals(2, rewriting1.size());
+        assertEquals(getDisjuncts(rewriterWithoutCache.rewrite(query1)), rewriting1);
+        assertEquals(getDisjuncts(rewriterWithoutCache.rewrite(query2)), rewriting2);
+    }
+
+    @Test
+    public void testVariablePredicate() throws Exception {
+        TreeWitnessRewriter rewriter = createRewriter(100);
+        TreeWitnessRewriter rewriterWithoutCache = createRewriter(0);
+
+        IQ query1 = createQuery(ImmutableList.of("s", "p", "o"), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(var("s"), var("p"), var("o"))));
+        IQ query2 = createQuery(ImmutableList.of("a", "b", "c"), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(var("a"), var("b"), var("c"))));
+
+        IQ rewriting1 = rewriter.rewrite(query1);
+        IQ rewriting2 = rewriter.rewrite(query2);
+        assertEquals(1, rewriter.getRewritingCacheHitCount());
+
+        // the answer variable in the property position is kept
+        assertTrue(rewriting1.getTree().getChildren().get(0).getVariables().contains(var("p")));
+        assertTrue(rewriting2.getTree().getChildren().get(0).getVariables().contains(var("b")));
+        assertEquals(getDisjuncts(rewriterWithoutCache.rewrite(query1)), getDisjuncts(rewriting1));
+        assertEquals(getDisjuncts(rewriterWithoutCache.rewrite(query2)), getDisjuncts(rewriting2));
+    }
+
+    @Test
+    public void testSameAsWithoutCache() throws Exception {
+        TreeWitnessRewriter rewriter = createRewriter(100);
+        TreeWitnessRewriter rewriterWithoutCache = createRewriter(0);
+
+        // ?x :worksFor ?y . ?y :worksFor ?z . ?z a :Employee . ?x ?p ?y
+        IQ query = createQuery(ImmutableList.of("x", "p"), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(var("x"), WORKS_FOR, var("y")),
+                ATOM_FACTORY.getIntensionalTripleAtom(var("y"), WORKS_FOR, var("z")),
+                ATOM_FACTORY.getIntensionalTripleAtom(var("z"), EMPLOYEE),
+                ATOM_FACTORY.getIntensionalTripleAtom(var("x"), var("p"), var("y"))));
+
+        ImmutableSet<ImmutableSet<String>> expected = getDisjuncts(rewriterWithoutCache.rewrite(query));
+        assertEquals(expected, getDisjuncts(rewriter.rewrite(query)));
+        // from the cache
+        assertEquals(expected, getDisjuncts(rewriter.rewrite(query)));
+        assertEquals(1, rewriter.getRewritingCacheHitCount());
+    }
+
+    private static TreeWitnessRewriter createRewriter(long rewritingCacheMaxSize) {
+        TreeWitnessRewriter rewriter = new TreeWitnessRewriter(ATOM_FACTORY, TERM_FACTORY, IQ_FACTORY,
+                CONFIGURATION.getInjector().getInstance(CoreUtilsFactory.class),
+                CONFIGURATION.getInjector().getInstance(SubstitutionFactory.class),
+                rewritingCacheMaxSize);
+        rewriter.setTBox(tbox);
+        return rewriter;
+    }
+
+    private static Variable var(String name) {
+        return TERM_FACTORY.getVariable(name);
+    }
+
+    private static IQ createQuery(ImmutableList<String> answerVariables, ImmutableList<DataAtom<AtomPredicate>> atoms) {
+        ImmutableList<Variable> variables = answerVariables.stream()
+                .map(TreeWitnessRewriterCacheTest::var)
+                .collect(ImmutableCollectors.toList());
+        ImmutableList<IQTree> children = atoms.stream()
+                .map(a -> (IQTree) IQ_FACTORY.createIntensionalDataNode(a))
+                .collect(ImmutableCollectors.toList());
+
+        return IQ_FACTORY.createIQ(
+                ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                        ATOM_FACTORY.getRDFAnswerPredicate(variables.size()), variables),
+                IQ_FACTORY.createUnaryIQTree(
+                        IQ_FACTORY.createConstructionNode(ImmutableSet.copyOf(variables)),
+                        children.size() == 1
+                                ? children.get(0)
+                                : IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(), children)));
+    }
+
+    /**
+     * The disjuncts of the rewriting as sets of atoms, where the variables that are not projected
+     * (including the fresh ones) are replaced by _
+     */
+    private static ImmutableSet<ImmutableSet<String>> getDisjuncts(IQ rewriting) {
+        ImmutableSet<Variable> answerVariables = rewriting.getProjectionAtom().getVariables();
+        IQTree child = rewriting.getTree().getChildren().get(0);
+        return (child.getRootNode() instanceof UnionNode ? child.getChildren().stream() : Stream.of(child))
+                .map(d -> getAtoms(d)
+                        .map(a -> a.getArguments().stream()
+                                .map(t -> (t instanceof Variable) && !answerVariables.contains(t) ? "_" : t.toString())
+                                .collect(Collectors.joining(", ", "(", ")")))
+                        .collect(ImmutableCollectors.toSet()))
+                .collect(ImmutableCollectors.toSet());
+    }
+
+    private static Stream<DataAtom<AtomPredicate>> getAtoms(IQTree tree) {
+        return tree.getRootNode() instanceof IntensionalDataNode
+                ? Stream.of(((IntensionalDataNode) tree.getRootNode()).getProjectionAtom())
+                : tree.getChildren().stream().flatMap(TreeWitnessRewriterCacheTest::getAtoms);
+    }
+}
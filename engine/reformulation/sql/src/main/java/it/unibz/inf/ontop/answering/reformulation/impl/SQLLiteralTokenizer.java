@@ -0,0 +1,165 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Optional;
+
+/**
+ * Splits a SQL query string into fragments of SQL text and literals (strings and numbers).
+ *
+ * Only intended for the SQL produced by Ontop: quoted identifiers are skipped, comments are not expected.
+ */
+class SQLLiteralTokenizer {
+
+    // Keywords typing the string literal that follows them (e.g. DATE '2020-01-01')
+    private static final ImmutableSet<String> TYPING_KEYWORDS = ImmutableSet.of("DATE", "TIME", "TIMESTAMP", "INTERVAL");
+
+    enum TokenType {
+        TEXT,
+        STRING_LITERAL,
+        NUMERIC_LITERAL,
+        // e.g. N'abc', DATE '2020-01-01': cannot be replaced by a bind marker
+        TYPED_STRING_LITERAL
+    }
+
+    static class SQLToken {
+        private final TokenType type;
+        // As in the query string
+        private final String text;
+        // Unquoted value for literals
+        private final String value;
+
+        private SQLToken(TokenType type, String text, String value) {
+            this.type = type;
+            this.text = text;
+            this.value = value;
+        }
+
+        TokenType getType() {
+            return type;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        boolean isLiteral() {
+            return type != TokenType.TEXT;
+        }
+    }
+
+    /**
+     * Empty if the query string cannot be safely tokenized
+     * (e.g. a bind marker is already present or a literal is not terminated)
+     */
+    static Optional<ImmutableList<SQLToken>> tokenize(String sql) {
+        ImmutableList.Builder<SQLToken> tokenBuilder = ImmutableList.builder();
+        StringBuilder text = new StringBuilder();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                int start = i;
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length)
+                        return Optional.empty();
+                    char d = sql.charAt(i);
+                    if (d == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            value.append('\'');
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    value.append(d);
+                    i++;
+                }
+                flush(text, tokenBuilder);
+                tokenBuilder.add(new SQLToken(
+                        isTyped(sql, start) ? TokenType.TYPED_STRING_LITERAL : TokenType.STRING_LITERAL,
+                        sql.substring(start, i), value.toString()));
+            }
+            else if (c == '"' || c == '`' || c == '[') {
+                int end = sql.indexOf(c == '[' ? ']' : c, i + 1);
+                if (end < 0)
+                    return Optional.empty();
+                text.append(sql, i, end + 1);
+                i = end + 1;
+            }
+            else if (c == '?')
+                return Optional.empty();
+            else if (isDigit(c) && (i == 0 || !(isIdentifierPart(sql.charAt(i - 1)) || sql.charAt(i - 1) == '.'))) {
+                int end = i;
+                while (end < length && isDigit(sql.charAt(end)))
+                    end++;
+                if (end + 1 < length && sql.charAt(end) == '.' && isDigit(sql.charAt(end + 1))) {
+                    end++;
+                    while (end < length && isDigit(sql.charAt(end)))
+                        end++;
+                }
+                if (end < length && (isIdentifierPart(sql.charAt(end)) || sql.charAt(end) == '.')) {
+                    // Not a plain number (e.g. exponent, hexadecimal)
+                    while (end < length && (isIdentifierPart(sql.charAt(end)) || sql.charAt(end) == '.'))
+                        end++;
+                    text.append(sql, i, end);
+                }
+                else {
+                    flush(text, tokenBuilder);
+                    String number = sql.substring(i, end);
+                    tokenBuilder.add(new SQLToken(TokenType.NUMERIC_LITERAL, number, number));
+                }
+                i = end;
+            }
+            else {
+                text.append(c);
+                i++;
+            }
+        }
+        flush(text, tokenBuilder);
+        return Optional.of(tokenBuilder.build());
+    }
+
+    private static void flush(StringBuilder text, ImmutableList.Builder<SQLToken> tokenBuilder) {
+        if (text.length() > 0) {
+            String fragment = text.toString();
+            tokenBuilder.add(new SQLToken(TokenType.TEXT, fragment, fragment));
+            text.setLength(0);
+        }
+    }
+
+    /**
+     * Prefix (N'abc') or typing keyword (DATE '2020-01-01')
+     */
+    private static boolean isTyped(String sql, int quoteIndex) {
+        if (quoteIndex == 0)
+            return false;
+        if (isIdentifierPart(sql.charAt(quoteIndex - 1)))
+            return true;
+
+        int end = quoteIndex;
+        while (end > 0 && Character.isWhitespace(sql.charAt(end - 1)))
+            end--;
+        int start = end;
+        while (start > 0 && Character.isLetter(sql.charAt(start - 1)))
+            start--;
+        return start < end && TYPING_KEYWORDS.contains(sql.substring(start, end).toUpperCase());
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -0,0 +1,1033 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.answering.logging.impl.QueryTemplateExtractor;
+import it.unibz.inf.ontop.answering.reformulation.QueryTemplateCache;
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.answering.reformulation.impl.SQLLiteralTokenizer.SQLToken;
+import it.unibz.inf.ontop.answering.reformulation.impl.SQLLiteralTokenizer.TokenType;
+import it.unibz.inf.ontop.injection.CoreSingletons;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.transform.impl.HomogeneousIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.ObjectStringTemplateFunctionSymbol;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.RDFTermType;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Query template cache for SQL.
+ *
+ * The constants of the SPARQL query are abstracted into parameters by the QueryTemplateExtractor.
+ * The first instance of a template to be fully reformulated is kept as a sample. When a second instance is fully
+ * reformulated, the constants of the two planned queries are compared. Those that differ must be DB constants
+ * that can be traced back to the parameters: they are replaced by sentinel values and the SQL query is generated
+ * once more. The literals of the sentinels are then replaced by bind markers ("?"), typed after the DB constants,
+ * provided that the SQL queries of the two samples are instances of this parameterized SQL query.
+ * The following instances of the template then reuse it, without being reformulated.
+ *
+ * Two samples agreeing on a parameterized query do not imply that all the other values lead to it:
+ * a value can match a constant of the mapping or another IRI template, and thus select other mapping
+ * assertions (e.g. other UNION branches). The values are therefore only considered as interchangeable when
+ * they "look the same" to the saturated mapping:
+ *   - neither their lexical values nor the parts ending up in the SQL query appear as constants in the mapping,
+ *   - they match the same IRI/bnode templates of the mapping as the samples,
+ *   - the parts ending up in the SQL query have the same shape (integer, decimal or alphanumeric with at least
+ *     one letter) and the same equalities between them as in the samples.
+ * Otherwise, the query is fully reformulated.
+ *
+ * When the cache is disabled, the templates whose parameters all come from VALUES blocks are still considered
+ * if the DESCRIBE queries are batched: their batches only differ by the IRIs of their VALUES block.
+ */
+public class SQLQueryTemplateCache implements QueryTemplateCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SQLQueryTemplateCache.class);
+
+    // After which the template is not considered anymore for parameterization
+    private static final int MAX_FAILED_ATTEMPTS = 5;
+    // For finding a prefix of the sentinel values that does not occur in the SQL query
+    private static final int MAX_SENTINEL_ATTEMPTS = 10;
+    // When only the templates of the VALUES blocks are considered
+    private static final int VALUES_TEMPLATE_CACHE_MAX_SIZE = 100;
+
+    private final boolean isEnabled;
+    // The templates of the DESCRIBE batches
+    private final boolean isValuesTemplateEnabled;
+    @SuppressWarnings("UnstableApiUsage")
+    private final Cache<TemplateKey, TemplateEntry> cache;
+    private final QueryTemplateExtractor queryTemplateExtractor;
+    private final NativeQueryGenerator nativeQueryGenerator;
+    private final IntermediateQueryFactory iqFactory;
+    private final TermFactory termFactory;
+    private final SubstitutionFactory substitutionFactory;
+    // Lexical values of the constants of the saturated mapping
+    private final ImmutableSet<String> mappingConstantValues;
+    // IRI and bnode templates of the saturated mapping
+    private final ImmutableList<Pattern> mappingTemplatePatterns;
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+
+    @AssistedInject
+    private SQLQueryTemplateCache(@Assisted Mapping saturatedMapping,
+                                  @Assisted NativeQueryGenerator nativeQueryGenerator,
+                                  OntopReformulationSettings settings, QueryTemplateExtractor queryTemplateExtractor,
+                                  CoreSingletons coreSingletons) {
+        this.isEnabled = settings.getQueryTemplateCacheMaxSize() > 0;
+        this.isValuesTemplateEnabled = isEnabled || settings.getDescribeBatchSize() > 1;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(isEnabled ? settings.getQueryTemplateCacheMaxSize() : VALUES_TEMPLATE_CACHE_MAX_SIZE)
+                .build();
+        this.queryTemplateExtractor = queryTemplateExtractor;
+        this.nativeQueryGenerator = nativeQueryGenerator;
+        this.iqFactory = coreSingletons.getIQFactory();
+        this.termFactory = coreSingletons.getTermFactory();
+        this.substitutionFactory = coreSingletons.getSubstitutionFactory();
+
+        ImmutableList<ImmutableTerm> mappingTerms = isValuesTemplateEnabled
+                ? saturatedMapping.getRDFAtomPredicates().stream()
+                    .flatMap(p -> saturatedMapping.getQueries(p).stream())
+                    .flatMap(q -> extractTerms(q.getTree()))
+                    .flatMap(SQLQueryTemplateCache::extractSubTerms)
+                    .collect(ImmutableCollectors.toList())
+                : ImmutableList.of();
+        this.mappingConstantValues = mappingTerms.stream()
+                .filter(t -> t instanceof Constant)
+                .map(t -> ((Constant) t).getValue())
+                .collect(ImmutableCollectors.toSet());
+        this.mappingTemplatePatterns = mappingTerms.stream()
+                .filter(t -> t instanceof ImmutableFunctionalTerm)
+                .map(t -> ((ImmutableFunctionalTerm) t).getFunctionSymbol())
+                .filter(f -> f instanceof ObjectStringTemplateFunctionSymbol)
+                .map(f -> ((ObjectStringTemplateFunctionSymbol) f).getTemplateComponents())
+                .distinct()
+                .map(SQLQueryTemplateCache::toPattern)
+                .collect(ImmutableCollectors.toList());
+    }
+
+    @Override
+    public Optional<IQ> get(IQ sparqlIQ) {
+        if (!isValuesTemplateEnabled)
+            return Optional.empty();
+
+        Optional<TemplateInstance> instance = extractInstance(sparqlIQ)
+                .filter(this::isConsidered);
+        if (!instance.isPresent())
+            return Optional.empty();
+
+        Optional<IQ> executableQuery = Optional.ofNullable(cache.getIfPresent(instance.get().key))
+                .flatMap(TemplateEntry::getParameterizedQuery)
+                .flatMap(q -> q.instantiate(instance.get().values));
+        (executableQuery.isPresent() ? hitCount : missCount).incrementAndGet();
+        return executableQuery;
+    }
+
+    @Override
+    public void put(IQ sparqlIQ, IQ plannedQuery, IQ executableQuery) {
+        if (!isValuesTemplateEnabled)
+            return;
+
+        extractInstance(sparqlIQ)
+                .filter(this::isConsidered)
+                .ifPresent(i -> cache.asMap().computeIfAbsent(i.key, k -> new TemplateEntry())
+                        .learn(new Sample(i.values, plannedQuery, executableQuery)));
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private boolean isConsidered(TemplateInstance instance) {
+        return (isEnabled || instance.isValuesTemplate) && hasNoMappingConstant(instance);
+    }
+
+    /**
+     * The constants of the mapping may select specific mapping assertions
+     */
+    private boolean hasNoMappingConstant(TemplateInstance instance) {
+        return instance.values.stream()
+                .noneMatch(v -> isMappingConstant(v.getValue()));
+    }
+
+    /**
+     * Only RDF constants are supported as parameters
+     */
+    private Optional<TemplateInstance> extractInstance(IQ sparqlIQ) {
+        Optional<Map.Entry<IQTree, ImmutableMap<GroundTerm, Variable>>> extraction =
+                queryTemplateExtractor.extractTemplateTree(sparqlIQ.getTree());
+        if (!extraction.isPresent())
+            return Optional.empty();
+
+        ImmutableMap<GroundTerm, Variable> parameterMap = extraction.get().getValue();
+        if (!parameterMap.keySet().stream().allMatch(t -> t instanceof RDFConstant))
+            return Optional.empty();
+
+        ImmutableList<RDFConstant> values = parameterMap.keySet().stream()
+                .map(t -> (RDFConstant) t)
+                .collect(ImmutableCollectors.toList());
+
+        ImmutableSet<RDFConstant> valuesConstants = extractValuesConstants(sparqlIQ.getTree())
+                .collect(ImmutableCollectors.toSet());
+
+        return Optional.of(new TemplateInstance(
+                new TemplateKey(sparqlIQ.getProjectionAtom(), extraction.get().getKey(), values.stream()
+                        .map(RDFConstant::getType)
+                        .collect(ImmutableCollectors.toList())),
+                values,
+                valuesConstants.containsAll(values)));
+    }
+
+    /**
+     * Constants of the rows of the VALUES blocks (abstracted into parameters by the QueryTemplateExtractor)
+     */
+    private static Stream<RDFConstant> extractValuesConstants(IQTree tree) {
+        if (!(tree.getRootNode() instanceof UnionNode))
+            return tree.getChildren().stream()
+                    .flatMap(SQLQueryTemplateCache::extractValuesConstants);
+
+        return tree.getChildren().stream()
+                .flatMap(c -> QueryTemplateExtractor.isValuesRow(c)
+                        ? ((ConstructionNode) c.getRootNode()).getSubstitution().getImmutableMap().values().stream()
+                            .filter(QueryTemplateExtractor::isValuesConstant)
+                            .map(t -> (RDFConstant) t)
+                        : extractValuesConstants(c));
+    }
+
+    private static Stream<ImmutableTerm> extractTerms(IQTree tree) {
+        QueryNode node = tree.getRootNode();
+        Stream<? extends ImmutableTerm> terms;
+        if (node instanceof ExtendedProjectionNode)
+            terms = ((ExtendedProjectionNode) node).getSubstitution().getImmutableMap().values().stream();
+        else if (node instanceof JoinOrFilterNode)
+            terms = ((JoinOrFilterNode) node).getOptionalFilterCondition()
+                    .map(Stream::of)
+                    .orElseGet(Stream::empty);
+        else if (node instanceof ExtensionalDataNode)
+            terms = ((ExtensionalDataNode) node).getArgumentMap().values().stream();
+        else
+            terms = Stream.empty();
+
+        return Stream.concat(terms, tree.getChildren().stream().flatMap(SQLQueryTemplateCache::extractTerms));
+    }
+
+    private static Stream<ImmutableTerm> extractSubTerms(ImmutableTerm term) {
+        return (term instanceof ImmutableFunctionalTerm)
+                ? Stream.concat(Stream.of(term), ((ImmutableFunctionalTerm) term).getTerms().stream()
+                    .flatMap(SQLQueryTemplateCache::extractSubTerms))
+                : Stream.of(term);
+    }
+
+    /**
+     * Over-approximation of the strings the template can produce
+     */
+    private static Pattern toPattern(ImmutableList<Template.Component> components) {
+        return Pattern.compile(components.stream()
+                .map(c -> c.isColumnNameReference() ? ".*" : Pattern.quote(c.getComponent()))
+                .collect(Collectors.joining()), Pattern.DOTALL);
+    }
+
+    /**
+     * Indexes of the templates of the mapping matching each value
+     */
+    private ImmutableList<ImmutableSet<Integer>> getTemplateProfile(ImmutableList<RDFConstant> values) {
+        return values.stream()
+                .map(v -> IntStream.range(0, mappingTemplatePatterns.size())
+                        .filter(i -> mappingTemplatePatterns.get(i).matcher(v.getValue()).matches())
+                        .boxed()
+                        .collect(ImmutableCollectors.toSet()))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private boolean isMappingConstant(String value) {
+        return mappingConstantValues.contains(value);
+    }
+
+    /**
+     * Index of the first occurrence of each value: captures the equalities between them
+     */
+    private static ImmutableList<Integer> getEqualityPattern(ImmutableList<String> values) {
+        return values.stream()
+                .map(values::indexOf)
+                .collect(ImmutableCollectors.toList());
+    }
+
+    /**
+     * Empty if the two samples cannot be explained by one parameterized query
+     */
+    private Optional<ParameterizedQuery> parameterize(Sample sample1, Sample sample2) {
+        ImmutableList<RDFConstant> values1 = sample1.values;
+        ImmutableList<RDFConstant> values2 = sample2.values;
+        if (IntStream.range(0, values1.size())
+                .anyMatch(i -> values1.get(i).getValue().equals(values2.get(i).getValue())))
+            return Optional.empty();
+
+        ImmutableList<ImmutableSet<Integer>> templateProfile = getTemplateProfile(values1);
+        if (!templateProfile.equals(getTemplateProfile(values2)))
+            return Optional.empty();
+
+        IQ query1 = sample1.executableQuery;
+        IQ query2 = sample2.executableQuery;
+        if (!(query1.getProjectionAtom().equals(query2.getProjectionAtom())
+                && sample1.plannedQuery.getProjectionAtom().equals(sample2.plannedQuery.getProjectionAtom())))
+            return Optional.empty();
+
+        // Aligns the constants of the two planned queries
+        List<Constant> constants1 = new ArrayList<>();
+        List<Constant> constants2 = new ArrayList<>();
+        IQTree placeholderTree1 = transformConstants(sample1.plannedQuery.getTree(), c -> toPlaceholder(c, constants1));
+        IQTree placeholderTree2 = transformConstants(sample2.plannedQuery.getTree(), c -> toPlaceholder(c, constants2));
+        if (!placeholderTree1.isEquivalentTo(placeholderTree2))
+            return Optional.empty();
+
+        // Indexes of the DB constants depending on the parameters
+        Map<Integer, ValueDerivation> markerDerivations = new HashMap<>();
+        for (int i = 0; i < constants1.size(); i++) {
+            Constant constant1 = constants1.get(i);
+            Constant constant2 = constants2.get(i);
+            if (constant1.equals(constant2) || !(constant1 instanceof DBConstant))
+                continue;
+
+            Optional<ValueDerivation> derivation = ValueDerivation.find(constant1.getValue(), constant2.getValue(),
+                    values1, values2);
+            if (!(derivation.isPresent()
+                    && isBindable(((DBConstant) constant1).getType(), derivation.get().valueShape)))
+                return Optional.empty();
+            markerDerivations.put(i, derivation.get());
+        }
+
+        Optional<ConstructionNode> constructionNode1 = extractConstructionNode(query1.getTree());
+        Optional<ConstructionNode> constructionNode2 = extractConstructionNode(query2.getTree());
+        Optional<NativeNode> nativeNode1 = extractNativeNode(query1.getTree());
+        Optional<NativeNode> nativeNode2 = extractNativeNode(query2.getTree());
+        if (!(constructionNode1.isPresent() && constructionNode2.isPresent()
+                && nativeNode1.isPresent() && nativeNode2.isPresent()))
+            return Optional.empty();
+
+        NativeNode nativeNode = nativeNode1.get();
+        if (!haveSameSignature(nativeNode, nativeNode2.get()))
+            return Optional.empty();
+
+        Optional<String> sentinelPrefix = findSentinelPrefix(nativeNode.getNativeQueryString(), constants1);
+        if (!sentinelPrefix.isPresent())
+            return Optional.empty();
+
+        // Sentinel values of the markers
+        Map<String, Integer> sentinels = new HashMap<>();
+        AtomicInteger constantIndex = new AtomicInteger(0);
+        IQTree markerTree = transformConstants(sample1.plannedQuery.getTree(), c -> {
+            int index = constantIndex.getAndIncrement();
+            if (!markerDerivations.containsKey(index))
+                return c;
+            String sentinel = sentinelPrefix.get() + index;
+            sentinels.put(sentinel, index);
+            return termFactory.getDBConstant(sentinel, ((DBConstant) c).getType());
+        });
+        Optional<NativeNode> markerNativeNode = extractNativeNode(nativeQueryGenerator.generateSourceQuery(
+                iqFactory.createIQ(sample1.plannedQuery.getProjectionAtom(), markerTree)).getTree());
+        if (!(markerNativeNode.isPresent() && haveSameSignature(nativeNode, markerNativeNode.get())))
+            return Optional.empty();
+
+        Optional<ImmutableList<SQLToken>> markerTokens = SQLLiteralTokenizer.tokenize(
+                markerNativeNode.get().getNativeQueryString());
+        Optional<ImmutableList<SQLToken>> tokens1 = SQLLiteralTokenizer.tokenize(nativeNode.getNativeQueryString());
+        Optional<ImmutableList<SQLToken>> tokens2 = SQLLiteralTokenizer.tokenize(
+                nativeNode2.get().getNativeQueryString());
+        if (!(markerTokens.isPresent() && tokens1.isPresent() && tokens2.isPresent())
+                || markerTokens.get().size() != tokens1.get().size()
+                || markerTokens.get().size() != tokens2.get().size())
+            return Optional.empty();
+
+        StringBuilder sqlBuilder = new StringBuilder();
+        ImmutableList.Builder<SQLParameter> sqlParameterBuilder = ImmutableList.builder();
+        ImmutableList.Builder<String> sqlValueBuilder1 = ImmutableList.builder();
+        ImmutableList.Builder<String> sqlValueBuilder2 = ImmutableList.builder();
+        Set<Integer> parametersInSQL = new HashSet<>();
+        for (int i = 0; i < markerTokens.get().size(); i++) {
+            SQLToken markerToken = markerTokens.get().get(i);
+            SQLToken token1 = tokens1.get().get(i);
+            SQLToken token2 = tokens2.get().get(i);
+            Integer index = markerToken.isLiteral() ? sentinels.get(markerToken.getValue()) : null;
+            // Fixed part: must be the same in the SQL queries of the samples
+            if (index == null) {
+                if (markerToken.getText().contains(sentinelPrefix.get())
+                        || !markerToken.getText().equals(token1.getText())
+                        || !markerToken.getText().equals(token2.getText()))
+                    return Optional.empty();
+                sqlBuilder.append(markerToken.getText());
+                continue;
+            }
+
+            DBConstant constant1 = (DBConstant) constants1.get(index);
+            DBConstant constant2 = (DBConstant) constants2.get(index);
+            TokenType literalType = constant1.getType().getCategory() == DBTermType.Category.STRING
+                    ? TokenType.STRING_LITERAL
+                    : TokenType.NUMERIC_LITERAL;
+            if (!(markerToken.getType() == literalType
+                    && token1.getType() == literalType && token1.getValue().equals(constant1.getValue())
+                    && token2.getType() == literalType && token2.getValue().equals(constant2.getValue())))
+                return Optional.empty();
+
+            if (isMappingConstant(constant1.getValue()) || isMappingConstant(constant2.getValue()))
+                return Optional.empty();
+            sqlValueBuilder1.add(constant1.getValue());
+            sqlValueBuilder2.add(constant2.getValue());
+
+            ValueDerivation derivation = markerDerivations.get(index);
+            sqlBuilder.append("?");
+            sqlParameterBuilder.add(new SQLParameter(derivation, constant1.getType()));
+            parametersInSQL.add(derivation.parameterIndex);
+        }
+
+        // The SQL query must depend on all the parameters
+        if (parametersInSQL.size() != values1.size())
+            return Optional.empty();
+
+        ImmutableList<Integer> equalityPattern = getEqualityPattern(sqlValueBuilder1.build());
+        if (!equalityPattern.equals(getEqualityPattern(sqlValueBuilder2.build())))
+            return Optional.empty();
+
+        ConstructionNode constructionNode = constructionNode1.get();
+        ImmutableMap<Variable, ImmutableTerm> substitutionMap1 = constructionNode.getSubstitution().getImmutableMap();
+        ImmutableMap<Variable, ImmutableTerm> substitutionMap2 = constructionNode2.get().getSubstitution()
+                .getImmutableMap();
+        if (!(constructionNode.getVariables().equals(constructionNode2.get().getVariables())
+                && substitutionMap1.keySet().equals(substitutionMap2.keySet())))
+            return Optional.empty();
+
+        ImmutableMap.Builder<Variable, TermTemplate> termTemplateBuilder = ImmutableMap.builder();
+        for (Map.Entry<Variable, ImmutableTerm> entry : substitutionMap1.entrySet()) {
+            Optional<TermTemplate> termTemplate = parameterize(entry.getValue(), substitutionMap2.get(entry.getKey()),
+                    values1, values2);
+            if (!termTemplate.isPresent())
+                return Optional.empty();
+            termTemplateBuilder.put(entry.getKey(), termTemplate.get());
+        }
+        ImmutableMap<Variable, TermTemplate> termTemplates = termTemplateBuilder.build();
+
+        return Optional.of(new ParameterizedQuery(query1.getProjectionAtom(), constructionNode,
+                termTemplates.values().stream().allMatch(t -> t instanceof FixedTerm) ? null : termTemplates,
+                nativeNode, sqlBuilder.toString(), sqlParameterBuilder.build(), templateProfile, equalityPattern));
+    }
+
+    /**
+     * The values of the parameter are bound with the JDBC type of the DB datatype
+     * (see SQLQuestStatement): they must be valid lexical values of it
+     */
+    private static boolean isBindable(DBTermType type, ValueShape valueShape) {
+        switch (type.getCategory()) {
+            case STRING:
+                return true;
+            case INTEGER:
+                return valueShape == ValueShape.INTEGER;
+            case DECIMAL:
+            case FLOAT_DOUBLE:
+                return valueShape != ValueShape.ALPHANUMERIC;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean haveSameSignature(NativeNode nativeNode1, NativeNode nativeNode2) {
+        return nativeNode1.getParameters().isEmpty()
+                && nativeNode2.getParameters().isEmpty()
+                && nativeNode1.getVariables().equals(nativeNode2.getVariables())
+                && nativeNode1.getTypeMap().equals(nativeNode2.getTypeMap())
+                && nativeNode1.getColumnNames().equals(nativeNode2.getColumnNames())
+                && nativeNode1.isOrdered() == nativeNode2.isOrdered();
+    }
+
+    /**
+     * Digits occurring neither in the SQL query nor in the constants
+     */
+    private static Optional<String> findSentinelPrefix(String sqlQuery, List<Constant> constants) {
+        for (int i = 0; i < MAX_SENTINEL_ATTEMPTS; i++) {
+            String prefix = String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000L, 1_000_000_000L));
+            if (!sqlQuery.contains(prefix) && constants.stream().noneMatch(c -> c.getValue().contains(prefix)))
+                return Optional.of(prefix);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Records the constant and replaces it by a constant of the same type only telling its position
+     */
+    private Constant toPlaceholder(Constant constant, List<Constant> constants) {
+        String position = String.valueOf(constants.size());
+        constants.add(constant);
+        if (constant instanceof DBConstant)
+            return termFactory.getDBConstant(position, ((DBConstant) constant).getType());
+        // Also a valid IRI
+        if (constant instanceof RDFConstant)
+            return termFactory.getRDFConstant("urn:placeholder:" + position, ((RDFConstant) constant).getType());
+        return constant;
+    }
+
+    /**
+     * Visits the constants in the same order for equivalent trees
+     */
+    private IQTree transformConstants(IQTree tree, Function<Constant, Constant> function) {
+        return tree.acceptTransformer(new HomogeneousIQTreeVisitingTransformer(
+                new ConstantTransformer(function), iqFactory));
+    }
+
+    private Optional<TermTemplate> parameterize(ImmutableTerm term1, ImmutableTerm term2,
+                                                ImmutableList<RDFConstant> values1,
+                                                ImmutableList<RDFConstant> values2) {
+        if (term1.equals(term2))
+            return Optional.of(new FixedTerm(term1));
+
+        if ((term1 instanceof RDFConstant) && (term2 instanceof RDFConstant)) {
+            int index = values1.indexOf(term1);
+            if (index >= 0 && values2.get(index).equals(term2))
+                return Optional.of(new ParameterTerm(index));
+        }
+
+        boolean haveSameType = ((term1 instanceof RDFConstant) && (term2 instanceof RDFConstant)
+                    && ((RDFConstant) term1).getType().equals(((RDFConstant) term2).getType()))
+                || ((term1 instanceof DBConstant) && (term2 instanceof DBConstant)
+                    && ((DBConstant) term1).getType().equals(((DBConstant) term2).getType()));
+        if (haveSameType) {
+            Constant constant1 = (Constant) term1;
+            return ValueDerivation.find(constant1.getValue(), ((Constant) term2).getValue(), values1, values2)
+                    .map(d -> new DerivedConstantTerm(d, constant1));
+        }
+
+        if ((term1 instanceof ImmutableFunctionalTerm) && (term2 instanceof ImmutableFunctionalTerm)) {
+            ImmutableFunctionalTerm functionalTerm1 = (ImmutableFunctionalTerm) term1;
+            ImmutableFunctionalTerm functionalTerm2 = (ImmutableFunctionalTerm) term2;
+            if (!(functionalTerm1.getFunctionSymbol().equals(functionalTerm2.getFunctionSymbol())
+                    && functionalTerm1.getArity() == functionalTerm2.getArity()))
+                return Optional.empty();
+
+            ImmutableList.Builder<TermTemplate> argumentBuilder = ImmutableList.builder();
+            for (int i = 0; i < functionalTerm1.getArity(); i++) {
+                Optional<TermTemplate> argument = parameterize(functionalTerm1.getTerm(i), functionalTerm2.getTerm(i),
+                        values1, values2);
+                if (!argument.isPresent())
+                    return Optional.empty();
+                argumentBuilder.add(argument.get());
+            }
+            return Optional.of(new FunctionalTermTemplate(functionalTerm1, argumentBuilder.build()));
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ConstructionNode> extractConstructionNode(IQTree tree) {
+        return Optional.of(tree.getRootNode())
+                .filter(n -> n instanceof ConstructionNode)
+                .map(n -> (ConstructionNode) n);
+    }
+
+    private static Optional<NativeNode> extractNativeNode(IQTree tree) {
+        return Optional.of(tree)
+                .filter(t -> t instanceof UnaryIQTree)
+                .map(t -> ((UnaryIQTree) t).getChild().getRootNode())
+                .filter(n -> n instanceof NativeNode)
+                .map(n -> (NativeNode) n);
+    }
+
+
+    private static class TemplateKey {
+        private final DistinctVariableOnlyDataAtom projectionAtom;
+        private final IQTree templateTree;
+        private final ImmutableList<RDFTermType> parameterTypes;
+        // Hashing a tree is costly
+        private final int hashCode;
+
+        private TemplateKey(DistinctVariableOnlyDataAtom projectionAtom, IQTree templateTree,
+                            ImmutableList<RDFTermType> parameterTypes) {
+            this.projectionAtom = projectionAtom;
+            this.templateTree = templateTree;
+            this.parameterTypes = parameterTypes;
+            this.hashCode = Objects.hash(projectionAtom, templateTree.toString(), parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TemplateKey)) return false;
+            TemplateKey other = (TemplateKey) o;
+            return hashCode == other.hashCode
+                    && projectionAtom.equals(other.projectionAtom)
+                    && parameterTypes.equals(other.parameterTypes)
+                    && templateTree.isEquivalentTo(other.templateTree);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class TemplateInstance {
+        private final TemplateKey key;
+        private final ImmutableList<RDFConstant> values;
+        // All the parameters come from VALUES blocks
+        private final boolean isValuesTemplate;
+
+        private TemplateInstance(TemplateKey key, ImmutableList<RDFConstant> values, boolean isValuesTemplate) {
+            this.key = key;
+            this.values = values;
+            this.isValuesTemplate = isValuesTemplate;
+        }
+    }
+
+    /**
+     * Fully reformulated instance of a template
+     */
+    private static class Sample {
+        private final ImmutableList<RDFConstant> values;
+        private final IQ plannedQuery;
+        private final IQ executableQuery;
+
+        private Sample(ImmutableList<RDFConstant> values, IQ plannedQuery, IQ executableQuery) {
+            this.values = values;
+            this.plannedQuery = plannedQuery;
+            this.executableQuery = executableQuery;
+        }
+    }
+
+    /**
+     * Keeps the last sample until a parameterized query could be built
+     */
+    private class TemplateEntry {
+        @Nullable
+        private volatile ParameterizedQuery parameterizedQuery;
+
+        // Guarded by this
+        @Nullable
+        private Sample sample;
+        private int failedAttempts;
+
+        Optional<ParameterizedQuery> getParameterizedQuery() {
+            return Optional.ofNullable(parameterizedQuery);
+        }
+
+        synchronized void learn(Sample newSample) {
+            if (parameterizedQuery != null || failedAttempts >= MAX_FAILED_ATTEMPTS)
+                return;
+
+            if (sample != null) {
+                Optional<ParameterizedQuery> newParameterizedQuery = parameterize(sample, newSample);
+                if (newParameterizedQuery.isPresent()) {
+                    parameterizedQuery = newParameterizedQuery.get();
+                    sample = null;
+                    LOGGER.debug("Parameterized native query:\n{}", parameterizedQuery.sqlString);
+                    return;
+                }
+                failedAttempts++;
+            }
+            sample = newSample;
+        }
+    }
+
+    private class ParameterizedQuery {
+        private final DistinctVariableOnlyDataAtom projectionAtom;
+        private final ConstructionNode constructionNode;
+        // Null when the construction node does not depend on the parameters
+        @Nullable
+        private final ImmutableMap<Variable, TermTemplate> termTemplates;
+        private final NativeNode nativeNode;
+        private final String sqlString;
+        private final ImmutableList<SQLParameter> sqlParameters;
+        // Of the samples
+        private final ImmutableList<ImmutableSet<Integer>> templateProfile;
+        private final ImmutableList<Integer> equalityPattern;
+
+        private ParameterizedQuery(DistinctVariableOnlyDataAtom projectionAtom,
+                                   ConstructionNode constructionNode,
+                                   @Nullable ImmutableMap<Variable, TermTemplate> termTemplates,
+                                   NativeNode nativeNode, String sqlString,
+                                   ImmutableList<SQLParameter> sqlParameters,
+                                   ImmutableList<ImmutableSet<Integer>> templateProfile,
+                                   ImmutableList<Integer> equalityPattern) {
+            this.projectionAtom = projectionAtom;
+            this.constructionNode = constructionNode;
+            this.termTemplates = termTemplates;
+            this.nativeNode = nativeNode;
+            this.sqlString = sqlString;
+            this.sqlParameters = sqlParameters;
+            this.templateProfile = templateProfile;
+            this.equalityPattern = equalityPattern;
+        }
+
+        /**
+         * Empty if some values do not fit
+         */
+        Optional<IQ> instantiate(ImmutableList<RDFConstant> values) {
+            if (!templateProfile.equals(getTemplateProfile(values)))
+                return Optional.empty();
+
+            ImmutableList.Builder<String> sqlValueBuilder = ImmutableList.builder();
+            for (SQLParameter sqlParameter : sqlParameters) {
+                Optional<String> value = sqlParameter.derivation.apply(values);
+                if (!value.isPresent() || isMappingConstant(value.get()))
+                    return Optional.empty();
+                sqlValueBuilder.add(value.get());
+            }
+            ImmutableList<String> sqlValues = sqlValueBuilder.build();
+            if (!equalityPattern.equals(getEqualityPattern(sqlValues)))
+                return Optional.empty();
+
+            ImmutableList<DBConstant> parameters = IntStream.range(0, sqlParameters.size())
+                    .mapToObj(i -> termFactory.getDBConstant(sqlValues.get(i), sqlParameters.get(i).type))
+                    .collect(ImmutableCollectors.toList());
+
+            ConstructionNode newConstructionNode;
+            if (termTemplates == null)
+                newConstructionNode = constructionNode;
+            else {
+                ImmutableMap.Builder<Variable, ImmutableTerm> substitutionBuilder = ImmutableMap.builder();
+                for (Map.Entry<Variable, TermTemplate> entry : termTemplates.entrySet()) {
+                    Optional<ImmutableTerm> term = entry.getValue().instantiate(values);
+                    if (!term.isPresent())
+                        return Optional.empty();
+                    substitutionBuilder.put(entry.getKey(), term.get());
+                }
+                newConstructionNode = iqFactory.createConstructionNode(constructionNode.getVariables(),
+                        substitutionFactory.getSubstitution(substitutionBuilder.build()));
+            }
+
+            NativeNode newNativeNode = iqFactory.createNativeNode(nativeNode.getVariables(), nativeNode.getTypeMap(),
+                    nativeNode.getColumnNames(), sqlString, nativeNode.getVariableNullability(),
+                    parameters, nativeNode.isOrdered());
+
+            return Optional.of(iqFactory.createIQ(projectionAtom,
+                    iqFactory.createUnaryIQTree(newConstructionNode, newNativeNode)));
+        }
+    }
+
+    private static class SQLParameter {
+        private final ValueDerivation derivation;
+        private final DBTermType type;
+
+        private SQLParameter(ValueDerivation derivation, DBTermType type) {
+            this.derivation = derivation;
+            this.type = type;
+        }
+    }
+
+    private enum ValueShape {
+        INTEGER("-?(0|[1-9][0-9]*)"),
+        DECIMAL("-?(0|[1-9][0-9]*)\\.[0-9]+"),
+        // At least one letter: an integer column cannot match it (unlike the integer values)
+        ALPHANUMERIC("[A-Za-z0-9]*[A-Za-z][A-Za-z0-9]*");
+
+        private final Pattern pattern;
+
+        ValueShape(String regex) {
+            this.pattern = Pattern.compile(regex);
+        }
+
+        boolean matches(String value) {
+            return pattern.matcher(value).matches();
+        }
+
+        @Nullable
+        static ValueShape of(String value1, String value2) {
+            for (ValueShape shape : values()) {
+                if (shape.matches(value1) && shape.matches(value2))
+                    return shape;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The value is the part of the lexical value of the parameter between a fixed prefix and a fixed suffix
+     * (e.g. the IRI template argument).
+     */
+    private static class ValueDerivation {
+        private final int parameterIndex;
+        private final String prefix;
+        private final String suffix;
+        private final ValueShape valueShape;
+
+        private ValueDerivation(int parameterIndex, String prefix, String suffix, ValueShape valueShape) {
+            this.parameterIndex = parameterIndex;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.valueShape = valueShape;
+        }
+
+        Optional<String> apply(ImmutableList<RDFConstant> values) {
+            String lexicalValue = values.get(parameterIndex).getValue();
+            if (lexicalValue.length() <= prefix.length() + suffix.length()
+                    || !lexicalValue.startsWith(prefix) || !lexicalValue.endsWith(suffix))
+                return Optional.empty();
+            String value = lexicalValue.substring(prefix.length(), lexicalValue.length() - suffix.length());
+            return valueShape.matches(value)
+                    ? Optional.of(value)
+                    : Optional.empty();
+        }
+
+        /**
+         * Only if there is exactly one derivation explaining both samples
+         */
+        static Optional<ValueDerivation> find(String value1, String value2, ImmutableList<RDFConstant> values1,
+                                              ImmutableList<RDFConstant> values2) {
+            ValueShape shape = ValueShape.of(value1, value2);
+            if (shape == null)
+                return Optional.empty();
+
+            List<ValueDerivation> candidates = new ArrayList<>();
+            for (int i = 0; i < values1.size(); i++) {
+                String lexicalValue1 = values1.get(i).getValue();
+                String lexicalValue2 = values2.get(i).getValue();
+                for (int start = lexicalValue1.indexOf(value1); start >= 0;
+                     start = lexicalValue1.indexOf(value1, start + 1)) {
+                    String prefix = lexicalValue1.substring(0, start);
+                    String suffix = lexicalValue1.substring(start + value1.length());
+                    if (lexicalValue2.equals(prefix + value2 + suffix))
+                        candidates.add(new ValueDerivation(i, prefix, suffix, shape));
+                }
+            }
+            return candidates.size() == 1
+                    ? Optional.of(candidates.get(0))
+                    : Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the constants of the node (the entries of the substitutions and the arguments
+     * of the data nodes are visited in the order of their keys)
+     */
+    private class ConstantTransformer implements HomogeneousQueryNodeTransformer {
+        private final Function<Constant, Constant> function;
+
+        private ConstantTransformer(Function<Constant, Constant> function) {
+            this.function = function;
+        }
+
+        @Override
+        public FilterNode transform(FilterNode filterNode) {
+            return iqFactory.createFilterNode(transformExpression(filterNode.getFilterCondition()));
+        }
+
+        @Override
+        public ExtensionalDataNode transform(ExtensionalDataNode extensionalDataNode) {
+            ImmutableMap<Integer, ? extends VariableOrGroundTerm> argumentMap = extensionalDataNode.getArgumentMap();
+            return iqFactory.createExtensionalDataNode(extensionalDataNode.getRelationDefinition(),
+                    argumentMap.keySet().stream()
+                            .sorted()
+                            .collect(ImmutableCollectors.toMap(
+                                    i -> i,
+                                    i -> transformArgument(argumentMap.get(i)))));
+        }
+
+        @Override
+        public LeftJoinNode transform(LeftJoinNode leftJoinNode) {
+            return iqFactory.createLeftJoinNode(leftJoinNode.getOptionalFilterCondition()
+                    .map(this::transformExpression));
+        }
+
+        @Override
+        public UnionNode transform(UnionNode unionNode) {
+            return unionNode;
+        }
+
+        @Override
+        public IntensionalDataNode transform(IntensionalDataNode intensionalDataNode) {
+            return intensionalDataNode;
+        }
+
+        @Override
+        public InnerJoinNode transform(InnerJoinNode innerJoinNode) {
+            return iqFactory.createInnerJoinNode(innerJoinNode.getOptionalFilterCondition()
+                    .map(this::transformExpression));
+        }
+
+        @Override
+        public ConstructionNode transform(ConstructionNode constructionNode) {
+            return iqFactory.createConstructionNode(constructionNode.getVariables(),
+                    substitutionFactory.getSubstitution(transformSubstitutionMap(
+                            constructionNode.getSubstitution().getImmutableMap())));
+        }
+
+        @Override
+        public AggregationNode transform(AggregationNode aggregationNode) {
+            ImmutableMap<Variable, ImmutableTerm> substitutionMap = transformSubstitutionMap(
+                    aggregationNode.getSubstitution().getImmutableMap());
+            return iqFactory.createAggregationNode(aggregationNode.getGroupingVariables(),
+                    substitutionFactory.getSubstitution(substitutionMap.entrySet().stream()
+                            .collect(ImmutableCollectors.toMap(
+                                    Map.Entry::getKey,
+                                    e -> (ImmutableFunctionalTerm) e.getValue()))));
+        }
+
+        @Override
+        public EmptyNode transform(EmptyNode emptyNode) {
+            return emptyNode;
+        }
+
+        @Override
+        public TrueNode transform(TrueNode trueNode) {
+            return trueNode;
+        }
+
+        @Override
+        public DistinctNode transform(DistinctNode distinctNode) {
+            return distinctNode;
+        }
+
+        @Override
+        public SliceNode transform(SliceNode sliceNode) {
+            return sliceNode;
+        }
+
+        @Override
+        public OrderByNode transform(OrderByNode orderByNode) {
+            ImmutableList.Builder<OrderByNode.OrderComparator> comparatorBuilder = ImmutableList.builder();
+            for (OrderByNode.OrderComparator comparator : orderByNode.getComparators()) {
+                comparatorBuilder.add(iqFactory.createOrderComparator(
+                        (NonGroundTerm) transformTerm(comparator.getTerm()), comparator.isAscending()));
+            }
+            return iqFactory.createOrderByNode(comparatorBuilder.build());
+        }
+
+        private ImmutableMap<Variable, ImmutableTerm> transformSubstitutionMap(
+                ImmutableMap<Variable, ? extends ImmutableTerm> substitutionMap) {
+            ImmutableMap.Builder<Variable, ImmutableTerm> builder = ImmutableMap.builder();
+            substitutionMap.keySet().stream()
+                    .sorted(Comparator.comparing(Variable::getName))
+                    .forEachOrdered(v -> builder.put(v, transformTerm(substitutionMap.get(v))));
+            return builder.build();
+        }
+
+        /**
+         * The ground functional terms are kept as such
+         */
+        private VariableOrGroundTerm transformArgument(VariableOrGroundTerm argument) {
+            return (argument instanceof Constant)
+                    ? function.apply((Constant) argument)
+                    : argument;
+        }
+
+        private ImmutableExpression transformExpression(ImmutableExpression expression) {
+            return (ImmutableExpression) transformTerm(expression);
+        }
+
+        private ImmutableTerm transformTerm(ImmutableTerm term) {
+            if (term instanceof Constant)
+                return function.apply((Constant) term);
+            if (!(term instanceof ImmutableFunctionalTerm))
+                return term;
+
+            ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term;
+            ImmutableList.Builder<ImmutableTerm> argumentBuilder = ImmutableList.builder();
+            for (ImmutableTerm argument : functionalTerm.getTerms())
+                argumentBuilder.add(transformTerm(argument));
+            return termFactory.getImmutableFunctionalTerm(functionalTerm.getFunctionSymbol(), argumentBuilder.build());
+        }
+    }
+
+    private interface TermTemplate {
+        Optional<ImmutableTerm> instantiate(ImmutableList<RDFConstant> values);
+    }
+
+    private static class FixedTerm implements TermTemplate {
+        private final ImmutableTerm term;
+
+        private FixedTerm(ImmutableTerm term) {
+            this.term = term;
+        }
+
+        @Override
+        public Optional<ImmutableTerm> instantiate(ImmutableList<RDFConstant> values) {
+            return Optional.of(term);
+        }
+    }
+
+    private static class ParameterTerm implements TermTemplate {
+        private final int parameterIndex;
+
+        private ParameterTerm(int parameterIndex) {
+            this.parameterIndex = parameterIndex;
+        }
+
+        @Override
+        public Optional<ImmutableTerm> instantiate(ImmutableList<RDFConstant> values) {
+            return Optional.of(values.get(parameterIndex));
+        }
+    }
+
+    private class DerivedConstantTerm implements TermTemplate {
+        private final ValueDerivation derivation;
+        private final Constant sampleConstant;
+
+        private DerivedConstantTerm(ValueDerivation derivation, Constant sampleConstant) {
+            this.derivation = derivation;
+            this.sampleConstant = sampleConstant;
+        }
+
+        @Override
+        public Optional<ImmutableTerm> instantiate(ImmutableList<RDFConstant> values) {
+            return derivation.apply(values)
+                    .map(v -> sampleConstant instanceof RDFConstant
+                            ? termFactory.getRDFConstant(v, ((RDFConstant) sampleConstant).getType())
+                            : termFactory.getDBConstant(v, ((DBConstant) sampleConstant).getType()));
+        }
+    }
+
+    private class FunctionalTermTemplate implements TermTemplate {
+        private final ImmutableFunctionalTerm sampleTerm;
+        private final ImmutableList<TermTemplate> arguments;
+
+        private FunctionalTermTemplate(ImmutableFunctionalTerm sampleTerm, ImmutableList<TermTemplate> arguments) {
+            this.sampleTerm = sampleTerm;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Optional<ImmutableTerm> instantiate(ImmutableList<RDFConstant> values) {
+            ImmutableList.Builder<ImmutableTerm> argumentBuilder = ImmutableList.builder();
+            for (TermTemplate argument : arguments) {
+                Optional<ImmutableTerm> term = argument.instantiate(values);
+                if (!term.isPresent())
+                    return Optional.empty();
+                argumentBuilder.add(term.get());
+            }
+            return Optional.of(termFactory.getImmutableFunctionalTerm(sampleTerm.getFunctionSymbol(),
+                    argumentBuilder.build()));
+        }
+    }
+}
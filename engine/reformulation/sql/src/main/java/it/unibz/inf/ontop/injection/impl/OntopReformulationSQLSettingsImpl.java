@@ -41,4 +41,9 @@ public class OntopReformulationSQLSettingsImpl extends OntopReformulationSetting
     public String getJdbcDriver() {
         return sqlSettings.getJdbcDriver();
     }
+
+    @Override
+    public boolean isBulkMetadataExtractionEnabled() {
+        return sqlSettings.isBulkMetadataExtractionEnabled();
+    }
 }
@@ -20,7 +20,10 @@ import it.unibz.inf.ontop.iq.IQ;
  */
 public interface OntopStatement extends OBDAStatement {
 
-    int getTupleCount(InputQuery inputQuery) throws OntopReformulationException, OntopQueryEvaluationException, OntopConnectionException;
+    /**
+     * Number of results of the SELECT query, counted by the DB
+     */
+    long getTupleCount(InputQuery inputQuery) throws OntopReformulationException, OntopQueryEvaluationException, OntopConnectionException;
 
     String getRewritingRendering(InputQuery inputQuery) throws OntopReformulationException;
 
@@ -35,4 +38,15 @@ public interface OntopStatement extends OBDAStatement {
     BooleanResultSet executeBooleanQuery(IQ executableQuery, QueryLogger queryLogger)
             throws OntopQueryEvaluationException;
 
+    /**
+     * Overrides the fetch size otherwise selected for each query (e.g. for a large export).
+     * 0 restores the automatic selection.
+     */
+    void setFetchSize(int fetchSize);
+
+    /**
+     * 0 if not overridden
+     */
+    int getFetchSize();
+
 }
@@ -0,0 +1,42 @@
+package it.unibz.inf.ontop.answering.connection;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Decides on which thread the evaluation of a high-level query takes place
+ * (shared bounded pool, virtual threads or the calling thread).
+ *
+ * Guice-enabled interface. NOT a singleton: owned and closed by the DBConnector.
+ *
+ * See OntopSystemSettings.QueryExecutionMode
+ */
+public interface QueryExecutionStrategy extends AutoCloseable {
+
+    /**
+     * May run the task in the calling thread (e.g. when the pool is saturated).
+     * In that case, the returned future is already completed.
+     */
+    <R> Future<R> submit(Callable<R> task);
+
+    /**
+     * Number of queries waiting for a thread
+     */
+    int getQueueDepth();
+
+    /**
+     * Number of queries currently being evaluated
+     */
+    int getActiveCount();
+
+    long getCompletedCount();
+
+    /**
+     * Number of queries that have been evaluated by the calling thread
+     * because the pool was saturated
+     */
+    long getCallerRunsCount();
+
+    @Override
+    void close();
+}
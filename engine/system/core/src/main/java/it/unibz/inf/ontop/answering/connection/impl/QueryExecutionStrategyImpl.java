@@ -0,0 +1,153 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.inject.Inject;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionStrategy;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.injection.OntopSystemSettings.QueryExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NOT a singleton (closed together with its DBConnector).
+ *
+ * POOL: bounded shared pool. When the pool and its queue are saturated, the query is evaluated
+ * by the calling thread (back-pressure instead of rejection).
+ *
+ * VIRTUAL: one virtual thread per query when the JVM supports them (Java 21+), otherwise POOL.
+ *
+ * CALLER: no thread hand-off. Cancellation and timeouts only rely on the DB (JDBC Statement.cancel() and
+ * Statement.setQueryTimeout()): the calling thread is never interrupted and the returned future is already completed.
+ */
+public class QueryExecutionStrategyImpl implements QueryExecutionStrategy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryExecutionStrategyImpl.class);
+    private static final String THREAD_NAME_PREFIX = "ontop-query-";
+
+    @Nullable
+    private final ExecutorService executorService;
+    @Nullable
+    private final ThreadPoolExecutor poolExecutor;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    @Inject
+    private QueryExecutionStrategyImpl(OntopSystemSettings settings) {
+        this(settings.getQueryExecutionMode(), settings.getQueryExecutorPoolSize(), settings.getQueryExecutorQueueSize());
+    }
+
+    /**
+     * poolSize and queueSize are only used by the POOL mode
+     */
+    QueryExecutionStrategyImpl(QueryExecutionMode mode, int poolSize, int queueSize) {
+
+        if (mode == QueryExecutionMode.VIRTUAL) {
+            Optional<ExecutorService> virtualExecutor = createVirtualThreadExecutor();
+            if (virtualExecutor.isPresent()) {
+                executorService = virtualExecutor.get();
+                poolExecutor = null;
+                return;
+            }
+            LOGGER.warn("Virtual threads are not supported by this JVM. Using a thread pool for executing the queries");
+            mode = QueryExecutionMode.POOL;
+        }
+
+        if (mode == QueryExecutionMode.POOL) {
+            poolExecutor = createPoolExecutor(poolSize, queueSize);
+            executorService = poolExecutor;
+        }
+        else {
+            poolExecutor = null;
+            executorService = null;
+        }
+    }
+
+    private ThreadPoolExecutor createPoolExecutor(int poolSize, int queueSize) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, THREAD_NAME_PREFIX + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        BlockingQueue<Runnable> queue = queueSize > 0
+                ? new ArrayBlockingQueue<>(queueSize)
+                : new SynchronousQueue<>();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                queue, threadFactory,
+                (r, e) -> {
+                    if (e.isShutdown())
+                        throw new RejectedExecutionException("The query executor has been closed");
+                    callerRunsCount.incrementAndGet();
+                    r.run();
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Reflection is used as the code base targets Java 8
+     */
+    private static Optional<ExecutorService> createVirtualThreadExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public <R> Future<R> submit(Callable<R> task) {
+        Callable<R> countingTask = () -> {
+            activeCount.incrementAndGet();
+            try {
+                return task.call();
+            } finally {
+                activeCount.decrementAndGet();
+                completedCount.incrementAndGet();
+            }
+        };
+
+        if (executorService != null)
+            return executorService.submit(countingTask);
+
+        FutureTask<R> futureTask = new FutureTask<>(countingTask);
+        futureTask.run();
+        return futureTask;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return poolExecutor == null ? 0 : poolExecutor.getQueue().size();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    @Override
+    public long getCallerRunsCount() {
+        return callerRunsCount.get();
+    }
+
+    @Override
+    public void close() {
+        if (executorService != null)
+            executorService.shutdownNow();
+    }
+}
@@ -2,17 +2,24 @@ package it.unibz.inf.ontop.answering.connection.impl;
 
 import com.google.common.collect.ImmutableMultimap;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionStrategy;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
 import it.unibz.inf.ontop.answering.resultset.*;
 import it.unibz.inf.ontop.answering.resultset.impl.DefaultDescribeGraphResultSet;
 import it.unibz.inf.ontop.exception.*;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import it.unibz.inf.ontop.iq.IQ;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CountDownLatch;
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 
 /**
@@ -24,91 +31,41 @@ public abstract class QuestStatement implements OntopStatement {
 	private final QueryReformulator engine;
 	private final QueryLogger.Factory queryLoggerFactory;
 
-	private QueryExecutionThread executionThread;
-	private boolean canceled = false;
+	private final QueryExecutionStrategy executionStrategy;
+	private final OntopSystemSettings settings;
+
+	@Nullable
+	private volatile Future<?> currentExecution;
+	private volatile boolean canceled = false;
 
 
 	private static final Logger log = LoggerFactory.getLogger(QuestStatement.class);
 
 
-	public QuestStatement(QueryReformulator queryProcessor) {
+	public QuestStatement(QueryReformulator queryProcessor, QueryExecutionStrategy executionStrategy,
+						  OntopSystemSettings settings) {
 		this.engine = queryProcessor;
 		this.queryLoggerFactory = queryProcessor.getQueryLoggerFactory();
+		this.executionStrategy = executionStrategy;
+		this.settings = settings;
 	}
 
-	/**
-	 * Execution thread
-	 */
-	private class QueryExecutionThread<R extends OBDAResultSet, Q extends InputQuery<R>> extends Thread {
-
-		private final Q inputQuery;
-		private final QueryLogger queryLogger;
-		private final Evaluator<R, Q> evaluator;
-		private final CountDownLatch monitor;
-
-		private R resultSet;	  // only for SELECT and ASK queries
-		private Exception exception;
-		private boolean executingTargetQuery;
-
-		QueryExecutionThread(Q inputQuery, QueryLogger queryLogger, Evaluator<R,Q> evaluator,
-						CountDownLatch monitor) {
-			this.inputQuery = inputQuery;
-			this.queryLogger = queryLogger;
-			this.evaluator = evaluator;
-			this.monitor = monitor;
-			this.exception = null;
-			this.executingTargetQuery = false;
-		}
-
-		public boolean errorStatus() {
-			return exception != null;
-		}
-
-		public Exception getException() {
-			return exception;
-		}
-
-		public R getResultSet() {
-			return resultSet;
-		}
-
-		public void cancel() throws OntopQueryEvaluationException {
-			canceled = true;
-			if (!executingTargetQuery) {
-				this.stop();
-			} else {
-				cancelExecution();
-			}
-		}
+	protected QueryReformulator getQueryReformulator() {
+		return engine;
+	}
 
-		@Override
-		public void run() {
-			//                        FOR debugging H2 in-memory database
-//			try {
-//				org.h2.tools.Server.startWebServer(((QuestConnection)conn).getSQLConnection());
-//			} catch (SQLException e) {
-//				e.printStackTrace();
-//			}
-			try {
-				/*
-				 * Executes the target query.
-				 */
-				executingTargetQuery = true;
-				resultSet = evaluator.evaluate(inputQuery, queryLogger);
-				// NB: finished if the result set is blocking!
-				log.debug("Result set unblocked.\n");
-				/*
-				 * TODO: re-handle the timeout exception.
-				 */
-			} catch (Exception e) {
-				exception = e;
-				log.error(e.getMessage(), e);
-			} finally {
-				monitor.countDown();
-			}
-		}
+	protected QueryExecutionStrategy getExecutionStrategy() {
+		return executionStrategy;
 	}
 
+	/**
+	 * Creates statements on other DB connections (released when these statements are closed),
+	 * for evaluating sub-queries concurrently.
+	 *
+	 * Empty if the statement cannot have auxiliary statements.
+	 */
+	protected abstract Optional<AuxiliaryStatementFactory> getAuxiliaryStatementFactory();
+
 	private TupleResultSet executeSelectQuery(SelectQuery inputQuery, QueryLogger queryLogger)
 			throws OntopQueryEvaluationException, OntopReformulationException {
 		return executeSelectQuery(inputQuery, queryLogger, true);
@@ -118,6 +75,7 @@ public abstract class QuestStatement implements OntopStatement {
 											  boolean shouldAlsoCloseStatement)
 			throws OntopQueryEvaluationException, OntopReformulationException {
 		IQ executableQuery = engine.reformulateIntoNativeQuery(inputQuery, queryLogger);
+		checkNotCanceled();
 		logExecutionStartingMessage();
 		return executeSelectQuery(executableQuery, queryLogger, shouldAlsoCloseStatement);
 	}
@@ -135,6 +93,7 @@ public abstract class QuestStatement implements OntopStatement {
 	private BooleanResultSet executeBooleanQuery(AskQuery inputQuery, QueryLogger queryLogger)
 			throws OntopQueryEvaluationException, OntopReformulationException {
 		IQ executableQuery = engine.reformulateIntoNativeQuery(inputQuery, queryLogger);
+		checkNotCanceled();
 		logExecutionStartingMessage();
 		return executeBooleanQuery(executableQuery, queryLogger);
 	}
@@ -148,6 +107,7 @@ public abstract class QuestStatement implements OntopStatement {
 												 boolean shouldAlsoCloseStatement)
 			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException, OntopReformulationException {
 		IQ executableQuery = engine.reformulateIntoNativeQuery(constructQuery, queryLogger);
+		checkNotCanceled();
 		logExecutionStartingMessage();
 		return executeConstructQuery(constructQuery.getConstructTemplate(), executableQuery, queryLogger, shouldAlsoCloseStatement);
 	}
@@ -162,12 +122,57 @@ public abstract class QuestStatement implements OntopStatement {
 															boolean shouldAlsoCloseStatement)
 			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException;
 
+	/**
+	 * The resources are described by batches of CONSTRUCT queries (see ontop.describe.batchSize).
+	 * These queries are reformulated like the other ones, including through the query template cache
+	 * (when enabled).
+	 */
 	protected GraphResultSet executeDescribeQuery(DescribeQuery describeQuery, QueryLogger queryLogger)
 			throws OntopQueryEvaluationException, OntopConnectionException, OntopReformulationException, OntopResultConversionException {
-		return new DefaultDescribeGraphResultSet(describeQuery, queryLogger, queryLoggerFactory,
-				(selectQuery, logger) -> executeSelectQuery(selectQuery, logger, false),
-				(constructQuery, logger) -> executeConstructQuery(constructQuery, logger, false),
-				this::close);
+		int parallelism = settings.getDescribeParallelism();
+		Optional<AuxiliaryStatementFactory> auxiliaryStatementFactory = parallelism > 1
+				? getAuxiliaryStatementFactory()
+				: Optional.empty();
+		return auxiliaryStatementFactory.isPresent()
+				? new DefaultDescribeGraphResultSet(describeQuery, queryLogger, queryLoggerFactory,
+					(selectQuery, logger) -> executeSelectQuery(selectQuery, logger, false),
+					(constructQuery, logger) -> executeConstructQueryOnAuxiliaryStatement(
+							auxiliaryStatementFactory.get(), constructQuery, logger),
+					executionStrategy, parallelism,
+					this::close)
+				: new DefaultDescribeGraphResultSet(describeQuery, queryLogger, queryLoggerFactory,
+					(selectQuery, logger) -> executeSelectQuery(selectQuery, logger, false),
+					(constructQuery, logger) -> executeConstructQuery(constructQuery, logger, false),
+					this::close);
+	}
+
+	/**
+	 * The auxiliary statement is closed with the result set
+	 */
+	private GraphResultSet executeConstructQueryOnAuxiliaryStatement(AuxiliaryStatementFactory auxiliaryStatementFactory,
+																	 ConstructQuery constructQuery, QueryLogger queryLogger)
+			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException, OntopReformulationException {
+		QuestStatement statement = auxiliaryStatementFactory.createAuxiliaryStatement();
+		try {
+			return statement.executeConstructQuery(constructQuery, queryLogger, true);
+		} catch (OntopQueryEvaluationException | OntopResultConversionException | OntopConnectionException
+				| OntopReformulationException | RuntimeException e) {
+			try {
+				statement.close();
+			} catch (OntopConnectionException e1) {
+				e.addSuppressed(e1);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Stops a cancelled evaluation before sending its query to the DB
+	 * (the reformulation is not interruptible)
+	 */
+	private void checkNotCanceled() throws OntopQueryEvaluationException {
+		if (canceled)
+			throw new OntopQueryEvaluationException("Query execution was cancelled");
 	}
 
 	private void logExecutionStartingMessage() {
@@ -211,8 +216,11 @@ public abstract class QuestStatement implements OntopStatement {
 	}
 
 	/**
-	 * Internal method to start a new query execution thread type defines the
-	 * query type SELECT, ASK, CONSTRUCT, or DESCRIBE
+	 * Internal method delegating the evaluation to the execution strategy (thread pool, virtual thread or
+	 * calling thread) and waiting for its completion. Type defines the query type SELECT, ASK, CONSTRUCT, or DESCRIBE
+	 *
+	 * When cancelled, waits for the evaluating thread to stop before returning, as it shares the DB statement.
+	 * A result produced after the cancellation or the interruption is closed.
 	 */
 	private <R extends OBDAResultSet, Q extends InputQuery<R>> R executeInThread(Q inputQuery, ImmutableMultimap<String, String> httpHeaders,
 			Evaluator<R, Q> evaluator)
@@ -221,49 +229,93 @@ public abstract class QuestStatement implements OntopStatement {
 
 		queryLogger.setSparqlQuery(inputQuery.getInputString());
 
-		CountDownLatch monitor = new CountDownLatch(1);
+		EvaluationTask<R> task = new EvaluationTask<>(() -> evaluator.evaluate(inputQuery, queryLogger));
+		Future<R> execution = executionStrategy.submit(task);
+		this.currentExecution = execution;
+		// cancelled before the execution could be published
+		if (canceled)
+			execution.cancel(true);
 
-		QueryExecutionThread<R, Q> executionthread = new QueryExecutionThread<>(inputQuery, queryLogger, evaluator,
-				monitor);
-
-		this.executionThread = executionthread;
-		executionthread.start();
+		R resultSet;
 		try {
-			monitor.await();
+			resultSet = execution.get();
+		} catch (CancellationException e) {
+			// the flag stops the evaluating thread before it sends its query to the DB
+			task.abandon(true);
+			canceled = false;
+			throw new OntopQueryEvaluationException("Query execution was cancelled");
 		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
-		if (executionthread.errorStatus()) {
-			Exception ex = executionthread.getException();
+			Thread.currentThread().interrupt();
+			execution.cancel(true);
+			cancelExecutionQuietly();
+			task.abandon(false);
+			throw new OntopQueryEvaluationException("Query execution was interrupted");
+		} catch (ExecutionException e) {
+			if (canceled) {
+				// e.g. the DB query has been cancelled
+				canceled = false;
+				throw new OntopQueryEvaluationException("Query execution was cancelled");
+			}
+			Throwable ex = e.getCause();
+			log.error(ex.getMessage(), ex);
 			if (ex instanceof OntopReformulationException) {
 				throw (OntopReformulationException) ex;
 			}
 			else if (ex instanceof OntopQueryEvaluationException) {
-				queryLogger.declareEvaluationException(ex);
+				queryLogger.declareEvaluationException((Exception) ex);
 				throw (OntopQueryEvaluationException) ex;
 			}
-			else {
-				queryLogger.declareEvaluationException(ex);
-				throw new OntopQueryEvaluationException(ex);
+			else if (ex instanceof Exception) {
+				queryLogger.declareEvaluationException((Exception) ex);
+				throw new OntopQueryEvaluationException((Exception) ex);
 			}
+			else
+				throw new OntopQueryEvaluationException(ex.getMessage());
+		} finally {
+			this.currentExecution = null;
 		}
 
 		if (canceled) {
+			// e.g. in the CALLER mode, where the cancellation can only be noticed once the evaluation returns
 			canceled = false;
+			closeQuietly(resultSet);
 			throw new OntopQueryEvaluationException("Query execution was cancelled");
 		}
-		R resultSet = executionthread.getResultSet();
 		return resultSet;
 	}
 
+	private static void closeQuietly(@Nullable OBDAResultSet resultSet) {
+		if (resultSet == null)
+			return;
+		try {
+			resultSet.close();
+		} catch (OntopConnectionException e) {
+			log.debug("Could not close the result set of a cancelled query", e);
+		}
+	}
 
+	/**
+	 * Cancels the DB query (if any) and interrupts the evaluating thread (if not the calling one)
+	 */
 	@Override
 	public void cancel() throws OntopConnectionException {
 		canceled = true;
 		try {
-			QuestStatement.this.executionThread.cancel();
+			cancelExecution();
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
+		} finally {
+			Future<?> execution = currentExecution;
+			if (execution != null)
+				execution.cancel(true);
+		}
+	}
+
+	private void cancelExecutionQuietly() {
+		try {
+			cancelExecution();
+		} catch (OntopQueryEvaluationException e) {
+			log.debug("Could not cancel the DB query", e);
 		}
 	}
 
@@ -279,9 +331,99 @@ public abstract class QuestStatement implements OntopStatement {
 		return engine.getRewritingRendering(query);
 	}
 
+	@Override
+	public long getTupleCount(InputQuery inputQuery)
+			throws OntopReformulationException, OntopQueryEvaluationException, OntopConnectionException {
+		QueryLogger queryLogger = queryLoggerFactory.create(ImmutableMultimap.of());
+		queryLogger.setSparqlQuery(inputQuery.getInputString());
+
+		IQ countQuery = engine.reformulateIntoNativeCountQuery(inputQuery, queryLogger);
+		if (canceled) {
+			canceled = false;
+			throw new OntopQueryEvaluationException("Query execution was cancelled");
+		}
+
+		String countVariable = countQuery.getProjectionAtom().getArguments().get(0).getName();
+		TupleResultSet resultSet = executeSelectQuery(countQuery, queryLogger, false);
+		try {
+			if (!resultSet.hasNext())
+				return 0;
+			OntopBinding binding = resultSet.next().getBinding(countVariable);
+			return binding == null ? 0 : Long.parseLong(binding.getValue().getValue());
+		} catch (OntopResultConversionException | NumberFormatException e) {
+			throw new OntopQueryEvaluationException(e);
+		} finally {
+			resultSet.close();
+		}
+	}
+
 	@Override
 	public IQ getExecutableQuery(InputQuery inputQuery) throws OntopReformulationException {
 		return engine.reformulateIntoNativeQuery(inputQuery, queryLoggerFactory.create(ImmutableMultimap.of()));
 	}
 
+	/**
+	 * Hands its result over to the calling thread, unless the latter has abandoned it
+	 * (cancellation, interruption): the result is then closed, by the task or by the calling thread,
+	 * depending on which one comes last.
+	 */
+	private static class EvaluationTask<R extends OBDAResultSet> implements Callable<R> {
+		private final Callable<R> evaluation;
+		private boolean started, finished, abandoned;
+		@Nullable
+		private R result;
+
+		EvaluationTask(Callable<R> evaluation) {
+			this.evaluation = evaluation;
+		}
+
+		@Override
+		public R call() throws Exception {
+			synchronized (this) {
+				if (abandoned)
+					throw new CancellationException();
+				started = true;
+			}
+			R resultSet = null;
+			try {
+				resultSet = evaluation.call();
+				return resultSet;
+			} finally {
+				boolean close;
+				synchronized (this) {
+					finished = true;
+					close = abandoned;
+					result = close ? null : resultSet;
+					notifyAll();
+				}
+				if (close)
+					closeQuietly(resultSet);
+			}
+		}
+
+		/**
+		 * If waitForCompletion, returns once the evaluation is not running anymore (or on interruption)
+		 */
+		void abandon(boolean waitForCompletion) {
+			R resultSet;
+			synchronized (this) {
+				abandoned = true;
+				if (waitForCompletion) {
+					try {
+						while (started && !finished)
+							wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				resultSet = finished ? result : null;
+			}
+			closeQuietly(resultSet);
+		}
+	}
+
+	@FunctionalInterface
+	protected interface AuxiliaryStatementFactory {
+		QuestStatement createAuxiliaryStatement() throws OntopConnectionException;
+	}
 }
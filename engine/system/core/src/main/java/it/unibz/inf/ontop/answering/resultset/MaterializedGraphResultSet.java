@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.answering.resultset;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
@@ -21,6 +22,13 @@ public interface MaterializedGraphResultSet extends GraphResultSet {
      */
     long getTripleCountSoFar();
 
+    /**
+     * Number of RDF triples that have been materialized so far for each RDF property/class (progress).
+     *
+     * RDF properties/classes without any triple so far are not included.
+     */
+    ImmutableMap<IRI, Long> getTripleCountPerRDFPropertyAndClassSoFar();
+
     /**
      * Returns true if a problem has occurred so far.
      *
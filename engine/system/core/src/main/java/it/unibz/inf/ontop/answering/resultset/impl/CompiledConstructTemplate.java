@@ -0,0 +1,166 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.answering.reformulation.input.ConstructTemplate;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.model.term.IRIConstant;
+import it.unibz.inf.ontop.model.term.ObjectConstant;
+import it.unibz.inf.ontop.model.term.RDFConstant;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.RDF;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.query.algebra.*;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Construct template compiled once per query.
+ *
+ * The triple patterns are flattened into an array of slots (3 per pattern): the constants are built once
+ * and the variables are resolved to their index in the signature of the tuple result set.
+ *
+ * Not thread-safe (the row values are kept in a reused array).
+ */
+class CompiledConstructTemplate {
+
+    private final Slot[] slots;
+    private final ImmutableMap<String, Integer> variableIndexes;
+    private final RDFConstant[] rowValues;
+
+    CompiledConstructTemplate(ConstructTemplate constructTemplate, List<String> signature,
+                              TermFactory termFactory, RDF rdfFactory) {
+        this.variableIndexes = IntStream.range(0, signature.size())
+                .boxed()
+                .collect(ImmutableCollectors.toMap(signature::get, i -> i));
+        this.rowValues = new RDFConstant[signature.size()];
+
+        Extension extension = constructTemplate.getExtension();
+        ImmutableMap<String, ValueExpr> extensionMap = extension == null
+                ? ImmutableMap.of()
+                : extension.getElements().stream()
+                    .collect(ImmutableCollectors.toMap(ExtensionElem::getName, ExtensionElem::getExpr));
+
+        this.slots = constructTemplate.getProjectionElemList().stream()
+                .flatMap(l -> {
+                    ImmutableList<ProjectionElem> elements = ImmutableList.copyOf(l.getElements());
+                    // Incomplete patterns are ignored
+                    return elements.subList(0, elements.size() - elements.size() % 3).stream();
+                })
+                .map(e -> compile(e.getSourceName(), extensionMap.get(e.getSourceName()), termFactory, rdfFactory))
+                .toArray(Slot[]::new);
+    }
+
+    private Slot compile(String name, @Nullable ValueExpr valueExpr, TermFactory termFactory, RDF rdfFactory) {
+        if (valueExpr instanceof ValueConstant) {
+            org.eclipse.rdf4j.model.Value value = ((ValueConstant) valueExpr).getValue();
+            RDFConstant constant;
+            if (value instanceof IRI)
+                constant = termFactory.getConstantIRI(rdfFactory.createIRI(value.stringValue()));
+            else if (value instanceof Literal)
+                constant = termFactory.getRDFLiteralConstant(value.stringValue(), XSD.STRING);
+            else
+                constant = termFactory.getConstantBNode(value.stringValue());
+            return new ConstantSlot(constant);
+        }
+        if (valueExpr instanceof BNodeGenerator) {
+            // See https://www.w3.org/TR/sparql11-query/#tempatesWithBNodes
+            // If defined, we expected the b-node label to be constant (as appearing in the CONSTRUCT block)
+            String labelPrefix = Optional.ofNullable(((BNodeGenerator) valueExpr).getNodeIdExpr())
+                    .filter(e -> e instanceof ValueConstant)
+                    .map(v -> ((ValueConstant) v).getValue().stringValue())
+                    .orElse(name);
+            return new BNodeSlot(labelPrefix, termFactory);
+        }
+        Integer index = variableIndexes.get(name);
+        return index == null
+                ? new ConstantSlot(null)
+                : new VariableSlot(index);
+    }
+
+    int getMaxFactsPerRow() {
+        return slots.length / 3;
+    }
+
+    /**
+     * Emits the facts of the row to the consumer.
+     * The triples with a missing or an invalid term (e.g. a literal in the subject position) are skipped.
+     */
+    void emit(OntopBindingSet bindingSet, Consumer<RDFFact> consumer) {
+        Arrays.fill(rowValues, null);
+        for (OntopBinding binding : bindingSet.getBindings()) {
+            Integer index = variableIndexes.get(binding.getName());
+            if (index != null)
+                rowValues[index] = binding.getValue();
+        }
+
+        for (int i = 0; i < slots.length; i += 3) {
+            RDFConstant subject = slots[i].get(rowValues, bindingSet);
+            RDFConstant property = slots[i + 1].get(rowValues, bindingSet);
+            RDFConstant object = slots[i + 2].get(rowValues, bindingSet);
+            if ((subject instanceof ObjectConstant) && (property instanceof IRIConstant) && object != null)
+                consumer.accept(RDFFact.createTripleFact((ObjectConstant) subject, (IRIConstant) property, object));
+        }
+    }
+
+
+    private interface Slot {
+        @Nullable
+        RDFConstant get(RDFConstant[] rowValues, OntopBindingSet bindingSet);
+    }
+
+    private static class ConstantSlot implements Slot {
+        @Nullable
+        private final RDFConstant constant;
+
+        ConstantSlot(@Nullable RDFConstant constant) {
+            this.constant = constant;
+        }
+
+        @Override
+        public RDFConstant get(RDFConstant[] rowValues, OntopBindingSet bindingSet) {
+            return constant;
+        }
+    }
+
+    private static class VariableSlot implements Slot {
+        private final int index;
+
+        VariableSlot(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public RDFConstant get(RDFConstant[] rowValues, OntopBindingSet bindingSet) {
+            return rowValues[index];
+        }
+    }
+
+    /**
+     * Fresh b-node per row
+     */
+    private static class BNodeSlot implements Slot {
+        private final String labelPrefix;
+        private final TermFactory termFactory;
+
+        BNodeSlot(String labelPrefix, TermFactory termFactory) {
+            this.labelPrefix = labelPrefix;
+            this.termFactory = termFactory;
+        }
+
+        @Override
+        public RDFConstant get(RDFConstant[] rowValues, OntopBindingSet bindingSet) {
+            return termFactory.getConstantBNode(labelPrefix + bindingSet.getRowUUIDStr());
+        }
+    }
+}
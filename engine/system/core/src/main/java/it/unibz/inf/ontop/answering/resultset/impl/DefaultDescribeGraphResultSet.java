@@ -1,9 +1,11 @@
 package it.unibz.inf.ontop.answering.resultset.impl;
 
 import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.UnmodifiableIterator;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionStrategy;
 import it.unibz.inf.ontop.answering.connection.impl.Evaluator;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.input.ConstructQuery;
@@ -17,9 +19,14 @@ import it.unibz.inf.ontop.spec.ontology.RDFFact;
 import org.apache.commons.rdf.api.IRI;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class DefaultDescribeGraphResultSet implements GraphResultSet {
-    private final ResultSetIterator iterator;
+    private final RDFFactCloseableIterator iterator;
 
     public DefaultDescribeGraphResultSet(DescribeQuery describeQuery, QueryLogger queryLogger,
                                          QueryLogger.Factory queryLoggerFactory,
@@ -37,6 +44,28 @@ public class DefaultDescribeGraphResultSet implements GraphResultSet {
 
     }
 
+    /**
+     * Up to "parallelism" CONSTRUCT queries are evaluated concurrently by the execution strategy.
+     * The evaluator is expected to use its own DB connection for each query.
+     * The results of a CONSTRUCT query are buffered and returned in the order of the queries.
+     */
+    public DefaultDescribeGraphResultSet(DescribeQuery describeQuery, QueryLogger queryLogger,
+                                         QueryLogger.Factory queryLoggerFactory,
+                                         Evaluator<TupleResultSet, SelectQuery> selectQueryEvaluator,
+                                         Evaluator<GraphResultSet, ConstructQuery> concurrentConstructQueryEvaluator,
+                                         QueryExecutionStrategy executionStrategy, int parallelism,
+                                         OntopConnectionCloseable statementClosingCB)
+            throws OntopQueryEvaluationException, OntopConnectionException, OntopReformulationException,
+            OntopResultConversionException {
+
+        ImmutableSet<IRI> resourcesToDescribe = extractDescribeResources(describeQuery, queryLogger, queryLoggerFactory,
+                selectQueryEvaluator);
+
+        this.iterator = new ConcurrentResultSetIterator(describeQuery.computeConstructQueries(resourcesToDescribe),
+                queryLogger, queryLoggerFactory, concurrentConstructQueryEvaluator, executionStrategy, parallelism,
+                statementClosingCB);
+    }
+
     private static ImmutableSet<IRI> extractDescribeResources(DescribeQuery inputQuery,
                                                               QueryLogger queryLogger, QueryLogger.Factory queryLoggerFactory,
                                                               Evaluator<TupleResultSet, SelectQuery> selectQueryEvaluator)
@@ -155,26 +184,135 @@ public class DefaultDescribeGraphResultSet implements GraphResultSet {
                 currentGraphResultSetIterator.close();
             statementClosingCB.close();
         }
+    }
 
-        /**
-         * Seeing as an connection exception as the processed query is at a lower level
-         * (like if it was connecting to another system)
-         */
-        private static class LateQueryEvaluationExceptionWhenDescribing extends OntopConnectionException {
-            private LateQueryEvaluationExceptionWhenDescribing(OntopQueryEvaluationException e) {
-                super(e);
+    protected static class ConcurrentResultSetIterator extends RDFFactCloseableIterator {
+
+        private final UnmodifiableIterator<ConstructQuery> constructQueryIterator;
+        private final OntopConnectionCloseable statementClosingCB;
+        private final QueryLogger queryLogger;
+        private final QueryLogger.Factory queryLoggerFactory;
+        private final Evaluator<GraphResultSet, ConstructQuery> constructQueryEvaluator;
+        private final QueryExecutionStrategy executionStrategy;
+        private final int parallelism;
+        // In the order of the CONSTRUCT queries
+        private final Deque<Future<ImmutableList<RDFFact>>> batchesInProgress;
+        private long rowCount;
+
+        @Nullable
+        private Iterator<RDFFact> currentBatchIterator;
+
+        public ConcurrentResultSetIterator(ImmutableCollection<ConstructQuery> constructQueries,
+                                           QueryLogger queryLogger, QueryLogger.Factory queryLoggerFactory,
+                                           Evaluator<GraphResultSet, ConstructQuery> constructQueryEvaluator,
+                                           QueryExecutionStrategy executionStrategy, int parallelism,
+                                           OntopConnectionCloseable statementClosingCB) {
+            this.constructQueryIterator = constructQueries.iterator();
+            this.statementClosingCB = statementClosingCB;
+            this.queryLogger = queryLogger;
+            this.queryLoggerFactory = queryLoggerFactory;
+            this.constructQueryEvaluator = constructQueryEvaluator;
+            this.executionStrategy = executionStrategy;
+            this.parallelism = parallelism;
+            this.batchesInProgress = new ArrayDeque<>();
+            this.rowCount = 0;
+        }
+
+        @Override
+        public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+            while (true) {
+                if (currentBatchIterator != null && currentBatchIterator.hasNext()) {
+                    rowCount++;
+                    return true;
+                }
+                currentBatchIterator = null;
+
+                while (batchesInProgress.size() < parallelism && constructQueryIterator.hasNext()) {
+                    ConstructQuery constructQuery = constructQueryIterator.next();
+                    batchesInProgress.add(executionStrategy.submit(() -> evaluate(constructQuery)));
+                }
+
+                Future<ImmutableList<RDFFact>> nextBatch = batchesInProgress.poll();
+                if (nextBatch == null) {
+                    queryLogger.declareLastResultRetrievedAndSerialize(rowCount);
+                    close();
+                    return false;
+                }
+                currentBatchIterator = waitFor(nextBatch).iterator();
+            }
+        }
+
+        private ImmutableList<RDFFact> evaluate(ConstructQuery constructQuery) throws OntopQueryEvaluationException,
+                OntopResultConversionException, OntopConnectionException, OntopReformulationException {
+            QueryLogger constructQueryLogger = queryLoggerFactory.create(ImmutableMultimap.of());
+            try (GraphResultSet graphResultSet = constructQueryEvaluator.evaluate(constructQuery, constructQueryLogger)) {
+                ImmutableList.Builder<RDFFact> factBuilder = ImmutableList.builder();
+                OntopCloseableIterator<RDFFact, OntopConnectionException> factIterator = graphResultSet.iterator();
+                while (factIterator.hasNext())
+                    factBuilder.add(factIterator.next());
+                return factBuilder.build();
+            }
+        }
+
+        private ImmutableList<RDFFact> waitFor(Future<ImmutableList<RDFFact>> batch)
+                throws OntopConnectionException, OntopResultConversionException {
+            try {
+                return batch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OntopConnectionException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof OntopQueryEvaluationException)
+                    throw new LateQueryEvaluationExceptionWhenDescribing((OntopQueryEvaluationException) cause);
+                if (cause instanceof OntopReformulationException)
+                    throw new LateQueryReformulationExceptionWhenDescribing((OntopReformulationException) cause);
+                if (cause instanceof OntopConnectionException)
+                    throw (OntopConnectionException) cause;
+                if (cause instanceof OntopResultConversionException)
+                    throw (OntopResultConversionException) cause;
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                throw new OntopConnectionException(e);
             }
         }
 
+        @Override
+        public RDFFact next() {
+            if (currentBatchIterator == null)
+                throw new IllegalStateException("Make sure to call hasNext() before calling next()");
+            return currentBatchIterator.next();
+        }
+
         /**
-         * Seeing as an connection exception as the processed query is at a lower level
-         * (like if it was connecting to another system)
+         * The batches in progress close their own statement
          */
-        private static class LateQueryReformulationExceptionWhenDescribing extends OntopConnectionException {
-            private LateQueryReformulationExceptionWhenDescribing(OntopReformulationException e) {
-                super(e);
-            }
+        @Override
+        protected void handleClose() throws OntopConnectionException {
+            for (Future<ImmutableList<RDFFact>> batch : batchesInProgress)
+                batch.cancel(true);
+            batchesInProgress.clear();
+            statementClosingCB.close();
         }
     }
 
+    /**
+     * Seeing as an connection exception as the processed query is at a lower level
+     * (like if it was connecting to another system)
+     */
+    private static class LateQueryEvaluationExceptionWhenDescribing extends OntopConnectionException {
+        private LateQueryEvaluationExceptionWhenDescribing(OntopQueryEvaluationException e) {
+            super(e);
+        }
+    }
+
+    /**
+     * Seeing as an connection exception as the processed query is at a lower level
+     * (like if it was connecting to another system)
+     */
+    private static class LateQueryReformulationExceptionWhenDescribing extends OntopConnectionException {
+        private LateQueryReformulationExceptionWhenDescribing(OntopReformulationException e) {
+            super(e);
+        }
+    }
 }
@@ -1,33 +1,15 @@
 package it.unibz.inf.ontop.answering.resultset.impl;
 
-import java.util.LinkedList;
-import java.util.Optional;
-import java.util.Queue;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 import it.unibz.inf.ontop.answering.resultset.*;
 
-import org.eclipse.rdf4j.model.IRI;
-import org.eclipse.rdf4j.model.Literal;
-import org.eclipse.rdf4j.query.algebra.BNodeGenerator;
-import org.eclipse.rdf4j.query.algebra.Extension;
-import org.eclipse.rdf4j.query.algebra.ExtensionElem;
-import org.eclipse.rdf4j.query.algebra.ProjectionElem;
-import org.eclipse.rdf4j.query.algebra.ProjectionElemList;
-import org.eclipse.rdf4j.query.algebra.ValueConstant;
-import org.eclipse.rdf4j.query.algebra.ValueExpr;
-
-import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.answering.reformulation.input.ConstructTemplate;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.exception.OntopResultConversionException;
-import it.unibz.inf.ontop.model.term.Constant;
-import it.unibz.inf.ontop.model.term.IRIConstant;
-import it.unibz.inf.ontop.model.term.ObjectConstant;
-import it.unibz.inf.ontop.model.term.RDFConstant;
 import it.unibz.inf.ontop.model.term.TermFactory;
-import it.unibz.inf.ontop.model.vocabulary.XSD;
 import it.unibz.inf.ontop.spec.ontology.RDFFact;
-import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 public class DefaultSimpleGraphResultSet implements GraphResultSet {
 
@@ -37,7 +19,7 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 			TupleResultSet tupleResultSet,
 			ConstructTemplate constructTemplate,
 			TermFactory termFactory,
-			org.apache.commons.rdf.api.RDF rdfFactory) {
+			org.apache.commons.rdf.api.RDF rdfFactory) throws OntopConnectionException {
 		iterator = new ResultSetIterator(tupleResultSet, constructTemplate, termFactory, rdfFactory);
 	}
 
@@ -61,33 +43,38 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 		iterator.close();
 	}
 
+	/**
+	 * The facts of one row are buffered in a reused array
+	 */
 	private static class ResultSetIterator extends RDFFactCloseableIterator {
 		private final TupleResultSet resultSet;
-		private final ConstructTemplate constructTemplate;
-		private final TermFactory termFactory;
-		private final org.apache.commons.rdf.api.RDF rdfFactory;
-		private final Queue<RDFFact> statementBuffer;
-		private ImmutableMap<String, ValueExpr> extMap;
+		private final CompiledConstructTemplate template;
+		private final RDFFact[] rowFacts;
+		private final Consumer<RDFFact> rowFactWriter;
+		private int rowFactCount;
+		private int rowFactPosition;
 
 		private ResultSetIterator(
 				TupleResultSet resultSet,
 				ConstructTemplate constructTemplate,
 				TermFactory termFactory,
-				org.apache.commons.rdf.api.RDF rdfFactory) {
+				org.apache.commons.rdf.api.RDF rdfFactory) throws OntopConnectionException {
 			this.resultSet = resultSet;
-			this.constructTemplate = constructTemplate;
-			this.termFactory = termFactory;
-			this.rdfFactory = rdfFactory;
-			intExtMap();
-			this.statementBuffer = new LinkedList<>();
+			this.template = new CompiledConstructTemplate(constructTemplate, resultSet.getSignature(), termFactory,
+					rdfFactory);
+			this.rowFacts = new RDFFact[template.getMaxFactsPerRow()];
+			this.rowFactWriter = f -> rowFacts[rowFactCount++] = f;
 		}
 
 		@Override
 		public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
-			if (statementBuffer.isEmpty() && resultSetHasNext()) {
-				addStatementFromResultSet();
+			// Some rows may not produce any fact
+			while (rowFactPosition == rowFactCount && resultSetHasNext()) {
+				rowFactCount = 0;
+				rowFactPosition = 0;
+				template.emit(resultSet.next(), rowFactWriter);
 			}
-			boolean hasNext = !statementBuffer.isEmpty();
+			boolean hasNext = rowFactPosition < rowFactCount;
 			if (!hasNext) {
 				handleClose();
 			}
@@ -96,10 +83,13 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 
 		@Override
 		public RDFFact next() throws OntopConnectionException {
-			if (statementBuffer.isEmpty()) {
+			if (rowFactPosition == rowFactCount) {
 				handleClose();
+				throw new NoSuchElementException();
 			}
-			return statementBuffer.remove();
+			RDFFact fact = rowFacts[rowFactPosition];
+			rowFacts[rowFactPosition++] = null;
+			return fact;
 		}
 
 		@Override
@@ -114,79 +104,6 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 			}
 		}
 
-		private void addStatementFromResultSet() {
-			try {
-				OntopBindingSet bindingSet = resultSet.next();
-				for (ProjectionElemList peList : constructTemplate.getProjectionElemList()) {
-					int size = peList.getElements().size();
-					for (int i = 0; i < size / 3; i++) {
-						ObjectConstant subjectConstant =
-								(ObjectConstant) getConstant(peList.getElements().get(i * 3), bindingSet);
-						IRIConstant propertyConstant =
-								(IRIConstant) getConstant(peList.getElements().get(i * 3 + 1), bindingSet);
-						RDFConstant objectConstant =
-								(RDFConstant) getConstant(peList.getElements().get(i * 3 + 2), bindingSet);
-						if (subjectConstant != null && propertyConstant != null && objectConstant != null) {
-							statementBuffer.add(
-									RDFFact.createTripleFact(subjectConstant, propertyConstant, objectConstant));
-						}
-					}
-				}
-			} catch (OntopResultConversionException | OntopConnectionException e) {
-				e.printStackTrace();
-			}
-		}
-
-		private Constant getConstant(ProjectionElem node, OntopBindingSet bindingSet)
-				throws OntopResultConversionException {
-			Constant constant = null;
-			String nodeName = node.getSourceName();
-			ValueExpr ve = null;
-
-			if (extMap != null) {
-				ve = extMap.get(nodeName);
-			}
-
-			if (ve instanceof ValueConstant) {
-				ValueConstant vc = (ValueConstant) ve;
-				if (vc.getValue() instanceof IRI) {
-					constant = termFactory.getConstantIRI(rdfFactory.createIRI(vc.getValue().stringValue()));
-				} else if (vc.getValue() instanceof Literal) {
-					constant = termFactory.getRDFLiteralConstant(vc.getValue().stringValue(), XSD.STRING);
-				} else {
-					constant = termFactory.getConstantBNode(vc.getValue().stringValue());
-				}
-			} else if (ve instanceof BNodeGenerator) {
-				// See https://www.w3.org/TR/sparql11-query/#tempatesWithBNodes
-				String rowId = bindingSet.getRowUUIDStr();
-
-				String label =
-						Optional.ofNullable(((BNodeGenerator) ve).getNodeIdExpr())
-								// If defined, we expected the b-node label to be constant (as appearing in the
-								// CONSTRUCT block)
-								.filter(e -> e instanceof ValueConstant)
-								.map(v -> ((ValueConstant) v).getValue().stringValue())
-								.map(s -> s + rowId)
-								.orElseGet(() -> nodeName + rowId);
-
-				constant = termFactory.getConstantBNode(label);
-			} else {
-				constant = bindingSet.getConstant(nodeName);
-			}
-			return constant;
-		}
-
-		private void intExtMap() {
-			Extension ex = constructTemplate.getExtension();
-			if (ex != null) {
-				extMap =
-						ex.getElements().stream()
-								.collect(ImmutableCollectors.toMap(ExtensionElem::getName, ExtensionElem::getExpr));
-			} else {
-				extMap = null;
-			}
-		}
-
 		private boolean resultSetHasNext() throws OntopConnectionException, OntopResultConversionException {
 			if (!resultSet.isConnectionAlive()) {
 				return false;
@@ -24,6 +24,67 @@ public interface OntopSystemSettings extends OntopReformulationSettings {
     Optional<Integer> getHttpStaleWhileRevalidate();
     Optional<Integer> getHttpStaleIfError();
 
+    // Query execution
+
+    QueryExecutionMode getQueryExecutionMode();
+
+    /**
+     * Only used by the POOL mode
+     */
+    int getQueryExecutorPoolSize();
+
+    /**
+     * Only used by the POOL mode.
+     *
+     * When the queue is full, the query is evaluated by the calling thread.
+     */
+    int getQueryExecutorQueueSize();
+
+    /**
+     * Maximal number of DESCRIBE batches (CONSTRUCT queries) evaluated concurrently, each on its own DB connection.
+     * 1: evaluated one after the other on the connection of the statement.
+     */
+    int getDescribeParallelism();
+
+    /**
+     * Duration (in seconds) during which the number of statements (size of the RDF4J repository) is cached.
+     * 0: not cached.
+     */
+    int getRepositorySizeCacheDuration();
+
+    // Predefined queries
+
+    /**
+     * Maximal number of reference queries kept for the predefined queries
+     */
+    int getPredefinedQueryCacheMaxSize();
+
+    /**
+     * Maximal total weight of the cached reference queries.
+     * The weight of a reference query is the size of its IQ tree (number of characters of its nodes).
+     */
+    long getPredefinedQueryCacheMaxWeight();
+
+    /**
+     * If true, the reference queries of the predefined queries are generated when the engine is created
+     */
+    boolean isPredefinedQueryCachePreWarmingEnabled();
+
+    enum QueryExecutionMode {
+        /**
+         * Bounded pool shared by all the statements of the query engine
+         */
+        POOL,
+        /**
+         * One virtual thread per query (falls back to POOL if not supported by the JVM)
+         */
+        VIRTUAL,
+        /**
+         * Evaluated by the calling thread. Cancellation is delegated to the DB.
+         */
+        CALLER
+    }
+
     //--------------------------
     // Keys
     //--------------------------
@@ -36,5 +97,17 @@ public interface OntopSystemSettings extends OntopReformulationSettings {
     String HTTP_CACHE_STALE_WHILE_REVALIDATE = "ontop.http.cache.staleWhileRevalidate";
     String HTTP_CACHE_STALE_IF_ERROR = "ontop.http.cache.staleIfError";
 
+    // Query execution
+    String QUERY_EXECUTION_MODE = "ontop.query.executionMode";
+    String QUERY_EXECUTOR_POOL_SIZE = "ontop.query.executor.poolSize";
+    String QUERY_EXECUTOR_QUEUE_SIZE = "ontop.query.executor.queueSize";
+    String DESCRIBE_PARALLELISM = "ontop.describe.parallelism";
+    String REPOSITORY_SIZE_CACHE_DURATION = "ontop.repository.sizeCacheDuration";
+
+    // Predefined queries
+    String PREDEFINED_QUERY_CACHE_MAX_SIZE = "ontop.predefined.cache.size";
+    String PREDEFINED_QUERY_CACHE_MAX_WEIGHT = "ontop.predefined.cache.maxWeight";
+    String PREDEFINED_QUERY_CACHE_PRE_WARMING = "ontop.predefined.cache.preWarming";
+
 
 }
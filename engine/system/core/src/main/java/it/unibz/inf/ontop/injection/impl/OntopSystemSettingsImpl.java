@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.injection.impl;
 
+import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.injection.OntopOBDASettings;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
 
@@ -48,4 +49,49 @@ public class OntopSystemSettingsImpl extends OntopReformulationSettingsImpl impl
     public Optional<Integer> getHttpStaleIfError() {
         return getInteger(HTTP_CACHE_STALE_IF_ERROR);
     }
+
+    @Override
+    public QueryExecutionMode getQueryExecutionMode() {
+        String value = getRequiredProperty(QUERY_EXECUTION_MODE);
+        try {
+            return QueryExecutionMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOntopConfigurationException("Invalid value for " + QUERY_EXECUTION_MODE + ": is " + value);
+        }
+    }
+
+    @Override
+    public int getQueryExecutorPoolSize() {
+        return getRequiredInteger(QUERY_EXECUTOR_POOL_SIZE);
+    }
+
+    @Override
+    public int getQueryExecutorQueueSize() {
+        return getRequiredInteger(QUERY_EXECUTOR_QUEUE_SIZE);
+    }
+
+    @Override
+    public int getDescribeParallelism() {
+        return getRequiredInteger(DESCRIBE_PARALLELISM);
+    }
+
+    @Override
+    public int getRepositorySizeCacheDuration() {
+        return getRequiredInteger(REPOSITORY_SIZE_CACHE_DURATION);
+    }
+
+    @Override
+    public int getPredefinedQueryCacheMaxSize() {
+        return getRequiredInteger(PREDEFINED_QUERY_CACHE_MAX_SIZE);
+    }
+
+    @Override
+    public long getPredefinedQueryCacheMaxWeight() {
+        return getRequiredLong(PREDEFINED_QUERY_CACHE_MAX_WEIGHT);
+    }
+
+    @Override
+    public boolean isPredefinedQueryCachePreWarmingEnabled() {
+        return getRequiredBoolean(PREDEFINED_QUERY_CACHE_PRE_WARMING);
+    }
 }
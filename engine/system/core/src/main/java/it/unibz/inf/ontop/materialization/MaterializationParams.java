@@ -16,6 +16,29 @@ public interface MaterializationParams {
      */
     boolean canMaterializationBeIncomplete();
 
+    /**
+     * Number of RDF properties/classes that are materialized concurrently,
+     * each of them over its own connection (taken from the connection pool).
+     *
+     * 1 (sequential materialization) by default.
+     */
+    int getDegreeOfParallelism();
+
+    /**
+     * If true, the facts are returned RDF property/class per RDF property/class, in the order of the selected
+     * vocabulary (as in the sequential materialization).
+     * Otherwise, the facts of the RDF properties/classes being materialized concurrently are interleaved.
+     *
+     * Only relevant when the degree of parallelism is greater than 1. False by default.
+     */
+    boolean isOrderDeterministic();
+
+    /**
+     * Maximum number of facts produced concurrently but not consumed yet.
+     *
+     * Only relevant when the degree of parallelism is greater than 1.
+     */
+    int getBufferSize();
 
     static Builder defaultBuilder() {
         return new MaterializationParamsImpl.DefaultBuilder<>();
@@ -26,6 +49,12 @@ public interface MaterializationParams {
 
         B enableIncompleteMaterialization(boolean enable);
 
+        B degreeOfParallelism(int degree);
+
+        B enableDeterministicOrder(boolean enable);
+
+        B bufferSize(int size);
+
         MaterializationParams build();
 
     }
@@ -27,7 +27,9 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
 
@@ -49,6 +51,7 @@ class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
 
     private Logger LOGGER = LoggerFactory.getLogger(DefaultMaterializedGraphResultSet.class);
     private final List<IRI> possiblyIncompleteClassesAndProperties;
+    private final Map<IRI, Long> tripleCounts;
     private VocabularyEntry lastSeenPredicate;
     private IRIConstant lastSeenPredicateIRI;
 
@@ -69,6 +72,7 @@ class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
         this.canBeIncomplete = params.canMaterializationBeIncomplete();
         this.inputQueryFactory = inputQueryFactory;
         this.possiblyIncompleteClassesAndProperties = new ArrayList<>();
+        this.tripleCounts = new LinkedHashMap<>();
 
         counter = 0;
 
@@ -153,10 +157,11 @@ class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
     /**
      * Builds (named) assertions out of (quad) results
      */
-    private RDFFact toAssertion(OntopBindingSet tuple) throws OntopResultConversionException {
+    static RDFFact toAssertion(OntopBindingSet tuple, VocabularyEntry predicate, IRIConstant predicateIRI,
+                               IRIConstant rdfTypeIRI) throws OntopResultConversionException {
         ObjectConstant s = (ObjectConstant) tuple.getConstant("s");
-        IRIConstant p = lastSeenPredicate.isClass() ? rdfTypeIRI : lastSeenPredicateIRI;
-        RDFConstant o = lastSeenPredicate.isClass() ? lastSeenPredicateIRI : tuple.getConstant("o");
+        IRIConstant p = predicate.isClass() ? rdfTypeIRI : predicateIRI;
+        RDFConstant o = predicate.isClass() ? predicateIRI : tuple.getConstant("o");
         ObjectConstant g = (ObjectConstant)tuple.getConstant("g");
 
         return (g == null)
@@ -171,7 +176,9 @@ class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
         OntopBindingSet resultTuple;
         try {
             resultTuple = tmpContextResultSet.next();
-            return toAssertion(resultTuple);
+            RDFFact fact = toAssertion(resultTuple, lastSeenPredicate, lastSeenPredicateIRI, rdfTypeIRI);
+            tripleCounts.merge(lastSeenPredicate.name, 1L, Long::sum);
+            return fact;
         } catch (OntopConnectionException e) {
             try {
                 tmpContextResultSet.close();
@@ -205,6 +212,11 @@ class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
         return counter;
     }
 
+    @Override
+    public ImmutableMap<IRI, Long> getTripleCountPerRDFPropertyAndClassSoFar() {
+        return ImmutableMap.copyOf(tripleCounts);
+    }
+
     public ImmutableList<IRI> getPossiblyIncompleteRDFPropertiesAndClassesSoFar() {
         return ImmutableList.copyOf(possiblyIncompleteClassesAndProperties);
     }
@@ -4,10 +4,19 @@ import it.unibz.inf.ontop.materialization.MaterializationParams;
 
 public class MaterializationParamsImpl implements MaterializationParams {
 
+    private static final int DEFAULT_BUFFER_SIZE = 10000;
+
     private final boolean enableIncompleteMaterialization;
+    private final int degreeOfParallelism;
+    private final boolean isOrderDeterministic;
+    private final int bufferSize;
 
-    private MaterializationParamsImpl(boolean enableIncompleteMaterialization) {
+    private MaterializationParamsImpl(boolean enableIncompleteMaterialization, int degreeOfParallelism,
+                                      boolean isOrderDeterministic, int bufferSize) {
         this.enableIncompleteMaterialization = enableIncompleteMaterialization;
+        this.degreeOfParallelism = degreeOfParallelism;
+        this.isOrderDeterministic = isOrderDeterministic;
+        this.bufferSize = bufferSize;
     }
 
 
@@ -16,14 +25,35 @@ public class MaterializationParamsImpl implements MaterializationParams {
         return enableIncompleteMaterialization;
     }
 
+    @Override
+    public int getDegreeOfParallelism() {
+        return degreeOfParallelism;
+    }
+
+    @Override
+    public boolean isOrderDeterministic() {
+        return isOrderDeterministic;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
 
     public static class DefaultBuilder<B extends Builder<B>> implements Builder<B> {
 
         private final B builder;
         private boolean canMaterializationBeIncomplete;
+        private int degreeOfParallelism;
+        private boolean isOrderDeterministic;
+        private int bufferSize;
 
         public DefaultBuilder() {
             this.canMaterializationBeIncomplete = false;
+            this.degreeOfParallelism = 1;
+            this.isOrderDeterministic = false;
+            this.bufferSize = DEFAULT_BUFFER_SIZE;
             this.builder = (B) this;
         }
 
@@ -33,9 +63,32 @@ public class MaterializationParamsImpl implements MaterializationParams {
             return builder;
         }
 
+        @Override
+        public B degreeOfParallelism(int degree) {
+            if (degree < 1)
+                throw new IllegalArgumentException("The degree of parallelism must be positive");
+            this.degreeOfParallelism = degree;
+            return builder;
+        }
+
+        @Override
+        public B enableDeterministicOrder(boolean enable) {
+            this.isOrderDeterministic = enable;
+            return builder;
+        }
+
+        @Override
+        public B bufferSize(int size) {
+            if (size < 1)
+                throw new IllegalArgumentException("The buffer size must be positive");
+            this.bufferSize = size;
+            return builder;
+        }
+
         @Override
         public MaterializationParams build() {
-            return new MaterializationParamsImpl(canMaterializationBeIncomplete);
+            return new MaterializationParamsImpl(canMaterializationBeIncomplete, degreeOfParallelism,
+                    isOrderDeterministic, bufferSize);
         }
     }
 
@@ -0,0 +1,338 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.MaterializedGraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.OntopCloseableIterator;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.answering.resultset.impl.RDFFactCloseableIterator;
+import it.unibz.inf.ontop.exception.*;
+import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.model.term.IRIConstant;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.vocabulary.RDF;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materializes several RDF properties/classes concurrently, each over its own connection.
+ *
+ * The facts are produced by the worker threads into bounded queues (back-pressure) and consumed by the caller.
+ *
+ * Deterministic order: one queue per RDF property/class, consumed in the order of the vocabulary.
+ * At most "degree of parallelism" RDF properties/classes are scheduled ahead of the one being consumed.
+ *
+ * Otherwise: one shared queue, all the RDF properties/classes are scheduled at once.
+ *
+ * Errors are isolated per RDF property/class like in the sequential mode (see canMaterializationBeIncomplete()).
+ * Unexpected (runtime) errors of a worker are always rethrown to the caller. A worker always marks the end
+ * of its RDF property/class, so the caller never waits for a worker that has failed.
+ *
+ */
+class ParallelMaterializedGraphResultSet implements MaterializedGraphResultSet {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMaterializedGraphResultSet.class);
+    private static final String THREAD_NAME_PREFIX = "ontop-materialization-";
+
+    // Marks the end of a queue
+    private static final Object END = new Object();
+
+    private final ImmutableMap<IRI, VocabularyEntry> vocabulary;
+    private final ImmutableList<VocabularyEntry> entries;
+    private final OntopQueryEngine queryEngine;
+    private final InputQueryFactory inputQueryFactory;
+    private final TermFactory termFactory;
+    private final IRIConstant rdfTypeIRI;
+
+    private final boolean canBeIncomplete;
+    private final boolean isOrderDeterministic;
+    private final int degreeOfParallelism;
+    private final int bufferSize;
+
+    private final Queue<IRI> possiblyIncompleteClassesAndProperties;
+    private final Map<IRI, AtomicLong> tripleCounts;
+    private final AtomicLong counter;
+
+    // Lately initiated
+    @Nullable
+    private ExecutorService executorService;
+    @Nullable
+    private ImmutableList<BlockingQueue<Object>> queues;
+    private int currentQueueIndex;
+    private int nextEntryToSchedule;
+    @Nullable
+    private RDFFact nextFact;
+    private boolean isExhausted;
+
+    ParallelMaterializedGraphResultSet(ImmutableMap<IRI, VocabularyEntry> vocabulary, MaterializationParams params,
+                                       OntopQueryEngine queryEngine, InputQueryFactory inputQueryFactory,
+                                       TermFactory termFactory) {
+        this.vocabulary = vocabulary;
+        this.entries = vocabulary.values().asList();
+        this.queryEngine = queryEngine;
+        this.inputQueryFactory = inputQueryFactory;
+        this.termFactory = termFactory;
+        this.rdfTypeIRI = termFactory.getConstantIRI(RDF.TYPE.getIRIString());
+
+        this.canBeIncomplete = params.canMaterializationBeIncomplete();
+        this.isOrderDeterministic = params.isOrderDeterministic();
+        this.degreeOfParallelism = params.getDegreeOfParallelism();
+        this.bufferSize = params.getBufferSize();
+
+        this.possiblyIncompleteClassesAndProperties = new ConcurrentLinkedQueue<>();
+        this.tripleCounts = new ConcurrentHashMap<>();
+        this.counter = new AtomicLong();
+
+        this.executorService = null;
+        this.queues = null;
+        this.currentQueueIndex = 0;
+        this.nextEntryToSchedule = 0;
+        this.nextFact = null;
+        this.isExhausted = entries.isEmpty();
+    }
+
+    @Override
+    public ImmutableSet<IRI> getSelectedVocabulary() {
+        return vocabulary.keySet();
+    }
+
+    private void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executorService = Executors.newFixedThreadPool(degreeOfParallelism, r -> {
+            Thread thread = new Thread(r, THREAD_NAME_PREFIX + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (isOrderDeterministic) {
+            int queueCapacity = Math.max(1, bufferSize / degreeOfParallelism);
+            queues = entries.stream()
+                    .map(e -> (BlockingQueue<Object>) new LinkedBlockingQueue<>(queueCapacity))
+                    .collect(ImmutableCollectors.toList());
+            while (nextEntryToSchedule < Math.min(degreeOfParallelism, entries.size()))
+                schedule(nextEntryToSchedule++);
+        }
+        else {
+            BlockingQueue<Object> sharedQueue = new LinkedBlockingQueue<>(bufferSize);
+            queues = ImmutableList.of(sharedQueue);
+            AtomicInteger remainingEntries = new AtomicInteger(entries.size());
+            for (VocabularyEntry entry : entries) {
+                executorService.execute(() -> {
+                    try {
+                        materialize(entry, sharedQueue);
+                    }
+                    finally {
+                        if (remainingEntries.decrementAndGet() == 0)
+                            putEnd(sharedQueue);
+                    }
+                });
+            }
+        }
+    }
+
+    private void schedule(int entryIndex) {
+        BlockingQueue<Object> queue = queues.get(entryIndex);
+        executorService.execute(() -> {
+            try {
+                materialize(entries.get(entryIndex), queue);
+            }
+            finally {
+                putEnd(queue);
+            }
+        });
+    }
+
+    /**
+     * Runs in a worker thread. Returns when interrupted (the result set is being closed).
+     */
+    private void materialize(VocabularyEntry predicate, BlockingQueue<Object> queue) {
+        IRIConstant predicateIRI = termFactory.getConstantIRI(predicate.getIRIString());
+        try (OntopConnection connection = queryEngine.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            SelectQuery query = inputQueryFactory.createSelectQuery(predicate.getSelectQuery());
+            TupleResultSet resultSet = statement.execute(query);
+            AtomicLong predicateCounter = tripleCounts.computeIfAbsent(predicate.name, p -> new AtomicLong());
+            while (resultSet.hasNext()) {
+                queue.put(DefaultMaterializedGraphResultSet.toAssertion(resultSet.next(), predicate, predicateIRI,
+                        rdfTypeIRI));
+                predicateCounter.incrementAndGet();
+            }
+            LOGGER.debug("{} triples materialized for {}", predicateCounter.get(), predicate);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (OntopQueryAnsweringException | OntopConnectionException e) {
+            if (Thread.currentThread().isInterrupted())
+                return;
+            if (canBeIncomplete) {
+                LOGGER.warn("Possibly incomplete class/property " + predicate + " (materialization problem).\n"
+                        + "Details: " + e);
+                possiblyIncompleteClassesAndProperties.add(predicate.name);
+            } else {
+                LOGGER.error("Problem materializing the class/property " + predicate);
+                putFailure(queue, e);
+            }
+        } catch (Throwable e) {
+            // not expected: rethrown to the caller as in the sequential mode
+            LOGGER.error("Unexpected problem materializing the class/property " + predicate, e);
+            putFailure(queue, e);
+        }
+    }
+
+    private static void putFailure(BlockingQueue<Object> queue, Throwable cause) {
+        try {
+            queue.put(new MaterializationFailure(cause));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void putEnd(BlockingQueue<Object> queue) {
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws OntopQueryAnsweringException, OntopConnectionException {
+        if (nextFact != null)
+            return true;
+        if (isExhausted)
+            return false;
+
+        if (executorService == null)
+            start();
+
+        try {
+            while (true) {
+                Object element = queues.get(currentQueueIndex).take();
+                if (element == END) {
+                    if (isOrderDeterministic && (currentQueueIndex < entries.size() - 1)) {
+                        currentQueueIndex++;
+                        if (nextEntryToSchedule < entries.size())
+                            schedule(nextEntryToSchedule++);
+                        continue;
+                    }
+                    isExhausted = true;
+                    return false;
+                }
+                else if (element instanceof MaterializationFailure) {
+                    isExhausted = true;
+                    ((MaterializationFailure) element).rethrow();
+                }
+                nextFact = (RDFFact) element;
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OntopConnectionException("Interrupted while waiting for the materialized facts");
+        }
+    }
+
+    @Override
+    public RDFFact next() throws OntopQueryAnsweringException, OntopConnectionException {
+        if (!hasNext())
+            throw new NoSuchElementException("No more materialized fact");
+        RDFFact fact = nextFact;
+        nextFact = null;
+        counter.incrementAndGet();
+        return fact;
+    }
+
+    /**
+     * Closing the iterator closes the result set
+     */
+    @Override
+    public OntopCloseableIterator<RDFFact, OntopConnectionException> iterator() {
+        return new RDFFactCloseableIterator() {
+            @Override
+            public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+                try {
+                    return ParallelMaterializedGraphResultSet.this.hasNext();
+                } catch (OntopResultConversionException e) {
+                    throw e;
+                } catch (OntopQueryAnsweringException e) {
+                    throw new OntopConnectionException(e);
+                }
+            }
+
+            @Override
+            public RDFFact next() throws OntopConnectionException {
+                try {
+                    return ParallelMaterializedGraphResultSet.this.next();
+                } catch (OntopQueryAnsweringException e) {
+                    throw new OntopConnectionException(e);
+                }
+            }
+
+            @Override
+            protected void handleClose() {
+                ParallelMaterializedGraphResultSet.this.close();
+            }
+        };
+    }
+
+    /**
+     * Interrupts the worker threads, which release their connections
+     */
+    @Override
+    public void close() {
+        isExhausted = true;
+        if (executorService != null)
+            executorService.shutdownNow();
+    }
+
+    @Override
+    public long getTripleCountSoFar() {
+        return counter.get();
+    }
+
+    /**
+     * Counts the triples produced by the worker threads (possibly not consumed yet)
+     */
+    @Override
+    public ImmutableMap<IRI, Long> getTripleCountPerRDFPropertyAndClassSoFar() {
+        return entries.stream()
+                .filter(e -> tripleCounts.containsKey(e.name))
+                .filter(e -> tripleCounts.get(e.name).get() > 0)
+                .collect(ImmutableCollectors.toMap(e -> e.name, e -> tripleCounts.get(e.name).get()));
+    }
+
+    @Override
+    public ImmutableList<IRI> getPossiblyIncompleteRDFPropertiesAndClassesSoFar() {
+        return ImmutableList.copyOf(possiblyIncompleteClassesAndProperties);
+    }
+
+
+    private static class MaterializationFailure {
+        private final Throwable cause;
+
+        private MaterializationFailure(Throwable cause) {
+            this.cause = cause;
+        }
+
+        void rethrow() throws OntopQueryAnsweringException, OntopConnectionException {
+            Throwables.propagateIfPossible(cause, OntopQueryAnsweringException.class, OntopConnectionException.class);
+            throw new IllegalStateException(cause);
+        }
+    }
+}
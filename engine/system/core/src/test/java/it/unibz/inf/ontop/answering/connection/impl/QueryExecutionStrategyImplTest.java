@@ -0,0 +1,144 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.injection.OntopSystemSettings.QueryExecutionMode;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class QueryExecutionStrategyImplTest {
+
+    @Test
+    public void testPoolRunsOnAWorkerThread() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.POOL, 2, 2);
+        try {
+            Thread caller = Thread.currentThread();
+            Future<Thread> future = strategy.submit(Thread::currentThread);
+            assertNotSame(caller, future.get(10, TimeUnit.SECONDS));
+            assertEquals(0, strategy.getCallerRunsCount());
+        }
+        finally {
+            strategy.close();
+        }
+    }
+
+    @Test
+    public void testPoolSaturationRunsOnTheCaller() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.POOL, 1, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Future<Boolean> blocking = strategy.submit(() -> {
+                started.countDown();
+                return release.await(10, TimeUnit.SECONDS);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            Thread caller = Thread.currentThread();
+            Future<Thread> future = strategy.submit(Thread::currentThread);
+            assertTrue(future.isDone());
+            assertSame(caller, future.get());
+            assertEquals(1, strategy.getCallerRunsCount());
+
+            release.countDown();
+            assertTrue(blocking.get(10, TimeUnit.SECONDS));
+        }
+        finally {
+            strategy.close();
+        }
+    }
+
+    @Test
+    public void testPoolCancelInterruptsTheWorker() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.POOL, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            Future<Void> future = strategy.submit(() -> {
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                }
+                catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertEquals(1, strategy.getActiveCount());
+
+            assertTrue(future.cancel(true));
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            try {
+                future.get();
+                fail();
+            }
+            catch (CancellationException e) {
+                // expected
+            }
+        }
+        finally {
+            strategy.close();
+        }
+    }
+
+    @Test
+    public void testPoolTimeout() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.POOL, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<Boolean> future = strategy.submit(() -> release.await(10, TimeUnit.SECONDS));
+            try {
+                future.get(50, TimeUnit.MILLISECONDS);
+                fail();
+            }
+            catch (TimeoutException e) {
+                // expected
+            }
+            future.cancel(true);
+        }
+        finally {
+            release.countDown();
+            strategy.close();
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testPoolClosed() {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.POOL, 1, 1);
+        strategy.close();
+        strategy.submit(() -> 1);
+    }
+
+    @Test
+    public void testCallerRunsOnTheCallingThread() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.CALLER, 0, 0);
+        Thread caller = Thread.currentThread();
+        Future<Thread> future = strategy.submit(Thread::currentThread);
+        assertTrue(future.isDone());
+        assertSame(caller, future.get());
+        assertEquals(1, strategy.getCompletedCount());
+        assertEquals(0, strategy.getActiveCount());
+        strategy.close();
+    }
+
+    @Test
+    public void testCallerExceptionIsInTheFuture() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.CALLER, 0, 0);
+        Future<Void> future = strategy.submit(() -> {
+            throw new IllegalStateException("failure");
+        });
+        assertTrue(future.isDone());
+        try {
+            future.get();
+            fail();
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // already completed: cannot be cancelled any more
+        assertFalse(future.cancel(true));
+        strategy.close();
+    }
+}
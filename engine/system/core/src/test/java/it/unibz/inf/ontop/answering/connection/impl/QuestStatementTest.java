@@ -0,0 +1,382 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Uninterruptibles;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionStrategy;
+import it.unibz.inf.ontop.answering.logging.QueryLogger;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.input.ConstructTemplate;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.BooleanResultSet;
+import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.exception.OntopQueryEvaluationException;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.injection.OntopSystemSettings.QueryExecutionMode;
+import it.unibz.inf.ontop.iq.IQ;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * Cancellation and timeouts of QuestStatement in the POOL and CALLER execution modes,
+ * against a simulated DB statement
+ */
+public class QuestStatementTest {
+
+    @Test
+    public void testCancelPool() throws Exception {
+        testCancel(QueryExecutionMode.POOL, true);
+    }
+
+    @Test
+    public void testCancelCaller() throws Exception {
+        testCancel(QueryExecutionMode.CALLER, true);
+    }
+
+    /**
+     * The worker thread is interrupted even if the DB ignores the cancellation
+     */
+    @Test
+    public void testCancelPoolWithoutDBCancellation() throws Exception {
+        testCancel(QueryExecutionMode.POOL, false);
+    }
+
+    /**
+     * The calling thread is never interrupted: the query only stops at the DB timeout
+     */
+    @Test
+    public void testCancelCallerWithoutDBCancellation() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.CALLER, 0, 0);
+        SimulatedDBStatement statement = new SimulatedDBStatement(strategy, false);
+        statement.setQueryTimeout(1);
+        cancelWhenStarted(statement);
+
+        long start = System.currentTimeMillis();
+        try {
+            statement.execute(stub(SelectQuery.class, ImmutableMap.of()));
+            fail();
+        }
+        catch (OntopQueryEvaluationException e) {
+            // expected
+        }
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+        strategy.close();
+    }
+
+    @Test
+    public void testTimeoutPool() throws Exception {
+        testTimeout(QueryExecutionMode.POOL);
+    }
+
+    @Test
+    public void testTimeoutCaller() throws Exception {
+        testTimeout(QueryExecutionMode.CALLER);
+    }
+
+    /**
+     * The evaluation returns normally after the cancellation: the result set is closed
+     */
+    @Test
+    public void testCancelAfterEvaluationCaller() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.CALLER, 0, 0);
+        AtomicBoolean closed = new AtomicBoolean();
+        TupleResultSet resultSet = stub(TupleResultSet.class, ImmutableMap.of("close", args -> {
+            closed.set(true);
+            return null;
+        }));
+        SimulatedDBStatement statement = new SimulatedDBStatement(strategy, true) {
+            @Override
+            protected TupleResultSet executeSelectQuery(IQ executableQuery, QueryLogger queryLogger, boolean shouldAlsoCloseStatement) {
+                try {
+                    cancel();
+                }
+                catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return resultSet;
+            }
+        };
+        try {
+            statement.execute(stub(SelectQuery.class, ImmutableMap.of()));
+            fail();
+        }
+        catch (OntopQueryEvaluationException e) {
+            assertEquals("Query execution was cancelled", e.getMessage());
+        }
+        assertTrue(closed.get());
+        assertFalse(statement.isCanceled());
+        strategy.close();
+    }
+
+    /**
+     * The statement is cancelled (e.g. on a timeout) during the reformulation, which ignores interruptions:
+     * the execution only returns once the worker has stopped, and the SQL query is never sent
+     */
+    @Test
+    public void testCancelDuringReformulationPool() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.POOL, 2, 2);
+        CountDownLatch reformulationStarted = new CountDownLatch(1);
+        CountDownLatch reformulationReleased = new CountDownLatch(1);
+        AtomicBoolean reformulationFinished = new AtomicBoolean();
+        QueryReformulator reformulator = stub(QueryReformulator.class, ImmutableMap.of(
+                "reformulateIntoNativeQuery", args -> {
+                    reformulationStarted.countDown();
+                    Uninterruptibles.awaitUninterruptibly(reformulationReleased);
+                    reformulationFinished.set(true);
+                    return stub(IQ.class, ImmutableMap.of());
+                }));
+        SimulatedDBStatement statement = new SimulatedDBStatement(reformulator, strategy, true);
+        cancelAndRelease(statement, reformulationStarted, reformulationReleased);
+
+        try {
+            statement.execute(stub(SelectQuery.class, ImmutableMap.of()));
+            fail();
+        }
+        catch (OntopQueryEvaluationException e) {
+            assertEquals("Query execution was cancelled", e.getMessage());
+        }
+        assertTrue(reformulationFinished.get());
+        // not executed
+        assertEquals(1, statement.started.getCount());
+        assertFalse(statement.isCanceled());
+        strategy.close();
+    }
+
+    /**
+     * The DB ignores the cancellation and the interruption and eventually returns a result:
+     * it is closed before the execution returns
+     */
+    @Test
+    public void testResultAfterCancellationPool() throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(QueryExecutionMode.POOL, 2, 2);
+        CountDownLatch released = new CountDownLatch(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        TupleResultSet resultSet = stub(TupleResultSet.class, ImmutableMap.of("close", args -> {
+            closed.set(true);
+            return null;
+        }));
+        SimulatedDBStatement statement = new SimulatedDBStatement(strategy, false) {
+            @Override
+            protected TupleResultSet executeSelectQuery(IQ executableQuery, QueryLogger queryLogger, boolean shouldAlsoCloseStatement) {
+                started.countDown();
+                Uninterruptibles.awaitUninterruptibly(released);
+                return resultSet;
+            }
+        };
+        cancelAndRelease(statement, statement.started, released);
+
+        try {
+            statement.execute(stub(SelectQuery.class, ImmutableMap.of()));
+            fail();
+        }
+        catch (OntopQueryEvaluationException e) {
+            assertEquals("Query execution was cancelled", e.getMessage());
+        }
+        assertTrue(closed.get());
+        assertFalse(statement.isCanceled());
+        strategy.close();
+    }
+
+    private void testCancel(QueryExecutionMode mode, boolean dbCancellation) throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(mode, 2, 2);
+        SimulatedDBStatement statement = new SimulatedDBStatement(strategy, dbCancellation);
+        cancelWhenStarted(statement);
+        try {
+            statement.execute(stub(SelectQuery.class, ImmutableMap.of()));
+            fail();
+        }
+        catch (OntopQueryEvaluationException e) {
+            // expected
+        }
+        assertTrue(statement.cancelExecutionCalled);
+        assertFalse(statement.isCanceled());
+        strategy.close();
+    }
+
+    private void testTimeout(QueryExecutionMode mode) throws Exception {
+        QueryExecutionStrategyImpl strategy = new QueryExecutionStrategyImpl(mode, 2, 2);
+        SimulatedDBStatement statement = new SimulatedDBStatement(strategy, true);
+        statement.setQueryTimeout(1);
+        try {
+            statement.execute(stub(SelectQuery.class, ImmutableMap.of()));
+            fail();
+        }
+        catch (OntopQueryEvaluationException e) {
+            assertEquals(SimulatedDBStatement.TIMEOUT_MESSAGE, e.getMessage());
+        }
+        assertFalse(statement.cancelExecutionCalled);
+        strategy.close();
+    }
+
+    private static void cancelWhenStarted(SimulatedDBStatement statement) {
+        Thread canceller = new Thread(() -> {
+            try {
+                if (statement.started.await(10, TimeUnit.SECONDS))
+                    statement.cancel();
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        canceller.setDaemon(true);
+        canceller.start();
+    }
+
+    /**
+     * Cancels the statement once started, and releases the blocked worker later on
+     */
+    private static void cancelAndRelease(SimulatedDBStatement statement, CountDownLatch started,
+                                         CountDownLatch released) {
+        Thread canceller = new Thread(() -> {
+            try {
+                if (started.await(10, TimeUnit.SECONDS)) {
+                    statement.cancel();
+                    Thread.sleep(200);
+                }
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            finally {
+                released.countDown();
+            }
+        });
+        canceller.setDaemon(true);
+        canceller.start();
+    }
+
+    /**
+     * Default values for all the methods except the given ones
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> interfaceClass, ImmutableMap<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(interfaceClass.getClassLoader(), new Class<?>[] { interfaceClass },
+                (proxy, method, args) -> {
+                    if (methods.containsKey(method.getName()))
+                        return methods.get(method.getName()).apply(args);
+                    if (method.getName().equals("equals"))
+                        return proxy == args[0];
+                    if (method.getName().equals("hashCode"))
+                        return System.identityHashCode(proxy);
+                    if (method.getName().equals("toString"))
+                        return interfaceClass.getSimpleName();
+                    if (method.getReturnType() == boolean.class)
+                        return false;
+                    if (method.getReturnType() == int.class)
+                        return 0;
+                    if (method.getReturnType() == long.class)
+                        return 0L;
+                    if (method.getReturnType().isInterface())
+                        return stub(method.getReturnType(), ImmutableMap.of());
+                    return null;
+                });
+    }
+
+    /**
+     * SELECT queries block until the DB statement is cancelled (if supported) or times out,
+     * like a JDBC statement
+     */
+    private static class SimulatedDBStatement extends QuestStatement {
+        static final String TIMEOUT_MESSAGE = "Query timeout";
+
+        private final boolean dbCancellation;
+        private final CountDownLatch dbCancelled = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        volatile boolean cancelExecutionCalled;
+        private volatile int queryTimeout = 0;
+
+        SimulatedDBStatement(QueryExecutionStrategy strategy, boolean dbCancellation) {
+            this(stub(QueryReformulator.class, ImmutableMap.of()), strategy, dbCancellation);
+        }
+
+        SimulatedDBStatement(QueryReformulator reformulator, QueryExecutionStrategy strategy, boolean dbCancellation) {
+            super(reformulator, strategy,
+                    stub(OntopSystemSettings.class, ImmutableMap.of("getDescribeParallelism", args -> 1)));
+            this.dbCancellation = dbCancellation;
+        }
+
+        @Override
+        protected TupleResultSet executeSelectQuery(IQ executableQuery, QueryLogger queryLogger, boolean shouldAlsoCloseStatement)
+                throws OntopQueryEvaluationException {
+            started.countDown();
+            try {
+                boolean cancelled = queryTimeout > 0
+                        ? dbCancelled.await(queryTimeout, TimeUnit.SECONDS)
+                        : dbCancelled.await(30, TimeUnit.SECONDS);
+                throw new OntopQueryEvaluationException(cancelled ? "Cancelled by the DB" : TIMEOUT_MESSAGE);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OntopQueryEvaluationException("Interrupted");
+            }
+        }
+
+        @Override
+        protected GraphResultSet executeConstructQuery(ConstructTemplate constructTemplate, IQ executableQuery,
+                                                       QueryLogger queryLogger, boolean shouldAlsoCloseStatement) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BooleanResultSet executeBooleanQuery(IQ executableQuery, QueryLogger queryLogger) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected Optional<AuxiliaryStatementFactory> getAuxiliaryStatementFactory() {
+            return Optional.empty();
+        }
+
+        @Override
+        protected void cancelExecution() {
+            cancelExecutionCalled = true;
+            if (dbCancellation)
+                dbCancelled.countDown();
+        }
+
+        @Override
+        public void close() { }
+
+        @Override
+        public int getMaxRows() {
+            return 0;
+        }
+
+        @Override
+        public void getMoreResults() { }
+
+        @Override
+        public int getQueryTimeout() {
+            return queryTimeout;
+        }
+
+        @Override
+        public void setMaxRows(int max) { }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public void setQueryTimeout(int seconds) {
+            this.queryTimeout = seconds;
+        }
+
+        @Override
+        public void setFetchSize(int fetchSize) { }
+
+        @Override
+        public int getFetchSize() {
+            return 0;
+        }
+    }
+}
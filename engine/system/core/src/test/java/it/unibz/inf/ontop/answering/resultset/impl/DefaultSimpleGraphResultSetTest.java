@@ -0,0 +1,240 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.input.ConstructTemplate;
+import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopResultConversionException;
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.model.term.BNode;
+import it.unibz.inf.ontop.model.term.IRIConstant;
+import it.unibz.inf.ontop.model.term.RDFConstant;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import org.apache.commons.rdf.api.RDF;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.algebra.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+public class DefaultSimpleGraphResultSetTest {
+
+    private static final String NS = "http://example.org/";
+    private static final OntopModelConfiguration CONFIGURATION = OntopModelConfiguration.defaultBuilder()
+            .enableTestMode()
+            .build();
+    private static final TermFactory TERM_FACTORY = CONFIGURATION.getTermFactory();
+    private static final RDF RDF_FACTORY = CONFIGURATION.getRdfFactory();
+    private static final ValueFactory VALUE_FACTORY = SimpleValueFactory.getInstance();
+
+    private static final IRIConstant P = TERM_FACTORY.getConstantIRI(NS + "p");
+    private static final IRIConstant Q = TERM_FACTORY.getConstantIRI(NS + "q");
+    private static final IRIConstant R = TERM_FACTORY.getConstantIRI(NS + "r");
+
+    /**
+     * CONSTRUCT { ?s :p ?o . _:b :q ?s . ?s :r "lit" . _:b :r ?s }
+     */
+    private static final ConstructTemplate TEMPLATE = createTemplate(
+            ImmutableList.of(
+                    new ProjectionElemList(new ProjectionElem("s", "subject"),
+                            new ProjectionElem("_const_p", "predicate"), new ProjectionElem("o", "object")),
+                    new ProjectionElemList(new ProjectionElem("_anon_b", "subject"),
+                            new ProjectionElem("_const_q", "predicate"), new ProjectionElem("s", "object")),
+                    new ProjectionElemList(new ProjectionElem("s", "subject"),
+                            new ProjectionElem("_const_r", "predicate"), new ProjectionElem("_const_lit", "object")),
+                    new ProjectionElemList(new ProjectionElem("_anon_b", "subject"),
+                            new ProjectionElem("_const_r", "predicate"), new ProjectionElem("s", "object"))),
+            new Extension(new SingletonSet(),
+                    new ExtensionElem(new ValueConstant(VALUE_FACTORY.createIRI(NS + "p")), "_const_p"),
+                    new ExtensionElem(new ValueConstant(VALUE_FACTORY.createIRI(NS + "q")), "_const_q"),
+                    new ExtensionElem(new ValueConstant(VALUE_FACTORY.createIRI(NS + "r")), "_const_r"),
+                    new ExtensionElem(new ValueConstant(VALUE_FACTORY.createLiteral("lit")), "_const_lit"),
+                    new ExtensionElem(new BNodeGenerator(), "_anon_b")));
+
+    @Test
+    public void testConstantVariableAndBNodeSlots() throws Exception {
+        IRIConstant a = TERM_FACTORY.getConstantIRI(NS + "a");
+        RDFConstant one = TERM_FACTORY.getRDFLiteralConstant("1", XSD.INTEGER);
+        RDFConstant lit = TERM_FACTORY.getRDFLiteralConstant("lit", XSD.STRING);
+
+        List<RDFFact> facts = getFacts(new ListTupleResultSet(ImmutableList.of(row(a, one))));
+        assertEquals(4, facts.size());
+        assertEquals(RDFFact.createTripleFact(a, P, one), facts.get(0));
+        assertEquals(RDFFact.createTripleFact(a, R, lit), facts.get(2));
+
+        // The same b-node within the row
+        BNode bNode = (BNode) facts.get(1).getSubject();
+        assertEquals(RDFFact.createTripleFact(bNode, Q, a), facts.get(1));
+        assertEquals(RDFFact.createTripleFact(bNode, R, a), facts.get(3));
+    }
+
+    @Test
+    public void testFreshBNodePerRow() throws Exception {
+        IRIConstant a = TERM_FACTORY.getConstantIRI(NS + "a");
+        IRIConstant b = TERM_FACTORY.getConstantIRI(NS + "b");
+
+        List<RDFFact> facts = getFacts(new ListTupleResultSet(ImmutableList.of(row(a, null), row(b, null))));
+        // ?s :p ?o is skipped as ?o is unbound
+        assertEquals(6, facts.size());
+        assertNotEquals(facts.get(0).getSubject(), facts.get(3).getSubject());
+    }
+
+    @Test
+    public void testRowWithoutFactInTheMiddle() throws Exception {
+        IRIConstant a = TERM_FACTORY.getConstantIRI(NS + "a");
+        IRIConstant c = TERM_FACTORY.getConstantIRI(NS + "c");
+        RDFConstant one = TERM_FACTORY.getRDFLiteralConstant("1", XSD.INTEGER);
+        RDFConstant two = TERM_FACTORY.getRDFLiteralConstant("2", XSD.INTEGER);
+        RDFConstant three = TERM_FACTORY.getRDFLiteralConstant("3", XSD.INTEGER);
+
+        // The second row produces no fact as ?s is unbound
+        ListTupleResultSet resultSet = new ListTupleResultSet(ImmutableList.of(
+                row(a, one), rowWithoutSubject(two), row(c, three)));
+        List<RDFFact> facts = getFacts(resultSet);
+
+        assertEquals(8, facts.size());
+        assertEquals(RDFFact.createTripleFact(a, P, one), facts.get(0));
+        assertEquals(RDFFact.createTripleFact(c, P, three), facts.get(4));
+        assertTrue(facts.stream().noneMatch(f -> f.getObject().equals(two)));
+        assertTrue(resultSet.closed);
+    }
+
+    @Test
+    public void testExceptionFromHasNext() throws Exception {
+        IRIConstant a = TERM_FACTORY.getConstantIRI(NS + "a");
+        RDFConstant one = TERM_FACTORY.getRDFLiteralConstant("1", XSD.INTEGER);
+
+        ListTupleResultSet resultSet = new ListTupleResultSet(ImmutableList.of(row(a, one)));
+        resultSet.failAfterRows = true;
+        GraphResultSet graphResultSet = new DefaultSimpleGraphResultSet(resultSet, TEMPLATE, TERM_FACTORY, RDF_FACTORY);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(graphResultSet.hasNext());
+            graphResultSet.next();
+        }
+        try {
+            graphResultSet.hasNext();
+            fail();
+        }
+        catch (OntopResultConversionException e) {
+            assertEquals(ListTupleResultSet.FAILURE_MESSAGE, e.getMessage());
+        }
+        graphResultSet.close();
+        assertTrue(resultSet.closed);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        GraphResultSet graphResultSet = new DefaultSimpleGraphResultSet(new ListTupleResultSet(ImmutableList.of()),
+                TEMPLATE, TERM_FACTORY, RDF_FACTORY);
+        assertFalse(graphResultSet.hasNext());
+        try {
+            graphResultSet.next();
+            fail();
+        }
+        catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    private static List<RDFFact> getFacts(TupleResultSet resultSet) throws Exception {
+        List<RDFFact> facts = new ArrayList<>();
+        try (GraphResultSet graphResultSet = new DefaultSimpleGraphResultSet(resultSet, TEMPLATE, TERM_FACTORY,
+                RDF_FACTORY)) {
+            while (graphResultSet.hasNext())
+                facts.add(graphResultSet.next());
+        }
+        return facts;
+    }
+
+    private static OntopBindingSet row(RDFConstant s, RDFConstant o) {
+        return o == null
+                ? bindingSet(new OntopBindingImpl(TERM_FACTORY.getVariable("s"), s))
+                : bindingSet(new OntopBindingImpl(TERM_FACTORY.getVariable("s"), s),
+                        new OntopBindingImpl(TERM_FACTORY.getVariable("o"), o));
+    }
+
+    private static OntopBindingSet rowWithoutSubject(RDFConstant o) {
+        return bindingSet(new OntopBindingImpl(TERM_FACTORY.getVariable("o"), o));
+    }
+
+    private static OntopBindingSet bindingSet(OntopBinding... bindings) {
+        return new AbstractOntopBindingSet(bindings) { };
+    }
+
+    private static ConstructTemplate createTemplate(ImmutableList<ProjectionElemList> projectionElemLists,
+                                                    Extension extension) {
+        return new ConstructTemplate() {
+            @Override
+            public ImmutableList<ProjectionElemList> getProjectionElemList() {
+                return projectionElemLists;
+            }
+
+            @Override
+            public Extension getExtension() {
+                return extension;
+            }
+        };
+    }
+
+    private static class ListTupleResultSet implements TupleResultSet {
+        static final String FAILURE_MESSAGE = "Conversion failure";
+
+        private final Iterator<OntopBindingSet> iterator;
+        boolean failAfterRows;
+        boolean closed;
+
+        ListTupleResultSet(ImmutableList<OntopBindingSet> rows) {
+            this.iterator = rows.iterator();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 2;
+        }
+
+        @Override
+        public List<String> getSignature() {
+            return ImmutableList.of("s", "o");
+        }
+
+        @Override
+        public int getFetchSize() {
+            return 0;
+        }
+
+        @Override
+        public boolean isConnectionAlive() {
+            return !closed;
+        }
+
+        @Override
+        public boolean hasNext() throws OntopResultConversionException {
+            boolean hasNext = iterator.hasNext();
+            if (!hasNext && failAfterRows)
+                throw new OntopResultConversionException(FAILURE_MESSAGE);
+            return hasNext;
+        }
+
+        @Override
+        public OntopBindingSet next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void close() throws OntopConnectionException {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.OntopCloseableIterator;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopQueryEvaluationException;
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.model.term.IRIConstant;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ParallelMaterializedGraphResultSetTest {
+
+    private static final String NS = "http://example.org/";
+    private static final OntopModelConfiguration CONFIGURATION = OntopModelConfiguration.defaultBuilder()
+            .enableTestMode()
+            .build();
+    private static final TermFactory TERM_FACTORY = CONFIGURATION.getTermFactory();
+    private static final RDF RDF_FACTORY = CONFIGURATION.getRdfFactory();
+
+    private static final IRI A = RDF_FACTORY.createIRI(NS + "A");
+    private static final IRI B = RDF_FACTORY.createIRI(NS + "B");
+    private static final IRI C = RDF_FACTORY.createIRI(NS + "C");
+
+    private static final String FAILURE_MESSAGE = "Evaluation failure";
+
+    @Test(timeout = 10000)
+    public void testDeterministicOrder() throws Exception {
+        StubQueryEngine queryEngine = new StubQueryEngine(ImmutableMap.of(
+                // the first class is the slowest
+                A, () -> { Thread.sleep(200); return 3; },
+                B, () -> 5,
+                C, () -> 2));
+
+        ImmutableList<RDFFact> facts;
+        try (ParallelMaterializedGraphResultSet resultSet = createResultSet(queryEngine, true, false, 1)) {
+            facts = getFacts(resultSet);
+        }
+        assertEquals(10, facts.size());
+        ImmutableList.Builder<String> expectedOrder = ImmutableList.builder();
+        for (int i = 0; i < 3; i++)
+            expectedOrder.add(A.getIRIString());
+        for (int i = 0; i < 5; i++)
+            expectedOrder.add(B.getIRIString());
+        for (int i = 0; i < 2; i++)
+            expectedOrder.add(C.getIRIString());
+        assertEquals(expectedOrder.build(), getClasses(facts));
+        queryEngine.awaitAllConnectionsClosed();
+    }
+
+    @Test(timeout = 10000)
+    public void testSharedQueue() throws Exception {
+        StubQueryEngine queryEngine = new StubQueryEngine(ImmutableMap.of(
+                A, () -> { Thread.sleep(200); return 3; },
+                B, () -> 5,
+                C, () -> 2));
+
+        try (ParallelMaterializedGraphResultSet resultSet = createResultSet(queryEngine, false, false, 4)) {
+            ImmutableList<RDFFact> facts = getFacts(resultSet);
+            assertEquals(10, facts.size());
+            assertEquals(10, resultSet.getTripleCountSoFar());
+            assertEquals(ImmutableMap.of(A, 3L, B, 5L, C, 2L),
+                    resultSet.getTripleCountPerRDFPropertyAndClassSoFar());
+        }
+        queryEngine.awaitAllConnectionsClosed();
+    }
+
+    @Test(timeout = 10000)
+    public void testFailingWorker() throws Exception {
+        for (boolean isOrderDeterministic : new boolean[] { true, false }) {
+            StubQueryEngine queryEngine = new StubQueryEngine(ImmutableMap.of(
+                    A, () -> 3,
+                    B, () -> { throw new OntopQueryEvaluationException(FAILURE_MESSAGE); },
+                    C, () -> 2));
+
+            try (ParallelMaterializedGraphResultSet resultSet = createResultSet(queryEngine, isOrderDeterministic,
+                    false, 4)) {
+                getFacts(resultSet);
+                fail();
+            }
+            catch (OntopQueryEvaluationException e) {
+                assertEquals(FAILURE_MESSAGE, e.getMessage());
+            }
+            queryEngine.awaitAllConnectionsClosed();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testRuntimeExceptionInWorker() throws Exception {
+        for (boolean isOrderDeterministic : new boolean[] { true, false }) {
+            StubQueryEngine queryEngine = new StubQueryEngine(ImmutableMap.of(
+                    A, () -> 3,
+                    B, () -> { throw new IllegalStateException(FAILURE_MESSAGE); },
+                    C, () -> 2));
+
+            // rethrown even if the materialization can be incomplete
+            try (ParallelMaterializedGraphResultSet resultSet = createResultSet(queryEngine, isOrderDeterministic,
+                    true, 4)) {
+                getFacts(resultSet);
+                fail();
+            }
+            catch (IllegalStateException e) {
+                assertEquals(FAILURE_MESSAGE, e.getMessage());
+            }
+            queryEngine.awaitAllConnectionsClosed();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testIncompleteMaterialization() throws Exception {
+        for (boolean isOrderDeterministic : new boolean[] { true, false }) {
+            StubQueryEngine queryEngine = new StubQueryEngine(ImmutableMap.of(
+                    A, () -> 3,
+                    B, () -> { throw new OntopQueryEvaluationException(FAILURE_MESSAGE); },
+                    C, () -> 2));
+
+            try (ParallelMaterializedGraphResultSet resultSet = createResultSet(queryEngine, isOrderDeterministic,
+                    true, 4)) {
+                ImmutableList<RDFFact> facts = getFacts(resultSet);
+                assertEquals(5, facts.size());
+                assertFalse(getClasses(facts).contains(B.getIRIString()));
+                assertEquals(ImmutableList.of(B), resultSet.getPossiblyIncompleteRDFPropertiesAndClassesSoFar());
+            }
+            queryEngine.awaitAllConnectionsClosed();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testIterator() throws Exception {
+        StubQueryEngine queryEngine = new StubQueryEngine(ImmutableMap.of(
+                A, () -> 3,
+                B, () -> 5,
+                C, () -> 2));
+
+        ParallelMaterializedGraphResultSet resultSet = createResultSet(queryEngine, true, false, 4);
+        List<RDFFact> facts = new ArrayList<>();
+        try (OntopCloseableIterator<RDFFact, OntopConnectionException> iterator = resultSet.iterator()) {
+            while (iterator.hasNext())
+                facts.add(iterator.next());
+        }
+        assertEquals(10, facts.size());
+        assertEquals(10, resultSet.getTripleCountSoFar());
+        queryEngine.awaitAllConnectionsClosed();
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseBeforeTheEnd() throws Exception {
+        // many more facts than the buffer can hold
+        StubQueryEngine queryEngine = new StubQueryEngine(ImmutableMap.of(
+                A, () -> 1000,
+                B, () -> 1000,
+                C, () -> 1000));
+
+        try (ParallelMaterializedGraphResultSet resultSet = createResultSet(queryEngine, false, false, 4)) {
+            assertTrue(resultSet.hasNext());
+            resultSet.next();
+        }
+        // the blocked workers are interrupted and release their connections
+        queryEngine.awaitAllConnectionsClosed();
+    }
+
+    private static ParallelMaterializedGraphResultSet createResultSet(StubQueryEngine queryEngine,
+                                                                      boolean isOrderDeterministic,
+                                                                      boolean canBeIncomplete,
+                                                                      int bufferSize) {
+        MaterializationParams params = MaterializationParams.defaultBuilder()
+                .degreeOfParallelism(2)
+                .enableDeterministicOrder(isOrderDeterministic)
+                .enableIncompleteMaterialization(canBeIncomplete)
+                .bufferSize(bufferSize)
+                .build();
+
+        ImmutableMap<IRI, VocabularyEntry> vocabulary = ImmutableMap.of(
+                A, new VocabularyEntry(A, 1),
+                B, new VocabularyEntry(B, 1),
+                C, new VocabularyEntry(C, 1));
+
+        return new ParallelMaterializedGraphResultSet(vocabulary, params, queryEngine.getProxy(),
+                stub(InputQueryFactory.class, (proxy, method, args) -> {
+                    if (method.getName().equals("createSelectQuery"))
+                        return stub(SelectQuery.class, (p, m, a) -> m.getName().equals("getInputString")
+                                ? args[0]
+                                : null);
+                    throw new UnsupportedOperationException(method.getName());
+                }),
+                TERM_FACTORY);
+    }
+
+    private static ImmutableList<RDFFact> getFacts(ParallelMaterializedGraphResultSet resultSet) throws Exception {
+        ImmutableList.Builder<RDFFact> builder = ImmutableList.builder();
+        while (resultSet.hasNext())
+            builder.add(resultSet.next());
+        return builder.build();
+    }
+
+    private static ImmutableList<String> getClasses(ImmutableList<RDFFact> facts) {
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        for (RDFFact fact : facts)
+            builder.add(((IRIConstant) fact.getObject()).getIRI().getIRIString());
+        return builder.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    @FunctionalInterface
+    private interface RowCount {
+        int get() throws Exception;
+    }
+
+    /**
+     * Each statement returns one row per instance of the class of the query
+     */
+    private static class StubQueryEngine {
+        private final ImmutableMap<IRI, RowCount> rowCounts;
+        private final AtomicInteger openConnections = new AtomicInteger();
+
+        StubQueryEngine(ImmutableMap<IRI, RowCount> rowCounts) {
+            this.rowCounts = rowCounts;
+        }
+
+        OntopQueryEngine getProxy() {
+            return stub(OntopQueryEngine.class, (proxy, method, args) -> {
+                if (method.getName().equals("getConnection")) {
+                    openConnections.incrementAndGet();
+                    return createConnection();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        private OntopConnection createConnection() {
+            return stub(OntopConnection.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "createStatement":
+                        return createStatement();
+                    case "close":
+                        openConnections.decrementAndGet();
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private OntopStatement createStatement() {
+            return stub(OntopStatement.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "execute":
+                        String queryString = ((InputQuery<?>) args[0]).getInputString();
+                        for (Map.Entry<IRI, RowCount> e : rowCounts.entrySet()) {
+                            if (queryString.contains("<" + e.getKey().getIRIString() + ">"))
+                                return new StubTupleResultSet(e.getKey(), e.getValue().get());
+                        }
+                        throw new IllegalArgumentException(queryString);
+                    case "close":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        void awaitAllConnectionsClosed() throws InterruptedException {
+            while (openConnections.get() > 0)
+                Thread.sleep(10);
+        }
+    }
+
+    private static class StubTupleResultSet implements TupleResultSet {
+        private final IRI classIRI;
+        private final int rowCount;
+        private int row;
+
+        StubTupleResultSet(IRI classIRI, int rowCount) {
+            this.classIRI = classIRI;
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 2;
+        }
+
+        @Override
+        public List<String> getSignature() {
+            return ImmutableList.of("s", "g");
+        }
+
+        @Override
+        public int getFetchSize() {
+            return 0;
+        }
+
+        @Override
+        public boolean isConnectionAlive() {
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return row < rowCount;
+        }
+
+        @Override
+        public OntopBindingSet next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            String subject = classIRI.getIRIString() + "/" + row++;
+            return stub(OntopBindingSet.class, (proxy, method, args) -> {
+                if (method.getName().equals("getConstant"))
+                    return args[0].equals("s") ? TERM_FACTORY.getConstantIRI(subject) : null;
+                throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -8,4 +8,13 @@ public interface JDBCStatementInitializer extends JDBCStatementFinalizer {
 
     Statement createAndInitStatement(Connection connection) throws SQLException;
 
+    /**
+     * Called before executing each query, when jdbc.fetchSize is positive or when the fetch size
+     * has been explicitly set on the Ontop statement.
+     *
+     * The fetch size is positive. Bulk queries (CONSTRUCT, DESCRIBE) are expected to return many rows,
+     * which may deserve a dialect-specific streaming mode.
+     */
+    void setFetchSize(Statement statement, int fetchSize, boolean isBulk) throws SQLException;
+
 }
@@ -22,6 +22,11 @@ public class DefaultJDBCStatementInitializer implements JDBCStatementInitializer
         return init(create(connection));
     }
 
+    @Override
+    public void setFetchSize(Statement statement, int fetchSize, boolean isBulk) throws SQLException {
+        statement.setFetchSize(fetchSize);
+    }
+
     @Override
     public void closeStatement(Statement statement) throws SQLException {
         statement.close();
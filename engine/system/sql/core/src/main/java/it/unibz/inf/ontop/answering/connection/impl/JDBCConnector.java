@@ -5,10 +5,14 @@ import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.connection.DBConnector;
 import it.unibz.inf.ontop.answering.connection.JDBCStatementInitializer;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionStrategy;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPool;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPoolMXBean;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPoolStats;
+import it.unibz.inf.ontop.answering.connection.pool.impl.JDBCConnectionPoolMonitor;
 
 import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
@@ -17,13 +21,22 @@ import org.apache.commons.rdf.api.RDF;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.sql.*;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * For RDBMS having a JDBC driver.
  */
 public class JDBCConnector implements DBConnector {
 
+    // Object names must be unique for the MBeans
+    private static final AtomicInteger POOL_MBEAN_COUNTER = new AtomicInteger();
+
     private final QueryReformulator queryReformulator;
 
     private final SubstitutionFactory substitutionFactory;
@@ -34,14 +47,18 @@ public class JDBCConnector implements DBConnector {
 
     private final Logger log = LoggerFactory.getLogger(JDBCConnector.class);
     private final JDBCConnectionPool connectionPool;
+    private final QueryExecutionStrategy executionStrategy;
 
     private final TermFactory termFactory;
     private final RDF rdfFactory;
     private final JDBCStatementInitializer statementInitializer;
+    @Nullable
+    private final ObjectName poolMBeanName;
 
     @AssistedInject
     private JDBCConnector(@Assisted QueryReformulator queryReformulator,
                           JDBCConnectionPool connectionPool,
+                          QueryExecutionStrategy executionStrategy,
                           TermFactory termFactory,
                           SubstitutionFactory substitutionFactory,
                           RDF rdfFactory,
@@ -52,8 +69,28 @@ public class JDBCConnector implements DBConnector {
         this.substitutionFactory = substitutionFactory;
         this.settings = settings;
         this.connectionPool = connectionPool;
+        this.executionStrategy = executionStrategy;
         this.rdfFactory = rdfFactory;
         this.statementInitializer = statementInitializer;
+        this.poolMBeanName = connectionPool.getStats().isPresent()
+                ? registerPoolMBean()
+                : null;
+    }
+
+    /**
+     * Exposes the statistics of the connection pool through JMX (see JDBCConnectionPoolMXBean)
+     */
+    @Nullable
+    private ObjectName registerPoolMBean() {
+        try {
+            ObjectName name = new ObjectName(JDBCConnectionPoolMXBean.OBJECT_NAME_PREFIX + "ontop-"
+                    + POOL_MBEAN_COUNTER.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new JDBCConnectionPoolMonitor(connectionPool), name);
+            return name;
+        } catch (JMException e) {
+            log.warn("Could not register the connection pool MBean: " + e);
+            return null;
+        }
     }
 
     /**
@@ -86,10 +123,21 @@ public class JDBCConnector implements DBConnector {
         } catch (Exception e) {
             log.error(e.getMessage());
         }
+        if (poolMBeanName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(poolMBeanName);
+            } catch (JMException e) {
+                log.warn("Could not unregister the connection pool MBean: " + e);
+            }
+        }
         connectionPool.close();
+        executionStrategy.close();
     }
 
-    public synchronized Connection getSQLPoolConnection() throws OntopConnectionException {
+    /**
+     * Not synchronized: the pool is thread-safe, and a slow acquisition must not block the other threads.
+     */
+    public Connection getSQLPoolConnection() throws OntopConnectionException {
         try {
             return connectionPool.getConnection();
         } catch (SQLException e) {
@@ -97,6 +145,14 @@ public class JDBCConnector implements DBConnector {
         }
     }
 
+    /**
+     * Empty if the configured JDBCConnectionPool does not pool connections.
+     * Also exposed through JMX (see JDBCConnectionPoolMXBean).
+     */
+    public Optional<JDBCConnectionPoolStats> getConnectionPoolStats() {
+        return connectionPool.getStats();
+    }
+
     /***
      * Returns an OntopConnection, the main object that a client should use to
      * access the query answering services of Quest. With the QuestConnection
@@ -114,7 +170,7 @@ public class JDBCConnector implements DBConnector {
     @Override
     public OntopConnection getConnection() throws OntopConnectionException {
 
-        return new SQLConnection(this, queryReformulator, getSQLPoolConnection(),
+        return new SQLConnection(this, queryReformulator, executionStrategy, getSQLPoolConnection(),
                 termFactory, rdfFactory, substitutionFactory, statementInitializer, settings);
     }
 
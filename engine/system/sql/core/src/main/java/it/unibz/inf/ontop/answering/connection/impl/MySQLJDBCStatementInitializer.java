@@ -0,0 +1,43 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * MySQL Connector/J loads the complete result set in memory, unless
+ *   - cursor-based fetching is enabled (useCursorFetch=true in the JDBC URL): the fetch size is then respected;
+ *   - or the fetch size is Integer.MIN_VALUE: the rows are streamed one by one.
+ *
+ * Without cursor-based fetching, bulk queries are streamed.
+ * NB: while streaming, the connection cannot be used for another query until the result set is closed.
+ */
+@Singleton
+public class MySQLJDBCStatementInitializer extends DefaultJDBCStatementInitializer {
+
+    private final boolean isCursorFetchEnabled;
+
+    @Inject
+    protected MySQLJDBCStatementInitializer(OntopSystemSQLSettings settings) {
+        super(settings);
+        isCursorFetchEnabled = settings.getJdbcUrl().toLowerCase().contains("usecursorfetch=true");
+    }
+
+    @Override
+    protected Statement init(Statement statement) throws SQLException {
+        // Positive fetch sizes are ignored by the driver without cursor-based fetching
+        return isCursorFetchEnabled ? super.init(statement) : statement;
+    }
+
+    @Override
+    public void setFetchSize(Statement statement, int fetchSize, boolean isBulk) throws SQLException {
+        if (isCursorFetchEnabled)
+            statement.setFetchSize(fetchSize);
+        else
+            // 0: back to the default behavior after a bulk query
+            statement.setFetchSize(isBulk ? Integer.MIN_VALUE : 0);
+    }
+}
@@ -5,6 +5,7 @@ import java.sql.Connection;
 import it.unibz.inf.ontop.answering.connection.JDBCStatementInitializer;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionStrategy;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
@@ -28,6 +29,7 @@ import org.apache.commons.rdf.api.RDF;
 public class SQLConnection implements OntopConnection {
 
 	private final QueryReformulator queryProcessor;
+	private final QueryExecutionStrategy executionStrategy;
 	private Connection conn;
 	private final TermFactory termFactory;
 	private final SubstitutionFactory substitutionFactory;
@@ -39,12 +41,14 @@ public class SQLConnection implements OntopConnection {
 	private final JDBCStatementInitializer statementInitializer;
 
 
-	public SQLConnection(JDBCConnector jdbcConnector, QueryReformulator queryProcessor, Connection connection,
+	public SQLConnection(JDBCConnector jdbcConnector, QueryReformulator queryProcessor,
+						 QueryExecutionStrategy executionStrategy, Connection connection,
 						 TermFactory termFactory, RDF rdfFactory, SubstitutionFactory substitutionFactory,
 						 JDBCStatementInitializer statementInitializer,
 						 OntopSystemSQLSettings settings) {
 		this.jdbcConnector = jdbcConnector;
 		this.queryProcessor = queryProcessor;
+		this.executionStrategy = executionStrategy;
 		this.conn = connection;
 		this.termFactory = termFactory;
 		this.substitutionFactory = substitutionFactory;
@@ -72,9 +76,10 @@ public class SQLConnection implements OntopConnection {
 			}
 			return new SQLQuestStatement(
 					this.queryProcessor,
+					executionStrategy,
 					statementInitializer.createAndInitStatement(conn),
 					statementInitializer,
-					termFactory, rdfFactory, substitutionFactory, settings);
+					termFactory, rdfFactory, substitutionFactory, settings, jdbcConnector);
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
 		}
@@ -2,9 +2,11 @@ package it.unibz.inf.ontop.answering.connection.impl;
 
 import java.util.Optional;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
-import it.unibz.inf.ontop.answering.connection.JDBCStatementFinalizer;
+import it.unibz.inf.ontop.answering.connection.JDBCStatementInitializer;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionStrategy;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
 import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
@@ -22,12 +24,17 @@ import it.unibz.inf.ontop.iq.UnaryIQTree;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
 import it.unibz.inf.ontop.iq.node.ConstructionNode;
 import it.unibz.inf.ontop.iq.node.NativeNode;
+import it.unibz.inf.ontop.model.term.DBConstant;
 import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import org.apache.commons.rdf.api.RDF;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.*;
 import java.sql.ResultSet;
 
@@ -38,23 +45,78 @@ import java.sql.ResultSet;
 public class SQLQuestStatement extends QuestStatement {
 
     private final Statement sqlStatement;
-    private final JDBCStatementFinalizer statementFinalizer;
+    private final JDBCStatementInitializer statementInitializer;
     private final TermFactory termFactory;
     private final RDF rdfFactory;
     private final SubstitutionFactory substitutionFactory;
     private final OntopSystemSQLSettings settings;
+    private final JDBCConnector jdbcConnector;
+    // Only for auxiliary statements: closed with the statement
+    @Nullable
+    private final Connection ownedConnection;
+    // Only for native queries with parameters
+    @Nullable
+    private volatile PreparedStatement preparedStatement;
+    // 0: selected according to the query
+    private volatile int fetchSizeOverride;
+    // Only used when the automatic selection is disabled (non-positive jdbc.fetchSize)
+    private boolean isFetchSizeOverridden;
 
-    public SQLQuestStatement(QueryReformulator queryProcessor, Statement sqlStatement,
-                             JDBCStatementFinalizer statementFinalizer, TermFactory termFactory,
-                             RDF rdfFactory, SubstitutionFactory substitutionFactory,
-                             OntopSystemSQLSettings settings) {
-        super(queryProcessor);
+    /**
+     * Used for selecting the fetch size
+     */
+    enum ExpectedResultSize {
+        SINGLE_ROW,
+        REGULAR,
+        BULK
+    }
+
+    public SQLQuestStatement(QueryReformulator queryProcessor, QueryExecutionStrategy executionStrategy,
+                             Statement sqlStatement, JDBCStatementInitializer statementInitializer,
+                             TermFactory termFactory, RDF rdfFactory, SubstitutionFactory substitutionFactory,
+                             OntopSystemSQLSettings settings, JDBCConnector jdbcConnector) {
+        this(queryProcessor, executionStrategy, sqlStatement, statementInitializer, termFactory, rdfFactory,
+                substitutionFactory, settings, jdbcConnector, null);
+    }
+
+    private SQLQuestStatement(QueryReformulator queryProcessor, QueryExecutionStrategy executionStrategy,
+                              Statement sqlStatement, JDBCStatementInitializer statementInitializer,
+                              TermFactory termFactory, RDF rdfFactory, SubstitutionFactory substitutionFactory,
+                              OntopSystemSQLSettings settings, JDBCConnector jdbcConnector,
+                              @Nullable Connection ownedConnection) {
+        super(queryProcessor, executionStrategy, settings);
         this.sqlStatement = sqlStatement;
-        this.statementFinalizer = statementFinalizer;
+        this.statementInitializer = statementInitializer;
         this.termFactory = termFactory;
         this.rdfFactory = rdfFactory;
         this.substitutionFactory = substitutionFactory;
         this.settings = settings;
+        this.jdbcConnector = jdbcConnector;
+        this.ownedConnection = ownedConnection;
+    }
+
+    @Override
+    protected Optional<AuxiliaryStatementFactory> getAuxiliaryStatementFactory() {
+        return Optional.of(this::createAuxiliaryStatement);
+    }
+
+    /**
+     * On a new connection of the pool, released when the statement is closed
+     */
+    private QuestStatement createAuxiliaryStatement() throws OntopConnectionException {
+        Connection connection = jdbcConnector.getSQLPoolConnection();
+        try {
+            return new SQLQuestStatement(getQueryReformulator(), getExecutionStrategy(),
+                    statementInitializer.createAndInitStatement(connection), statementInitializer, termFactory,
+                    rdfFactory, substitutionFactory, settings, jdbcConnector, connection);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.close();
+            } catch (SQLException e1) {
+                e.addSuppressed(e1);
+            }
+            throw new OntopConnectionException(e);
+        }
     }
 
     @Override
@@ -105,6 +167,16 @@ public class SQLQuestStatement extends QuestStatement {
         }
     }
 
+    @Override
+    public void setFetchSize(int fetchSize) {
+        fetchSizeOverride = Math.max(0, fetchSize);
+    }
+
+    @Override
+    public int getFetchSize() {
+        return fetchSizeOverride;
+    }
+
     @Override
     public boolean isClosed() throws OntopConnectionException {
         try {
@@ -114,41 +186,17 @@ public class SQLQuestStatement extends QuestStatement {
         }
     }
 
-    /**
-     * Returns the number of tuples returned by the query
-     */
-    @Override
-    public int getTupleCount(InputQuery inputQuery) throws OntopReformulationException, OntopQueryEvaluationException {
-        IQ targetQuery = getExecutableQuery(inputQuery);
-        try {
-            String sql = extractSQLQuery(targetQuery);
-            String newsql = "SELECT count(*) FROM (" + sql + ") t1";
-            if (!isCanceled()) {
-                try {
-
-                    java.sql.ResultSet set = sqlStatement.executeQuery(newsql);
-                    if (set.next()) {
-                        return set.getInt(1);
-                    } else {
-                        //throw new OBDAException("Tuple count failed due to empty result set.");
-                        return 0;
-                    }
-                } catch (SQLException e) {
-                    throw new OntopQueryEvaluationException(e);
-                }
-            } else {
-                throw new OntopQueryEvaluationException("Action canceled.");
-            }
-        } catch (EmptyQueryException e) {
-            return 0;
-        }
-    }
-
     @Override
     public void close() throws OntopConnectionException {
         try {
-            if (sqlStatement != null)
-                statementFinalizer.closeStatement(sqlStatement);
+            try {
+                closePreparedStatement();
+                if (sqlStatement != null)
+                    statementInitializer.closeStatement(sqlStatement);
+            } finally {
+                if (ownedConnection != null)
+                    ownedConnection.close();
+            }
         } catch (SQLException e) {
             throw new OntopConnectionException(e);
         }
@@ -156,19 +204,171 @@ public class SQLQuestStatement extends QuestStatement {
 
     protected void cancelExecution() throws OntopQueryEvaluationException {
         try {
+            PreparedStatement currentPreparedStatement = preparedStatement;
+            if (currentPreparedStatement != null)
+                currentPreparedStatement.cancel();
             sqlStatement.cancel();
         } catch (SQLException e) {
             throw new OntopQueryEvaluationException(e);
         }
     }
 
+    /**
+     * When the native query has parameters (bind markers), it is executed as a prepared statement
+     * configured like the regular statement.
+     * Like for a regular statement, the result set of the previous query is closed.
+     */
+    private ResultSet executeSQLQuery(String sqlQuery, ImmutableList<DBConstant> parameters,
+                                      ExpectedResultSize expectedResultSize) throws SQLException {
+        adaptFetchSize(expectedResultSize);
+
+        if (parameters.isEmpty())
+            return sqlStatement.executeQuery(sqlQuery);
+
+        closePreparedStatement();
+        PreparedStatement newPreparedStatement = sqlStatement.getConnection().prepareStatement(sqlQuery);
+        preparedStatement = newPreparedStatement;
+        newPreparedStatement.setMaxRows(sqlStatement.getMaxRows());
+        newPreparedStatement.setQueryTimeout(sqlStatement.getQueryTimeout());
+        newPreparedStatement.setFetchSize(sqlStatement.getFetchSize());
+
+        for (int i = 0; i < parameters.size(); i++)
+            bindParameter(newPreparedStatement, i + 1, parameters.get(i));
+        return newPreparedStatement.executeQuery();
+    }
+
+    /**
+     * Binds the parameter with the JDBC type of its DB datatype: a string would not be implicitly cast
+     * by all the DBMSs (e.g. PostgreSQL for integer and boolean columns).
+     */
+    static void bindParameter(PreparedStatement statement, int index, DBConstant parameter) throws SQLException {
+        String value = parameter.getValue();
+        DBTermType type = parameter.getType();
+        try {
+            switch (type.getCategory()) {
+                case STRING:
+                    statement.setString(index, value);
+                    break;
+                case INTEGER:
+                    BigInteger integer = new BigInteger(value);
+                    if (integer.bitLength() < Long.SIZE)
+                        statement.setLong(index, integer.longValue());
+                    else
+                        statement.setBigDecimal(index, new BigDecimal(integer));
+                    break;
+                case DECIMAL:
+                    statement.setBigDecimal(index, new BigDecimal(value));
+                    break;
+                case FLOAT_DOUBLE:
+                    statement.setDouble(index, parseDouble(value));
+                    break;
+                case BOOLEAN:
+                    statement.setBoolean(index, parseBoolean(value));
+                    break;
+                default:
+                    throw new SQLFeatureNotSupportedException("Parameters of type " + type + " are not supported");
+            }
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid value for a parameter of type " + type + ": " + value, e);
+        }
+    }
+
+    /**
+     * Also accepts the XSD lexical forms of the special values (INF, -INF, NaN)
+     */
+    private static double parseDouble(String value) {
+        switch (value) {
+            case "INF":
+            case "+INF":
+                return Double.POSITIVE_INFINITY;
+            case "-INF":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                // Also parses NaN, Infinity and -Infinity
+                return Double.parseDouble(value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        switch (value.toLowerCase()) {
+            case "true":
+            case "1":
+                return true;
+            case "false":
+            case "0":
+                return false;
+            default:
+                throw new NumberFormatException("Not a boolean: " + value);
+        }
+    }
+
+    /**
+     * The executable IQ does not tell the LIMIT anymore (it is part of the native query string):
+     * relies on the type of query and on the maximum number of rows of the statement.
+     */
+    private void adaptFetchSize(ExpectedResultSize expectedResultSize) throws SQLException {
+        int fetchSize = selectFetchSize(expectedResultSize, fetchSizeOverride, settings.getFetchSize(),
+                settings.getBulkFetchSize(), sqlStatement.getMaxRows());
+
+        if (fetchSize > 0) {
+            statementInitializer.setFetchSize(sqlStatement, fetchSize, expectedResultSize == ExpectedResultSize.BULK);
+            isFetchSizeOverridden = settings.getFetchSize() <= 0;
+        }
+        // Automatic selection disabled: back to the default of the driver once the override is removed
+        else if (isFetchSizeOverridden) {
+            sqlStatement.setFetchSize(0);
+            isFetchSizeOverridden = false;
+        }
+    }
+
+    /**
+     * An explicit fetch size (see setFetchSize()) is always applied. Otherwise, the fetch size is selected
+     * according to the type of query, unless jdbc.fetchSize is not positive.
+     *
+     * Returns 0 when the fetch size of the statement must be left as is.
+     */
+    static int selectFetchSize(ExpectedResultSize expectedResultSize, int fetchSizeOverride, int defaultFetchSize,
+                               int bulkFetchSize, int maxRows) {
+        int fetchSize;
+        if (fetchSizeOverride > 0)
+            fetchSize = fetchSizeOverride;
+        // Disabled
+        else if (defaultFetchSize <= 0)
+            return 0;
+        else {
+            switch (expectedResultSize) {
+                case SINGLE_ROW:
+                    fetchSize = 1;
+                    break;
+                case BULK:
+                    fetchSize = bulkFetchSize;
+                    break;
+                case REGULAR:
+                default:
+                    fetchSize = defaultFetchSize;
+            }
+        }
+        if (maxRows > 0)
+            fetchSize = Math.min(fetchSize, maxRows);
+
+        return Math.max(0, fetchSize);
+    }
+
+    private void closePreparedStatement() throws SQLException {
+        PreparedStatement previousPreparedStatement = preparedStatement;
+        preparedStatement = null;
+        if (previousPreparedStatement != null)
+            previousPreparedStatement.close();
+    }
+
     @Override
     public BooleanResultSet executeBooleanQuery(IQ executableQuery, QueryLogger queryLogger)
             throws OntopQueryEvaluationException {
         try {
             String sqlQuery = extractSQLQuery(executableQuery);
             try {
-                java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
+                java.sql.ResultSet set = executeSQLQuery(sqlQuery, extractNativeNode(executableQuery).getParameters(),
+                        ExpectedResultSize.SINGLE_ROW);
                 queryLogger.declareResultSetUnblockedAndSerialize();
                 return new SQLBooleanResultSet(set, queryLogger, this::close);
             } catch (SQLException e) {
@@ -194,11 +394,13 @@ public class SQLQuestStatement extends QuestStatement {
             OntopConnectionCloseable statementClosingCB = shouldAlsoCloseStatement ? this::close : null;
 
             try {
-                java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
+                java.sql.ResultSet set = executeSQLQuery(sqlQuery, nativeNode.getParameters(), ExpectedResultSize.REGULAR);
                 queryLogger.declareResultSetUnblockedAndSerialize();
                 return settings.isDistinctPostProcessingEnabled()
                         ? new DistinctJDBCTupleResultSet(set, signature, typeMap, constructionNode,
-                            executableQuery.getProjectionAtom(), queryLogger, statementClosingCB, termFactory, substitutionFactory)
+                            executableQuery.getProjectionAtom(), queryLogger, statementClosingCB, termFactory,
+                            substitutionFactory, settings.getDistinctResultSetMaxMemory(),
+                            getDistinctSpillDirectory(nativeNode))
                         : new JDBCTupleResultSet(set, signature, typeMap, constructionNode, executableQuery.getProjectionAtom(),
                             queryLogger, statementClosingCB, termFactory, substitutionFactory);
             } catch (SQLException e) {
@@ -228,7 +430,7 @@ public class SQLQuestStatement extends QuestStatement {
             OntopConnectionCloseable statementClosingCB = shouldAlsoCloseStatement ? this::close : null;
 
             try {
-                ResultSet rs = sqlStatement.executeQuery(sqlQuery);
+                ResultSet rs = executeSQLQuery(sqlQuery, nativeNode.getParameters(), ExpectedResultSize.BULK);
                 queryLogger.declareResultSetUnblockedAndSerialize();
                 tuples = new JDBCTupleResultSet(rs, SQLSignature, SQLTypeMap, constructionNode,
                         executableQuery.getProjectionAtom(), queryLogger, statementClosingCB, termFactory, substitutionFactory);
@@ -242,6 +444,17 @@ public class SQLQuestStatement extends QuestStatement {
         return new DefaultSimpleGraphResultSet(tuples, constructTemplate, termFactory, rdfFactory);
     }
 
+    /**
+     * Spilling changes the order of the rows: not allowed if the native query orders them.
+     */
+    @Nullable
+    private File getDistinctSpillDirectory(NativeNode nativeNode) {
+        if (nativeNode.isOrdered())
+            return null;
+        return new File(settings.getDistinctResultSetSpillDirectory()
+                .orElseGet(() -> System.getProperty("java.io.tmpdir")));
+    }
+
     private NativeNode extractNativeNode(IQ executableQuery) throws EmptyQueryException {
         IQTree tree = executableQuery.getTree();
         if (tree.isDeclaredAsEmpty()) {
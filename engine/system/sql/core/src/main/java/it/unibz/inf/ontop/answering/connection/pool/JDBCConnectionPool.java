@@ -3,11 +3,22 @@ package it.unibz.inf.ontop.answering.connection.pool;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Optional;
 
+/**
+ * Implementations must be thread-safe: connections are acquired concurrently, without external synchronization.
+ */
 public interface JDBCConnectionPool extends AutoCloseable {
 
     @Override
     void close();
 
     Connection getConnection() throws SQLException;
+
+    /**
+     * Empty if the implementation does not pool connections
+     */
+    default Optional<JDBCConnectionPoolStats> getStats() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,30 @@
+package it.unibz.inf.ontop.answering.connection.pool;
+
+/**
+ * Statistics of the connection pool of a query engine, exposed through JMX
+ * under it.unibz.inf.ontop:type=JDBCConnectionPool,name=ontop-N.
+ *
+ * See JDBCConnectionPoolStats.
+ */
+public interface JDBCConnectionPoolMXBean {
+
+    String OBJECT_NAME_PREFIX = "it.unibz.inf.ontop:type=JDBCConnectionPool,name=";
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    int getTotalConnections();
+
+    int getThreadsAwaitingConnection();
+
+    int getMaxPoolSize();
+
+    long getAcquisitionCount();
+
+    long getFailedAcquisitionCount();
+
+    double getAverageAcquisitionTimeMillis();
+
+    long getMaxAcquisitionTimeMillis();
+}
@@ -0,0 +1,91 @@
+package it.unibz.inf.ontop.answering.connection.pool;
+
+/**
+ * Snapshot of the state of a connection pool and of the connection acquisitions so far.
+ *
+ * Useful for sizing jdbc.pool.maxSize.
+ */
+public class JDBCConnectionPoolStats {
+
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int threadsAwaitingConnection;
+    private final int maxPoolSize;
+    private final long acquisitionCount;
+    private final long failedAcquisitionCount;
+    private final long totalAcquisitionTimeMillis;
+    private final long maxAcquisitionTimeMillis;
+
+    public JDBCConnectionPoolStats(int activeConnections, int idleConnections, int totalConnections,
+                                   int threadsAwaitingConnection, int maxPoolSize, long acquisitionCount,
+                                   long failedAcquisitionCount, long totalAcquisitionTimeMillis,
+                                   long maxAcquisitionTimeMillis) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+        this.maxPoolSize = maxPoolSize;
+        this.acquisitionCount = acquisitionCount;
+        this.failedAcquisitionCount = failedAcquisitionCount;
+        this.totalAcquisitionTimeMillis = totalAcquisitionTimeMillis;
+        this.maxAcquisitionTimeMillis = maxAcquisitionTimeMillis;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    /**
+     * -1 if not provided by the pool
+     */
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaitingConnection;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Successful and failed ones
+     */
+    public long getAcquisitionCount() {
+        return acquisitionCount;
+    }
+
+    /**
+     * Mostly timeouts (see jdbc.pool.connectionTimeout)
+     */
+    public long getFailedAcquisitionCount() {
+        return failedAcquisitionCount;
+    }
+
+    public long getTotalAcquisitionTimeMillis() {
+        return totalAcquisitionTimeMillis;
+    }
+
+    public long getMaxAcquisitionTimeMillis() {
+        return maxAcquisitionTimeMillis;
+    }
+
+    public double getAverageAcquisitionTimeMillis() {
+        return acquisitionCount == 0 ? 0 : ((double) totalAcquisitionTimeMillis) / acquisitionCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, total=%d, awaiting=%d, max=%d, acquisitions=%d, failed=%d, " +
+                        "avgWait=%.2fms, maxWait=%dms",
+                activeConnections, idleConnections, totalConnections, threadsAwaitingConnection, maxPoolSize,
+                acquisitionCount, failedAcquisitionCount, getAverageAcquisitionTimeMillis(), maxAcquisitionTimeMillis);
+    }
+}
@@ -0,0 +1,54 @@
+package it.unibz.inf.ontop.answering.connection.pool.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the time spent waiting for connections. Lock-free.
+ */
+class ConnectionAcquisitionRecorder {
+
+    private final LongAdder acquisitionCount = new LongAdder();
+    private final LongAdder failedAcquisitionCount = new LongAdder();
+    private final LongAdder totalAcquisitionNanos = new LongAdder();
+    private final AtomicLong maxAcquisitionNanos = new AtomicLong();
+
+    @FunctionalInterface
+    interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    Connection acquire(ConnectionSupplier supplier) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } catch (SQLException e) {
+            failedAcquisitionCount.increment();
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            acquisitionCount.increment();
+            totalAcquisitionNanos.add(duration);
+            maxAcquisitionNanos.accumulateAndGet(duration, Math::max);
+        }
+    }
+
+    long getAcquisitionCount() {
+        return acquisitionCount.sum();
+    }
+
+    long getFailedAcquisitionCount() {
+        return failedAcquisitionCount.sum();
+    }
+
+    long getTotalAcquisitionTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalAcquisitionNanos.sum());
+    }
+
+    long getMaxAcquisitionTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxAcquisitionNanos.get());
+    }
+}
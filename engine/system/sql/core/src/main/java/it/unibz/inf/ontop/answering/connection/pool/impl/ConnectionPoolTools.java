@@ -0,0 +1,23 @@
+package it.unibz.inf.ontop.answering.connection.pool.impl;
+
+/**
+ * Settings shared by the pool implementations
+ */
+class ConnectionPoolTools {
+
+    private ConnectionPoolTools() {
+    }
+
+    /**
+     * Query used for testing a connection before lending it (jdbc.pool.keepAlive)
+     */
+    static String getValidationQuery(String driver) {
+        // TODO: refactor this
+        if (driver.contains("oracle"))
+            return "select 1 from dual";
+        else if (driver.contains("db2"))
+            return "select 1 from sysibm.sysdummy1";
+        else
+            return "select 1";
+    }
+}
@@ -3,34 +3,77 @@ package it.unibz.inf.ontop.answering.connection.pool.impl;
 import com.google.inject.Inject;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPoolStats;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
 import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Default pool. The settings of the Tomcat pool (alternative) are mapped as follows:
+ *   - jdbc.pool.keepAlive: the connections are tested with the same validation query
+ *     (Hikari always tests them before lending them, with Connection.isValid() when keepAlive is disabled)
+ *   - jdbc.pool.removeAbandoned: Hikari cannot reclaim abandoned connections, they are only reported
+ *     (leak detection) after jdbc.pool.connectionTimeout
+ *   - jdbc.pool.connectionTimeout: also used as idle timeout (at least 10s for Hikari)
+ *
+ * Unlike with the Tomcat pool, the connections are read-only: Ontop only reads from the DB.
+ *
+ * The pool is also registered as a JMX MBean (com.zaxxer.hikari:type=Pool (ontop-N)).
+ *
  * NOT a singleton
  */
 public class HikariConnectionPool implements JDBCConnectionPool {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(HikariConnectionPool.class);
+    // Pool names must be unique for the MBeans
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+    private static final long MIN_IDLE_TIMEOUT = 10_000;
 
     private final HikariDataSource ds;
+    private final ConnectionAcquisitionRecorder recorder;
+    private final int maxPoolSize;
 
     @Inject
     private HikariConnectionPool(OntopSystemSQLSettings settings) {
         HikariConfig config = new HikariConfig();
+        config.setPoolName("ontop-" + POOL_COUNTER.incrementAndGet());
         config.setJdbcUrl(settings.getJdbcUrl());
         config.setUsername(settings.getJdbcUser());
         config.setPassword(settings.getJdbcPassword());
         config.setDriverClassName(settings.getJdbcDriver());
 
-        config.setMinimumIdle(settings.getConnectionPoolInitialSize());
-        config.setMaximumPoolSize(settings.getConnectionPoolMaxSize());
-        config.setConnectionTimeout(settings.getConnectionTimeout());
+        if (settings.isKeepAliveEnabled())
+            config.setConnectionTestQuery(ConnectionPoolTools.getValidationQuery(settings.getJdbcDriver()));
+
+        boolean removeAbandoned = settings.isRemoveAbandonedEnabled();
+        int timeout = settings.getConnectionTimeout();
+        if (removeAbandoned)
+            config.setLeakDetectionThreshold(timeout);
+
+        maxPoolSize = settings.getConnectionPoolMaxSize();
+        config.setMinimumIdle(Math.min(settings.getConnectionPoolInitialSize(), maxPoolSize));
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setConnectionTimeout(timeout);
+        config.setIdleTimeout(Math.max(MIN_IDLE_TIMEOUT, timeout));
         config.setReadOnly(true);
+        // Like the other pools, does not fail if the DB is not reachable yet
+        config.setInitializationFailTimeout(-1);
+        config.setRegisterMbeans(true);
 
         ds = new HikariDataSource(config);
+        recorder = new ConnectionAcquisitionRecorder();
+
+        LOGGER.debug("Connection Pool Properties:");
+        LOGGER.debug("Start size: " + config.getMinimumIdle());
+        LOGGER.debug("Max size: " + maxPoolSize);
+        LOGGER.debug("Report abandoned connections: " + removeAbandoned);
     }
 
 
@@ -41,6 +84,21 @@ public class HikariConnectionPool implements JDBCConnectionPool {
 
     @Override
     public Connection getConnection() throws SQLException {
-        return ds.getConnection();
+        return recorder.acquire(ds::getConnection);
+    }
+
+    @Override
+    public Optional<JDBCConnectionPoolStats> getStats() {
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        return Optional.of(new JDBCConnectionPoolStats(
+                pool == null ? 0 : pool.getActiveConnections(),
+                pool == null ? 0 : pool.getIdleConnections(),
+                pool == null ? 0 : pool.getTotalConnections(),
+                pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+                maxPoolSize,
+                recorder.getAcquisitionCount(),
+                recorder.getFailedAcquisitionCount(),
+                recorder.getTotalAcquisitionTimeMillis(),
+                recorder.getMaxAcquisitionTimeMillis()));
     }
 }
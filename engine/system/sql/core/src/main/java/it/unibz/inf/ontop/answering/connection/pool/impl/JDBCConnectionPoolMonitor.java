@@ -0,0 +1,68 @@
+package it.unibz.inf.ontop.answering.connection.pool.impl;
+
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPool;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPoolMXBean;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPoolStats;
+import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
+
+/**
+ * Only for pools providing statistics. Each attribute is read from a fresh snapshot.
+ */
+public class JDBCConnectionPoolMonitor implements JDBCConnectionPoolMXBean {
+
+    private final JDBCConnectionPool pool;
+
+    public JDBCConnectionPoolMonitor(JDBCConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    private JDBCConnectionPoolStats getStats() {
+        return pool.getStats()
+                .orElseThrow(() -> new MinorOntopInternalBugException("The connection pool does not provide statistics"));
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return getStats().getActiveConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return getStats().getIdleConnections();
+    }
+
+    @Override
+    public int getTotalConnections() {
+        return getStats().getTotalConnections();
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        return getStats().getThreadsAwaitingConnection();
+    }
+
+    @Override
+    public int getMaxPoolSize() {
+        return getStats().getMaxPoolSize();
+    }
+
+    @Override
+    public long getAcquisitionCount() {
+        return getStats().getAcquisitionCount();
+    }
+
+    @Override
+    public long getFailedAcquisitionCount() {
+        return getStats().getFailedAcquisitionCount();
+    }
+
+    @Override
+    public double getAverageAcquisitionTimeMillis() {
+        return getStats().getAverageAcquisitionTimeMillis();
+    }
+
+    @Override
+    public long getMaxAcquisitionTimeMillis() {
+        return getStats().getMaxAcquisitionTimeMillis();
+    }
+}
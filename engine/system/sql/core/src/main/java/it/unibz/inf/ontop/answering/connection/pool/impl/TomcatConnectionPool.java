@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.answering.connection.pool.impl;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
 import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPool;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPoolStats;
 import org.apache.tomcat.jdbc.pool.DataSource;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.slf4j.Logger;
@@ -10,15 +11,19 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Optional;
 
 
 /**
+ * Alternative to the Hikari pool (default), reclaiming the abandoned connections (jdbc.pool.removeAbandoned).
+ *
  * Not a SINGLETON!
  */
 public class TomcatConnectionPool implements JDBCConnectionPool {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TomcatConnectionPool.class);
     private final DataSource tomcatPool;
+    private final ConnectionAcquisitionRecorder recorder;
 
     @Inject
     private TomcatConnectionPool(OntopSystemSQLSettings settings) {
@@ -33,16 +38,8 @@ public class TomcatConnectionPool implements JDBCConnectionPool {
         // TEST connection before using it
         boolean keepAlive = settings.isKeepAliveEnabled();
         poolProperties.setTestOnBorrow(keepAlive);
-        if (keepAlive) {
-            // TODO: refactor this
-            String driver = settings.getJdbcDriver();
-            if (driver.contains("oracle"))
-                poolProperties.setValidationQuery("select 1 from dual");
-            else if (driver.contains("db2"))
-                poolProperties.setValidationQuery("select 1 from sysibm.sysdummy1");
-            else
-                poolProperties.setValidationQuery("select 1");
-        }
+        if (keepAlive)
+            poolProperties.setValidationQuery(ConnectionPoolTools.getValidationQuery(settings.getJdbcDriver()));
 
         boolean removeAbandoned = settings.isRemoveAbandonedEnabled();
         int abandonedTimeout = settings.getConnectionTimeout();
@@ -63,6 +60,7 @@ public class TomcatConnectionPool implements JDBCConnectionPool {
                 + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer");
         tomcatPool = new DataSource();
         tomcatPool.setPoolProperties(poolProperties);
+        recorder = new ConnectionAcquisitionRecorder();
 
         LOGGER.debug("Connection Pool Properties:");
         LOGGER.debug("Start size: " + startPoolSize);
@@ -77,6 +75,20 @@ public class TomcatConnectionPool implements JDBCConnectionPool {
 
     @Override
     public Connection getConnection() throws SQLException {
-        return tomcatPool.getConnection();
+        return recorder.acquire(tomcatPool::getConnection);
+    }
+
+    @Override
+    public Optional<JDBCConnectionPoolStats> getStats() {
+        return Optional.of(new JDBCConnectionPoolStats(
+                tomcatPool.getActive(),
+                tomcatPool.getIdle(),
+                tomcatPool.getSize(),
+                tomcatPool.getWaitCount(),
+                tomcatPool.getMaxActive(),
+                recorder.getAcquisitionCount(),
+                recorder.getFailedAcquisitionCount(),
+                recorder.getTotalAcquisitionTimeMillis(),
+                recorder.getMaxAcquisitionTimeMillis()));
     }
 }
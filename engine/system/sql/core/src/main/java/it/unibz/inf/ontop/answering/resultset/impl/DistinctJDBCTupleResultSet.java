@@ -31,66 +31,111 @@ import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.*;
 
 /**
  * Class to handle distinct in SPARQL query. Avoid returning duplicate rows.
  * See test case DistinctResultSetTest
+ *
+ * Only fingerprints of the rows are kept in memory, up to the memory budget.
+ * Beyond, the fresh rows are spilled to the disk and returned after the others (see SpillingRowDeduplicator).
+ * Therefore no spill directory must be given when the order of the rows matters.
  */
 
 @Deprecated
 public class DistinctJDBCTupleResultSet extends JDBCTupleResultSet implements TupleResultSet {
 
-    private Set<List<Object>> rowKeys;
+    private static final Logger LOGGER = LoggerFactory.getLogger(DistinctJDBCTupleResultSet.class);
+
+    private final SpillingRowDeduplicator deduplicator;
+    private boolean isSourceExhausted = false;
+    @Nullable
+    private String[] currentValues;
 
+    /**
+     * If the spill directory is null, the rows are never spilled (the memory budget may then be exceeded).
+     */
     public DistinctJDBCTupleResultSet(ResultSet rs, ImmutableSortedSet<Variable> sqlSignature, ImmutableMap<Variable, DBTermType> sqlTypes,
                                       ConstructionNode constructionNode,
                                       DistinctVariableOnlyDataAtom answerAtom, QueryLogger queryLogger,
                                       @Nullable OntopConnectionCloseable statementClosingCB, TermFactory termFactory,
-                                      SubstitutionFactory substitutionFactory) {
+                                      SubstitutionFactory substitutionFactory, long maxMemory,
+                                      @Nullable File spillDirectory) {
 
         super(rs, sqlSignature, sqlTypes, constructionNode, answerAtom, queryLogger, statementClosingCB, termFactory, substitutionFactory);
-        rowKeys = new HashSet<>();
+        deduplicator = new SpillingRowDeduplicator(maxMemory, spillDirectory);
     }
 
     /**
-     * Moves cursor until we get a fresh row
+     * Moves cursor until we get a fresh row, then returns the spilled rows (if any)
      */
     @Override
     protected boolean moveCursor() throws SQLException, OntopConnectionException {
-        boolean foundFreshTuple;
-        List<Object> currentKey;
-        do{
-           foundFreshTuple = rs.next();
-           // Cannot use this in the while condition: limit case where the last row was a duplicate
-           if(!foundFreshTuple) {
-               break;
-           }
-           currentKey = computeTupleKey(rs);
-        } while(!rowKeys.add(currentKey));
-
-        return foundFreshTuple;
+        try {
+            while (!isSourceExhausted) {
+                // Cannot use this in the while condition: limit case where the last row was a duplicate
+                if (!rs.next()) {
+                    isSourceExhausted = true;
+                    break;
+                }
+                String[] values = rowDecoder.readValues(rs);
+                if (deduplicator.add(values)) {
+                    currentValues = values;
+                    return true;
+                }
+            }
+            currentValues = deduplicator.nextSpilledRow();
+            if (currentValues == null) {
+                LOGGER.debug("Distinct result set: {} rows seen, {} dropped, {} spilled",
+                        getRowCount(), getDroppedRowCount(), getSpilledRowCount());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            throw buildConnectionException(e);
+        }
     }
 
-    private List<Object> computeTupleKey(ResultSet rs) throws OntopConnectionException {
-
-        ArrayList rowKey = new ArrayList<>();
-        for (int i = 1; i <= getSignature().size();  i ++ ) {
-            rowKey.add(getRawObject(i)); //value
-        }
-        return rowKey;
+    @Override
+    protected SQLOntopBindingSet readCurrentRow() {
+        return new SQLOntopBindingSet(rowDecoder.decode(currentValues));
     }
 
-    Object getRawObject(int column) throws OntopConnectionException {
+    @Override
+    public void close() throws OntopConnectionException {
         try {
-            Object realValue = rs.getObject(column);
-            return realValue;
-        } catch (Exception e) {
-            throw buildConnectionException(e);
+            super.close();
+        } finally {
+            try {
+                deduplicator.close();
+            } catch (IOException e) {
+                LOGGER.warn("Could not clean up the spilled rows: {}", e.getMessage());
+            }
         }
     }
+
+    /**
+     * Number of rows read from the DB
+     */
+    public long getRowCount() {
+        return deduplicator.getRowCount();
+    }
+
+    /**
+     * Number of duplicate rows that have been dropped
+     */
+    public long getDroppedRowCount() {
+        return deduplicator.getDroppedRowCount();
+    }
+
+    public long getSpilledRowCount() {
+        return deduplicator.getSpilledRowCount();
+    }
 }
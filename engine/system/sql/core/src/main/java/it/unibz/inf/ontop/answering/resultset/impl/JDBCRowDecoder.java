@@ -0,0 +1,341 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.FunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.RDFTermFunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.ObjectStringTemplateFunctionSymbol;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.RDFTermType;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.R2RMLIRISafeEncoder;
+
+import javax.annotation.Nullable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Compiled once per query from the substitution of the root construction node of the executable query.
+ *
+ * Decodes the current row of a JDBC result set into bindings. The common shapes of terms
+ * (constants, RDF(column, type) and RDF(template(columns), type)) are evaluated directly on the column values,
+ * without building any intermediate substitution or term.
+ * The other terms (e.g. post-processed functions) are evaluated through the generic term simplification.
+ */
+class JDBCRowDecoder {
+
+    private final ImmutableList<Variable> signature;
+    private final ImmutableList<BindingDecoder> decoders;
+    /*
+     * 1-based JDBC column indexes that are read, in increasing order
+     */
+    private final int[] columnIndexes;
+    private final int columnCount;
+
+    JDBCRowDecoder(ImmutableSortedSet<Variable> sqlSignature, ImmutableMap<Variable, DBTermType> sqlTypeMap,
+                   ImmutableSubstitution<ImmutableTerm> sparqlVar2Term, ImmutableList<Variable> signature,
+                   TermFactory termFactory, SubstitutionFactory substitutionFactory) {
+        this.signature = signature;
+        this.columnCount = sqlSignature.size();
+
+        ImmutableMap<Variable, Integer> columnMap = sqlSignature.stream()
+                .collect(ImmutableCollectors.toMap(v -> v, v -> sqlSignature.headSet(v).size()));
+
+        DecoderCompiler compiler = new DecoderCompiler(columnMap, sqlTypeMap, termFactory, substitutionFactory);
+        this.decoders = signature.stream()
+                .map(v -> compiler.compile(sparqlVar2Term.applyToVariable(v)))
+                .collect(ImmutableCollectors.toList());
+
+        this.columnIndexes = decoders.stream()
+                .flatMapToInt(d -> Arrays.stream(d.getColumns()))
+                .distinct()
+                .sorted()
+                .map(i -> i + 1)
+                .toArray();
+    }
+
+    /**
+     * Reads the columns by index, in increasing order, each at most once
+     */
+    OntopBinding[] decode(ResultSet rs) throws SQLException {
+        return decode(readValues(rs));
+    }
+
+    /**
+     * Only the columns used by the decoders are read (the others are null)
+     */
+    String[] readValues(ResultSet rs) throws SQLException {
+        String[] values = new String[columnCount];
+        for (int columnIndex : columnIndexes) {
+            values[columnIndex - 1] = rs.getString(columnIndex);
+        }
+        return values;
+    }
+
+    OntopBinding[] decode(String[] values) {
+        OntopBinding[] bindings = new OntopBinding[decoders.size()];
+        int bindingCount = 0;
+        for (int i = 0; i < bindings.length; i++) {
+            RDFConstant constant = decoders.get(i).decode(values);
+            if (constant != null)
+                bindings[bindingCount++] = new OntopBindingImpl(signature.get(i), constant);
+        }
+        return bindingCount == bindings.length
+                ? bindings
+                : Arrays.copyOf(bindings, bindingCount);
+    }
+
+
+    private interface BindingDecoder {
+
+        /**
+         * Returns null when the variable is unbound
+         */
+        @Nullable
+        RDFConstant decode(String[] values);
+
+        /**
+         * 0-based column indexes
+         */
+        int[] getColumns();
+    }
+
+    private static class DecoderCompiler {
+        private final ImmutableMap<Variable, Integer> columnMap;
+        private final ImmutableMap<Variable, DBTermType> sqlTypeMap;
+        private final TermFactory termFactory;
+        private final SubstitutionFactory substitutionFactory;
+
+        DecoderCompiler(ImmutableMap<Variable, Integer> columnMap, ImmutableMap<Variable, DBTermType> sqlTypeMap,
+                        TermFactory termFactory, SubstitutionFactory substitutionFactory) {
+            this.columnMap = columnMap;
+            this.sqlTypeMap = sqlTypeMap;
+            this.termFactory = termFactory;
+            this.substitutionFactory = substitutionFactory;
+        }
+
+        BindingDecoder compile(ImmutableTerm term) {
+            GenericDecoder genericDecoder = new GenericDecoder(term, columnMap, sqlTypeMap, termFactory,
+                    substitutionFactory);
+
+            if (term instanceof RDFConstant)
+                return new ConstantDecoder((RDFConstant) term);
+            if ((term instanceof Constant) && ((Constant) term).isNull())
+                return new ConstantDecoder(null);
+
+            if (!(term instanceof ImmutableFunctionalTerm))
+                return genericDecoder;
+
+            ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term;
+            if (!(functionalTerm.getFunctionSymbol() instanceof RDFTermFunctionSymbol))
+                return genericDecoder;
+
+            ImmutableTerm lexicalTerm = functionalTerm.getTerm(0);
+            ImmutableTerm typeTerm = functionalTerm.getTerm(1);
+            if (!(typeTerm instanceof RDFTermTypeConstant))
+                return genericDecoder;
+
+            RDFTermType termType = ((RDFTermTypeConstant) typeTerm).getRDFTermType();
+            if (termType.isAbstract())
+                return genericDecoder;
+
+            if (lexicalTerm instanceof Variable) {
+                Integer column = columnMap.get(lexicalTerm);
+                return column == null
+                        ? genericDecoder
+                        : new ColumnDecoder(column, termType, termFactory, genericDecoder);
+            }
+
+            if (lexicalTerm instanceof ImmutableFunctionalTerm) {
+                ImmutableFunctionalTerm lexicalFunctionalTerm = (ImmutableFunctionalTerm) lexicalTerm;
+                FunctionSymbol lexicalFunctionSymbol = lexicalFunctionalTerm.getFunctionSymbol();
+                if ((lexicalFunctionSymbol instanceof ObjectStringTemplateFunctionSymbol)
+                        && lexicalFunctionalTerm.getTerms().stream()
+                        .allMatch(t -> (t instanceof Variable) && columnMap.containsKey(t))) {
+                    int[] argumentColumns = lexicalFunctionalTerm.getTerms().stream()
+                            .mapToInt(columnMap::get)
+                            .toArray();
+                    return new TemplateDecoder(
+                            ((ObjectStringTemplateFunctionSymbol) lexicalFunctionSymbol).getTemplateComponents(),
+                            argumentColumns, termType, termFactory, genericDecoder);
+                }
+            }
+            return genericDecoder;
+        }
+    }
+
+    private static class ConstantDecoder implements BindingDecoder {
+        @Nullable
+        private final RDFConstant constant;
+        private static final int[] NO_COLUMN = new int[0];
+
+        ConstantDecoder(@Nullable RDFConstant constant) {
+            this.constant = constant;
+        }
+
+        @Override
+        public RDFConstant decode(String[] values) {
+            return constant;
+        }
+
+        @Override
+        public int[] getColumns() {
+            return NO_COLUMN;
+        }
+    }
+
+    /**
+     * RDF(column, type)
+     */
+    private static class ColumnDecoder implements BindingDecoder {
+        private final int column;
+        private final RDFTermType termType;
+        private final TermFactory termFactory;
+        // For NULLs
+        private final GenericDecoder genericDecoder;
+
+        ColumnDecoder(int column, RDFTermType termType, TermFactory termFactory, GenericDecoder genericDecoder) {
+            this.column = column;
+            this.termType = termType;
+            this.termFactory = termFactory;
+            this.genericDecoder = genericDecoder;
+        }
+
+        @Override
+        public RDFConstant decode(String[] values) {
+            String value = values[column];
+            return value == null
+                    ? genericDecoder.decode(values)
+                    : termFactory.getRDFConstant(value, termType);
+        }
+
+        @Override
+        public int[] getColumns() {
+            return new int[] { column };
+        }
+    }
+
+    /**
+     * RDF(template(column1, ..., columnN), type)
+     *
+     * Same encoding as the template function symbol
+     */
+    private static class TemplateDecoder implements BindingDecoder {
+        // Either a String (separator) or an Integer (position of the argument)
+        private final Object[] parts;
+        private final int[] argumentColumns;
+        private final RDFTermType termType;
+        private final TermFactory termFactory;
+        // For NULLs
+        private final GenericDecoder genericDecoder;
+
+        TemplateDecoder(ImmutableList<Template.Component> components, int[] argumentColumns, RDFTermType termType,
+                        TermFactory termFactory, GenericDecoder genericDecoder) {
+            this.parts = components.stream()
+                    .map(c -> c.isColumnNameReference() ? (Object) c.getIndex() : c.getComponent())
+                    .toArray();
+            this.argumentColumns = argumentColumns;
+            this.termType = termType;
+            this.termFactory = termFactory;
+            this.genericDecoder = genericDecoder;
+        }
+
+        @Override
+        public RDFConstant decode(String[] values) {
+            StringBuilder sb = new StringBuilder();
+            for (Object part : parts) {
+                if (part instanceof String)
+                    sb.append((String) part);
+                else {
+                    String value = values[argumentColumns[(Integer) part]];
+                    if (value == null)
+                        return genericDecoder.decode(values);
+                    sb.append(R2RMLIRISafeEncoder.encode(value));
+                }
+            }
+            return termFactory.getRDFConstant(sb.toString(), termType);
+        }
+
+        @Override
+        public int[] getColumns() {
+            return argumentColumns;
+        }
+    }
+
+    /**
+     * Substitutes the columns by DB constants and simplifies the term
+     */
+    private static class GenericDecoder implements BindingDecoder {
+        private final ImmutableTerm term;
+        private final ImmutableList<Variable> variables;
+        private final int[] columns;
+        private final ImmutableMap<Variable, DBTermType> sqlTypeMap;
+        private final TermFactory termFactory;
+        private final SubstitutionFactory substitutionFactory;
+
+        GenericDecoder(ImmutableTerm term, ImmutableMap<Variable, Integer> columnMap,
+                       ImmutableMap<Variable, DBTermType> sqlTypeMap, TermFactory termFactory,
+                       SubstitutionFactory substitutionFactory) {
+            this.term = term;
+            this.variables = term.getVariableStream()
+                    .distinct()
+                    .filter(columnMap::containsKey)
+                    .collect(ImmutableCollectors.toList());
+            this.columns = variables.stream()
+                    .mapToInt(columnMap::get)
+                    .toArray();
+            this.sqlTypeMap = sqlTypeMap;
+            this.termFactory = termFactory;
+            this.substitutionFactory = substitutionFactory;
+        }
+
+        @Override
+        public RDFConstant decode(String[] values) {
+            ImmutableMap.Builder<Variable, Constant> builder = ImmutableMap.builder();
+            for (int i = 0; i < columns.length; i++) {
+                Variable variable = variables.get(i);
+                builder.put(variable, convertToConstant(values[columns[i]], sqlTypeMap.get(variable)));
+            }
+            ImmutableSubstitution<Constant> substitution = substitutionFactory.getSubstitution(builder.build());
+            return evaluate(substitution.apply(term));
+        }
+
+        private Constant convertToConstant(@Nullable String jdbcValue, DBTermType termType) {
+            if (jdbcValue == null)
+                return termFactory.getNullConstant();
+            return termFactory.getDBConstant(jdbcValue, termType);
+        }
+
+        @Nullable
+        private RDFConstant evaluate(ImmutableTerm term) {
+            ImmutableTerm simplifiedTerm = term.simplify();
+            if (simplifiedTerm instanceof Constant){
+                if (simplifiedTerm instanceof RDFConstant) {
+                    return (RDFConstant) simplifiedTerm;
+                }
+                Constant constant = (Constant) simplifiedTerm;
+                if (constant.isNull()) {
+                    return null;
+                }
+                if(constant instanceof DBConstant){
+                    throw new SQLOntopBindingSet.InvalidConstantTypeInResultException(
+                            constant +"is a DB constant. But a binding cannot have a DB constant as value");
+                }
+                throw new SQLOntopBindingSet.InvalidConstantTypeInResultException("Unexpected constant type for "+constant);
+            }
+            throw new SQLOntopBindingSet.InvalidTermAsResultException(simplifiedTerm);
+        }
+
+        @Override
+        public int[] getColumns() {
+            return columns;
+        }
+    }
+}
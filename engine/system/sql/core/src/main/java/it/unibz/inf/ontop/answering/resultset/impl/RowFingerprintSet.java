@@ -0,0 +1,141 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+/**
+ * Open-addressing set of 128-bit fingerprints (linear probing), stored in two primitive arrays.
+ *
+ * The fingerprint (0, 0) marks the empty slots and is therefore remapped to (0, 1).
+ *
+ * The capacity cannot exceed MAX_CAPACITY (largest power of two of an int): the table is then filled
+ * up to one empty slot (which ends the probing) and considered as full.
+ */
+class RowFingerprintSet {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int BYTES_PER_SLOT = 2 * Long.BYTES;
+
+    private long[] highs;
+    private long[] lows;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private final int maxCapacity;
+
+    RowFingerprintSet() {
+        this(Long.MAX_VALUE);
+    }
+
+    RowFingerprintSet(long maxMemory) {
+        this(maxMemory, MAX_CAPACITY);
+    }
+
+    /**
+     * The initial capacity is adapted to the memory budget (if small).
+     *
+     * The maximum capacity (a power of two) is only lowered for testing purposes.
+     */
+    RowFingerprintSet(long maxMemory, int maxCapacity) {
+        if (maxCapacity < MIN_CAPACITY || maxCapacity > MAX_CAPACITY || Integer.bitCount(maxCapacity) != 1)
+            throw new IllegalArgumentException("Invalid maximum capacity: " + maxCapacity);
+        this.maxCapacity = maxCapacity;
+
+        int capacity = Math.min(DEFAULT_CAPACITY, maxCapacity);
+        while (capacity > MIN_CAPACITY && (long) capacity * BYTES_PER_SLOT > maxMemory)
+            capacity >>= 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+        resizeThreshold = capacity / 4 * 3;
+    }
+
+    boolean contains(long high, long low) {
+        if (high == 0 && low == 0)
+            low = 1;
+        for (int i = indexOf(low); ; i = (i + 1) & mask) {
+            if (highs[i] == high && lows[i] == low)
+                return true;
+            if (highs[i] == 0 && lows[i] == 0)
+                return false;
+        }
+    }
+
+    /**
+     * Returns false if the fingerprint was already present.
+     *
+     * May grow the table: check isFull(long) beforehand to respect a memory budget.
+     * Throws an IllegalStateException once the maximum capacity is exhausted.
+     */
+    boolean add(long high, long low) {
+        if (high == 0 && low == 0)
+            low = 1;
+        int i = indexOf(low);
+        for (; highs[i] != 0 || lows[i] != 0; i = (i + 1) & mask) {
+            if (highs[i] == high && lows[i] == low)
+                return false;
+        }
+        highs[i] = high;
+        lows[i] = low;
+        if (++size > resizeThreshold)
+            grow();
+        return true;
+    }
+
+    /**
+     * True if adding a new fingerprint would make the table exceed the memory budget or its maximum capacity
+     */
+    boolean isFull(long maxMemory) {
+        return size + 1 > resizeThreshold && (highs.length >= maxCapacity || getMemoryUsage() * 2 > maxMemory);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * In bytes
+     */
+    long getMemoryUsage() {
+        return (long) highs.length * BYTES_PER_SLOT;
+    }
+
+    private void grow() {
+        if (highs.length >= maxCapacity) {
+            // Cannot double anymore: keeps at least one empty slot
+            if (size >= highs.length - 1)
+                throw new IllegalStateException("The fingerprint set cannot hold more than "
+                        + (highs.length - 1) + " fingerprints");
+            resizeThreshold = highs.length - 2;
+            return;
+        }
+
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        int oldSize = size;
+        allocate(oldHighs.length * 2);
+        for (int j = 0; j < oldHighs.length; j++) {
+            long high = oldHighs[j];
+            long low = oldLows[j];
+            if (high == 0 && low == 0)
+                continue;
+            int i = indexOf(low);
+            while (highs[i] != 0 || lows[i] != 0)
+                i = (i + 1) & mask;
+            highs[i] = high;
+            lows[i] = low;
+        }
+        size = oldSize;
+    }
+
+    /**
+     * The fingerprints are already well distributed
+     */
+    private int indexOf(long low) {
+        return (int) (low ^ (low >>> 32)) & mask;
+    }
+}
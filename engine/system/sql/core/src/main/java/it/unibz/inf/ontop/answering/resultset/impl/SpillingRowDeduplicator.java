@@ -0,0 +1,363 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.Iterables;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Removes the duplicate rows (string values) by keeping 128-bit fingerprints of the rows seen so far.
+ *
+ * While the fingerprints fit in the memory budget, the fresh rows can be returned right away.
+ * Beyond, the fingerprint table is frozen and the rows that are not known yet are spilled to partition files
+ * (according to their fingerprint). These rows are deduplicated partition per partition, once the source is
+ * exhausted (see nextSpilledRow()), so the order of the rows is not preserved.
+ *
+ * A partition whose fingerprints do not fit in the memory budget is in turn frozen and the rest of its rows
+ * are re-partitioned according to the next bits of their fingerprint, recursively.
+ *
+ * When no spill directory is given, the fingerprint table keeps growing beyond the budget.
+ *
+ * Not thread-safe.
+ */
+class SpillingRowDeduplicator implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillingRowDeduplicator.class);
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final int PARTITION_BITS = 4;
+    private static final int PARTITION_COUNT = 1 << PARTITION_BITS;
+    // Partitions of the last level cannot be split anymore (all the bits of the high part have been used)
+    private static final int MAX_PARTITION_LEVEL = Long.SIZE / PARTITION_BITS - 1;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long maxMemory;
+    @Nullable
+    private final File spillDirectory;
+
+    @Nullable
+    private RowFingerprintSet fingerprints;
+    // Non-null once some rows have been spilled
+    @Nullable
+    private SpillPartition[] partitions;
+    // Non-null once the spilled rows are being read. Partitions (and sub-partitions) not read yet, in order.
+    @Nullable
+    private Deque<SpillPartition> pendingPartitions;
+    private boolean hasExceededBudget = false;
+
+    private long rowCount = 0;
+    private long droppedRowCount = 0;
+    private long spilledRowCount = 0;
+    private long repartitionCount = 0;
+
+    /**
+     * If the spill directory is null, nothing is spilled
+     */
+    SpillingRowDeduplicator(long maxMemory, @Nullable File spillDirectory) {
+        this.maxMemory = maxMemory > 0 ? maxMemory : Long.MAX_VALUE;
+        this.spillDirectory = spillDirectory;
+        this.fingerprints = new RowFingerprintSet(this.maxMemory);
+    }
+
+    /**
+     * Returns true if the row is fresh and can be returned now.
+     * Returns false if it is a duplicate or if it has been spilled.
+     */
+    boolean add(String[] values) throws IOException {
+        if (fingerprints == null)
+            throw new IllegalStateException("The spilled rows are already being read");
+
+        rowCount++;
+        long[] fingerprint = computeFingerprint(values);
+        long high = fingerprint[0], low = fingerprint[1];
+
+        if (partitions == null) {
+            if (!fingerprints.isFull(maxMemory))
+                return countIfDuplicate(fingerprints.add(high, low));
+
+            if (spillDirectory == null) {
+                if (!hasExceededBudget) {
+                    hasExceededBudget = true;
+                    LOGGER.warn("The distinct result set exceeds its memory budget ({} bytes) " +
+                            "but its rows cannot be spilled", maxMemory);
+                }
+                return countIfDuplicate(fingerprints.add(high, low));
+            }
+            partitions = createPartitions(0);
+            LOGGER.debug("Spilling the distinct result set to the disk after {} fresh rows", fingerprints.size());
+        }
+
+        if (fingerprints.contains(high, low)) {
+            droppedRowCount++;
+            return false;
+        }
+        partitions[getPartitionIndex(high, 0)].write(high, low, values);
+        spilledRowCount++;
+        return false;
+    }
+
+    private boolean countIfDuplicate(boolean isFresh) {
+        if (!isFresh)
+            droppedRowCount++;
+        return isFresh;
+    }
+
+    /**
+     * To be called once the source is exhausted. Returns null when there is no spilled row left.
+     */
+    @Nullable
+    String[] nextSpilledRow() throws IOException {
+        if (partitions == null)
+            return null;
+
+        if (pendingPartitions == null) {
+            // Releases the main table
+            fingerprints = null;
+            for (SpillPartition partition : partitions)
+                partition.finishWriting();
+            pendingPartitions = new ArrayDeque<>(Arrays.asList(partitions));
+        }
+
+        while (!pendingPartitions.isEmpty()) {
+            SpillPartition partition = pendingPartitions.getFirst();
+            String[] row = partition.nextFreshRow();
+            if (row != null)
+                return row;
+            pendingPartitions.removeFirst();
+            SpillPartition[] subPartitions = partition.takeSubPartitions();
+            // Sub-partitions are read right after their parent
+            if (subPartitions != null) {
+                for (int i = subPartitions.length - 1; i >= 0; i--)
+                    pendingPartitions.addFirst(subPartitions[i]);
+            }
+            partition.close();
+            if (subPartitions != null) {
+                for (SpillPartition subPartition : subPartitions)
+                    subPartition.finishWriting();
+            }
+        }
+        return null;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    long getDroppedRowCount() {
+        return droppedRowCount;
+    }
+
+    long getSpilledRowCount() {
+        return spilledRowCount;
+    }
+
+    /**
+     * Number of partitions that have been split because they exceeded the memory budget
+     */
+    long getRepartitionCount() {
+        return repartitionCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fingerprints = null;
+        if (partitions == null)
+            return;
+        IOException exception = null;
+        // The pending partitions include the sub-partitions not read yet. Closing is idempotent.
+        Iterable<SpillPartition> partitionsToClose = pendingPartitions == null
+                ? Arrays.asList(partitions)
+                : Iterables.concat(Arrays.asList(partitions), pendingPartitions);
+        for (SpillPartition partition : partitionsToClose) {
+            try {
+                partition.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null)
+            throw exception;
+    }
+
+    private SpillPartition[] createPartitions(int level) throws IOException {
+        SpillPartition[] newPartitions = new SpillPartition[PARTITION_COUNT];
+        try {
+            for (int i = 0; i < PARTITION_COUNT; i++)
+                newPartitions[i] = new SpillPartition(File.createTempFile("ontop-distinct-", ".bin", spillDirectory),
+                        level);
+        } catch (IOException e) {
+            for (SpillPartition partition : newPartitions) {
+                if (partition != null)
+                    partition.close();
+            }
+            throw e;
+        }
+        return newPartitions;
+    }
+
+    /**
+     * Each level uses the next PARTITION_BITS bits of the high part of the fingerprint
+     */
+    private static int getPartitionIndex(long high, int level) {
+        return (int) (high >>> (Long.SIZE - PARTITION_BITS * (level + 1))) & (PARTITION_COUNT - 1);
+    }
+
+    private static long[] computeFingerprint(String[] values) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        for (String value : values) {
+            if (value == null)
+                hasher.putByte((byte) 0);
+            else
+                hasher.putByte((byte) 1)
+                        .putInt(value.length())
+                        .putString(value, StandardCharsets.UTF_8);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(hasher.hash().asBytes());
+        return new long[] { buffer.getLong(), buffer.getLong() };
+    }
+
+
+    /**
+     * Record: high and low parts of the fingerprint, the number of values and the values
+     * (length in bytes, -1 for NULL, followed by the UTF-8 bytes).
+     */
+    private class SpillPartition implements Closeable {
+        private final File file;
+        private final int level;
+        @Nullable
+        private DataOutputStream output;
+        @Nullable
+        private DataInputStream input;
+        private long writtenRowCount = 0;
+        private long remainingRowCount;
+        @Nullable
+        private RowFingerprintSet partitionFingerprints;
+        // Non-null once the fingerprints of the partition exceed the memory budget
+        @Nullable
+        private SpillPartition[] subPartitions;
+
+        SpillPartition(File file, int level) throws IOException {
+            this.file = file;
+            this.level = level;
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        }
+
+        void write(long high, long low, String[] values) throws IOException {
+            output.writeLong(high);
+            output.writeLong(low);
+            output.writeInt(values.length);
+            for (String value : values) {
+                if (value == null)
+                    output.writeInt(-1);
+                else {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+            }
+            writtenRowCount++;
+        }
+
+        void finishWriting() throws IOException {
+            output.close();
+            output = null;
+            remainingRowCount = writtenRowCount;
+        }
+
+        /**
+         * Beyond the memory budget, the rows that are not known yet are written to the sub-partitions
+         * (see takeSubPartitions())
+         */
+        @Nullable
+        String[] nextFreshRow() throws IOException {
+            if (remainingRowCount == 0)
+                return null;
+            if (input == null) {
+                input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+                partitionFingerprints = new RowFingerprintSet(maxMemory);
+            }
+
+            while (remainingRowCount > 0) {
+                remainingRowCount--;
+                long high = input.readLong();
+                long low = input.readLong();
+                String[] values = new String[input.readInt()];
+                for (int i = 0; i < values.length; i++) {
+                    int length = input.readInt();
+                    if (length >= 0) {
+                        byte[] bytes = new byte[length];
+                        input.readFully(bytes);
+                        values[i] = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                }
+                if (subPartitions == null && partitionFingerprints.isFull(maxMemory)) {
+                    if (level < MAX_PARTITION_LEVEL) {
+                        subPartitions = createPartitions(level + 1);
+                        repartitionCount++;
+                        LOGGER.debug("Splitting a spill partition of the distinct result set " +
+                                "after {} fresh rows", partitionFingerprints.size());
+                    }
+                    else if (!hasExceededBudget) {
+                        hasExceededBudget = true;
+                        LOGGER.warn("A spill partition of the distinct result set exceeds the memory budget " +
+                                "({} bytes) but cannot be split anymore", maxMemory);
+                    }
+                }
+
+                if (subPartitions != null) {
+                    if (partitionFingerprints.contains(high, low))
+                        droppedRowCount++;
+                    else
+                        subPartitions[getPartitionIndex(high, level + 1)].write(high, low, values);
+                }
+                else if (partitionFingerprints.add(high, low))
+                    return values;
+                else
+                    droppedRowCount++;
+            }
+            return null;
+        }
+
+        /**
+         * To be called once the partition is exhausted. Null if the partition has not been split.
+         * The caller becomes responsible for closing them.
+         */
+        @Nullable
+        SpillPartition[] takeSubPartitions() {
+            SpillPartition[] result = subPartitions;
+            subPartitions = null;
+            return result;
+        }
+
+        @Override
+        public void close() throws IOException {
+            partitionFingerprints = null;
+            SpillPartition[] subPartitionsToClose = takeSubPartitions();
+            try {
+                if (subPartitionsToClose != null) {
+                    for (SpillPartition subPartition : subPartitionsToClose)
+                        subPartition.close();
+                }
+                if (output != null)
+                    output.close();
+                if (input != null)
+                    input.close();
+            } finally {
+                output = null;
+                input = null;
+                remainingRowCount = 0;
+                if (file.exists() && !file.delete())
+                    LOGGER.warn("Could not delete the spill file {}", file);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package it.unibz.inf.ontop.injection;
 
+import java.util.Optional;
+
 
 public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReformulationSQLSettings,
         OntopSQLCredentialSettings {
@@ -16,6 +18,25 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
 
     int getFetchSize();
 
+    /**
+     * For CONSTRUCT and DESCRIBE queries (including materialization)
+     */
+    int getBulkFetchSize();
+
+    //--------------------------
+    // Distinct result set
+    //--------------------------
+
+    /**
+     * In bytes. Beyond, the rows are spilled to the disk (unless their order has to be preserved)
+     */
+    long getDistinctResultSetMaxMemory();
+
+    /**
+     * If not provided, the temporary directory of the JVM is used
+     */
+    Optional<String> getDistinctResultSetSpillDirectory();
+
     //--------------------------
     // Keys
     //--------------------------
@@ -31,4 +52,8 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
      * If <= 0, the fetch size is ignored
      */
     String FETCH_SIZE = "jdbc.fetchSize";
+    String BULK_FETCH_SIZE = "jdbc.fetchSize.bulk";
+
+    String DISTINCT_RESULTSET_MAX_MEMORY = "ontop.distinctResultSet.maxMemory";
+    String DISTINCT_RESULTSET_SPILL_DIRECTORY = "ontop.distinctResultSet.spillDirectory";
 }
@@ -83,11 +83,36 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return getRequiredBoolean(INCLUDE_FIXED_OBJECT_POSITION_IN_DESCRIBE);
     }
 
+    @Override
+    public int getDescribeBatchSize() {
+        return getRequiredInteger(DESCRIBE_BATCH_SIZE);
+    }
+
     @Override
     public long getQueryCacheMaxSize() {
         return getRequiredLong(QUERY_CACHE_MAX_SIZE);
     }
 
+    @Override
+    public long getQueryCacheWaitTimeout() {
+        return getRequiredLong(QUERY_CACHE_WAIT_TIMEOUT);
+    }
+
+    @Override
+    public long getQueryCacheErrorTTL() {
+        return getRequiredLong(QUERY_CACHE_ERROR_TTL);
+    }
+
+    @Override
+    public long getQueryTemplateCacheMaxSize() {
+        return getRequiredLong(QUERY_TEMPLATE_CACHE_MAX_SIZE);
+    }
+
+    @Override
+    public long getRewritingCacheMaxSize() {
+        return getRequiredLong(REWRITING_CACHE_MAX_SIZE);
+    }
+
     @Override
     public String getApplicationName() {
         return getRequiredProperty(APPLICATION_NAME);
@@ -98,6 +123,31 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return systemSettings.getHttpHeaderNamesToLog();
     }
 
+    @Override
+    public int getQueryLoggingBufferSize() {
+        return systemSettings.getQueryLoggingBufferSize();
+    }
+
+    @Override
+    public QueryLoggingDropPolicy getQueryLoggingDropPolicy() {
+        return systemSettings.getQueryLoggingDropPolicy();
+    }
+
+    @Override
+    public Optional<String> getQueryLoggingFile() {
+        return systemSettings.getQueryLoggingFile();
+    }
+
+    @Override
+    public long getQueryLoggingFileMaxSize() {
+        return systemSettings.getQueryLoggingFileMaxSize();
+    }
+
+    @Override
+    public int getQueryLoggingFileMaxBackups() {
+        return systemSettings.getQueryLoggingFileMaxBackups();
+    }
+
     @Override
     public boolean isKeepAliveEnabled() {
         return systemSettings.isKeepAliveEnabled();
@@ -128,6 +178,21 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return systemSettings.getFetchSize();
     }
 
+    @Override
+    public int getBulkFetchSize() {
+        return systemSettings.getBulkFetchSize();
+    }
+
+    @Override
+    public long getDistinctResultSetMaxMemory() {
+        return systemSettings.getDistinctResultSetMaxMemory();
+    }
+
+    @Override
+    public Optional<String> getDistinctResultSetSpillDirectory() {
+        return systemSettings.getDistinctResultSetSpillDirectory();
+    }
+
     @Override
     public Optional<Integer> getDefaultQueryTimeout() {
         return getInteger(DEFAULT_QUERY_TIMEOUT);
@@ -152,4 +217,44 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
     public Optional<Integer> getHttpStaleIfError() {
         return systemSettings.getHttpStaleIfError();
     }
+
+    @Override
+    public QueryExecutionMode getQueryExecutionMode() {
+        return systemSettings.getQueryExecutionMode();
+    }
+
+    @Override
+    public int getQueryExecutorPoolSize() {
+        return systemSettings.getQueryExecutorPoolSize();
+    }
+
+    @Override
+    public int getQueryExecutorQueueSize() {
+        return systemSettings.getQueryExecutorQueueSize();
+    }
+
+    @Override
+    public int getDescribeParallelism() {
+        return systemSettings.getDescribeParallelism();
+    }
+
+    @Override
+    public int getRepositorySizeCacheDuration() {
+        return systemSettings.getRepositorySizeCacheDuration();
+    }
+
+    @Override
+    public int getPredefinedQueryCacheMaxSize() {
+        return systemSettings.getPredefinedQueryCacheMaxSize();
+    }
+
+    @Override
+    public long getPredefinedQueryCacheMaxWeight() {
+        return systemSettings.getPredefinedQueryCacheMaxWeight();
+    }
+
+    @Override
+    public boolean isPredefinedQueryCachePreWarmingEnabled() {
+        return systemSettings.isPredefinedQueryCachePreWarmingEnabled();
+    }
 }
@@ -84,6 +84,21 @@ public class OntopSystemSQLSettingsImpl extends OntopReformulationSQLSettingsImp
         return getRequiredInteger(FETCH_SIZE);
     }
 
+    @Override
+    public int getBulkFetchSize() {
+        return getRequiredInteger(BULK_FETCH_SIZE);
+    }
+
+    @Override
+    public long getDistinctResultSetMaxMemory() {
+        return getRequiredLong(DISTINCT_RESULTSET_MAX_MEMORY);
+    }
+
+    @Override
+    public Optional<String> getDistinctResultSetSpillDirectory() {
+        return getProperty(DISTINCT_RESULTSET_SPILL_DIRECTORY);
+    }
+
     @Override
     public Optional<Integer> getDefaultQueryTimeout() {
         return getInteger(DEFAULT_QUERY_TIMEOUT);
@@ -109,6 +124,46 @@ public class OntopSystemSQLSettingsImpl extends OntopReformulationSQLSettingsImp
         return systemSettings.getHttpStaleIfError();
     }
 
+    @Override
+    public QueryExecutionMode getQueryExecutionMode() {
+        return systemSettings.getQueryExecutionMode();
+    }
+
+    @Override
+    public int getQueryExecutorPoolSize() {
+        return systemSettings.getQueryExecutorPoolSize();
+    }
+
+    @Override
+    public int getQueryExecutorQueueSize() {
+        return systemSettings.getQueryExecutorQueueSize();
+    }
+
+    @Override
+    public int getDescribeParallelism() {
+        return systemSettings.getDescribeParallelism();
+    }
+
+    @Override
+    public int getRepositorySizeCacheDuration() {
+        return systemSettings.getRepositorySizeCacheDuration();
+    }
+
+    @Override
+    public int getPredefinedQueryCacheMaxSize() {
+        return systemSettings.getPredefinedQueryCacheMaxSize();
+    }
+
+    @Override
+    public long getPredefinedQueryCacheMaxWeight() {
+        return systemSettings.getPredefinedQueryCacheMaxWeight();
+    }
+
+    @Override
+    public boolean isPredefinedQueryCachePreWarmingEnabled() {
+        return systemSettings.isPredefinedQueryCachePreWarmingEnabled();
+    }
+
     @Override
     public String getJdbcUser() {
         return sqlCredentialSettings.getJdbcUser();
@@ -0,0 +1,156 @@
+package it.unibz.inf.ontop.answering.connection;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.reformulation.QueryTemplateCache;
+import it.unibz.inf.ontop.answering.reformulation.input.DescribeQuery;
+import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.joining;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The batches must not change the description of the resources
+ */
+public class DescribeBatchTest {
+
+    private static final String OBDA_FILE = "src/test/resources/marriage/marriage.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/marriage/create-db.sql";
+    private static final String JDBC_URL = "jdbc:h2:mem:describe-batch";
+    // With 6 persons
+    private static final String LARGER_JDBC_URL = "jdbc:h2:mem:describe-batch-larger";
+    private static final String DESCRIBE_QUERY = "PREFIX : <http://example.org/marriage/voc#>\n" +
+            "DESCRIBE ?x WHERE { ?x a :Person }";
+
+    // Keeps the DB alive
+    private static Connection CONN;
+    private static Connection LARGER_CONN;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, "sa", "");
+        try (Statement st = CONN.createStatement()) {
+            st.executeUpdate(Files.lines(Paths.get(CREATE_DB_FILE)).collect(joining()));
+            CONN.commit();
+        }
+
+        LARGER_CONN = DriverManager.getConnection(LARGER_JDBC_URL, "sa", "");
+        try (Statement st = LARGER_CONN.createStatement()) {
+            st.executeUpdate(Files.lines(Paths.get(CREATE_DB_FILE)).collect(joining()));
+            st.executeUpdate("INSERT INTO \"person\" (\"id\",\"first_name\",\"last_name\", \"spouse\") VALUES " +
+                    "(4, 'Alice', 'Brown', null), (5, 'Carl', 'Green', null), (6, 'Dora', 'White', null)");
+            LARGER_CONN.commit();
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        CONN.close();
+        LARGER_CONN.close();
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        ImmutableSet<String> expectedFacts = describe(1, 1);
+        // 3 persons (class, first and last names) and 2 spouses
+        assertEquals(11, expectedFacts.size());
+
+        // One batch of 2 resources and one of 1
+        assertEquals(expectedFacts, describe(2, 1));
+        assertEquals(expectedFacts, describe(50, 1));
+        assertEquals(expectedFacts, describe(2, 2));
+        assertEquals(expectedFacts, describe(1, 3));
+    }
+
+    /**
+     * The CONSTRUCT queries of the batches go through the query template cache
+     */
+    @Test
+    public void testBatchesWithQueryTemplateCache() throws Exception {
+        ImmutableSet<String> expectedFacts = describe(1, 1);
+
+        assertEquals(expectedFacts, describe(JDBC_URL, 1, 1, 100, c -> {}));
+        assertEquals(expectedFacts, describe(JDBC_URL, 2, 1, 100, c -> {}));
+        assertEquals(expectedFacts, describe(JDBC_URL, 2, 2, 100, c -> {}));
+
+        // Batches of 2 resources: the first two are fully reformulated, the third one reuses their parameterized query
+        assertEquals(describe(LARGER_JDBC_URL, 1, 1, 100, c -> {}),
+                describe(LARGER_JDBC_URL, 2, 1, 100, c -> assertEquals(1, c.getHitCount())));
+    }
+
+    /**
+     * The query template cache is disabled by default, but not for the VALUES blocks of the batches
+     */
+    @Test
+    public void testBatchesShareTheirParameterizedQuery() throws Exception {
+        // The resources are not described by VALUES blocks
+        ImmutableSet<String> expectedFacts = describe(LARGER_JDBC_URL, 1, 1, 0,
+                c -> assertEquals(0, c.getHitCount()));
+        // 6 persons (class, first and last names) and 2 spouses
+        assertEquals(20, expectedFacts.size());
+
+        assertEquals(expectedFacts, describe(LARGER_JDBC_URL, 2, 1, 0, c -> {
+            assertEquals(1, c.getHitCount());
+            assertEquals(2, c.getMissCount());
+        }));
+    }
+
+    private static ImmutableSet<String> describe(int batchSize, int parallelism) throws Exception {
+        return describe(JDBC_URL, batchSize, parallelism, 0, c -> {});
+    }
+
+    /**
+     * The query template cache is checked after the description
+     */
+    private static ImmutableSet<String> describe(String jdbcUrl, int batchSize, int parallelism,
+                                                 int queryTemplateCacheSize,
+                                                 Consumer<QueryTemplateCache> queryTemplateCacheChecker)
+            throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_TEMPLATE_CACHE_MAX_SIZE,
+                String.valueOf(queryTemplateCacheSize));
+        properties.setProperty(OntopReformulationSettings.DESCRIBE_BATCH_SIZE, String.valueOf(batchSize));
+        properties.setProperty(OntopSystemSettings.DESCRIBE_PARALLELISM, String.valueOf(parallelism));
+
+        OntopStandaloneSQLConfiguration configuration = OntopStandaloneSQLConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser("sa")
+                .jdbcPassword("")
+                .properties(properties)
+                .enableTestMode()
+                .build();
+
+        try (OntopQueryEngine queryEngine = configuration.loadQueryEngine()) {
+            queryEngine.connect();
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                DescribeQuery query = connection.getInputQueryFactory().createDescribeQuery(DESCRIBE_QUERY);
+                ImmutableSet.Builder<String> factBuilder = ImmutableSet.builder();
+                try (GraphResultSet resultSet = statement.execute(query)) {
+                    while (resultSet.hasNext()) {
+                        RDFFact fact = resultSet.next();
+                        factBuilder.add(fact.getSubject() + " " + fact.getProperty() + " " + fact.getObject());
+                    }
+                }
+                queryTemplateCacheChecker.accept(queryEngine.getQueryReformulator().getQueryTemplateCache());
+                return factBuilder.build();
+            }
+        }
+    }
+}
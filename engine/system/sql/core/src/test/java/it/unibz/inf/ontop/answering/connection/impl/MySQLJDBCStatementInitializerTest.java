@@ -0,0 +1,102 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class MySQLJDBCStatementInitializerTest {
+
+    private static final String JDBC_URL = "jdbc:mysql://localhost/db";
+    private static final int FETCH_SIZE = 500;
+
+    @Test
+    public void testBulkStreaming() throws SQLException {
+        MySQLJDBCStatementInitializer initializer = new MySQLJDBCStatementInitializer(createSettings(JDBC_URL));
+        RecordingStatement statement = new RecordingStatement();
+
+        initializer.setFetchSize(statement.proxy, 5000, true);
+        // Back to the default behavior of the driver
+        initializer.setFetchSize(statement.proxy, FETCH_SIZE, false);
+
+        assertEquals(ImmutableList.of(Integer.MIN_VALUE, 0), statement.getFetchSizes());
+    }
+
+    /**
+     * Positive fetch sizes are ignored by the driver without cursor-based fetching
+     */
+    @Test
+    public void testInitWithoutCursorFetch() throws SQLException {
+        MySQLJDBCStatementInitializer initializer = new MySQLJDBCStatementInitializer(createSettings(JDBC_URL));
+        RecordingStatement statement = new RecordingStatement();
+
+        initializer.init(statement.proxy);
+        assertEquals(ImmutableList.of(), statement.getFetchSizes());
+    }
+
+    @Test
+    public void testCursorFetch() throws SQLException {
+        MySQLJDBCStatementInitializer initializer = new MySQLJDBCStatementInitializer(
+                createSettings(JDBC_URL + "?useCursorFetch=true"));
+        RecordingStatement statement = new RecordingStatement();
+
+        initializer.init(statement.proxy);
+        initializer.setFetchSize(statement.proxy, 5000, true);
+        initializer.setFetchSize(statement.proxy, 1, false);
+
+        assertEquals(ImmutableList.of(FETCH_SIZE, 5000, 1), statement.getFetchSizes());
+    }
+
+    @Test
+    public void testDefaultInitializer() throws SQLException {
+        DefaultJDBCStatementInitializer initializer = new DefaultJDBCStatementInitializer(createSettings(JDBC_URL));
+        RecordingStatement statement = new RecordingStatement();
+
+        initializer.init(statement.proxy);
+        initializer.setFetchSize(statement.proxy, 5000, true);
+
+        assertEquals(ImmutableList.of(FETCH_SIZE, 5000), statement.getFetchSizes());
+    }
+
+    private static OntopSystemSQLSettings createSettings(String jdbcUrl) {
+        return (OntopSystemSQLSettings) Proxy.newProxyInstance(OntopSystemSQLSettings.class.getClassLoader(),
+                new Class<?>[]{ OntopSystemSQLSettings.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getJdbcUrl":
+                            return jdbcUrl;
+                        case "getFetchSize":
+                            return FETCH_SIZE;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Records the fetch sizes set on a mocked JDBC statement
+     */
+    private static class RecordingStatement {
+        private final List<Integer> fetchSizes = new ArrayList<>();
+        private final Statement proxy = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{ Statement.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("setFetchSize")) {
+                        fetchSizes.add((Integer) args[0]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        ImmutableList<Integer> getFetchSizes() {
+            return ImmutableList.copyOf(fetchSizes);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.answering.connection.impl.SQLQuestStatement.ExpectedResultSize;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.answering.connection.impl.SQLQuestStatement.selectFetchSize;
+import static org.junit.Assert.assertEquals;
+
+public class SQLQuestStatementFetchSizeTest {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int BULK_FETCH_SIZE = 5000;
+
+    @Test
+    public void testSelection() {
+        assertEquals(1, selectFetchSize(ExpectedResultSize.SINGLE_ROW, 0, FETCH_SIZE, BULK_FETCH_SIZE, 0));
+        assertEquals(FETCH_SIZE, selectFetchSize(ExpectedResultSize.REGULAR, 0, FETCH_SIZE, BULK_FETCH_SIZE, 0));
+        assertEquals(BULK_FETCH_SIZE, selectFetchSize(ExpectedResultSize.BULK, 0, FETCH_SIZE, BULK_FETCH_SIZE, 0));
+    }
+
+    @Test
+    public void testMaxRows() {
+        assertEquals(100, selectFetchSize(ExpectedResultSize.REGULAR, 0, FETCH_SIZE, BULK_FETCH_SIZE, 100));
+        assertEquals(100, selectFetchSize(ExpectedResultSize.BULK, 0, FETCH_SIZE, BULK_FETCH_SIZE, 100));
+        assertEquals(1, selectFetchSize(ExpectedResultSize.SINGLE_ROW, 0, FETCH_SIZE, BULK_FETCH_SIZE, 100));
+    }
+
+    @Test
+    public void testOverride() {
+        assertEquals(42, selectFetchSize(ExpectedResultSize.SINGLE_ROW, 42, FETCH_SIZE, BULK_FETCH_SIZE, 0));
+        assertEquals(42, selectFetchSize(ExpectedResultSize.BULK, 42, FETCH_SIZE, BULK_FETCH_SIZE, 0));
+        assertEquals(10, selectFetchSize(ExpectedResultSize.REGULAR, 42, FETCH_SIZE, BULK_FETCH_SIZE, 10));
+    }
+
+    @Test
+    public void testDisabledSelection() {
+        assertEquals(0, selectFetchSize(ExpectedResultSize.REGULAR, 0, 0, BULK_FETCH_SIZE, 0));
+        assertEquals(0, selectFetchSize(ExpectedResultSize.BULK, 0, -1, BULK_FETCH_SIZE, 0));
+    }
+
+    /**
+     * An explicit fetch size is applied even when the automatic selection is disabled
+     */
+    @Test
+    public void testOverrideWhenDisabled() {
+        assertEquals(42, selectFetchSize(ExpectedResultSize.REGULAR, 42, 0, BULK_FETCH_SIZE, 0));
+        assertEquals(42, selectFetchSize(ExpectedResultSize.BULK, 42, -1, BULK_FETCH_SIZE, 0));
+    }
+}
@@ -0,0 +1,96 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.model.term.DBConstant;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.DBTypeFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.*;
+
+import static it.unibz.inf.ontop.answering.connection.impl.SQLQuestStatement.bindParameter;
+import static org.junit.Assert.*;
+
+public class SQLQuestStatementParameterTest {
+
+    private static final OntopModelConfiguration CONFIGURATION = OntopModelConfiguration.defaultBuilder()
+            .enableTestMode()
+            .build();
+    private static final TermFactory TERM_FACTORY = CONFIGURATION.getTermFactory();
+    private static final DBTypeFactory DB_TYPE_FACTORY = CONFIGURATION.getTypeFactory().getDBTypeFactory();
+
+    private static Connection connection;
+
+    @BeforeClass
+    public static void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:statement-parameters", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t (i BIGINT, d DECIMAL(10,2), f DOUBLE, b BOOLEAN, s VARCHAR(20))");
+            statement.execute("INSERT INTO t VALUES (42, 1.50, 2.5, TRUE, 'abc')");
+            statement.execute("INSERT INTO t VALUES (7, 3.25, 'Infinity', FALSE, '42')");
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testInteger() throws SQLException {
+        assertEquals("abc", selectString("i = ?", constant("42", DB_TYPE_FACTORY.getDBLargeIntegerType())));
+    }
+
+    @Test
+    public void testDecimal() throws SQLException {
+        assertEquals("42", selectString("d = ?", constant("3.25", DB_TYPE_FACTORY.getDBDecimalType())));
+    }
+
+    @Test
+    public void testDouble() throws SQLException {
+        assertEquals("abc", selectString("f = ?", constant("2.5", DB_TYPE_FACTORY.getDBDoubleType())));
+        assertEquals("42", selectString("f = ?", constant("INF", DB_TYPE_FACTORY.getDBDoubleType())));
+        assertNull(selectString("f = ?", constant("NaN", DB_TYPE_FACTORY.getDBDoubleType())));
+    }
+
+    @Test
+    public void testBoolean() throws SQLException {
+        assertEquals("42", selectString("b = ?", constant("false", DB_TYPE_FACTORY.getDBBooleanType())));
+    }
+
+    @Test
+    public void testString() throws SQLException {
+        // Not cast into a number
+        assertEquals("abc", selectString("s = ?", constant("abc", DB_TYPE_FACTORY.getDBStringType())));
+        assertEquals("42", selectString("s = ?", constant("42", DB_TYPE_FACTORY.getDBStringType())));
+    }
+
+    @Test(expected = SQLException.class)
+    public void testInvalidInteger() throws SQLException {
+        selectString("i = ?", constant("1.5", DB_TYPE_FACTORY.getDBLargeIntegerType()));
+    }
+
+    @Test(expected = SQLFeatureNotSupportedException.class)
+    public void testUnsupportedType() throws SQLException {
+        selectString("CAST(? AS DATE) IS NOT NULL", constant("2020-01-01", DB_TYPE_FACTORY.getDBDateType()));
+    }
+
+    private static DBConstant constant(String value, DBTermType type) {
+        return TERM_FACTORY.getDBConstant(value, type);
+    }
+
+    /**
+     * Null if no row matches
+     */
+    private static String selectString(String condition, DBConstant parameter) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT s FROM t WHERE " + condition)) {
+            bindParameter(statement, 1, parameter);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package it.unibz.inf.ontop.answering.connection.pool;
+
+import it.unibz.inf.ontop.answering.connection.pool.impl.HikariConnectionPool;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+/**
+ * The Hikari pool is the default one
+ */
+public class HikariConnectionPoolTest {
+
+    @Test
+    public void testDefaultPool() {
+        try (JDBCConnectionPool pool = createPool("jdbc:h2:mem:hikari-default", "org.h2.Driver", new Properties())) {
+            assertEquals(HikariConnectionPool.class, pool.getClass());
+        }
+    }
+
+    @Test
+    public void testReadOnlyConnections() throws SQLException {
+        try (JDBCConnectionPool pool = createPool(ReadOnlyRecordingDriver.URL_PREFIX + "hikari-read-only",
+                ReadOnlyRecordingDriver.class.getName(), new Properties());
+             Connection connection = pool.getConnection()) {
+            assertTrue(connection.isReadOnly());
+        }
+    }
+
+    @Test
+    public void testPoolSize() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSQLSettings.MAX_POOL_SIZE, "2");
+        properties.setProperty(OntopSystemSQLSettings.INIT_POOL_SIZE, "1");
+        properties.setProperty(OntopSystemSQLSettings.CONNECTION_TIMEOUT, "250");
+
+        try (JDBCConnectionPool pool = createPool("jdbc:h2:mem:hikari-pool-size", "org.h2.Driver", properties);
+             Connection connection1 = pool.getConnection();
+             Connection connection2 = pool.getConnection()) {
+            JDBCConnectionPoolStats stats = pool.getStats().get();
+            assertEquals(2, stats.getMaxPoolSize());
+            assertEquals(2, stats.getActiveConnections());
+            assertEquals(2, stats.getTotalConnections());
+
+            // The pool is exhausted
+            try (Connection connection3 = pool.getConnection()) {
+                fail("A timeout was expected");
+            } catch (SQLException e) {
+                // Expected
+            }
+            assertEquals(1, pool.getStats().get().getFailedAcquisitionCount());
+        }
+    }
+
+    private static JDBCConnectionPool createPool(String jdbcUrl, String jdbcDriver, Properties properties) {
+        return OntopStandaloneSQLConfiguration.defaultBuilder()
+                .nativeOntopMappingFile("src/test/resources/marriage/marriage.obda")
+                .jdbcUrl(jdbcUrl)
+                .jdbcDriver(jdbcDriver)
+                .jdbcUser("sa")
+                .jdbcPassword("")
+                .properties(properties)
+                .enableTestMode()
+                .build()
+                .getInjector()
+                .getInstance(JDBCConnectionPool.class);
+    }
+
+    /**
+     * Opens H2 in-memory DBs, whose connections keep track of the read-only flag set by the pool
+     * (H2 only reports whether the DB itself is read-only)
+     */
+    public static class ReadOnlyRecordingDriver implements Driver {
+
+        private static final String URL_PREFIX = "jdbc:read-only-recording:";
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url))
+                return null;
+
+            Connection connection = DriverManager.getConnection(
+                    "jdbc:h2:mem:" + url.substring(URL_PREFIX.length()), info);
+            AtomicBoolean isReadOnly = new AtomicBoolean(false);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setReadOnly":
+                                isReadOnly.set((Boolean) args[0]);
+                                return null;
+                            case "isReadOnly":
+                                return isReadOnly.get();
+                            default:
+                                try {
+                                    return method.invoke(connection, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                        }
+                    });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith(URL_PREFIX);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package it.unibz.inf.ontop.answering.connection.pool;
+
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.pool.impl.HikariConnectionPool;
+import it.unibz.inf.ontop.answering.connection.pool.impl.TomcatConnectionPool;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JDBCConnectionPoolStatsTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:pool-stats";
+
+    @Test
+    public void testConcurrentAcquisitionsTomcat() throws Exception {
+        testConcurrentAcquisitions(TomcatConnectionPool.class);
+    }
+
+    @Test
+    public void testConcurrentAcquisitionsHikari() throws Exception {
+        testConcurrentAcquisitions(HikariConnectionPool.class);
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName(JDBCConnectionPoolMXBean.OBJECT_NAME_PREFIX + "*");
+        int initialCount = server.queryNames(pattern, null).size();
+
+        OntopQueryEngine queryEngine = createConfiguration(TomcatConnectionPool.class).loadQueryEngine();
+        Set<ObjectName> names = server.queryNames(pattern, null);
+        assertEquals(initialCount + 1, names.size());
+        assertTrue(names.stream()
+                .anyMatch(n -> {
+                    try {
+                        return Integer.valueOf(4).equals(server.getAttribute(n, "MaxPoolSize"));
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+
+        queryEngine.close();
+        assertEquals(initialCount, server.queryNames(pattern, null).size());
+    }
+
+    private void testConcurrentAcquisitions(Class<? extends JDBCConnectionPool> poolClass) throws Exception {
+        OntopStandaloneSQLConfiguration configuration = createConfiguration(poolClass);
+
+        try (JDBCConnectionPool pool = configuration.getInjector().getInstance(JDBCConnectionPool.class)) {
+            assertEquals(poolClass, pool.getClass());
+
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<Connection>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++)
+                futures.add(executor.submit(pool::getConnection));
+            List<Connection> connections = new ArrayList<>();
+            for (Future<Connection> future : futures)
+                connections.add(future.get(10, TimeUnit.SECONDS));
+            executor.shutdown();
+
+            JDBCConnectionPoolStats stats = pool.getStats().get();
+            assertEquals(4, stats.getActiveConnections());
+            assertEquals(4, stats.getMaxPoolSize());
+            assertEquals(4, stats.getAcquisitionCount());
+
+            // The pool is exhausted
+            try (Connection connection = pool.getConnection()) {
+                throw new AssertionError("A timeout was expected");
+            } catch (SQLException e) {
+                // Expected
+            }
+            stats = pool.getStats().get();
+            assertEquals(1, stats.getFailedAcquisitionCount());
+            assertTrue(stats.getMaxAcquisitionTimeMillis() >= 200);
+
+            for (Connection connection : connections)
+                connection.close();
+            assertEquals(0, pool.getStats().get().getActiveConnections());
+        }
+    }
+
+    private static OntopStandaloneSQLConfiguration createConfiguration(Class<? extends JDBCConnectionPool> poolClass) {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSQLSettings.MAX_POOL_SIZE, "4");
+        properties.setProperty(OntopSystemSQLSettings.CONNECTION_TIMEOUT, "250");
+        properties.setProperty(JDBCConnectionPool.class.getCanonicalName(), poolClass.getCanonicalName());
+
+        return OntopStandaloneSQLConfiguration.defaultBuilder()
+                .nativeOntopMappingFile("src/test/resources/marriage/marriage.obda")
+                .jdbcUrl(JDBC_URL)
+                .jdbcUser("sa")
+                .jdbcPassword("")
+                .properties(properties)
+                .enableTestMode()
+                .build();
+    }
+}
@@ -0,0 +1,202 @@
+package it.unibz.inf.ontop.answering.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.logging.impl.AsyncQueryLogSink;
+import it.unibz.inf.ontop.answering.logging.impl.QueryLoggerImpl;
+import it.unibz.inf.ontop.answering.logging.impl.SynchronousQueryLogSink;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static java.util.stream.Collectors.joining;
+import static org.junit.Assert.*;
+
+/**
+ * The records written through the query log sinks must be identical to the ones
+ * previously printed by the query logger on the standard output (same messages, same fields in the same order).
+ */
+public class QueryLoggingTest {
+
+    private static final String OBDA_FILE = "src/test/resources/marriage/marriage.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/marriage/create-db.sql";
+    private static final String JDBC_URL = "jdbc:h2:mem:querylogging";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final String PERSON_QUERY_STRING = "PREFIX : <http://example.org/marriage/voc#>\n\n" +
+            "SELECT DISTINCT ?x \n" +
+            "WHERE {\n" +
+            "  ?x a :Person .\n" +
+            "}";
+    private static final String TIMESTAMP_REGEX = "\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}(Z|[+-]\\d{2}:\\d{2})";
+
+    private static final ImmutableList<String> RECORD_KEYS = ImmutableList.of("@timestamp", "message", "application", "payload");
+    private static final ImmutableList<String> REFORMULATED_KEYS = ImmutableList.of("queryId", "classesUsedInQuery",
+            "propertiesUsedInQuery", "tables", "reformulationDuration", "reformulationCacheHit", "httpHeaders", "sparqlQuery");
+    private static final ImmutableList<String> UNBLOCKED_KEYS = ImmutableList.of("queryId",
+            QueryLoggerImpl.EXECUTION_BEFORE_UNBLOCKING_DURATION_KEY);
+    private static final ImmutableList<String> LAST_RESULT_KEYS = ImmutableList.of("queryId",
+            QueryLoggerImpl.EXECUTION_AND_FETCHING_DURATION_KEY, QueryLoggerImpl.TOTAL_DURATION_KEY,
+            QueryLoggerImpl.RESULT_COUNT_KEY);
+    private static final ImmutableList<String> MERGED_KEYS = ImmutableList.<String>builder()
+            .addAll(REFORMULATED_KEYS)
+            .addAll(UNBLOCKED_KEYS.subList(1, UNBLOCKED_KEYS.size()))
+            .addAll(LAST_RESULT_KEYS.subList(1, LAST_RESULT_KEYS.size()))
+            .build();
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static Connection CONN;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+
+        try (Statement st = CONN.createStatement()) {
+            String s = Files.lines(Paths.get(CREATE_DB_FILE)).collect(joining());
+            st.executeUpdate(s);
+            CONN.commit();
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        CONN.close();
+    }
+
+    @Test
+    public void testSynchronousSink() throws Exception {
+        ImmutableList<ObjectNode> records = runQuery(SynchronousQueryLogSink.class);
+
+        assertEquals(ImmutableList.of(QueryLoggerImpl.QUERY_REFORMULATED, QueryLoggerImpl.QUERY_RESULT_SET_UNBLOCKED,
+                QueryLoggerImpl.QUERY_LAST_RESULT_FETCHED, QueryLoggerImpl.MERGED_MSG),
+                records.stream().map(r -> r.get("message").asText()).collect(ImmutableCollectors.toList()));
+
+        String queryId = records.get(0).get("payload").get("queryId").asText();
+        for (ObjectNode record : records) {
+            assertEquals(RECORD_KEYS, getKeys(record));
+            assertTrue(record.get("@timestamp").asText().matches(TIMESTAMP_REGEX));
+            assertEquals("Ontop", record.get("application").asText());
+            assertEquals(queryId, record.get("payload").get("queryId").asText());
+        }
+
+        assertEquals(REFORMULATED_KEYS, getKeys(records.get(0).get("payload")));
+        assertEquals(UNBLOCKED_KEYS, getKeys(records.get(1).get("payload")));
+        assertEquals(LAST_RESULT_KEYS, getKeys(records.get(2).get("payload")));
+        assertEquals(MERGED_KEYS, getKeys(records.get(3).get("payload")));
+
+        JsonNode mergedPayload = records.get(3).get("payload");
+        assertEquals("http://example.org/marriage/voc#Person", mergedPayload.get("classesUsedInQuery").get(0).asText());
+        assertEquals(0, mergedPayload.get("propertiesUsedInQuery").size());
+        assertEquals(1, mergedPayload.get("tables").size());
+        assertFalse(mergedPayload.get("reformulationCacheHit").asBoolean());
+        assertEquals(0, mergedPayload.get("httpHeaders").size());
+        assertEquals(PERSON_QUERY_STRING, mergedPayload.get("sparqlQuery").asText());
+        assertEquals(3, mergedPayload.get("resultCount").asInt());
+    }
+
+    /**
+     * Up to the timestamps, the identifiers and the durations, the asynchronous sink writes the same records
+     */
+    @Test
+    public void testAsyncSinkEquivalence() throws Exception {
+        ImmutableList<ObjectNode> synchronousRecords = runQuery(SynchronousQueryLogSink.class);
+        ImmutableList<ObjectNode> asyncRecords = runQuery(AsyncQueryLogSink.class);
+
+        assertEquals(normalize(synchronousRecords), normalize(asyncRecords));
+    }
+
+    private static ImmutableList<ObjectNode> runQuery(Class<? extends QueryLogSink> sinkClass) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_LOGGING, "true");
+        properties.setProperty(OntopReformulationSettings.QUERY_LOGGING_DECOMPOSITION, "true");
+        properties.setProperty(OntopReformulationSettings.QUERY_LOGGING_DECOMPOSITION_AND_MERGING_EXCLUSIVE, "false");
+        properties.setProperty(QueryLogSink.class.getCanonicalName(), sinkClass.getCanonicalName());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PrintStream standardOutput = System.out;
+        System.setOut(new PrintStream(outputStream, true, "UTF-8"));
+        try (OntopQueryEngine queryEngine = createQueryEngine(properties)) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                SelectQuery query = connection.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+                TupleResultSet resultSet = statement.execute(query);
+                while (resultSet.hasNext())
+                    resultSet.next();
+            }
+            // Closing the query engine writes the pending records
+        }
+        finally {
+            System.setOut(standardOutput);
+        }
+
+        ImmutableList.Builder<ObjectNode> builder = ImmutableList.builder();
+        for (String line : outputStream.toString(StandardCharsets.UTF_8.name()).split("\\R")) {
+            if (line.startsWith("{"))
+                builder.add((ObjectNode) MAPPER.readTree(line));
+        }
+        return builder.build();
+    }
+
+    private static ImmutableList<ObjectNode> normalize(ImmutableList<ObjectNode> records) {
+        return records.stream()
+                .map(ObjectNode::deepCopy)
+                .peek(r -> r.remove("@timestamp"))
+                .peek(r -> ((ObjectNode) r.get("payload")).remove(ImmutableList.of("queryId",
+                        QueryLoggerImpl.REFORMULATION_DURATION_KEY,
+                        QueryLoggerImpl.EXECUTION_BEFORE_UNBLOCKING_DURATION_KEY,
+                        QueryLoggerImpl.EXECUTION_AND_FETCHING_DURATION_KEY,
+                        QueryLoggerImpl.TOTAL_DURATION_KEY)))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private static ImmutableList<String> getKeys(JsonNode node) {
+        return ImmutableList.copyOf(node.fieldNames());
+    }
+
+    private static OntopQueryEngine createQueryEngine(Properties properties) throws Exception {
+        OntopMappingSQLAllConfiguration mappingConfiguration = OntopMappingSQLAllConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .enableTestMode()
+                .build();
+        OBDASpecification obdaSpecification = mappingConfiguration.loadSpecification();
+
+        OntopSystemSQLConfiguration systemConfiguration = OntopSystemSQLConfiguration.defaultBuilder()
+                .obdaSpecification(obdaSpecification)
+                .properties(properties)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .enableTestMode()
+                .build();
+
+        return systemConfiguration.loadQueryEngine();
+    }
+}
@@ -0,0 +1,186 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.injection.OntopSQLCoreConfiguration;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.RDFTermType;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JDBCRowDecoderTest {
+
+    private static final TermFactory TERM_FACTORY;
+    private static final TypeFactory TYPE_FACTORY;
+    private static final SubstitutionFactory SUBSTITUTION_FACTORY;
+    private static final DBTermType DB_STRING_TYPE;
+
+    private static final Variable A, B, C, X, Y;
+
+    static {
+        OntopSQLCoreConfiguration configuration = OntopSQLCoreConfiguration.defaultBuilder()
+                .jdbcUrl("jdbc:h2:mem:something")
+                .jdbcDriver("org.h2.Driver")
+                .build();
+        TERM_FACTORY = configuration.getTermFactory();
+        TYPE_FACTORY = configuration.getTypeFactory();
+        SUBSTITUTION_FACTORY = configuration.getInjector().getInstance(SubstitutionFactory.class);
+        DB_STRING_TYPE = TYPE_FACTORY.getDBTypeFactory().getDBStringType();
+
+        A = TERM_FACTORY.getVariable("a");
+        B = TERM_FACTORY.getVariable("b");
+        C = TERM_FACTORY.getVariable("c");
+        X = TERM_FACTORY.getVariable("x");
+        Y = TERM_FACTORY.getVariable("y");
+    }
+
+    @Test
+    public void testStringColumn() throws Exception {
+        testColumn(TYPE_FACTORY.getXsdStringDatatype(), "abc");
+    }
+
+    @Test
+    public void testIntegerColumn() throws Exception {
+        testColumn(TYPE_FACTORY.getXsdIntegerDatatype(), "42");
+    }
+
+    @Test
+    public void testDecimalColumn() throws Exception {
+        testColumn(TYPE_FACTORY.getXsdDecimalDatatype(), "4.2");
+    }
+
+    @Test
+    public void testBooleanColumn() throws Exception {
+        testColumn(TYPE_FACTORY.getXsdBooleanDatatype(), "true");
+    }
+
+    @Test
+    public void testDateTimeColumn() throws Exception {
+        testColumn(TYPE_FACTORY.getXsdDatetimeDatatype(), "2020-01-01T10:00:00");
+    }
+
+    @Test
+    public void testLangStringColumn() throws Exception {
+        testColumn(TYPE_FACTORY.getLangTermType("en"), "hello");
+    }
+
+    @Test
+    public void testIRIColumn() throws Exception {
+        testColumn(TYPE_FACTORY.getIRITermType(), "http://example.org/a");
+    }
+
+    @Test
+    public void testBNodeColumn() throws Exception {
+        testColumn(TYPE_FACTORY.getBlankNodeType(), "b1");
+    }
+
+    @Test
+    public void testIRITemplate() throws Exception {
+        ImmutableFunctionalTerm term = TERM_FACTORY.getIRIFunctionalTerm(
+                Template.of("http://example.org/person/", 0, "/", 1), ImmutableList.of(A, B));
+        JDBCRowDecoder decoder = decoder(ImmutableMap.of(X, term), ImmutableList.of(X));
+
+        assertEquals(ImmutableMap.of("x", TERM_FACTORY.getConstantIRI("http://example.org/person/1/a%20b")),
+                decode(decoder, "1", "a b", "unused"));
+        // a NULL argument leaves the variable unbound
+        assertEquals(ImmutableMap.of(), decode(decoder, null, "a", "unused"));
+        assertEquals(ImmutableMap.of(), decode(decoder, "1", null, "unused"));
+    }
+
+    @Test
+    public void testConstants() throws Exception {
+        RDFConstant constant = TERM_FACTORY.getConstantIRI("http://example.org/c");
+        JDBCRowDecoder decoder = decoder(ImmutableMap.of(X, constant, Y, TERM_FACTORY.getNullConstant()),
+                ImmutableList.of(X, Y));
+
+        assertEquals(ImmutableMap.of("x", constant), decode(decoder, "1", "2", "3"));
+    }
+
+    @Test
+    public void testSeveralBindings() throws Exception {
+        RDFTermType stringType = TYPE_FACTORY.getXsdStringDatatype();
+        RDFTermType integerType = TYPE_FACTORY.getXsdIntegerDatatype();
+        JDBCRowDecoder decoder = decoder(ImmutableMap.of(
+                X, TERM_FACTORY.getRDFFunctionalTerm(C, TERM_FACTORY.getRDFTermTypeConstant(stringType)),
+                Y, TERM_FACTORY.getRDFFunctionalTerm(A, TERM_FACTORY.getRDFTermTypeConstant(integerType))),
+                ImmutableList.of(X, Y));
+
+        assertEquals(ImmutableMap.of(
+                "x", TERM_FACTORY.getRDFConstant("s", stringType),
+                "y", TERM_FACTORY.getRDFConstant("1", integerType)),
+                decode(decoder, "1", "unused", "s"));
+        assertEquals(ImmutableMap.of("x", TERM_FACTORY.getRDFConstant("s", stringType)),
+                decode(decoder, null, "unused", "s"));
+    }
+
+    /**
+     * Each column read at most once, in increasing order, and the unused columns are not read
+     */
+    @Test
+    public void testColumnReads() throws Exception {
+        RDFTermType stringType = TYPE_FACTORY.getXsdStringDatatype();
+        JDBCRowDecoder decoder = decoder(ImmutableMap.of(
+                X, TERM_FACTORY.getRDFFunctionalTerm(C, TERM_FACTORY.getRDFTermTypeConstant(stringType)),
+                Y, TERM_FACTORY.getIRIFunctionalTerm(Template.of("http://example.org/", 0, "/", 1), ImmutableList.of(C, A))),
+                ImmutableList.of(X, Y));
+
+        List<Integer> reads = new ArrayList<>();
+        decoder.decode(resultSet(reads, "1", "unused", "s"));
+        assertEquals(ImmutableList.of(1, 3), reads);
+    }
+
+    private void testColumn(RDFTermType termType, String value) throws Exception {
+        JDBCRowDecoder decoder = decoder(ImmutableMap.of(
+                X, TERM_FACTORY.getRDFFunctionalTerm(B, TERM_FACTORY.getRDFTermTypeConstant(termType))),
+                ImmutableList.of(X));
+
+        assertEquals(ImmutableMap.of("x", TERM_FACTORY.getRDFConstant(value, termType)),
+                decode(decoder, "unused", value, "unused"));
+        assertEquals(ImmutableMap.of(), decode(decoder, "unused", null, "unused"));
+    }
+
+    /**
+     * Columns a, b and c
+     */
+    private static JDBCRowDecoder decoder(ImmutableMap<Variable, ImmutableTerm> terms, ImmutableList<Variable> signature) {
+        ImmutableSortedSet<Variable> sqlSignature = ImmutableSortedSet.of(A, B, C);
+        ImmutableMap<Variable, DBTermType> sqlTypeMap = sqlSignature.stream()
+                .collect(ImmutableCollectors.toMap(v -> v, v -> DB_STRING_TYPE));
+        return new JDBCRowDecoder(sqlSignature, sqlTypeMap, SUBSTITUTION_FACTORY.getSubstitution(terms), signature,
+                TERM_FACTORY, SUBSTITUTION_FACTORY);
+    }
+
+    private static ImmutableMap<String, RDFConstant> decode(JDBCRowDecoder decoder, String... values) throws Exception {
+        return Arrays.stream(decoder.decode(resultSet(new ArrayList<>(), values)))
+                .collect(ImmutableCollectors.toMap(OntopBinding::getName, OntopBinding::getValue));
+    }
+
+    /**
+     * Single-row result set: only getString(int) is supported
+     */
+    private static ResultSet resultSet(List<Integer> reads, String... values) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getString") && method.getParameterTypes()[0] == int.class) {
+                        int index = (Integer) args[0];
+                        reads.add(index);
+                        return values[index - 1];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
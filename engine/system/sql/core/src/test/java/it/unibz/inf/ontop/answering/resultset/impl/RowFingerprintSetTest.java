@@ -0,0 +1,60 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RowFingerprintSetTest {
+
+    @Test
+    public void testGrowth() {
+        RowFingerprintSet set = new RowFingerprintSet();
+        for (int i = 0; i < 10000; i++)
+            assertTrue(set.add(i, fingerprintLow(i)));
+        for (int i = 0; i < 10000; i++)
+            assertFalse(set.add(i, fingerprintLow(i)));
+
+        assertEquals(10000, set.size());
+        assertFalse(set.isFull(Long.MAX_VALUE));
+        assertFalse(set.contains(10000, fingerprintLow(10000)));
+    }
+
+    /**
+     * The table cannot be doubled anymore: full for the deduplicator (which spills),
+     * then filled up to one empty slot
+     */
+    @Test
+    public void testMaxCapacity() {
+        RowFingerprintSet set = new RowFingerprintSet(Long.MAX_VALUE, 16);
+        for (int i = 0; i < 12; i++) {
+            assertFalse(set.isFull(Long.MAX_VALUE));
+            assertTrue(set.add(i, fingerprintLow(i)));
+        }
+        assertTrue(set.isFull(Long.MAX_VALUE));
+        assertEquals(16 * 16, set.getMemoryUsage());
+
+        assertTrue(set.add(12, fingerprintLow(12)));
+        assertTrue(set.add(13, fingerprintLow(13)));
+        try {
+            set.add(14, fingerprintLow(14));
+            fail("The maximum capacity was expected to be exhausted");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        assertEquals(16 * 16, set.getMemoryUsage());
+
+        // The probing still ends
+        for (int i = 0; i < 15; i++)
+            assertTrue(set.contains(i, fingerprintLow(i)));
+        assertFalse(set.contains(15, fingerprintLow(15)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxCapacity() {
+        new RowFingerprintSet(Long.MAX_VALUE, 100);
+    }
+
+    private static long fingerprintLow(int i) {
+        return i * 0x9E3779B97F4A7C15L;
+    }
+}
@@ -0,0 +1,113 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SpillingRowDeduplicatorTest {
+
+    private static final int DISTINCT_ROW_COUNT = 10000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testInMemory() throws Exception {
+        try (SpillingRowDeduplicator deduplicator = new SpillingRowDeduplicator(0, folder.getRoot())) {
+            List<List<String>> rows = deduplicate(deduplicator);
+
+            assertEquals(expectedRows(), rows);
+            assertEquals(0, deduplicator.getSpilledRowCount());
+            assertEquals(DISTINCT_ROW_COUNT * 2 + 1, deduplicator.getDroppedRowCount());
+        }
+    }
+
+    @Test
+    public void testSpilling() throws Exception {
+        try (SpillingRowDeduplicator deduplicator = new SpillingRowDeduplicator(1024, folder.getRoot())) {
+            List<List<String>> rows = deduplicate(deduplicator);
+
+            assertEquals(new HashSet<>(expectedRows()), new HashSet<>(rows));
+            assertEquals(DISTINCT_ROW_COUNT + 1, rows.size());
+            assertTrue(deduplicator.getSpilledRowCount() > 0);
+            // The partitions do not fit in the budget either
+            assertTrue(deduplicator.getRepartitionCount() > 0);
+            assertEquals(DISTINCT_ROW_COUNT * 2 + 1, deduplicator.getDroppedRowCount());
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testSpillingWithoutRepartitioning() throws Exception {
+        try (SpillingRowDeduplicator deduplicator = new SpillingRowDeduplicator(65536, folder.getRoot())) {
+            List<List<String>> rows = deduplicate(deduplicator);
+
+            assertEquals(new HashSet<>(expectedRows()), new HashSet<>(rows));
+            assertEquals(DISTINCT_ROW_COUNT + 1, rows.size());
+            assertTrue(deduplicator.getSpilledRowCount() > 0);
+            assertEquals(0, deduplicator.getRepartitionCount());
+            assertEquals(DISTINCT_ROW_COUNT * 2 + 1, deduplicator.getDroppedRowCount());
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    /**
+     * The files of the sub-partitions not read yet are also removed
+     */
+    @Test
+    public void testCloseWhileReadingSpilledRows() throws Exception {
+        try (SpillingRowDeduplicator deduplicator = new SpillingRowDeduplicator(1024, folder.getRoot())) {
+            for (int i = 0; i < DISTINCT_ROW_COUNT; i++)
+                deduplicator.add(new String[] { "a" + i });
+            for (int i = 0; i < 100; i++)
+                assertNotNull(deduplicator.nextSpilledRow());
+            assertTrue(deduplicator.getRepartitionCount() > 0);
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testBudgetExceededWithoutSpilling() throws Exception {
+        try (SpillingRowDeduplicator deduplicator = new SpillingRowDeduplicator(1024, null)) {
+            List<List<String>> rows = deduplicate(deduplicator);
+
+            assertEquals(expectedRows(), rows);
+            assertEquals(0, deduplicator.getSpilledRowCount());
+        }
+    }
+
+    /**
+     * Each row is repeated 3 times, and the row with a null twice
+     */
+    private static List<List<String>> deduplicate(SpillingRowDeduplicator deduplicator) throws Exception {
+        List<List<String>> rows = new ArrayList<>();
+        for (int j = 0; j < 3; j++) {
+            for (int i = 0; i < DISTINCT_ROW_COUNT; i++) {
+                String[] values = { "a" + i, String.valueOf(i % 7) };
+                if (deduplicator.add(values))
+                    rows.add(Arrays.asList(values));
+            }
+            if (j < 2 && deduplicator.add(new String[] { null, "" }))
+                rows.add(Arrays.asList(null, ""));
+        }
+        String[] values;
+        while ((values = deduplicator.nextSpilledRow()) != null)
+            rows.add(Arrays.asList(values));
+
+        assertEquals(DISTINCT_ROW_COUNT * 3 + 2, deduplicator.getRowCount());
+        return rows;
+    }
+
+    private static List<List<String>> expectedRows() {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < DISTINCT_ROW_COUNT; i++)
+            rows.add(Arrays.asList("a" + i, String.valueOf(i % 7)));
+        rows.add(Arrays.asList(null, ""));
+        return rows;
+    }
+}
@@ -192,6 +192,42 @@ public class OntopMaterializerTest {
 		// conn.close();
 	}
 
+	@Test
+	public void testOneSourceTripleParallel() throws Exception {
+
+		SQLPPMapping ppMapping = createMapping();
+
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(ppMapping)
+				.build();
+
+		ImmutableSet<IRI> vocabulary = Stream.of(fnIRI, lnIRI, ageIRI, hasschoolIRI, schoolIRI)
+				.collect(ImmutableCollectors.toSet());
+
+		MaterializationParams params = MaterializationParams.defaultBuilder()
+				.degreeOfParallelism(2)
+				.enableDeterministicOrder(true)
+				.bufferSize(4)
+				.build();
+
+		OntopRDFMaterializer materializer = OntopRDFMaterializer.defaultMaterializer(configuration, params);
+
+		try (MaterializedGraphResultSet materializationResultSet = materializer.materialize(vocabulary)) {
+
+			ImmutableList.Builder<RDFFact> rdfGraphBuilder = ImmutableList.builder();
+			while (materializationResultSet.hasNext()) {
+				rdfGraphBuilder.add(materializationResultSet.next());
+			}
+			ImmutableList<RDFFact> assertions = rdfGraphBuilder.build();
+
+			assertEquals(15, assertions.size());
+			assertEquals(15, materializationResultSet.getTripleCountSoFar());
+			assertEquals(15, materializationResultSet.getTripleCountPerRDFPropertyAndClassSoFar().values().stream()
+					.mapToLong(c -> c)
+					.sum());
+		}
+	}
+
 	@Test
 	public void testOneSourceQuad() throws Exception {
 
@@ -35,6 +35,16 @@ public interface OntopMappingSettings extends OntopOBDASettings, OntopOptimizati
      */
     boolean isCanIRIComplete();
 
+    /**
+     * If true, the nodes of the class and property hierarchies are saturated in parallel (T-mappings)
+     */
+    boolean isTMappingSaturationParallel();
+
+    /**
+     * Number of threads of the parallel saturation (T-mappings)
+     */
+    int getTMappingSaturationParallelism();
+
     //--------------------------
     // Keys
     //--------------------------
@@ -43,6 +53,8 @@ public interface OntopMappingSettings extends OntopOBDASettings, OntopOptimizati
     String INFER_DEFAULT_DATATYPE = "ontop.inferDefaultDatatype";
     String TOLERATE_ABSTRACT_DATATYPE = "ontop.tolerateAbstractDatatype";
     String IS_CANONICAL_IRI_COMPLETE = "ontop.isCanonicalIRIComplete";
+    String PARALLEL_TMAPPING_SATURATION = "ontop.tmapping.parallelSaturation";
+    String TMAPPING_SATURATION_PARALLELISM = "ontop.tmapping.saturationParallelism";
 
 
     /**
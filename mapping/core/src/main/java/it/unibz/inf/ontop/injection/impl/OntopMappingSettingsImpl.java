@@ -46,4 +46,14 @@ class OntopMappingSettingsImpl extends OntopOBDASettingsImpl implements OntopMap
     public boolean isCanIRIComplete() {
         return getRequiredBoolean(IS_CANONICAL_IRI_COMPLETE);
     }
+
+    @Override
+    public boolean isTMappingSaturationParallel() {
+        return getRequiredBoolean(PARALLEL_TMAPPING_SATURATION);
+    }
+
+    @Override
+    public int getTMappingSaturationParallelism() {
+        return getRequiredInteger(TMAPPING_SATURATION_PARALLELISM);
+    }
 }
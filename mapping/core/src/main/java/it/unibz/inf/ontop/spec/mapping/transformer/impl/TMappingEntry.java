@@ -1,41 +1,52 @@
 package it.unibz.inf.ontop.spec.mapping.transformer.impl;
 
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
 import it.unibz.inf.ontop.constraints.ImmutableHomomorphism;
 import it.unibz.inf.ontop.constraints.ImmutableHomomorphismIterator;
 import it.unibz.inf.ontop.constraints.impl.ImmutableCQContainmentCheckUnderLIDs;
 import it.unibz.inf.ontop.injection.CoreSingletons;
 import it.unibz.inf.ontop.iq.tools.impl.IQ2CQ;
+import it.unibz.inf.ontop.model.atom.DataAtom;
 import it.unibz.inf.ontop.model.atom.RelationPredicate;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
 
 public class TMappingEntry {
 
-    public static Collector<TMappingRule, TMappingEntry, ImmutableList<TMappingRule>> toTMappingEntry(ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc, CoreSingletons coreSingletons) {
+    public static Collector<TMappingRule, TMappingEntry, ImmutableList<TMappingRule>> toTMappingEntry(ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc, Statistics statistics, CoreSingletons coreSingletons) {
         return Collector.of(
-                () -> new TMappingEntry(cqc, coreSingletons), // Supplier
+                () -> new TMappingEntry(cqc, statistics, coreSingletons), // Supplier
                 TMappingEntry::add, // Accumulator
                 (b1, b2) -> b1.addAll(b2.build().iterator()), // Merger
                 TMappingEntry::build, // Finisher
                 Collector.Characteristics.UNORDERED);
     }
 
-    private final List<TMappingRule> rules = new ArrayList<>();
+    // in the order of insertion
+    private final Set<IndexedRule> rules = new LinkedHashSet<>();
+    private final Multiset<TMappingRule> ruleSet = HashMultiset.create();
+    // index: the predicates of the database atoms of the rules (without and with the LIDs)
+    private final Map<RelationPredicate, Set<IndexedRule>> rulesByPredicate = new HashMap<>();
+    private final Map<RelationPredicate, Set<IndexedRule>> rulesByChasedPredicate = new HashMap<>();
+    private final Set<IndexedRule> rulesWithoutAtoms = new HashSet<>();
+    private long nextPosition = 0;
+
     private final ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc;
+    private final Statistics statistics;
     private final TermFactory termFactory;
     private final CoreSingletons coreSingletons;
 
-    public TMappingEntry(ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc, CoreSingletons coreSingletons) {
+    public TMappingEntry(ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc, Statistics statistics, CoreSingletons coreSingletons) {
         this.cqc = cqc;
+        this.statistics = statistics;
         this.termFactory = coreSingletons.getTermFactory();
         this.coreSingletons = coreSingletons;
     }
@@ -52,7 +63,9 @@ public class TMappingEntry {
     }
 
     public ImmutableList<TMappingRule> build() {
-        return ImmutableList.copyOf(rules);
+        return rules.stream()
+                .map(r -> r.rule)
+                .collect(ImmutableCollectors.toList());
     }
 
 
@@ -77,20 +90,23 @@ public class TMappingEntry {
      *     S(x,z) :- R(x,y,z), OR(y > 7, y = 2)
      */
 
-    private void mergeMappingsWithCQC(TMappingRule assertion) {
+    private void mergeMappingsWithCQC(TMappingRule rule) {
 
-        if (rules.contains(assertion))
+        if (ruleSet.contains(rule))
             return;
 
-        if (assertion.getDatabaseAtoms().isEmpty() && assertion.getConditions().isEmpty()) {
-            rules.add(assertion); // facts are just added
+        IndexedRule assertion = new IndexedRule(rule);
+        if (rule.getDatabaseAtoms().isEmpty() && rule.getConditions().isEmpty()) {
+            addRule(assertion); // facts are just added
             return;
         }
 
-        Iterator<TMappingRule> mappingIterator = rules.iterator();
-        while (mappingIterator.hasNext()) {
+        // the other rules cannot contain or be contained in the assertion
+        ImmutableList<IndexedRule> candidates = getCandidates(assertion);
+        statistics.checkedPairs.addAndGet(candidates.size());
+        statistics.prunedPairs.addAndGet(rules.size() - candidates.size());
 
-            TMappingRule current = mappingIterator.next();
+        for (IndexedRule current : candidates) {
             // to and from refer to "to assertion" and "from assertion"
 
             boolean couldIgnore = false;
@@ -100,15 +116,15 @@ public class TMappingEntry {
                             .map(ImmutableHomomorphismIterator::next);
 
             if (to.isPresent()) {
-                if (current.getConditions().isEmpty() ||
-                        (current.getConditions().size() == 1 &&
-                                assertion.getConditions().size() == 1 &&
+                if (current.rule.getConditions().isEmpty() ||
+                        (current.rule.getConditions().size() == 1 &&
+                                rule.getConditions().size() == 1 &&
                                 // rule1.getConditions().get(0) contains all images of rule2.getConditions.get(0)
-                                current.getConditions().get(0).stream()
+                                current.rule.getConditions().get(0).stream()
                                         .map(atom -> to.get().applyToBooleanExpression(atom, termFactory))
-                                        .allMatch(atom -> assertion.getConditions().get(0).contains(atom)))) {
+                                        .allMatch(atom -> rule.getConditions().get(0).contains(atom)))) {
 
-                    if (assertion.getDatabaseAtoms().size() < current.getDatabaseAtoms().size()) {
+                    if (rule.getDatabaseAtoms().size() < current.rule.getDatabaseAtoms().size()) {
                         couldIgnore = true;
                     }
                     else {
@@ -123,17 +139,17 @@ public class TMappingEntry {
                             .map(ImmutableHomomorphismIterator::next);
 
             if (from.isPresent()) {
-                if (assertion.getConditions().isEmpty() ||
-                        (assertion.getConditions().size() == 1 &&
-                                current.getConditions().size() == 1 &&
+                if (rule.getConditions().isEmpty() ||
+                        (rule.getConditions().size() == 1 &&
+                                current.rule.getConditions().size() == 1 &&
                                 // rule1.getConditions().get(0) contains all images of rule2.getConditions.get(0)
-                                assertion.getConditions().get(0).stream()
+                                rule.getConditions().get(0).stream()
                                         .map(atom -> from.get().applyToBooleanExpression(atom, termFactory))
-                                        .allMatch(atom -> current.getConditions().get(0).contains(atom)))) {
+                                        .allMatch(atom -> current.rule.getConditions().get(0).contains(atom)))) {
 
                     // The existing query is more specific than the new query, so we
                     // need to add the new query and remove the old
-                    mappingIterator.remove();
+                    removeRule(current);
                     continue;
                 }
             }
@@ -148,45 +164,168 @@ public class TMappingEntry {
                 // newRule into the current
                 // Here we can merge conditions of the new query with the one we have just found
                 // new map always has just one set of filters  !!
-                ImmutableList<ImmutableExpression> newf = assertion.getConditions().get(0).stream()
+                ImmutableList<ImmutableExpression> newf = rule.getConditions().get(0).stream()
                         .map(atom -> from.get().applyToBooleanExpression(atom, termFactory))
                         .collect(ImmutableCollectors.toList());
 
                 ImmutableSet<Variable> newfVars = newf.stream()
                         .flatMap(ImmutableTerm::getVariableStream)
                         .collect(ImmutableCollectors.toSet());
-                ImmutableSet<Variable> ccVars = current.getDatabaseAtoms().stream()
+                ImmutableSet<Variable> ccVars = current.rule.getDatabaseAtoms().stream()
                         .flatMap(a -> a.getVariables().stream())
                         .collect(ImmutableCollectors.toSet());
                 if (ccVars.containsAll(newfVars)) {
                     // if each of the existing conditions in one of the filter groups
                     // is found in the new filter then the new filter is redundant
-                    if (current.getConditions().stream().anyMatch(newf::containsAll))
+                    if (current.rule.getConditions().stream().anyMatch(newf::containsAll))
                         return;
 
                     // REPLACE THE CURRENT RULE
-                    mappingIterator.remove();
-                    rules.add(new TMappingRule(current, Stream.concat(
-                            current.getConditions().stream()
+                    removeRule(current);
+                    addRule(new IndexedRule(new TMappingRule(current.rule, Stream.concat(
+                            current.rule.getConditions().stream()
                                     // if each of the new conditions is found among econd then the old condition is redundant
                                     .filter(f -> !f.containsAll(newf)),
                             Stream.of(newf))
-                            .collect(ImmutableCollectors.toList())));
+                            .collect(ImmutableCollectors.toList()))));
                     return;
                 }
             }
         }
-        rules.add(assertion);
+        addRule(assertion);
+    }
+
+    /**
+     * The rules that may contain the assertion or be contained in it (in the order of insertion):
+     * the predicates of the database atoms of the contained rule must occur in the chase of the other rule
+     * and the head terms must be compatible.
+     */
+    private ImmutableList<IndexedRule> getCandidates(IndexedRule assertion) {
+        Set<IndexedRule> candidates = new HashSet<>();
+
+        // the current rule is mapped to the assertion
+        Map<IndexedRule, Integer> counts = new HashMap<>();
+        for (RelationPredicate predicate : assertion.chasedPredicates)
+            for (IndexedRule current : rulesByPredicate.getOrDefault(predicate, ImmutableSet.of()))
+                if (counts.merge(current, 1, Integer::sum) == current.predicates.size()
+                        && areHeadsCompatible(current, assertion))
+                    candidates.add(current);
+        for (IndexedRule current : rulesWithoutAtoms)
+            if (areHeadsCompatible(current, assertion))
+                candidates.add(current);
+
+        // the assertion is mapped to the current rule
+        Optional<Set<IndexedRule>> smallest = assertion.predicates.stream()
+                .map(p -> rulesByChasedPredicate.getOrDefault(p, ImmutableSet.of()))
+                .min(Comparator.comparingInt(Set::size));
+        for (IndexedRule current : smallest.orElse(rules))
+            if (current.chasedPredicates.containsAll(assertion.predicates)
+                    && areHeadsCompatible(assertion, current))
+                candidates.add(current);
+
+        return candidates.stream()
+                .sorted(Comparator.comparingLong(r -> r.position))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    /**
+     * Necessary condition for a homomorphism from the head terms of the first rule to the ones of the second
+     * (see ImmutableHomomorphism.Builder)
+     */
+    private static boolean areHeadsCompatible(IndexedRule from, IndexedRule to) {
+        ImmutableList<ImmutableTerm> fromTerms = from.rule.getHeadTerms(), toTerms = to.rule.getHeadTerms();
+        if (fromTerms.size() != toTerms.size())
+            return false;
+        for (int i = 0; i < fromTerms.size(); i++) {
+            ImmutableTerm fromTerm = fromTerms.get(i), toTerm = toTerms.get(i);
+            if (fromTerm instanceof Variable) {
+                if (!(toTerm instanceof VariableOrGroundTerm))
+                    return false;
+            }
+            else if (fromTerm instanceof Constant) {
+                if (!fromTerm.equals(toTerm))
+                    return false;
+            }
+            else if (!(toTerm instanceof ImmutableFunctionalTerm)
+                    || !((ImmutableFunctionalTerm) fromTerm).getFunctionSymbol().equals(((ImmutableFunctionalTerm) toTerm).getFunctionSymbol()))
+                return false;
+        }
+        return true;
+    }
+
+    private void addRule(IndexedRule rule) {
+        rule.position = nextPosition++;
+        rules.add(rule);
+        ruleSet.add(rule.rule);
+        if (rule.predicates.isEmpty())
+            rulesWithoutAtoms.add(rule);
+        for (RelationPredicate predicate : rule.predicates)
+            rulesByPredicate.computeIfAbsent(predicate, p -> new HashSet<>()).add(rule);
+        for (RelationPredicate predicate : rule.chasedPredicates)
+            rulesByChasedPredicate.computeIfAbsent(predicate, p -> new HashSet<>()).add(rule);
     }
 
-    private Optional<ImmutableHomomorphismIterator<RelationPredicate>> getHomomorphismIterator(TMappingRule from, TMappingRule to) {
+    private void removeRule(IndexedRule rule) {
+        rules.remove(rule);
+        ruleSet.remove(rule.rule);
+        rulesWithoutAtoms.remove(rule);
+        for (RelationPredicate predicate : rule.predicates)
+            rulesByPredicate.get(predicate).remove(rule);
+        for (RelationPredicate predicate : rule.chasedPredicates)
+            rulesByChasedPredicate.get(predicate).remove(rule);
+    }
+
+    private Optional<ImmutableHomomorphismIterator<RelationPredicate>> getHomomorphismIterator(IndexedRule from, IndexedRule to) {
         ImmutableHomomorphism.Builder builder = ImmutableHomomorphism.builder();
-        for (int i = 0; i < from.getHeadTerms().size(); i++)
-            if (!builder.extend(from.getHeadTerms().get(i), to.getHeadTerms().get(i)).isValid())
+        for (int i = 0; i < from.rule.getHeadTerms().size(); i++)
+            if (!builder.extend(from.rule.getHeadTerms().get(i), to.rule.getHeadTerms().get(i)).isValid())
                 return Optional.empty();
 
         ImmutableHomomorphism h = builder.build();
-        return Optional.of(cqc.homomorphismIterator(h, IQ2CQ.toDataAtoms(from.getDatabaseAtoms(), coreSingletons),
-                IQ2CQ.toDataAtoms(to.getDatabaseAtoms(), coreSingletons)));
+        return Optional.of(cqc.homomorphismIterator(h, from.dataAtoms, to.dataAtoms));
+    }
+
+    /**
+     * Rule with its database atoms and their predicates
+     */
+    private final class IndexedRule {
+        private final TMappingRule rule;
+        private final ImmutableList<DataAtom<RelationPredicate>> dataAtoms;
+        private final ImmutableSet<RelationPredicate> predicates;
+        private final ImmutableSet<RelationPredicate> chasedPredicates;
+        private long position;
+
+        IndexedRule(TMappingRule rule) {
+            this.rule = rule;
+            this.dataAtoms = IQ2CQ.toDataAtoms(rule.getDatabaseAtoms(), coreSingletons);
+            this.predicates = dataAtoms.stream()
+                    .map(DataAtom::getPredicate)
+                    .collect(ImmutableCollectors.toSet());
+            this.chasedPredicates = cqc.chase(dataAtoms).stream()
+                    .map(DataAtom::getPredicate)
+                    .collect(ImmutableCollectors.toSet());
+        }
+    }
+
+    /**
+     * Number of pairs of rules checked for containment and of pairs pruned by the index.
+     * Thread-safe, can be shared by several entries.
+     */
+    public static class Statistics {
+        private final AtomicLong checkedPairs = new AtomicLong();
+        private final AtomicLong prunedPairs = new AtomicLong();
+
+        public long getCheckedPairs() {
+            return checkedPairs.get();
+        }
+
+        public long getPrunedPairs() {
+            return prunedPairs.get();
+        }
+
+        @Override
+        public String toString() {
+            return checkedPairs + " pairs of rules checked, " + prunedPairs + " pruned";
+        }
     }
 }
@@ -20,6 +20,7 @@ package it.unibz.inf.ontop.spec.mapping.transformer.impl;
  * #L%
  */
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.*;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -29,6 +30,7 @@ import it.unibz.inf.ontop.datalog.*;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
 import it.unibz.inf.ontop.injection.CoreSingletons;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.iq.tools.UnionBasedQueryMerger;
 import it.unibz.inf.ontop.iq.transform.NoNullValueEnforcer;
@@ -49,14 +51,23 @@ import it.unibz.inf.ontop.spec.ontology.*;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Singleton
 public class TMappingSaturatorImpl implements MappingSaturator  {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(TMappingSaturatorImpl.class);
+
 	// TODO: the implementation of EXCLUDE ignores equivalent classes / properties
 
     private final TMappingExclusionConfig tMappingExclusionConfig;
@@ -70,6 +81,10 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
     private final SubstitutionFactory substitutionFactory;
     private final CoreUtilsFactory coreUtilsFactory;
     private final CoreSingletons coreSingletons;
+    private final boolean isParallel;
+    // Only for the parallel saturation (its idle worker threads terminate)
+    @Nullable
+    private final ForkJoinPool pool;
 
     @Inject
 	private TMappingSaturatorImpl(TMappingExclusionConfig tMappingExclusionConfig,
@@ -77,7 +92,8 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
                                   UnionFlattener unionNormalizer,
                                   MappingCQCOptimizer mappingCqcOptimizer,
                                   UnionBasedQueryMerger queryMerger,
-                                  CoreSingletons coreSingletons) {
+                                  CoreSingletons coreSingletons,
+                                  OntopMappingSettings settings) {
         this.tMappingExclusionConfig = tMappingExclusionConfig;
 		this.atomFactory = coreSingletons.getAtomFactory();
 		this.termFactory = coreSingletons.getTermFactory();
@@ -89,14 +105,19 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
         this.substitutionFactory = coreSingletons.getSubstitutionFactory();
         this.coreUtilsFactory = coreSingletons.getCoreUtilsFactory();
         this.coreSingletons = coreSingletons;
+        this.isParallel = settings.isTMappingSaturationParallel();
+        this.pool = isParallel ? new ForkJoinPool(settings.getTMappingSaturationParallelism()) : null;
     }
 
     @Override
     public ImmutableList<MappingAssertion> saturate(ImmutableList<MappingAssertion> mapping, ClassifiedTBox reasoner) {
 
+        long beginning = System.currentTimeMillis();
+
         ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc =
                 new ImmutableCQContainmentCheckUnderLIDs<>(
                         new DBLinearInclusionDependenciesImpl(coreUtilsFactory, atomFactory));
+        TMappingEntry.Statistics statistics = new TMappingEntry.Statistics();
 
 	    // index mapping assertions by the predicate type
         //     same IRI can be a class name and a property name
@@ -110,42 +131,85 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
                         .map(q -> Maps.immutableEntry(a.getIndex(), new TMappingRule(q, termFactory, iqFactory))))
                 .collect(ImmutableCollectors.toMultimap()).asMap();
 
-        ImmutableMap<MappingAssertionIndex, ImmutableList<TMappingRule>> saturated = original.keySet().stream()
+        long indexed = System.currentTimeMillis();
+
+        // one task per DAG node: the nodes are independent and the order of the tasks determines the output order
+        ImmutableList<Supplier<Stream<Map.Entry<MappingAssertionIndex, ImmutableList<TMappingRule>>>>> tasks = original.keySet().stream()
                 .map(MappingAssertionIndex::getPredicate)
                 .distinct()
                 .map(rdfAtomPredicate -> new TMappingRuleHeadConstructorProvider(rdfAtomPredicate, termFactory))
-                .flatMap(provider -> Stream.concat(Stream.concat(
+                .flatMap(provider -> Stream.<Supplier<Stream<Map.Entry<MappingAssertionIndex, ImmutableList<TMappingRule>>>>>concat(Stream.concat(
                     reasoner.objectPropertiesDAG().stream()
                         .filter(node -> !node.getRepresentative().isInverse() && !tMappingExclusionConfig.contains(node.getRepresentative()))
-                        .flatMap(node -> node.getMembers().stream()
+                        .map(node -> () -> node.getMembers().stream()
                                 .filter(d -> !d.isInverse() || d.getInverse() != node.getRepresentative())
-                                .map(saturator(node, reasoner.objectPropertiesDAG(), original, provider::constructor, cqc))),
+                                .map(saturator(node, reasoner.objectPropertiesDAG(), original, provider::constructor, cqc, statistics))),
 
                     reasoner.dataPropertiesDAG().stream()
                         .filter(node -> !tMappingExclusionConfig.contains(node.getRepresentative()))
-                        .flatMap(node -> node.getMembers().stream()
-                                .map(saturator(node, reasoner.dataPropertiesDAG(), original, provider::constructor, cqc)))),
+                        .map(node -> () -> node.getMembers().stream()
+                                .map(saturator(node, reasoner.dataPropertiesDAG(), original, provider::constructor, cqc, statistics)))),
 
                     reasoner.classesDAG().stream()
                         .filter(node -> (node.getRepresentative() instanceof OClass) && !tMappingExclusionConfig.contains((OClass)node.getRepresentative()))
-                        .flatMap(node -> node.getMembers().stream()
+                        .map(node -> () -> node.getMembers().stream()
                                 .filter(d -> d instanceof OClass)
-                                .map(saturator(node, reasoner.classesDAG(), original, provider::constructor, cqc)))))
+                                .map(saturator(node, reasoner.classesDAG(), original, provider::constructor, cqc, statistics)))))
+                .collect(ImmutableCollectors.toList());
 
+        ImmutableMap<MappingAssertionIndex, ImmutableList<TMappingRule>> saturated = runTasks(tasks).stream()
                 .filter(e -> !e.getValue().isEmpty())
                 .collect(ImmutableCollectors.toMap());
 
+        long saturatedTime = System.currentTimeMillis();
+
         ImmutableMap<MappingAssertionIndex, ImmutableList<TMappingRule>> combined = Stream.concat(
                 saturated.entrySet().stream(),
                 original.entrySet().stream()
                         .filter(e -> !saturated.containsKey(e.getKey()))
                         .map(e -> Maps.immutableEntry(e.getKey(), e.getValue().stream()
-                                        .collect(TMappingEntry.toTMappingEntry(cqc, coreSingletons)))))
+                                        .collect(TMappingEntry.toTMappingEntry(cqc, statistics, coreSingletons)))))
                 .collect(ImmutableCollectors.toMap());
 
-        return combined.entrySet().stream()
+        ImmutableList<MappingAssertion> result = combined.entrySet().stream()
                 .map(e -> new MappingAssertion(e.getKey(), toIQ(e.getValue()), null))
                 .collect(ImmutableCollectors.toList());
+
+        long end = System.currentTimeMillis();
+        LOGGER.debug("T-mapping saturation ({} DAG nodes{}): indexing {} ms, saturation {} ms, merging {} ms ({})",
+                tasks.size(), isParallel ? ", parallel" : "",
+                indexed - beginning, saturatedTime - indexed, end - saturatedTime, statistics);
+
+        return result;
+    }
+
+    /**
+     * The results are returned in the order of the tasks, also when the tasks are run in parallel.
+     * The tasks share the DAGs of the classified TBox, whose lookups are thread-safe.
+     */
+    private <E> ImmutableList<E> runTasks(ImmutableList<Supplier<Stream<E>>> tasks) {
+        if (!isParallel)
+            return tasks.stream()
+                    .flatMap(Supplier::get)
+                    .collect(ImmutableCollectors.toList());
+
+        try {
+            // the parallel stream runs in the pool that submits it
+            return pool.submit(() -> tasks.parallelStream()
+                            .map(t -> t.get().collect(ImmutableCollectors.toList()))
+                            .collect(Collectors.toList()))
+                    .get().stream()
+                    .flatMap(Collection::stream)
+                    .collect(ImmutableCollectors.toList());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinorOntopInternalBugException("Interrupted T-mapping saturation");
+        }
+        catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause());
+            throw new MinorOntopInternalBugException("T-mapping saturation failure: " + e.getCause());
+        }
     }
 
     private IQ toIQ(Collection<TMappingRule> rules) {
@@ -159,7 +223,8 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
                                                      EquivalencesDAG<T> dag,
                                                      ImmutableMap<MappingAssertionIndex, Collection<TMappingRule>> original,
                                                      Function<T, TMappingRuleHeadConstructor> constructor,
-                                                     ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc) {
+                                                     ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc,
+                                                     TMappingEntry.Statistics statistics) {
 
 	    IRIConstant iri = constructor.apply(node.getRepresentative()).getIri();
 
@@ -168,7 +233,7 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
                 .map(constructor)
                 .flatMap(t -> original.getOrDefault(t.indexOf(), ImmutableList.of()).stream()
                         .map(m -> new TMappingRule(t.getArguments(m.getHeadTerms(), iri), m)))
-                .collect(TMappingEntry.toTMappingEntry(cqc, coreSingletons));
+                .collect(TMappingEntry.toTMappingEntry(cqc, statistics, coreSingletons));
 
         return constructor.andThen(
                 t -> Maps.immutableEntry(
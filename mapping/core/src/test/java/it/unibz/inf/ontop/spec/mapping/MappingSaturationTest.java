@@ -3,6 +3,8 @@ package it.unibz.inf.ontop.spec.mapping;
 import com.google.common.collect.*;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.dbschema.impl.OfflineMetadataProviderBuilder;
+import it.unibz.inf.ontop.injection.OntopMappingConfiguration;
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.iq.node.ConstructionNode;
 import it.unibz.inf.ontop.iq.node.ExtensionalDataNode;
@@ -12,17 +14,21 @@ import it.unibz.inf.ontop.model.atom.RDFAtomPredicate;
 import it.unibz.inf.ontop.model.template.Template;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.spec.mapping.transformer.MappingSaturator;
 import it.unibz.inf.ontop.spec.ontology.*;
 import it.unibz.inf.ontop.spec.ontology.impl.OntologyBuilderImpl;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.apache.commons.rdf.api.IRI;
 import org.junit.Test;
 
+import java.util.Properties;
+
 import static it.unibz.inf.ontop.utils.MappingTestingTools.*;
 import static junit.framework.TestCase.*;
 
 public class MappingSaturationTest {
     private static final RelationDefinition P1;
+    private static final DBTermType LARGE_INT_DB_TYPE;
 
     private static final Variable A = TERM_FACTORY.getVariable("a");
     private static final Variable B = TERM_FACTORY.getVariable("b");
@@ -39,11 +45,11 @@ public class MappingSaturationTest {
 
     static {
         OfflineMetadataProviderBuilder builder = createMetadataProviderBuilder();
-        DBTermType largeIntDBType = builder.getDBTypeFactory().getDBLargeIntegerType();
+        LARGE_INT_DB_TYPE = builder.getDBTypeFactory().getDBLargeIntegerType();
 
         P1 = builder.createDatabaseRelation("p1",
-            "col1", largeIntDBType, false,
-            "col12", largeIntDBType, false);
+            "col1", LARGE_INT_DB_TYPE, false,
+            "col12", LARGE_INT_DB_TYPE, false);
 
         PROP_GIVES_LECTURE = RDF_FACTORY.createIRI("http://example.org/voc#givesLecture");
         PROP_TEACHES = RDF_FACTORY.createIRI("http://example.org/voc#teaches");
@@ -136,6 +142,57 @@ public class MappingSaturationTest {
         System.out.println(PROP_TEACHES + ":\n" + saturatedMapping.get(MappingAssertionIndex.ofProperty(tp, PROP_TEACHES)) + "\nvs\n" + maTeaches);
     }
 
+    @Test
+    public void testParallelSaturation() throws InconsistentOntologyException {
+        OntologyBuilder builder = OntologyBuilderImpl.builder(RDF_FACTORY, TERM_FACTORY);
+        DistinctVariableOnlyDataAtom spoAtom = ATOM_FACTORY.getDistinctTripleAtom(S, P, O);
+        RDFAtomPredicate tp = (RDFAtomPredicate)spoAtom.getPredicate();
+
+        // two chains of 20 classes, with a mapping assertion for each class
+        ImmutableList.Builder<MappingAssertion> mappingBuilder = ImmutableList.builder();
+        for (String chain : ImmutableList.of("A", "B")) {
+            OClass previous = null;
+            for (int i = 0; i < 20; i++) {
+                IRI iri = RDF_FACTORY.createIRI("http://example.org/voc#" + chain + i);
+                OClass oClass = builder.declareClass(iri);
+                if (previous != null)
+                    builder.addSubClassOfAxiom(previous, oClass);
+                previous = oClass;
+
+                ConstructionNode mappingRootNode = IQ_FACTORY.createConstructionNode(
+                        ImmutableSet.of(S, P, O),
+                        SUBSTITUTION_FACTORY.getSubstitution(
+                                S, TERM_FACTORY.getIRIFunctionalTerm(URI_TEMPLATE_PERSON, ImmutableList.of(A)),
+                                P, getConstantIRI(it.unibz.inf.ontop.model.vocabulary.RDF.TYPE),
+                                O, getConstantIRI(iri)));
+                ExtensionalDataNode extensionalDataNode = IQ_FACTORY.createExtensionalDataNode(
+                        P1, ImmutableMap.of(0, A, 1, TERM_FACTORY.getDBConstant(String.valueOf(i), LARGE_INT_DB_TYPE)));
+                mappingBuilder.add(new MappingAssertion(MappingAssertionIndex.ofClass(tp, iri),
+                        IQ_FACTORY.createIQ(spoAtom, IQ_FACTORY.createUnaryIQTree(mappingRootNode, extensionalDataNode)), null));
+            }
+        }
+        ImmutableList<MappingAssertion> mapping = mappingBuilder.build();
+        ClassifiedTBox classifiedTBox = builder.build().tbox();
+
+        Properties properties = new Properties();
+        properties.setProperty(OntopMappingSettings.PARALLEL_TMAPPING_SATURATION, "true");
+        MappingSaturator parallelSaturator = OntopMappingConfiguration.defaultBuilder()
+                .properties(properties)
+                .enableTestMode()
+                .build()
+                .getInjector()
+                .getInstance(MappingSaturator.class);
+
+        ImmutableList<MappingAssertion> sequential = MAPPING_SATURATOR.saturate(mapping, classifiedTBox);
+        ImmutableList<MappingAssertion> parallel = parallelSaturator.saturate(mapping, classifiedTBox);
+
+        assertEquals(40, sequential.size());
+        assertEquals(sequential.stream().map(MappingAssertion::getIndex).collect(ImmutableCollectors.toList()),
+                parallel.stream().map(MappingAssertion::getIndex).collect(ImmutableCollectors.toList()));
+        assertEquals(sequential.stream().map(MappingAssertion::getQuery).collect(ImmutableCollectors.toList()),
+                parallel.stream().map(MappingAssertion::getQuery).collect(ImmutableCollectors.toList()));
+    }
+
     private ImmutableTerm getConstantIRI(IRI iri) {
         return TERM_FACTORY.getConstantIRI(iri);
     }
@@ -0,0 +1,66 @@
+package it.unibz.inf.ontop.spec.mapping;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.constraints.impl.DBLinearInclusionDependenciesImpl;
+import it.unibz.inf.ontop.constraints.impl.ImmutableCQContainmentCheckUnderLIDs;
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.atom.RelationPredicate;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
+import it.unibz.inf.ontop.model.vocabulary.RDF;
+import it.unibz.inf.ontop.spec.mapping.transformer.impl.TMappingEntry;
+import it.unibz.inf.ontop.spec.mapping.transformer.impl.TMappingRule;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.utils.MappingTestingTools.*;
+import static org.junit.Assert.assertEquals;
+
+public class TMappingEntryTest {
+
+    private static final Variable A = TERM_FACTORY.getVariable("a");
+    private static final Variable B = TERM_FACTORY.getVariable("b");
+
+    private static final Variable S = TERM_FACTORY.getVariable("s");
+    private static final Variable P = TERM_FACTORY.getVariable("p");
+    private static final Variable O = TERM_FACTORY.getVariable("o");
+
+    private static final ImmutableList<Template.Component> URI_TEMPLATE_PERSON = Template.of("http://example.org/person/", 0);
+
+    @Test
+    public void testPrunedPairs() {
+        TMappingRule rule1 = createRule(TABLE1_AR2, B);
+        TMappingRule rule2 = createRule(TABLE2_AR2, B);
+        // contained in rule1
+        TMappingRule rule3 = createRule(TABLE1_AR2,
+                TERM_FACTORY.getDBConstant("1", TYPE_FACTORY.getDBTypeFactory().getDBLargeIntegerType()));
+
+        ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc = new ImmutableCQContainmentCheckUnderLIDs<>(
+                new DBLinearInclusionDependenciesImpl(CORE_UTILS_FACTORY, ATOM_FACTORY));
+        TMappingEntry.Statistics statistics = new TMappingEntry.Statistics();
+
+        ImmutableList<TMappingRule> rules = ImmutableList.of(rule1, rule2, rule3).stream()
+                .collect(TMappingEntry.toTMappingEntry(cqc, statistics, CORE_SINGLETONS));
+
+        assertEquals(ImmutableList.of(rule1, rule2), rules);
+        // rule3 is only checked against rule1
+        assertEquals(1, statistics.getCheckedPairs());
+        assertEquals(2, statistics.getPrunedPairs());
+    }
+
+    private static TMappingRule createRule(RelationDefinition relation, VariableOrGroundTerm secondArgument) {
+        DistinctVariableOnlyDataAtom spoAtom = ATOM_FACTORY.getDistinctTripleAtom(S, P, O);
+        IQ iq = IQ_FACTORY.createIQ(spoAtom, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(S, P, O),
+                        SUBSTITUTION_FACTORY.getSubstitution(
+                                S, TERM_FACTORY.getIRIFunctionalTerm(URI_TEMPLATE_PERSON, ImmutableList.of(A)),
+                                P, TERM_FACTORY.getConstantIRI(RDF.TYPE),
+                                O, TERM_FACTORY.getConstantIRI(RDF_FACTORY.createIRI("http://example.org/voc#Person")))),
+                IQ_FACTORY.createExtensionalDataNode(relation, ImmutableMap.of(0, A, 1, secondArgument))));
+        return new TMappingRule(iq, TERM_FACTORY, IQ_FACTORY);
+    }
+}
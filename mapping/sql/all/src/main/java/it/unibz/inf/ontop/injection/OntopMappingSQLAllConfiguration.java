@@ -50,6 +50,16 @@ public interface OntopMappingSQLAllConfiguration extends OntopMappingSQLConfigur
         B ontopViewFile(@Nonnull String ontopViewFilename);
 
         B ontopViewReader(@Nonnull Reader ontopViewReader);
+
+        /**
+         * Artifact produced by `ontop compile`: replaces the extraction of the DB metadata.
+         *
+         * Ignored (with a warning) when it does not match the mapping, constraint and view files,
+         * the JDBC URL and user or the change markers of the relations in the DB.
+         */
+        B compiledSpecificationFile(@Nonnull File compiledSpecificationFile);
+
+        B compiledSpecificationFile(@Nonnull String compiledSpecificationFilename);
     }
 
     interface Builder<B extends Builder<B>> extends OntopMappingSQLConfiguration.Builder<B>,
@@ -2,4 +2,18 @@ package it.unibz.inf.ontop.injection;
 
 
 public interface OntopMappingSQLAllSettings extends OntopMappingSQLSettings {
+
+    /**
+     * If true (default), the change markers of the relations of a compiled specification are read from the DB
+     * for detecting the schema changes since its compilation.
+     * If false, the change markers stored in the compiled specification are trusted: it is then loaded
+     * without connecting to the DB.
+     */
+    boolean isCompiledSpecificationDBCheckEnabled();
+
+    //-------
+    // Keys
+    //-------
+
+    String COMPILED_SPECIFICATION_DB_CHECK = "ontop.compiledSpecification.checkDB";
 }
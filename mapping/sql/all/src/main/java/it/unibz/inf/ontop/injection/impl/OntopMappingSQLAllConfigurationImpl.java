@@ -1,26 +1,38 @@
 package it.unibz.inf.ontop.injection.impl;
 
+import com.google.common.collect.ImmutableSortedMap;
+import it.unibz.inf.ontop.dbschema.DBMetadataProvider;
+import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
 import it.unibz.inf.ontop.exception.InvalidMappingException;
 import it.unibz.inf.ontop.exception.MappingIOException;
 import it.unibz.inf.ontop.exception.OBDASpecificationException;
 import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
 import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
 import it.unibz.inf.ontop.injection.OntopMappingSQLAllSettings;
 import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
+import it.unibz.inf.ontop.spec.CompiledSpecificationArtifact;
 import it.unibz.inf.ontop.spec.OBDASpecification;
+import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
 import org.apache.commons.rdf.api.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.IOException;
 import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Optional;
 import java.util.Properties;
 
 public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigurationImpl
         implements OntopMappingSQLAllConfiguration {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(OntopMappingSQLAllConfigurationImpl.class);
 
     private final OntopMappingSQLAllSettings settings;
     private final OntopMappingSQLAllOptions options;
@@ -44,17 +56,62 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
     OBDASpecification loadSpecification(OntologySupplier ontologySupplier)
             throws OBDASpecificationException {
 
+        Optional<Reader> compiledDBMetadataReader = options.compiledSpecificationFile
+                .flatMap(this::loadCompiledDBMetadata);
+
         return loadSpecification(ontologySupplier,
                 () -> options.mappingFile,
                 () -> options.mappingReader,
                 () -> options.mappingGraph,
                 () -> options.constraintFile,
                 () -> options.dbMetadataFile,
-                () -> options.dbMetadataReader,
+                () -> compiledDBMetadataReader.isPresent() ? compiledDBMetadataReader : options.dbMetadataReader,
                 () -> options.ontopViewFile,
                 () -> options.ontopViewReader);
     }
 
+    /**
+     * Stale or unreadable artifacts are ignored: the DB metadata is then extracted as usual.
+     * The change markers of the relations are read from the DB for detecting schema changes,
+     * unless this check is disabled: the stored ones are then used and no connection is opened.
+     */
+    private Optional<Reader> loadCompiledDBMetadata(File compiledSpecificationFile) {
+        if (!options.mappingFile.isPresent()) {
+            LOGGER.warn("The compiled specification {} is ignored: it can only be checked against a mapping file",
+                    compiledSpecificationFile);
+            return Optional.empty();
+        }
+        try {
+            CompiledSpecificationArtifact artifact = CompiledSpecificationArtifact.read(compiledSpecificationFile);
+            ImmutableSortedMap<String, Optional<String>> changeMarkers = settings.isCompiledSpecificationDBCheckEnabled()
+                    ? getCurrentChangeMarkers(artifact)
+                    : artifact.getStoredChangeMarkers();
+            String fingerprint = CompiledSpecificationArtifact.computeFingerprint(options.mappingFile,
+                    options.constraintFile, options.ontopViewFile, settings, changeMarkers);
+
+            if (!artifact.getFingerprint().equals(fingerprint)) {
+                LOGGER.warn("The compiled specification {} does not match the mapping, constraint, view files, " +
+                        "the DB connection or the DB schema. It is ignored, please recompile it",
+                        compiledSpecificationFile);
+                return Optional.empty();
+            }
+            return Optional.of(artifact.getDBMetadataReader());
+        } catch (IOException | SQLException | MetadataExtractionException e) {
+            LOGGER.warn("The compiled specification {} is ignored: {}", compiledSpecificationFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private ImmutableSortedMap<String, Optional<String>> getCurrentChangeMarkers(CompiledSpecificationArtifact artifact)
+            throws IOException, SQLException, MetadataExtractionException {
+        try (Connection connection = LocalJDBCConnectionUtils.createConnection(settings);
+             Reader dbMetadataReader = artifact.getDBMetadataReader()) {
+            DBMetadataProvider provider = getInjector().getInstance(JDBCMetadataProviderFactory.class)
+                    .getMetadataProvider(connection);
+            return CompiledSpecificationArtifact.getChangeMarkers(dbMetadataReader, provider);
+        }
+    }
+
     @Override
     public Optional<SQLPPMapping> loadPPMapping() throws MappingIOException, InvalidMappingException {
         return loadPPMapping(
@@ -84,6 +141,7 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
         private final Optional<Reader> dbMetadataReader;
         private final Optional<File> ontopViewFile;
         private final Optional<Reader> ontopViewReader;
+        private final Optional<File> compiledSpecificationFile;
         final OntopMappingSQLOptions mappingSQLOptions;
 
 
@@ -91,6 +149,7 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
                                   Optional<Graph> mappingGraph, Optional<File> constraintFile,
                                   Optional<File> dbMetadataFile, Optional<Reader> dbMetadataReader,
                                   Optional<File> ontopViewFile, Optional<Reader> ontopViewReader,
+                                  Optional<File> compiledSpecificationFile,
                                   OntopMappingSQLOptions mappingSQLOptions) {
             this.mappingFile = mappingFile;
             this.mappingReader = mappingReader;
@@ -100,6 +159,7 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
             this.dbMetadataReader = dbMetadataReader;
             this.ontopViewFile = ontopViewFile;
             this.ontopViewReader = ontopViewReader;
+            this.compiledSpecificationFile = compiledSpecificationFile;
             this.mappingSQLOptions = mappingSQLOptions;
         }
     }
@@ -121,6 +181,7 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
         private Optional<Reader> dbMetadataReader = Optional.empty();
         private Optional<File> ontopViewFile = Optional.empty();
         private Optional<Reader> ontopViewReader = Optional.empty();
+        private Optional<File> compiledSpecificationFile = Optional.empty();
         private boolean useR2rml = false;
 
 
@@ -308,6 +369,36 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
             return builder;
         }
 
+        @Override
+        public B compiledSpecificationFile(@Nonnull File compiledSpecificationFile) {
+            declareDBMetadataSetDefinedCB.run();
+            this.compiledSpecificationFile = Optional.of(compiledSpecificationFile);
+            return builder;
+        }
+
+        @Override
+        public B compiledSpecificationFile(@Nonnull String compiledSpecificationFilename) {
+            declareDBMetadataSetDefinedCB.run();
+            try {
+                URI fileURI = new URI(compiledSpecificationFilename);
+                String scheme = fileURI.getScheme();
+                if (scheme == null) {
+                    this.compiledSpecificationFile = Optional.of(new File(fileURI.getPath()));
+                }
+                else if (scheme.equals("file")) {
+                    this.compiledSpecificationFile = Optional.of(new File(fileURI));
+                }
+                else {
+                    throw new InvalidOntopConfigurationException("Currently only local files are supported" +
+                            "as compiled specification files");
+                }
+                return builder;
+            } catch (URISyntaxException e) {
+                throw new InvalidOntopConfigurationException("Invalid compiled specification file path: "
+                        + e.getMessage());
+            }
+        }
+
 
         protected Properties generateProperties() {
             Properties p = new Properties();
@@ -343,7 +434,8 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
 
         final OntopMappingSQLAllOptions generateMappingSQLAllOptions(OntopMappingSQLOptions mappingOptions) {
                 return new OntopMappingSQLAllOptions(mappingFile, mappingReader, mappingGraph, constraintFile,
-                        dbMetadataFile, dbMetadataReader, ontopViewFile, ontopViewReader, mappingOptions);
+                        dbMetadataFile, dbMetadataReader, ontopViewFile, ontopViewReader, compiledSpecificationFile,
+                        mappingOptions);
         }
 
     }
@@ -437,6 +529,16 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
             return localFragmentBuilder.ontopViewReader(ontopViewReader);
         }
 
+        @Override
+        public B compiledSpecificationFile(@Nonnull File compiledSpecificationFile) {
+            return localFragmentBuilder.compiledSpecificationFile(compiledSpecificationFile);
+        }
+
+        @Override
+        public B compiledSpecificationFile(@Nonnull String compiledSpecificationFilename) {
+            return localFragmentBuilder.compiledSpecificationFile(compiledSpecificationFilename);
+        }
+
         final OntopMappingSQLAllOptions generateMappingSQLAllOptions() {
             OntopMappingSQLOptions sqlMappingOptions = generateMappingSQLOptions();
             return localFragmentBuilder.generateMappingSQLAllOptions(sqlMappingOptions);
@@ -22,4 +22,9 @@ public class OntopMappingSQLAllSettingsImpl extends OntopMappingSQLSettingsImpl
         properties.putAll(userPreferences);
         return properties;
     }
+
+    @Override
+    public boolean isCompiledSpecificationDBCheckEnabled() {
+        return getRequiredBoolean(COMPILED_SPECIFICATION_DB_CHECK);
+    }
 }
@@ -0,0 +1,208 @@
+package it.unibz.inf.ontop.spec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import it.unibz.inf.ontop.dbschema.DBMetadataProvider;
+import it.unibz.inf.ontop.dbschema.QuotedIDFactory;
+import it.unibz.inf.ontop.dbschema.impl.json.JsonDatabaseTable;
+import it.unibz.inf.ontop.dbschema.impl.json.JsonMetadata;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+import it.unibz.inf.ontop.injection.OntopSQLCredentialSettings;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Output of the `ontop compile` command, loaded back through the compiledSpecificationFile(...) option
+ * of the configuration builder.
+ *
+ * Only contains the DB metadata (JSON, see DBMetadataExtractorAndSerializer) and the change markers of its
+ * relations at compile time, so that the start-up does not need to extract the metadata from the DB again.
+ * The mapping is still parsed and saturated, and the ontology classified, at start-up.
+ *
+ * The fingerprint identifies the inputs it has been compiled from (mapping, implicit constraints, Ontop views,
+ * JDBC URL and user) and the state of the DB schema, through the change markers of the relations
+ * (see DBMetadataProvider.getChangeMarker). A mismatch means that the artifact is stale.
+ * Schema changes to relations without change marker (DBMS not exposing them) are not detected.
+ * When the stored change markers are trusted (see OntopMappingSQLAllSettings.isCompiledSpecificationDBCheckEnabled),
+ * the artifact is loaded without connecting to the DB.
+ *
+ * Format: gzipped binary (magic, version, fingerprint, named entries)
+ */
+public final class CompiledSpecificationArtifact {
+
+    private static final String MAGIC = "ONTOP-COMPILED-SPEC";
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String DB_METADATA_ENTRY = OBDASpecInput.DBMETADATA_KEY;
+    private static final String CHANGE_MARKERS_ENTRY = "changeMarkers";
+
+    private static final String JDBC_URL_KEY = "jdbc.url";
+    private static final String JDBC_USER_KEY = "jdbc.user";
+    private static final String SCHEMA_KEY = "schema";
+
+    private final String fingerprint;
+    private final ImmutableMap<String, byte[]> entries;
+
+    private CompiledSpecificationArtifact(String fingerprint, ImmutableMap<String, byte[]> entries) {
+        this.fingerprint = fingerprint;
+        this.entries = entries;
+    }
+
+    public CompiledSpecificationArtifact(String fingerprint, String serializedDBMetadata,
+                                         ImmutableSortedMap<String, Optional<String>> changeMarkers) throws IOException {
+        this(fingerprint, ImmutableMap.of(
+                DB_METADATA_ENTRY, serializedDBMetadata.getBytes(StandardCharsets.UTF_8),
+                CHANGE_MARKERS_ENTRY, serializeChangeMarkers(changeMarkers)));
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Reader getDBMetadataReader() throws IOException {
+        byte[] dbMetadata = entries.get(DB_METADATA_ENTRY);
+        if (dbMetadata == null)
+            throw new IOException("No DB metadata in the compiled specification");
+        return new InputStreamReader(new ByteArrayInputStream(dbMetadata), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Change markers of the relations when the artifact was compiled (see getChangeMarkers)
+     */
+    public ImmutableSortedMap<String, Optional<String>> getStoredChangeMarkers() throws IOException {
+        byte[] changeMarkers = entries.get(CHANGE_MARKERS_ENTRY);
+        if (changeMarkers == null)
+            throw new IOException("No change markers in the compiled specification");
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(changeMarkers))) {
+            ImmutableSortedMap.Builder<String, Optional<String>> builder = ImmutableSortedMap.naturalOrder();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String relation = in.readUTF();
+                builder.put(relation, in.readBoolean() ? Optional.of(in.readUTF()) : Optional.empty());
+            }
+            return builder.build();
+        }
+    }
+
+    private static byte[] serializeChangeMarkers(ImmutableSortedMap<String, Optional<String>> changeMarkers)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(changeMarkers.size());
+            for (Map.Entry<String, Optional<String>> e : changeMarkers.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeBoolean(e.getValue().isPresent());
+                if (e.getValue().isPresent())
+                    out.writeUTF(e.getValue().get());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file))))) {
+            out.writeUTF(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+        }
+    }
+
+    public static CompiledSpecificationArtifact read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+                new BufferedInputStream(new FileInputStream(file))))) {
+            if (!MAGIC.equals(in.readUTF()))
+                throw new IOException(file + " is not a compiled Ontop specification");
+            int version = in.readInt();
+            if (version != FORMAT_VERSION)
+                throw new IOException("Unsupported version of the compiled specification: " + version
+                        + " (expected: " + FORMAT_VERSION + "). Please recompile it");
+
+            String fingerprint = in.readUTF();
+            int entryCount = in.readInt();
+            ImmutableMap.Builder<String, byte[]> entryBuilder = ImmutableMap.builder();
+            for (int i = 0; i < entryCount; i++) {
+                String key = in.readUTF();
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                entryBuilder.put(key, value);
+            }
+            return new CompiledSpecificationArtifact(fingerprint, entryBuilder.build());
+        }
+        catch (EOFException e) {
+            throw new IOException(file + " is truncated", e);
+        }
+    }
+
+    /**
+     * Hashes the content of the input files (absent files are hashed as such), the JDBC URL, the JDBC user
+     * and the change markers of the relations (see getChangeMarkers).
+     */
+    public static String computeFingerprint(Optional<File> mappingFile, Optional<File> constraintFile,
+                                            Optional<File> ontopViewFile, OntopSQLCredentialSettings settings,
+                                            ImmutableSortedMap<String, Optional<String>> changeMarkers)
+            throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putFile(hasher, OBDASpecInput.MAPPING_KEY, mappingFile);
+        putFile(hasher, OBDASpecInput.CONSTRAINT_KEY, constraintFile);
+        putFile(hasher, OBDASpecInput.ONTOPVIEW_KEY, ontopViewFile);
+        hasher.putString(JDBC_URL_KEY, StandardCharsets.UTF_8)
+                .putString(settings.getJdbcUrl(), StandardCharsets.UTF_8)
+                .putString(JDBC_USER_KEY, StandardCharsets.UTF_8)
+                .putString(settings.getJdbcUser(), StandardCharsets.UTF_8);
+        hasher.putString(SCHEMA_KEY, StandardCharsets.UTF_8);
+        for (Map.Entry<String, Optional<String>> e : changeMarkers.entrySet()) {
+            hasher.putString(e.getKey(), StandardCharsets.UTF_8)
+                    .putByte((byte) 0)
+                    .putString(e.getValue().orElse(""), StandardCharsets.UTF_8)
+                    .putByte((byte) 0);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Change markers of the relations of the serialized DB metadata, as currently reported by the DB,
+     * indexed by the rendering of their names. Empty if the DBMS does not expose a marker for the relation.
+     */
+    public static ImmutableSortedMap<String, Optional<String>> getChangeMarkers(Reader dbMetadataReader,
+                                                                              DBMetadataProvider provider)
+            throws IOException, MetadataExtractionException {
+        JsonMetadata metadata = new ObjectMapper()
+                .registerModule(new GuavaModule())
+                .enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+                .enable(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT)
+                .readValue(dbMetadataReader, JsonMetadata.class);
+
+        QuotedIDFactory idFactory = provider.getQuotedIDFactory();
+        ImmutableSortedMap.Builder<String, Optional<String>> builder = ImmutableSortedMap.naturalOrder();
+        for (JsonDatabaseTable table : metadata.relations)
+            builder.put(String.join(".", table.name),
+                    provider.getChangeMarker(JsonMetadata.deserializeRelationID(idFactory, table.name)));
+        return builder.build();
+    }
+
+    private static void putFile(Hasher hasher, String key, Optional<File> file) throws IOException {
+        hasher.putString(key, StandardCharsets.UTF_8);
+        if (file.isPresent())
+            hasher.putBytes(Files.asByteSource(file.get()).hash(Hashing.sha256()).asBytes());
+        else
+            hasher.putByte((byte) 0);
+    }
+}
@@ -0,0 +1,183 @@
+package it.unibz.inf.ontop.spec;
+
+import com.google.common.collect.ImmutableSortedMap;
+import it.unibz.inf.ontop.dbschema.DBMetadataProvider;
+import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllSettings;
+import it.unibz.inf.ontop.injection.OntopSQLCredentialConfiguration;
+import it.unibz.inf.ontop.spec.dbschema.tools.DBMetadataExtractorAndSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class CompiledSpecificationArtifactTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:compiled-specification";
+    private static final String DB_METADATA = "{\"relations\":[" +
+            "{\"name\":[\"\\\"PUBLIC\\\"\",\"\\\"PERSON\\\"\"],\"columns\":[]}," +
+            "{\"name\":[\"\\\"PUBLIC\\\"\",\"\\\"COMPANY\\\"\"],\"columns\":[]}]}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+    private OntopSQLCredentialConfiguration configuration;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE PERSON (ID INT PRIMARY KEY, NAME VARCHAR(100))");
+            st.execute("CREATE TABLE COMPANY (ID INT PRIMARY KEY, NAME VARCHAR(100))");
+        }
+        configuration = OntopSQLCredentialConfiguration.defaultBuilder()
+                .jdbcUrl(JDBC_URL)
+                .jdbcDriver("org.h2.Driver")
+                .jdbcUser("sa")
+                .jdbcPassword("")
+                .build();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+        File file = new File(folder.getRoot(), "spec.compiled");
+        ImmutableSortedMap<String, Optional<String>> changeMarkers = ImmutableSortedMap.of(
+                "\"PUBLIC\".\"COMPANY\"", Optional.empty(),
+                "\"PUBLIC\".\"PERSON\"", Optional.of("1"));
+        new CompiledSpecificationArtifact("abc", DB_METADATA, changeMarkers).write(file);
+
+        CompiledSpecificationArtifact artifact = CompiledSpecificationArtifact.read(file);
+        assertEquals("abc", artifact.getFingerprint());
+        assertEquals(changeMarkers, artifact.getStoredChangeMarkers());
+        try (BufferedReader reader = new BufferedReader(artifact.getDBMetadataReader())) {
+            assertEquals(DB_METADATA, reader.readLine());
+        }
+    }
+
+    /**
+     * The DB schema is dropped after the compilation: the specification can only be loaded
+     * if the artifact is used without connecting to the DB.
+     */
+    @Test
+    public void testLoadWithoutDBCheck() throws Exception {
+        File mappingFile = folder.newFile("person.obda");
+        Files.write(mappingFile.toPath(), ("[PrefixDeclaration]\n:\thttp://example.org/\n\n" +
+                "[MappingDeclaration] @collection [[\n" +
+                "mappingId\tperson\n" +
+                "target\t\t:person/{ID} a :Person .\n" +
+                "source\t\tSELECT ID FROM PERSON\n" +
+                "]]\n").getBytes(StandardCharsets.UTF_8));
+
+        String dbMetadata = createConfigurationBuilder(mappingFile).build().getInjector()
+                .getInstance(DBMetadataExtractorAndSerializer.class)
+                .extractAndSerialize();
+        DBMetadataProvider provider = configuration.getInjector().getInstance(JDBCMetadataProviderFactory.class)
+                .getMetadataProvider(connection);
+        ImmutableSortedMap<String, Optional<String>> changeMarkers =
+                CompiledSpecificationArtifact.getChangeMarkers(new StringReader(dbMetadata), provider);
+        String fingerprint = CompiledSpecificationArtifact.computeFingerprint(Optional.of(mappingFile),
+                Optional.empty(), Optional.empty(), configuration.getSettings(), changeMarkers);
+        File compiledFile = new File(folder.getRoot(), "person.compiled");
+        new CompiledSpecificationArtifact(fingerprint, dbMetadata, changeMarkers).write(compiledFile);
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(OntopMappingSQLAllSettings.COMPILED_SPECIFICATION_DB_CHECK, "false");
+        OBDASpecification specification = createConfigurationBuilder(mappingFile)
+                .compiledSpecificationFile(compiledFile)
+                .properties(properties)
+                .build()
+                .loadSpecification();
+        assertFalse(specification.getSaturatedMapping().getRDFAtomPredicates().isEmpty());
+    }
+
+    @Test
+    public void testChangeMarkers() throws Exception {
+        ImmutableSortedMap<String, Optional<String>> markers = getChangeMarkers();
+        assertEquals(2, markers.size());
+        assertTrue(markers.values().stream().allMatch(Optional::isPresent));
+    }
+
+    @Test
+    public void testFingerprintUnchanged() throws Exception {
+        File mappingFile = createMappingFile();
+        assertEquals(computeFingerprint(mappingFile), computeFingerprint(mappingFile));
+    }
+
+    @Test
+    public void testFingerprintMappingChanged() throws Exception {
+        File mappingFile = createMappingFile();
+        String fingerprint = computeFingerprint(mappingFile);
+
+        Files.write(mappingFile.toPath(), "[PrefixDeclaration]\n:\thttp://example.org/other/\n"
+                .getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(fingerprint, computeFingerprint(mappingFile));
+    }
+
+    @Test
+    public void testFingerprintSchemaChanged() throws Exception {
+        File mappingFile = createMappingFile();
+        String fingerprint = computeFingerprint(mappingFile);
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("ALTER TABLE COMPANY ADD COLUMN COUNTRY CHAR(2)");
+        }
+        assertNotEquals(fingerprint, computeFingerprint(mappingFile));
+    }
+
+    private OntopMappingSQLAllConfiguration.Builder<? extends OntopMappingSQLAllConfiguration.Builder<?>>
+            createConfigurationBuilder(File mappingFile) {
+        OntopMappingSQLAllConfiguration.Builder<? extends OntopMappingSQLAllConfiguration.Builder<?>> builder =
+                OntopMappingSQLAllConfiguration.defaultBuilder();
+        builder.nativeOntopMappingFile(mappingFile)
+                .jdbcUrl(JDBC_URL)
+                .jdbcDriver("org.h2.Driver")
+                .jdbcUser("sa")
+                .jdbcPassword("");
+        return builder;
+    }
+
+    private File createMappingFile() throws IOException {
+        File mappingFile = folder.newFile("mapping.obda");
+        Files.write(mappingFile.toPath(), "[PrefixDeclaration]\n:\thttp://example.org/\n"
+                .getBytes(StandardCharsets.UTF_8));
+        return mappingFile;
+    }
+
+    private String computeFingerprint(File mappingFile) throws Exception {
+        return CompiledSpecificationArtifact.computeFingerprint(Optional.of(mappingFile), Optional.empty(),
+                Optional.empty(), configuration.getSettings(), getChangeMarkers());
+    }
+
+    private ImmutableSortedMap<String, Optional<String>> getChangeMarkers() throws Exception {
+        DBMetadataProvider provider = configuration.getInjector().getInstance(JDBCMetadataProviderFactory.class)
+                .getMetadataProvider(connection);
+        return CompiledSpecificationArtifact.getChangeMarkers(new StringReader(DB_METADATA), provider);
+    }
+}
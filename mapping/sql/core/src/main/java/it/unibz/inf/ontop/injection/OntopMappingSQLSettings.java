@@ -1,6 +1,26 @@
 package it.unibz.inf.ontop.injection;
 
 
+import java.util.Optional;
+
 public interface OntopMappingSQLSettings extends OntopMappingSettings, OntopSQLCredentialSettings {
 
+    /**
+     * File where the DB metadata is cached between runs.
+     * The cached relations are re-extracted when the DBMS reports a change.
+     */
+    Optional<String> getMetadataCacheFile();
+
+    /**
+     * Number of threads parsing and converting the source queries of the mapping.
+     * 1 converts them sequentially.
+     */
+    int getMappingConversionThreads();
+
+    //-------
+    // Keys
+    //-------
+
+    String METADATA_CACHE_FILE = "ontop.metadata.cacheFile";
+    String MAPPING_CONVERSION_THREADS = "ontop.mapping.conversionThreads";
 }
@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.injection.impl;
 import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
 import it.unibz.inf.ontop.injection.OntopSQLCredentialSettings;
 
+import java.util.Optional;
 import java.util.Properties;
 
 import static it.unibz.inf.ontop.injection.impl.OntopSQLCoreSettingsImpl.loadSQLCoreProperties;
@@ -53,4 +54,19 @@ public class OntopMappingSQLSettingsImpl extends OntopMappingSettingsImpl implem
     public String getJdbcDriver() {
         return sqlSettings.getJdbcDriver();
     }
+
+    @Override
+    public boolean isBulkMetadataExtractionEnabled() {
+        return sqlSettings.isBulkMetadataExtractionEnabled();
+    }
+
+    @Override
+    public Optional<String> getMetadataCacheFile() {
+        return getProperty(METADATA_CACHE_FILE);
+    }
+
+    @Override
+    public int getMappingConversionThreads() {
+        return getRequiredInteger(MAPPING_CONVERSION_THREADS);
+    }
 }
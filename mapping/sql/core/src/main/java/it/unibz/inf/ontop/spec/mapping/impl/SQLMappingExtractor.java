@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.dbschema.impl.CachingMetadataLookup;
+import it.unibz.inf.ontop.dbschema.impl.FileCachedMetadataProvider;
 import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
 import it.unibz.inf.ontop.dbschema.SerializedMetadataProvider;
 import it.unibz.inf.ontop.exception.*;
@@ -203,8 +204,16 @@ public class SQLMappingExtractor implements MappingExtractor {
             }
             else {
                 try (Connection connection = LocalJDBCConnectionUtils.createConnection(settings)) {
-                    return convert(mapping, constraintFile, ontopViewReader,
-                            metadataProviderFactory.getMetadataProvider(connection));
+                    DBMetadataProvider dbMetadataProvider = metadataProviderFactory.getMetadataProvider(connection);
+                    Optional<String> cacheFile = settings.getMetadataCacheFile();
+                    if (!cacheFile.isPresent())
+                        return convert(mapping, constraintFile, ontopViewReader, dbMetadataProvider);
+
+                    FileCachedMetadataProvider cachedMetadataProvider = new FileCachedMetadataProvider(
+                            dbMetadataProvider, new File(cacheFile.get()), settings.getJdbcUrl() + " " + settings.getJdbcUser());
+                    MappingAndDBParameters result = convert(mapping, constraintFile, ontopViewReader, cachedMetadataProvider);
+                    cachedMetadataProvider.save();
+                    return result;
                 }
             }
         }
@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.spec.mapping.pp.impl;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
@@ -10,6 +11,7 @@ import it.unibz.inf.ontop.exception.InvalidMappingSourceQueriesException;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
 import it.unibz.inf.ontop.injection.CoreSingletons;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
 import it.unibz.inf.ontop.iq.IQTree;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.spec.mapping.MappingAssertion;
@@ -27,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -42,37 +45,111 @@ public class SQLPPMappingConverterImpl implements SQLPPMappingConverter {
     private final SubstitutionFactory substitutionFactory;
     private final SQLQueryParser sqlQueryParser;
     private final RAExpression2IQConverter raExpression2IQConverter;
+    private final int conversionThreads;
 
     @Inject
     private SQLPPMappingConverterImpl(CoreSingletons coreSingletons, SQLQueryParser sqlQueryParser,
-                                      RAExpression2IQConverter raExpression2IQConverter) {
+                                      RAExpression2IQConverter raExpression2IQConverter,
+                                      OntopMappingSQLSettings settings) {
         this.iqFactory = coreSingletons.getIQFactory();
         this.substitutionFactory = coreSingletons.getSubstitutionFactory();
         this.sqlQueryParser = sqlQueryParser;
         this.raExpression2IQConverter = raExpression2IQConverter;
+        this.conversionThreads = settings.getMappingConversionThreads();
     }
 
+    /**
+     * The metadata lookup must be thread-safe when the source queries are converted by several threads.
+     */
     @Override
     public ImmutableList<MappingAssertion> convert(ImmutableList<SQLPPTriplesMap> mapping, MetadataLookup metadataLookup) throws InvalidMappingSourceQueriesException {
 
+        long beginning = System.currentTimeMillis();
+
+        // triples maps with the same source query share its conversion (the first one is used for error reporting)
+        Map<String, SQLPPTriplesMap> firstOccurrences = new LinkedHashMap<>();
+        for (SQLPPTriplesMap assertion : mapping)
+            firstOccurrences.putIfAbsent(assertion.getSourceQuery().getSQL(), assertion);
+        ImmutableMap<String, SQLPPTriplesMap> sourceQueries = ImmutableMap.copyOf(firstOccurrences);
+
+        ImmutableMap<String, SourceQueryConversion> conversions = convertSourceQueries(sourceQueries, metadataLookup);
+
+        long converted = System.currentTimeMillis();
+
         ImmutableList.Builder<MappingAssertion> builder = ImmutableList.builder();
         for (SQLPPTriplesMap assertion : mapping) {
-            RAExpression re = getRAExpression(assertion, metadataLookup);
-            IQTree tree = raExpression2IQConverter.convert(re);
+            SourceQueryConversion conversion = conversions.get(assertion.getSourceQuery().getSQL());
 
-            Function<Variable, Optional<ImmutableTerm>> lookup = placeholderLookup(assertion, metadataLookup.getQuotedIDFactory(), re.getUnqualifiedAttributes());
+            Function<Variable, Optional<ImmutableTerm>> lookup = placeholderLookup(assertion, metadataLookup.getQuotedIDFactory(), conversion.re.getUnqualifiedAttributes());
 
             for (TargetAtom target : assertion.getTargetAtoms()) {
                 PPMappingAssertionProvenance provenance = assertion.getMappingAssertionProvenance(target);
-                builder.add(convert(target, lookup, provenance, tree));
+                builder.add(convert(target, lookup, provenance, conversion.tree));
             }
         }
 
         ImmutableList<MappingAssertion> result = builder.build();
         LOGGER.debug("Original mapping size: {}", result.size());
+        LOGGER.debug("Conversion of {} source queries ({} triples maps, {} threads): {} ms, targets: {} ms",
+                sourceQueries.size(), mapping.size(), conversionThreads,
+                converted - beginning, System.currentTimeMillis() - converted);
         return result;
     }
 
+    private static class SourceQueryConversion {
+        private final RAExpression re;
+        private final IQTree tree;
+
+        SourceQueryConversion(RAExpression re, IQTree tree) {
+            this.re = re;
+            this.tree = tree;
+        }
+    }
+
+    private SourceQueryConversion convertSourceQuery(SQLPPTriplesMap assertion, MetadataLookup metadataLookup) throws InvalidMappingSourceQueriesException {
+        RAExpression re = getRAExpression(assertion, metadataLookup);
+        return new SourceQueryConversion(re, raExpression2IQConverter.convert(re));
+    }
+
+    /**
+     * Errors are reported in the order of the mapping, also when the source queries are converted in parallel
+     */
+    private ImmutableMap<String, SourceQueryConversion> convertSourceQueries(ImmutableMap<String, SQLPPTriplesMap> sourceQueries, MetadataLookup metadataLookup) throws InvalidMappingSourceQueriesException {
+        if (conversionThreads <= 1 || sourceQueries.size() <= 1) {
+            ImmutableMap.Builder<String, SourceQueryConversion> builder = ImmutableMap.builder();
+            // no streams because of exception handling
+            for (Map.Entry<String, SQLPPTriplesMap> e : sourceQueries.entrySet())
+                builder.put(e.getKey(), convertSourceQuery(e.getValue(), metadataLookup));
+            return builder.build();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(conversionThreads, sourceQueries.size()));
+        try {
+            ImmutableList<Callable<SourceQueryConversion>> tasks = sourceQueries.values().stream()
+                    .map(a -> (Callable<SourceQueryConversion>) () -> convertSourceQuery(a, metadataLookup))
+                    .collect(ImmutableCollectors.toList());
+
+            List<Future<SourceQueryConversion>> futures = executor.invokeAll(tasks);
+
+            ImmutableMap.Builder<String, SourceQueryConversion> builder = ImmutableMap.builder();
+            Iterator<Future<SourceQueryConversion>> iterator = futures.iterator();
+            for (String sourceQuery : sourceQueries.keySet())
+                builder.put(sourceQuery, iterator.next().get());
+            return builder.build();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinorOntopInternalBugException("Interrupted conversion of the mapping source queries");
+        }
+        catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), InvalidMappingSourceQueriesException.class);
+            throw new MinorOntopInternalBugException("Mapping source query conversion failure: " + e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
 
     private static <T> Function<Variable, Optional<T>> placeholderLookup(SQLPPTriplesMap mappingAssertion, QuotedIDFactory idFactory, ImmutableMap<QuotedID, T> lookup) {
         Function<Variable, Optional<T>> standard =
@@ -20,24 +20,35 @@ package it.unibz.inf.ontop.spec.pp;
  * #L%
  */
 
+import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multiset;
 import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.dbschema.impl.CachingMetadataLookup;
 import it.unibz.inf.ontop.dbschema.impl.OfflineMetadataProviderBuilder;
+import it.unibz.inf.ontop.exception.InvalidMappingSourceQueriesException;
+import it.unibz.inf.ontop.injection.OntopMappingSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.spec.mapping.MappingAssertion;
 import it.unibz.inf.ontop.spec.mapping.parser.TargetQueryParser;
+import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMappingConverter;
 import it.unibz.inf.ontop.spec.mapping.pp.SQLPPTriplesMap;
 import it.unibz.inf.ontop.spec.mapping.pp.impl.OntopNativeSQLPPTriplesMap;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import junit.framework.TestCase;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Properties;
+
 import static it.unibz.inf.ontop.utils.SQLMappingTestingTools.*;
 
 public class SQLPPMappingConverterTest extends TestCase {
 
-	private MetadataLookup getMetadataLookup() {
+	private MetadataProvider getMetadataLookup() {
 		OfflineMetadataProviderBuilder builder = createMetadataProviderBuilder();
 		DBTermType integerDBType = builder.getDBTypeFactory().getDBLargeIntegerType();
 		DBTermType stringDBType = builder.getDBTypeFactory().getDBStringType();
@@ -264,4 +275,116 @@ public class SQLPPMappingConverterTest extends TestCase {
                 "select lower(id) as lid from Student",
                 ":S_{lid} a :Student .");
     }
+
+	public void testParallelConversion() throws Exception {
+		TargetQueryParser targetParser = TARGET_QUERY_PARSER_FACTORY.createParser(MAPPING_FACTORY.createPrefixManager(
+				ImmutableMap.of(":", "http://www.example.org/university#")));
+
+		// 20 triples maps sharing 10 source queries
+		ImmutableList.Builder<SQLPPTriplesMap> mappingBuilder = ImmutableList.builder();
+		for (int i = 0; i < 20; i++)
+			mappingBuilder.add(new OntopNativeSQLPPTriplesMap("MAPID-" + i,
+					SOURCE_QUERY_FACTORY.createSourceQuery("select id, first_name from Student where year=" + (2000 + i % 10)),
+					targetParser.parse(":S_{id} a :Student" + i + " ; :fname {first_name} .")));
+		ImmutableList<SQLPPTriplesMap> mapping = mappingBuilder.build();
+
+		ImmutableList<MappingAssertion> sequential = SQLPP_MAPPING_CONVERTER.convert(mapping, getMetadataLookup());
+		ImmutableList<MappingAssertion> parallel = createParallelConverter().convert(mapping, getMetadataLookup());
+
+		assertEquals(40, sequential.size());
+		assertEquals(sequential.stream().map(a -> a.getQuery().toString()).collect(ImmutableCollectors.toList()),
+				parallel.stream().map(a -> a.getQuery().toString()).collect(ImmutableCollectors.toList()));
+	}
+
+	public void testParallelConversionWithCachingMetadataLookup() throws Exception {
+		TargetQueryParser targetParser = TARGET_QUERY_PARSER_FACTORY.createParser(MAPPING_FACTORY.createPrefixManager(
+				ImmutableMap.of(":", "http://www.example.org/university#")));
+
+		// 30 distinct source queries over 3 relations
+		ImmutableList.Builder<SQLPPTriplesMap> mappingBuilder = ImmutableList.builder();
+		for (int i = 0; i < 10; i++) {
+			mappingBuilder.add(new OntopNativeSQLPPTriplesMap("MAPID-S" + i,
+					SOURCE_QUERY_FACTORY.createSourceQuery("select id from Student where year=" + (2000 + i)),
+					targetParser.parse(":S_{id} a :Student .")));
+			mappingBuilder.add(new OntopNativeSQLPPTriplesMap("MAPID-C" + i,
+					SOURCE_QUERY_FACTORY.createSourceQuery("select cid from Course where credits=" + i),
+					targetParser.parse(":C_{cid} a :Course .")));
+			mappingBuilder.add(new OntopNativeSQLPPTriplesMap("MAPID-E" + i,
+					SOURCE_QUERY_FACTORY.createSourceQuery("select student_id, course_id from Enrollment where student_id=" + i),
+					targetParser.parse(":S_{student_id} :attends :C_{course_id} .")));
+		}
+		ImmutableList<SQLPPTriplesMap> mapping = mappingBuilder.build();
+
+		MetadataProvider provider = getMetadataLookup();
+		Multiset<RelationID> providerCalls = ConcurrentHashMultiset.create();
+		MetadataProvider countingProvider = (MetadataProvider) Proxy.newProxyInstance(
+				MetadataProvider.class.getClassLoader(),
+				new Class<?>[] { MetadataProvider.class },
+				(proxy, method, args) -> {
+					if (method.getName().equals("getRelation"))
+						providerCalls.add((RelationID) args[0]);
+					try {
+						return method.invoke(provider, args);
+					}
+					catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+
+		ImmutableList<MappingAssertion> parallel = createParallelConverter().convert(mapping,
+				new CachingMetadataLookup(countingProvider));
+
+		assertEquals(30, parallel.size());
+		// one provider call per relation
+		assertEquals(3, providerCalls.elementSet().size());
+		assertEquals(3, providerCalls.size());
+	}
+
+	public void testParallelConversionErrorOrder() throws Exception {
+		TargetQueryParser targetParser = TARGET_QUERY_PARSER_FACTORY.createParser(MAPPING_FACTORY.createPrefixManager(
+				ImmutableMap.of(":", "http://www.example.org/university#")));
+
+		// MAPID-3 and MAPID-7 refer to a column that does not exist
+		ImmutableList.Builder<SQLPPTriplesMap> mappingBuilder = ImmutableList.builder();
+		for (int i = 0; i < 10; i++)
+			mappingBuilder.add(new OntopNativeSQLPPTriplesMap("MAPID-" + i,
+					SOURCE_QUERY_FACTORY.createSourceQuery("select id from Student where "
+							+ (i == 3 || i == 7 ? "unknown_column" : "year") + "=" + (2000 + i)),
+					targetParser.parse(":S_{id} a :Student .")));
+		ImmutableList<SQLPPTriplesMap> mapping = mappingBuilder.build();
+
+		SQLPPMappingConverter parallelConverter = createParallelConverter();
+		// the first error in the order of the mapping, whatever the order of completion
+		for (int i = 0; i < 10; i++) {
+			assertEquals(getFirstErrorMessage(SQLPP_MAPPING_CONVERTER, mapping),
+					getFirstErrorMessage(parallelConverter, mapping));
+		}
+		assertTrue(getFirstErrorMessage(SQLPP_MAPPING_CONVERTER, mapping).contains("id: MAPID-3\n"));
+	}
+
+	private String getFirstErrorMessage(SQLPPMappingConverter converter, ImmutableList<SQLPPTriplesMap> mapping) throws Exception {
+		try {
+			converter.convert(mapping, getMetadataLookup());
+			fail();
+			return null;
+		}
+		catch (InvalidMappingSourceQueriesException e) {
+			return e.getMessage();
+		}
+	}
+
+	private static SQLPPMappingConverter createParallelConverter() {
+		Properties properties = new Properties();
+		properties.setProperty(OntopMappingSQLSettings.MAPPING_CONVERSION_THREADS, "4");
+		return OntopMappingSQLConfiguration.defaultBuilder()
+				.jdbcUrl("jdbc:h2:mem:something")
+				.jdbcDriver("org.h2.Driver")
+				.jdbcUser("user")
+				.jdbcPassword("password")
+				.properties(properties)
+				.enableTestMode()
+				.build()
+				.getInjector()
+				.getInstance(SQLPPMappingConverter.class);
+	}
 }
@@ -0,0 +1,92 @@
+package it.unibz.inf.ontop.spec.dbschema;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BulkMetadataExtractionTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:bulk-metadata-extraction";
+
+    private static Connection CONNECTION;
+
+    @BeforeClass
+    public static void setUp() throws SQLException {
+        CONNECTION = DriverManager.getConnection(JDBC_URL, "sa", "");
+        DBMetadataTestingTools.createTables(CONNECTION);
+    }
+
+    @AfterClass
+    public static void tearDown() throws SQLException {
+        CONNECTION.close();
+    }
+
+    @Test
+    public void testSameMetadata() throws MetadataExtractionException {
+        String bulk = extract(true, CONNECTION);
+        assertEquals(extract(false, CONNECTION), bulk);
+
+        assertTrue(bulk, bulk.contains("PK [ID]"));
+        assertTrue(bulk, bulk.contains("PK [COUNTRY, CODE]"));
+        assertTrue(bulk, bulk.contains("UC [SSN]"));
+        assertTrue(bulk, bulk.contains("FK_COMPANY [COUNTRY->COUNTRY, CODE->CODE]"));
+        assertTrue(bulk, bulk.contains("FK_PERSON [PERSON->ID]"));
+    }
+
+    @Test
+    public void testBulkExtractionTaken() throws MetadataExtractionException {
+        Multiset<String> calls = HashMultiset.create();
+        extract(true, countMetadataCalls(calls));
+        assertEquals(calls.toString(), 0, calls.count("getPrimaryKeys"));
+        assertEquals(calls.toString(), 0, calls.count("getIndexInfo"));
+        assertEquals(calls.toString(), 0, calls.count("getImportedKeys"));
+        // One call per schema
+        assertEquals(calls.toString(), 2, calls.count("getColumns"));
+    }
+
+    @Test
+    public void testPerRelationExtraction() throws MetadataExtractionException {
+        Multiset<String> calls = HashMultiset.create();
+        extract(false, countMetadataCalls(calls));
+        assertEquals(calls.toString(), DBMetadataTestingTools.RELATIONS.size(), calls.count("getPrimaryKeys"));
+        assertEquals(calls.toString(), DBMetadataTestingTools.RELATIONS.size(), calls.count("getImportedKeys"));
+    }
+
+    /**
+     * Counts the calls to the DatabaseMetaData methods
+     */
+    private static Connection countMetadataCalls(Multiset<String> calls) {
+        return (Connection) Proxy.newProxyInstance(BulkMetadataExtractionTest.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    Object result = DBMetadataTestingTools.invoke(CONNECTION, method, args);
+                    if (!method.getName().equals("getMetaData"))
+                        return result;
+
+                    DatabaseMetaData metadata = (DatabaseMetaData) result;
+                    return Proxy.newProxyInstance(BulkMetadataExtractionTest.class.getClassLoader(),
+                            new Class<?>[] { DatabaseMetaData.class },
+                            (p, m, a) -> {
+                                calls.add(m.getName());
+                                return DBMetadataTestingTools.invoke(metadata, m, a);
+                            });
+                });
+    }
+
+    private static String extract(boolean isBulk, Connection connection) throws MetadataExtractionException {
+        return DBMetadataTestingTools.extract(
+                DBMetadataTestingTools.createDBMetadataProvider(connection, JDBC_URL, isBulk));
+    }
+}
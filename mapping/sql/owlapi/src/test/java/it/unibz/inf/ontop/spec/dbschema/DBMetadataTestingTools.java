@@ -0,0 +1,95 @@
+package it.unibz.inf.ontop.spec.dbschema;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.dbschema.impl.CachingMetadataLookup;
+import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+import it.unibz.inf.ontop.injection.OntopSQLCoreConfiguration;
+import it.unibz.inf.ontop.injection.OntopSQLCoreSettings;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * H2 schema with composite keys, a unique constraint and foreign keys across schemas
+ */
+class DBMetadataTestingTools {
+
+    static final ImmutableList<String> RELATIONS = ImmutableList.of("PERSON", "ORG.COMPANY", "ORG.EMPLOYMENT");
+
+    static void createTables(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE PERSON (ID INT PRIMARY KEY, SSN VARCHAR(20) NOT NULL UNIQUE, NAME VARCHAR(100))");
+            st.execute("CREATE SCHEMA ORG");
+            st.execute("CREATE TABLE ORG.COMPANY (COUNTRY CHAR(2), CODE INT, NAME VARCHAR(100), " +
+                    "PRIMARY KEY (COUNTRY, CODE))");
+            st.execute("CREATE TABLE ORG.EMPLOYMENT (PERSON INT NOT NULL, COUNTRY CHAR(2) NOT NULL, CODE INT NOT NULL, " +
+                    "CONSTRAINT FK_PERSON FOREIGN KEY (PERSON) REFERENCES PUBLIC.PERSON(ID), " +
+                    "CONSTRAINT FK_COMPANY FOREIGN KEY (COUNTRY, CODE) REFERENCES ORG.COMPANY(COUNTRY, CODE))");
+        }
+    }
+
+    static DBMetadataProvider createDBMetadataProvider(Connection connection, String jdbcUrl, boolean isBulk)
+            throws MetadataExtractionException {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSQLCoreSettings.JDBC_URL, jdbcUrl);
+        properties.setProperty(OntopSQLCoreSettings.JDBC_DRIVER, "org.h2.Driver");
+        properties.setProperty(OntopSQLCoreSettings.BULK_METADATA_EXTRACTION, String.valueOf(isBulk));
+        OntopSQLCoreConfiguration configuration = OntopSQLCoreConfiguration.defaultBuilder()
+                .properties(properties)
+                .build();
+        return configuration.getInjector().getInstance(JDBCMetadataProviderFactory.class)
+                .getMetadataProvider(connection);
+    }
+
+    /**
+     * Extracts the relations (with their constraints) and returns their description, one relation per line
+     */
+    static String extract(MetadataProvider provider) throws MetadataExtractionException {
+        CachingMetadataLookup lookup = new CachingMetadataLookup(provider);
+        QuotedIDFactory idFactory = provider.getQuotedIDFactory();
+        for (String relation : RELATIONS)
+            lookup.getRelation(idFactory.createRelationID(relation.split("\\.")));
+
+        return lookup.extractImmutableMetadata().getAllRelations().stream()
+                .sorted((r1, r2) -> r1.getID().toString().compareTo(r2.getID().toString()))
+                .map(DBMetadataTestingTools::describe)
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * For delegating proxies
+     */
+    static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String describe(NamedRelationDefinition relation) {
+        return relation.getAllIDs() + " " + relation.getAttributes().stream()
+                    .map(a -> a.getID() + ":" + a.getTermType() + (a.isNullable() ? "" : " NOT NULL"))
+                    .collect(Collectors.joining(", ", "(", ")"))
+                + relation.getUniqueConstraints().stream()
+                    .map(uc -> (uc.isPrimaryKey() ? "PK " : "UC ") + uc.getAttributes().stream()
+                            .map(a -> a.getID().getName())
+                            .collect(Collectors.joining(", ", "[", "]")))
+                    .sorted()
+                    .collect(Collectors.joining(" "," ", ""))
+                + relation.getForeignKeys().stream()
+                    .map(fk -> fk.getName() + " " + fk.getComponents().stream()
+                            .map(c -> c.getAttribute().getID().getName() + "->" + c.getReferencedAttribute().getID().getName())
+                            .collect(Collectors.joining(", ", "[", "]")))
+                    .sorted()
+                    .collect(Collectors.joining(" ", " ", ""));
+    }
+}
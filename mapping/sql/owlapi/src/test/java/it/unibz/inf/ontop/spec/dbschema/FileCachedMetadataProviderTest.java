@@ -0,0 +1,127 @@
+package it.unibz.inf.ontop.spec.dbschema;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import it.unibz.inf.ontop.dbschema.DBMetadataProvider;
+import it.unibz.inf.ontop.dbschema.impl.FileCachedMetadataProvider;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.*;
+
+public class FileCachedMetadataProviderTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:file-cached-metadata";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+        DBMetadataTestingTools.createTables(connection);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        File cacheFile = new File(folder.getRoot(), "metadata.json");
+
+        String extracted = extract(cacheFile, 0);
+        assertTrue(cacheFile.exists());
+        assertEquals(extracted, extract(cacheFile, 3));
+
+        assertTrue(extracted, extracted.contains("PK [COUNTRY, CODE]"));
+        assertTrue(extracted, extracted.contains("UC [SSN]"));
+        assertTrue(extracted, extracted.contains("FK_COMPANY [COUNTRY->COUNTRY, CODE->CODE]"));
+        assertTrue(extracted, extracted.contains("FK_PERSON [PERSON->ID]"));
+    }
+
+    @Test
+    public void testChangedRelation() throws Exception {
+        File cacheFile = new File(folder.getRoot(), "metadata.json");
+        extract(cacheFile, 0);
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("ALTER TABLE ORG.EMPLOYMENT ADD COLUMN SALARY DECIMAL(10, 2)");
+        }
+        String extracted = extract(cacheFile, 2);
+        assertTrue(extracted, extracted.contains("SALARY"));
+        assertTrue(extracted, extracted.contains("FK_COMPANY [COUNTRY->COUNTRY, CODE->CODE]"));
+
+        assertEquals(extracted, extract(cacheFile, 3));
+    }
+
+    @Test
+    public void testOtherSource() throws Exception {
+        File cacheFile = new File(folder.getRoot(), "metadata.json");
+        extract(cacheFile, 0);
+        extract(cacheFile, "jdbc:h2:mem:other", 0);
+    }
+
+    @Test
+    public void testChangedForeignKeyTarget() throws Exception {
+        File cacheFile = new File(folder.getRoot(), "metadata.json");
+        String extracted = extract(cacheFile, 0);
+
+        // Also changes the marker of the table (but not of the referencing one)
+        try (Statement st = connection.createStatement()) {
+            st.execute("INSERT INTO ORG.COMPANY VALUES ('IT', 1, 'ACME')");
+        }
+        Multiset<String> dbCalls = HashMultiset.create();
+        // ORG.EMPLOYMENT is served from the cache but not its constraints
+        assertEquals(extracted, extract(cacheFile, JDBC_URL, 2, dbCalls));
+        assertEquals(dbCalls.toString(), 2, dbCalls.count("insertIntegrityConstraints"));
+
+        dbCalls.clear();
+        assertEquals(extracted, extract(cacheFile, JDBC_URL, 3, dbCalls));
+        assertEquals(dbCalls.toString(), 0, dbCalls.count("insertIntegrityConstraints"));
+    }
+
+    private String extract(File cacheFile, int expectedHitCount) throws MetadataExtractionException {
+        return extract(cacheFile, JDBC_URL, expectedHitCount);
+    }
+
+    private String extract(File cacheFile, String source, int expectedHitCount) throws MetadataExtractionException {
+        return extract(cacheFile, source, expectedHitCount, HashMultiset.create());
+    }
+
+    /**
+     * The calls to the DB metadata provider are added to dbCalls
+     */
+    private String extract(File cacheFile, String source, int expectedHitCount, Multiset<String> dbCalls)
+            throws MetadataExtractionException {
+        DBMetadataProvider dbProvider = DBMetadataTestingTools.createDBMetadataProvider(connection, JDBC_URL, false);
+        DBMetadataProvider countingDBProvider = (DBMetadataProvider) Proxy.newProxyInstance(
+                FileCachedMetadataProviderTest.class.getClassLoader(),
+                new Class<?>[] { DBMetadataProvider.class },
+                (proxy, method, args) -> {
+                    dbCalls.add(method.getName());
+                    return DBMetadataTestingTools.invoke(dbProvider, method, args);
+                });
+        FileCachedMetadataProvider provider = new FileCachedMetadataProvider(countingDBProvider, cacheFile, source);
+
+        String result = DBMetadataTestingTools.extract(provider);
+        provider.save();
+
+        assertEquals(expectedHitCount, provider.getCacheHitCount());
+        return result;
+    }
+}